@@ -0,0 +1,116 @@
+package org.broadinstitute.hellbender.benchmark;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.utils.NGSPlatform;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible synthetic inputs shared by the JMH benchmarks.
+ *
+ * Everything is derived from a {@link Random} seeded with {@link #SEED}, so that two runs of a benchmark (on two
+ * different versions of the code) process exactly the same data and their results can be compared.
+ */
+public final class SyntheticData {
+    public static final long SEED = 42;
+
+    public static final String SAMPLE = "sample";
+    public static final String READ_GROUP = "rg";
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    private SyntheticData() { }
+
+    /**
+     * @return a new random generator seeded with {@link #SEED}
+     */
+    public static Random newRandom() {
+        return new Random(SEED);
+    }
+
+    /**
+     * @return {@code length} uniformly random bases
+     */
+    public static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    /**
+     * @return a copy of {@code bases} with a different base at {@code count} random positions
+     */
+    public static byte[] withSubstitutions(final Random random, final byte[] bases, final int count) {
+        final byte[] result = bases.clone();
+        for ( int n = 0; n < count; n++ ) {
+            final int position = random.nextInt(result.length);
+            result[position] = BASES[(indexOfBase(result[position]) + 1 + random.nextInt(BASES.length - 1)) % BASES.length];
+        }
+        return result;
+    }
+
+    private static int indexOfBase(final byte base) {
+        for ( int i = 0; i < BASES.length; i++ ) {
+            if ( BASES[i] == base ) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return a coordinate sorted header with a single contig named "1" and a single Illumina read group
+     */
+    public static SAMFileHeader makeHeader(final int contigLength) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, contigLength);
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(READ_GROUP);
+        readGroup.setSample(SAMPLE);
+        readGroup.setPlatform(NGSPlatform.ILLUMINA.getDefaultPlatform());
+        header.addReadGroup(readGroup);
+        return header;
+    }
+
+    /**
+     * Sample reads uniformly from a reference, with sequencing errors.
+     *
+     * @param header header returned by {@link #makeHeader}, whose first contig is {@code reference}
+     * @param reference bases of the first contig of the header, starting at position 1
+     * @param numberOfReads how many reads to create
+     * @param readLength length of every read; the reads are aligned without indels ({@code readLength}M)
+     * @param errorRate probability of each read base being a substitution
+     * @return reads sorted by alignment start
+     */
+    public static List<GATKRead> sampleReads(final Random random, final SAMFileHeader header, final byte[] reference,
+                                             final int numberOfReads, final int readLength, final double errorRate) {
+        Utils.validateArg(readLength <= reference.length, "reads can't be longer than the reference");
+        final int[] starts = new int[numberOfReads];
+        for ( int r = 0; r < numberOfReads; r++ ) {
+            starts[r] = 1 + random.nextInt(reference.length - readLength + 1);
+        }
+        Arrays.sort(starts);
+
+        final List<GATKRead> reads = new ArrayList<>(numberOfReads);
+        for ( int r = 0; r < numberOfReads; r++ ) {
+            final byte[] bases = new byte[readLength];
+            final byte[] quals = new byte[readLength];
+            for ( int i = 0; i < readLength; i++ ) {
+                final byte refBase = reference[starts[r] - 1 + i];
+                bases[i] = random.nextDouble() < errorRate ? withSubstitutions(random, new byte[]{refBase}, 1)[0] : refBase;
+                quals[i] = (byte) (20 + random.nextInt(21));
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + r, 0, starts[r], bases, quals, readLength + "M");
+            read.setReadGroup(READ_GROUP);
+            reads.add(read);
+        }
+        return reads;
+    }
+}
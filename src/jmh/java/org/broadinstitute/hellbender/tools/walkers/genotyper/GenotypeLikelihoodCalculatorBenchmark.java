@@ -0,0 +1,85 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeLikelihoods;
+import org.broadinstitute.hellbender.benchmark.SyntheticData;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the genotype likelihood calculation of one sample over a grid of ploidies and allele
+ * counts. The number of genotypes grows quickly with both, and genotypes with three or more distinct alleles, which go
+ * through the batched multiallelic kernel, only exist when both the ploidy and the allele count are above 2.
+ *
+ * Read likelihoods are random, with each read supporting one allele much better than the others, as reads usually do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenotypeLikelihoodCalculatorBenchmark {
+    @Param({"2", "4", "10", "20"})
+    public int ploidy;
+
+    @Param({"2", "4", "7"})
+    public int numberOfAlleles;
+
+    @Param({"100"})
+    public int numberOfReads;
+
+    private LikelihoodMatrix<SimpleInterval, Allele> likelihoods;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = SyntheticData.newRandom();
+        final byte[] reference = SyntheticData.randomBases(random, numberOfAlleles);
+        final List<Allele> alleles = new ArrayList<>(numberOfAlleles);
+        alleles.add(Allele.create(reference, true));
+        // alleles of increasing length, so that they are all distinct
+        for (int a = 1; a < numberOfAlleles; a++) {
+            alleles.add(Allele.create(SyntheticData.randomBases(random, a), false));
+        }
+
+        final List<SimpleInterval> evidence = new ArrayList<>(numberOfReads);
+        for (int r = 0; r < numberOfReads; r++) {
+            evidence.add(new SimpleInterval("1", r + 1, r + 150));
+        }
+        final AlleleLikelihoods<SimpleInterval, Allele> alleleLikelihoods = new AlleleLikelihoods<>(new IndexedSampleList(SyntheticData.SAMPLE),
+                new IndexedAlleleList<>(alleles), Collections.singletonMap(SyntheticData.SAMPLE, evidence));
+        likelihoods = alleleLikelihoods.sampleMatrix(0);
+        for (int r = 0; r < numberOfReads; r++) {
+            final int supportedAllele = random.nextInt(numberOfAlleles);
+            for (int a = 0; a < numberOfAlleles; a++) {
+                likelihoods.set(a, r, a == supportedAllele ? -random.nextDouble() : -5 - 20 * random.nextDouble());
+            }
+        }
+    }
+
+    @Benchmark
+    public GenotypeLikelihoods computeGenotypeLikelihoods() {
+        return GenotypeLikelihoodCalculator.log10GenotypeLikelihoods(ploidy, likelihoods);
+    }
+}
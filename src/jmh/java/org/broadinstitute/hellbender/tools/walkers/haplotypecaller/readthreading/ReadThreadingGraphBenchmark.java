@@ -0,0 +1,67 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.benchmark.SyntheticData;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the construction of a {@link ReadThreadingGraph} for a typical HaplotypeCaller assembly region:
+ * threading the reference and the reads into the graph, as done for each kmer size by the assembler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadThreadingGraphBenchmark {
+    private static final int REGION_LENGTH = 400;
+
+    @Param({"10", "25"})
+    public int kmerSize;
+
+    @Param({"100"})
+    public int coverage;
+
+    @Param({"151"})
+    public int readLength;
+
+    private SAMFileHeader header;
+    private byte[] reference;
+    private List<GATKRead> reads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = SyntheticData.newRandom();
+        header = SyntheticData.makeHeader(REGION_LENGTH);
+        reference = SyntheticData.randomBases(random, REGION_LENGTH);
+        reads = SyntheticData.sampleReads(random, header, reference, coverage * REGION_LENGTH / readLength, readLength, 0.01);
+    }
+
+    @Benchmark
+    public ReadThreadingGraph buildGraph() {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize);
+        graph.addSequence("ref", reference, true);
+        for ( final GATKRead read : reads ) {
+            graph.addRead(read, header);
+        }
+        graph.buildGraphIfNecessary();
+        return graph;
+    }
+}
@@ -0,0 +1,110 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.benchmark.SyntheticData;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LocusIteratorByState} building the pileups of a 10kb region at various depths, as
+ * AlignmentContexts and as reused {@link PileupColumn}s. Run with {@code ./gradlew jmh -PjmhArgs="LocusIteratorByState -prof gc"}
+ * to compare the allocation rates (gc.alloc.rate.norm) of the two.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocusIteratorByStateBenchmark {
+    private static final int REGION_LENGTH = 10_000;
+
+    @Param({"30", "300"})
+    public int coverage;
+
+    @Param({"151"})
+    public int readLength;
+
+    private SAMFileHeader header;
+    private List<GATKRead> reads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = SyntheticData.newRandom();
+        header = SyntheticData.makeHeader(REGION_LENGTH);
+        final byte[] reference = SyntheticData.randomBases(random, REGION_LENGTH);
+        reads = SyntheticData.sampleReads(random, header, reference, coverage * REGION_LENGTH / readLength, readLength, 0.01);
+    }
+
+    /**
+     * @return total number of pileup elements, so that the pileups can't be optimized away
+     */
+    @Benchmark
+    public long traverseRegion() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE,
+                Collections.singletonList(SyntheticData.SAMPLE), header, true);
+        long pileupElements = 0;
+        while ( libs.hasNext() ) {
+            final AlignmentContext context = libs.next();
+            pileupElements += context.getBasePileup().size();
+        }
+        return pileupElements;
+    }
+
+    @Benchmark
+    public long traverseRegionColumns() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE,
+                Collections.singletonList(SyntheticData.SAMPLE), header, true);
+        long pileupElements = 0;
+        while ( libs.hasNext() ) {
+            pileupElements += libs.nextColumn().size();
+        }
+        return pileupElements;
+    }
+
+    /**
+     * Counting the bases of each pileup, as GetPileupSummaries does at each variant site
+     *
+     * @return total count of A bases
+     */
+    @Benchmark
+    public long countBases() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE,
+                Collections.singletonList(SyntheticData.SAMPLE), header, true);
+        long aCount = 0;
+        while ( libs.hasNext() ) {
+            aCount += libs.next().getBasePileup().getBaseCounts()[0];
+        }
+        return aCount;
+    }
+
+    @Benchmark
+    public long countBasesColumns() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), DownsamplingMethod.NONE,
+                Collections.singletonList(SyntheticData.SAMPLE), header, true);
+        long aCount = 0;
+        while ( libs.hasNext() ) {
+            aCount += libs.nextColumn().getBaseCounts()[0];
+        }
+        return aCount;
+    }
+}
@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.benchmark.SyntheticData;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.StandardPairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the PairHMM implementations on one synthetic assembly region: a few haplotypes that
+ * differ from the reference by a SNP, and reads sampled from the reference with sequencing errors.
+ *
+ * Implementations that are not supported on the machine (eg. AVX on aarch64, or the Java Vector API if the JVM
+ * was not started with --add-modules jdk.incubator.vector) fail in their setup and are reported as errors by JMH.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PairHMMBenchmark {
+    @Param({"LOGLESS_CACHING", "VECTOR_API_LOGLESS_CACHING", "AVX_LOGLESS_CACHING"})
+    public PairHMM.Implementation implementation;
+
+    @Param({"150"})
+    public int readLength;
+
+    @Param({"400"})
+    public int haplotypeLength;
+
+    @Param({"8"})
+    public int numberOfHaplotypes;
+
+    @Param({"100"})
+    public int numberOfReads;
+
+    private PairHMM hmm;
+    private List<Haplotype> haplotypes;
+    private List<GATKRead> reads;
+    private Map<String, List<GATKRead>> readsBySample;
+    private final PairHMMInputScoreImputator inputScoreImputator = StandardPairHMMInputScoreImputator.newInstance((byte) 10);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = SyntheticData.newRandom();
+        final byte[] reference = SyntheticData.randomBases(random, haplotypeLength);
+        haplotypes = new ArrayList<>(numberOfHaplotypes);
+        haplotypes.add(new Haplotype(reference, true));
+        while ( haplotypes.size() < numberOfHaplotypes ) {
+            haplotypes.add(new Haplotype(SyntheticData.withSubstitutions(random, reference, 1), false));
+        }
+
+        // reads are sampled from the reference haplotype, as with low allele fractions
+        reads = SyntheticData.sampleReads(random, SyntheticData.makeHeader(haplotypeLength), reference, numberOfReads, readLength, 0.01);
+        readsBySample = Collections.singletonMap(SyntheticData.SAMPLE, reads);
+
+        final PairHMMNativeArguments args = new PairHMMNativeArguments();
+        args.maxNumberOfThreads = 1;
+        args.useDoublePrecision = false;
+        hmm = implementation.makeNewHMM(args);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hmm.close();
+    }
+
+    /**
+     * One assembly region worth of likelihoods, including the per-region initialization done by the likelihood engine
+     */
+    @Benchmark
+    public AlleleLikelihoods<GATKRead, Haplotype> computeLikelihoods() {
+        final AlleleLikelihoods<GATKRead, Haplotype> likelihoods = new AlleleLikelihoods<>(new IndexedSampleList(SyntheticData.SAMPLE),
+                new IndexedAlleleList<>(haplotypes), readsBySample);
+        hmm.initialize(haplotypes, readsBySample, readLength, haplotypeLength);
+        hmm.computeLog10Likelihoods(likelihoods.sampleMatrix(0), reads, inputScoreImputator);
+        return likelihoods;
+    }
+}
@@ -0,0 +1,80 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.benchmark.SyntheticData;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link BaseRecalibrationEngine#processRead}, the per-read work of BaseRecalibrator: computing the
+ * covariates and updating the recalibration tables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseRecalibrationEngineBenchmark {
+    private static final int REFERENCE_LENGTH = 100_000;
+    private static final int NUMBER_OF_READS = 1_000;
+
+    @Param({"151"})
+    public int readLength;
+
+    @Param({"false", "true"})
+    public boolean enableBAQ;
+
+    private SAMFileHeader header;
+    private ReferenceDataSource reference;
+    private List<GATKRead> reads;
+    private BaseRecalibrationEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = SyntheticData.newRandom();
+        header = SyntheticData.makeHeader(REFERENCE_LENGTH);
+        final byte[] referenceBases = SyntheticData.randomBases(random, REFERENCE_LENGTH);
+        reference = new ReferenceMemorySource(new ReferenceBases(referenceBases, new SimpleInterval("1", 1, REFERENCE_LENGTH)),
+                header.getSequenceDictionary());
+        reads = SyntheticData.sampleReads(random, header, referenceBases, NUMBER_OF_READS, readLength, 0.01);
+    }
+
+    @Setup(Level.Iteration)
+    public void createEngine() {
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.enableBAQ = enableBAQ;
+        engine = new BaseRecalibrationEngine(recalArgs, header);
+    }
+
+    /**
+     * @return number of reads processed so far, so that the work can't be optimized away
+     */
+    @Benchmark
+    public long processReads() {
+        for ( final GATKRead read : reads ) {
+            engine.processRead(read, reference, Collections.emptyList());
+        }
+        return engine.getNumReadsProcessed();
+    }
+}
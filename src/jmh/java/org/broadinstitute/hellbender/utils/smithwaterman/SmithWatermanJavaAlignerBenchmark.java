@@ -0,0 +1,86 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link SmithWatermanJavaAligner} aligning the haplotypes of an assembly region back to the reference,
+ * as done by the HaplotypeCaller for every assembled haplotype.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmithWatermanJavaAlignerBenchmark {
+    private static final int NUMBER_OF_HAPLOTYPES = 16;
+
+    @Param({"NEW_SW_PARAMETERS", "STANDARD_NGS"})
+    public String parameters;
+
+    @Param({"500"})
+    public int referenceLength;
+
+    private SWParameters swParameters;
+    private byte[] reference;
+    private List<byte[]> haplotypes;
+    private final SmithWatermanJavaAligner aligner = SmithWatermanJavaAligner.getInstance();
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        swParameters = (SWParameters) SmithWatermanAlignmentConstants.class.getField(parameters).get(null);
+
+        final Random random = SyntheticData.newRandom();
+        reference = SyntheticData.randomBases(random, referenceLength);
+        haplotypes = new ArrayList<>(NUMBER_OF_HAPLOTYPES);
+        for ( int h = 0; h < NUMBER_OF_HAPLOTYPES; h++ ) {
+            // a couple of SNPs plus an insertion and a deletion, away from the edges
+            final byte[] withSnps = SyntheticData.withSubstitutions(random, reference, 2);
+            final int deletionStart = referenceLength / 4 + random.nextInt(referenceLength / 4);
+            final int insertionStart = referenceLength / 2 + random.nextInt(referenceLength / 4);
+            final byte[] insertion = SyntheticData.randomBases(random, 1 + random.nextInt(5));
+            final int deletionLength = 1 + random.nextInt(5);
+
+            final byte[] haplotype = new byte[referenceLength - deletionLength + insertion.length];
+            int n = 0;
+            for ( int i = 0; i < referenceLength; i++ ) {
+                if ( i == insertionStart ) {
+                    for ( final byte b : insertion ) {
+                        haplotype[n++] = b;
+                    }
+                }
+                if ( i < deletionStart || i >= deletionStart + deletionLength ) {
+                    haplotype[n++] = withSnps[i];
+                }
+            }
+            haplotypes.add(haplotype);
+        }
+    }
+
+    @Benchmark
+    public void alignHaplotypesToReference(final Blackhole blackhole) {
+        for ( final byte[] haplotype : haplotypes ) {
+            blackhole.consume(aligner.align(reference, haplotype, swParameters, SWOverhangStrategy.SOFTCLIP));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import htsjdk.variant.vcf.VCFStandardHeaderLines;
+import org.broadinstitute.hellbender.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of encoding {@link VariantContext}s as VCF lines, the per-record cost of every tool writing a VCF.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariantContextEncodingBenchmark {
+    private static final int NUMBER_OF_VARIANTS = 1_000;
+
+    @Param({"1", "100"})
+    public int numberOfSamples;
+
+    private VCFEncoder encoder;
+    private List<VariantContext> variants;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = SyntheticData.newRandom();
+        final List<String> samples = new ArrayList<>(numberOfSamples);
+        for ( int s = 0; s < numberOfSamples; s++ ) {
+            samples.add(SyntheticData.SAMPLE + s);
+        }
+
+        final Set<VCFHeaderLine> headerLines = new HashSet<>();
+        for ( final String key : Arrays.asList(VCFConstants.GENOTYPE_KEY, VCFConstants.GENOTYPE_ALLELE_DEPTHS,
+                VCFConstants.DEPTH_KEY, VCFConstants.GENOTYPE_QUALITY_KEY, VCFConstants.GENOTYPE_PL_KEY) ) {
+            headerLines.add(VCFStandardHeaderLines.getFormatLine(key));
+        }
+        headerLines.add(VCFStandardHeaderLines.getInfoLine(VCFConstants.DEPTH_KEY));
+        final VCFHeader header = new VCFHeader(headerLines, samples);
+        header.setSequenceDictionary(SyntheticData.makeHeader(NUMBER_OF_VARIANTS * 100).getSequenceDictionary());
+        encoder = new VCFEncoder(header, false, false);
+
+        final byte[] reference = SyntheticData.randomBases(random, NUMBER_OF_VARIANTS);
+        variants = new ArrayList<>(NUMBER_OF_VARIANTS);
+        for ( int v = 0; v < NUMBER_OF_VARIANTS; v++ ) {
+            final Allele ref = Allele.create(reference[v], true);
+            final Allele alt = Allele.create(SyntheticData.withSubstitutions(random, new byte[]{reference[v]}, 1)[0], false);
+            final List<Genotype> genotypes = new ArrayList<>(numberOfSamples);
+            int totalDepth = 0;
+            for ( final String sample : samples ) {
+                final int refDepth = random.nextInt(30);
+                final int altDepth = random.nextInt(30);
+                totalDepth += refDepth + altDepth;
+                genotypes.add(new GenotypeBuilder(sample, Arrays.asList(ref, altDepth > refDepth ? alt : ref))
+                        .AD(new int[]{refDepth, altDepth})
+                        .DP(refDepth + altDepth)
+                        .GQ(random.nextInt(100))
+                        .PL(new int[]{random.nextInt(1000), random.nextInt(100), random.nextInt(1000)})
+                        .make());
+            }
+            variants.add(new VariantContextBuilder("benchmark", "1", 100L * v + 1, 100L * v + 1, Arrays.asList(ref, alt))
+                    .genotypes(genotypes)
+                    .attribute(VCFConstants.DEPTH_KEY, totalDepth)
+                    .make());
+        }
+    }
+
+    @Benchmark
+    public void encodeVariants(final Blackhole blackhole) {
+        for ( final VariantContext variant : variants ) {
+            blackhole.consume(encoder.encode(variant));
+        }
+    }
+}
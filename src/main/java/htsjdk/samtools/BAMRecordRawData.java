@@ -0,0 +1,180 @@
+package htsjdk.samtools;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answers common questions about {@link BAMRecord}s (read group and other tags, number of base qualities and of CIGAR
+ * elements) straight from their raw variable-length data, as read from the BAM file, instead of decoding the CIGAR,
+ * bases, qualities and all the tags of the records into objects.
+ *
+ * The raw data is only used while it is up to date, ie. until the record is modified: each method returns a value
+ * meaning "unknown" otherwise, and callers must then fall back to the (decoded) record. This class is in the htsjdk
+ * package in order to access the binary size of the tags of records.
+ */
+public final class BAMRecordRawData {
+    /**
+     * Returned by {@link #getStringTag} if the value can't be read from the raw data
+     */
+    public static final Object UNKNOWN = new Object();
+
+    private static final short CIGAR_TAG = SAMTag.makeBinaryTag("CG");
+
+    private static final int TAG_KEY_LENGTH = 2;
+
+    // results of findTag other than offsets
+    private static final int NOT_FOUND = -1;
+    private static final int MALFORMED = -2;
+
+    private BAMRecordRawData() {}
+
+    /**
+     * @return the value of a String (type Z) tag of the record, null if the record doesn't have the tag, or
+     *         {@link #UNKNOWN} if the tag can't be read from the raw data (eg. because it has another type)
+     */
+    public static Object getStringTag(final BAMRecord record, final short binaryTag) {
+        final byte[] data = record.getVariableBinaryRepresentation();
+        final int tagsOffset = getTagsOffset(record, data);
+        if (tagsOffset < 0) {
+            return UNKNOWN;
+        }
+        final int typeOffset = findTag(data, tagsOffset, binaryTag);
+        if (typeOffset == NOT_FOUND) {
+            return null;
+        } else if (typeOffset < 0 || data[typeOffset] != 'Z') {
+            return UNKNOWN;
+        }
+        int end = typeOffset + 1;
+        while (end < data.length && data[end] != 0) {
+            end++;
+        }
+        return new String(data, typeOffset + 1, end - typeOffset - 1, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return TRUE if the record has the tag, FALSE if it doesn't, or null if that can't be determined from the raw data
+     */
+    public static Boolean hasTag(final BAMRecord record, final short binaryTag) {
+        final byte[] data = record.getVariableBinaryRepresentation();
+        final int tagsOffset = getTagsOffset(record, data);
+        if (tagsOffset < 0) {
+            return null;
+        }
+        final int typeOffset = findTag(data, tagsOffset, binaryTag);
+        return typeOffset == MALFORMED ? null : typeOffset != NOT_FOUND;
+    }
+
+    /**
+     * @return the number of base qualities of the record (0 if they are missing), or -1 if it can't be determined
+     *         from the raw data
+     */
+    public static int getBaseQualityCount(final BAMRecord record) {
+        final byte[] data = record.getVariableBinaryRepresentation();
+        final int tagsOffset = getTagsOffset(record, data);
+        if (tagsOffset < 0) {
+            return -1;
+        }
+        final int readLength = record.getReadLength();
+        // missing qualities are stored as 0xff for each base
+        return readLength == 0 || data[tagsOffset - readLength] == (byte) 0xff ? 0 : readLength;
+    }
+
+    /**
+     * @return the number of CIGAR elements of the record, or -1 if it can't be determined from the raw data (which
+     *         includes records whose CIGAR is too long for BAM records and is stored in their CG tag)
+     */
+    public static int getCigarLength(final BAMRecord record) {
+        final byte[] data = record.getVariableBinaryRepresentation();
+        final int tagsOffset = getTagsOffset(record, data);
+        if (tagsOffset < 0 || findTag(data, tagsOffset, CIGAR_TAG) != NOT_FOUND) {
+            return -1;
+        }
+        int readNameLength = 0;
+        while (readNameLength < data.length && data[readNameLength] != 0) {
+            readNameLength++;
+        }
+        final int readLength = record.getReadLength();
+        final int cigarSize = tagsOffset - (readNameLength + 1) - (readLength + 1) / 2 - readLength;
+        return cigarSize >= 0 && cigarSize % 4 == 0 ? cigarSize / 4 : -1;
+    }
+
+    /**
+     * @param data raw data of the record, as returned by {@link BAMRecord#getVariableBinaryRepresentation}
+     * @return the offset of the tags in the raw data of the record, or -1 if the raw data is stale
+     */
+    private static int getTagsOffset(final BAMRecord record, final byte[] data) {
+        if (data == null) {
+            return -1;
+        }
+        final int tagsSize = record.getAttributesBinarySize();
+        return tagsSize < 0 || tagsSize > data.length ? -1 : data.length - tagsSize;
+    }
+
+    /**
+     * @return the offset of the type of the tag, {@link #NOT_FOUND} if there is no such tag, or {@link #MALFORMED} if
+     *         the tags can't be parsed
+     */
+    private static int findTag(final byte[] data, final int tagsOffset, final short binaryTag) {
+        int offset = tagsOffset;
+        while (offset + TAG_KEY_LENGTH < data.length) {
+            // binary tags hold the second character in their high byte, as in BinaryTagCodec
+            final short tag = (short) ((data[offset] & 0xff) | ((data[offset + 1] & 0xff) << 8));
+            final int typeOffset = offset + TAG_KEY_LENGTH;
+            if (tag == binaryTag) {
+                return typeOffset;
+            }
+            final int valueSize = getValueSize(data, typeOffset);
+            if (valueSize < 0) {
+                return MALFORMED;
+            }
+            offset = typeOffset + 1 + valueSize;
+        }
+        return offset == data.length ? NOT_FOUND : MALFORMED;
+    }
+
+    /**
+     * @return the size of the value of a tag, or -1 if its type is unknown or the value is truncated
+     */
+    private static int getValueSize(final byte[] data, final int typeOffset) {
+        final int valueOffset = typeOffset + 1;
+        switch (data[typeOffset]) {
+            case 'A': case 'c': case 'C':
+                return 1;
+            case 's': case 'S':
+                return 2;
+            case 'i': case 'I': case 'f':
+                return 4;
+            case 'Z': case 'H': {
+                int end = valueOffset;
+                while (end < data.length && data[end] != 0) {
+                    end++;
+                }
+                return end < data.length ? end - valueOffset + 1 : -1;
+            }
+            case 'B': {
+                if (valueOffset + 5 > data.length) {
+                    return -1;
+                }
+                final int elementSize = getArrayElementSize(data[valueOffset]);
+                final long count = (data[valueOffset + 1] & 0xffL) | ((data[valueOffset + 2] & 0xffL) << 8) |
+                        ((data[valueOffset + 3] & 0xffL) << 16) | ((data[valueOffset + 4] & 0xffL) << 24);
+                final long size = 5 + count * elementSize;
+                return elementSize < 0 || valueOffset + size > data.length ? -1 : (int) size;
+            }
+            default:
+                return -1;
+        }
+    }
+
+    private static int getArrayElementSize(final byte type) {
+        switch (type) {
+            case 'c': case 'C':
+                return 1;
+            case 's': case 'S':
+                return 2;
+            case 'i': case 'I': case 'f':
+                return 4;
+            default:
+                return -1;
+        }
+    }
+}
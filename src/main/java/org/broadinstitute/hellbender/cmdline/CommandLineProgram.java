@@ -23,6 +23,8 @@ import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.help.HelpConstants;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
 import org.broadinstitute.hellbender.utils.runtime.RuntimeUtils;
 
 import java.io.IOException;
@@ -81,6 +83,12 @@ public abstract class CommandLineProgram implements CommandLinePluginProvider {
     @Argument(fullName = StandardArgumentDefinitions.USE_JDK_INFLATER_LONG_NAME, shortName = StandardArgumentDefinitions.USE_JDK_INFLATER_SHORT_NAME, doc = "Whether to use the JdkInflater (as opposed to IntelInflater)", common=true)
     public boolean useJdkInflater = false;
 
+    @Argument(fullName = StandardArgumentDefinitions.BGZF_COMPRESSION_THREADS_LONG_NAME, doc = "Number of threads that compress the blocks of the block-compressed outputs written by GATK (eg. .vcf.gz, tabix-indexed feature files, .bci files and BAM files written in the order of their header, as by PrintReads and ApplyBQSR), 0 to compress them on the writing thread. Outputs that need an MD5 file are compressed on the writing thread. Does not apply to CRAM outputs, which are not block-gzip compressed.", common=true, optional=true, minValue = 0)
+    public int bgzfCompressionThreads = 0;
+
+    @Argument(fullName = StandardArgumentDefinitions.BGZF_DECOMPRESSION_THREADS_LONG_NAME, doc = "Number of threads that decompress the blocks of block-compressed inputs (BAM, .vcf.gz and other block-compressed feature files) when they are read from start to end, 0 to let htsjdk decompress them on the reading thread. Does not apply to traversals by intervals.", common=true, optional=true, minValue = 0)
+    public int bgzfDecompressionThreads = 0;
+
     @Argument(fullName = StandardArgumentDefinitions.NIO_MAX_REOPENS_LONG_NAME, shortName = StandardArgumentDefinitions.NIO_MAX_REOPENS_SHORT_NAME, doc = "If the GCS bucket channel errors out, how many times it will attempt to re-initiate the connection", optional = true)
     public int NIO_MAX_REOPENS = ConfigFactory.getInstance().getGATKConfig().gcsMaxRetries();
 
@@ -109,6 +117,11 @@ public abstract class CommandLineProgram implements CommandLinePluginProvider {
      */
     private String commandLine;
 
+    /**
+     * The arguments this program was parsed from, or null if its arguments were not parsed from a command line
+     */
+    private String[] commandLineArguments;
+
     /**
      * Perform initialization/setup after command-line argument parsing but before doWork() is invoked.
      * Default implementation does nothing.
@@ -190,6 +203,8 @@ public abstract class CommandLineProgram implements CommandLinePluginProvider {
         if (! useJdkInflater) {
             BlockGunzipper.setDefaultInflaterFactory(new IntelInflaterFactory());
         }
+        ParallelBlockCompressedOutputStream.setDefaultCompressionThreads(bgzfCompressionThreads);
+        ParallelBlockCompressedInputStream.setDefaultDecompressionThreads(bgzfDecompressionThreads);
 
         BucketUtils.setGlobalNIODefaultOptions(NIO_MAX_REOPENS, NIO_PROJECT_FOR_REQUESTER_PAYS);
 
@@ -243,6 +258,7 @@ public abstract class CommandLineProgram implements CommandLinePluginProvider {
 
         final boolean ret = getCommandLineParser().parseArguments(System.err, argv);
         commandLine = getCommandLineParser().getCommandLine();
+        commandLineArguments = argv.clone();
         if (!ret) {
             return false;
         }
@@ -255,6 +271,14 @@ public abstract class CommandLineProgram implements CommandLinePluginProvider {
 
     }
 
+    /**
+     * @return a copy of the arguments this program was parsed from, which can be used to parse another instance of the
+     *         program with the same arguments; null if the arguments of this program were not parsed from a command line
+     */
+    protected final String[] getCommandLineArguments() {
+        return commandLineArguments == null ? null : commandLineArguments.clone();
+    }
+
     /**
      * Return the list of GATKCommandLinePluginDescriptors to be used for this CLP.
      * Default implementation returns null. Subclasses can override this to return a custom list.
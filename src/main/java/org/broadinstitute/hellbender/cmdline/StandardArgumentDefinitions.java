@@ -107,6 +107,8 @@ public final class StandardArgumentDefinitions {
     public static final String USE_JDK_DEFLATER_SHORT_NAME = "jdk-deflater";
     public static final String USE_JDK_INFLATER_LONG_NAME = "use-jdk-inflater";
     public static final String USE_JDK_INFLATER_SHORT_NAME = "jdk-inflater";
+    public static final String BGZF_COMPRESSION_THREADS_LONG_NAME = "bgzf-compression-threads";
+    public static final String BGZF_DECOMPRESSION_THREADS_LONG_NAME = "bgzf-decompression-threads";
     public static final String NIO_MAX_REOPENS_LONG_NAME = "gcs-max-retries";
     public static final String NIO_MAX_REOPENS_SHORT_NAME = "gcs-retries";
     public static final String NIO_PROJECT_FOR_REQUESTER_PAYS_LONG_NAME = "gcs-project-for-requester-pays";
@@ -19,6 +19,7 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * An AssemblyRegionWalker is a tool that processes an entire region of reads at a time, each marked as either "active"
@@ -162,6 +163,11 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
+        // Each shard is a traversal of its padded intervals, which the reads source can prefetch
+        reads.setUpcomingTraversals(readShards.stream()
+                .map(shard -> new TraversalParameters(shard.getPaddedIntervals(), false))
+                .collect(Collectors.toList()));
+
         for ( final MultiIntervalLocalReadShard readShard : readShards ) {
             // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
             // instead of filtering the reads directly here
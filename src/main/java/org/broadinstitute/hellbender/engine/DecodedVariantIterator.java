@@ -0,0 +1,158 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Iterator over the variants of one source, decoded ahead of the consumer on a pool of worker threads (see
+ * {@link MultiVariantDataSource#enableParallelDecoding}).
+ *
+ * The source is decoded in batches. The decoding of each batch is chained to the decoding of the previous one, so the
+ * source is only ever iterated by one thread at a time, and no worker ever blocks waiting for the consumer: a pool with
+ * fewer threads than sources keeps decoding whichever sources the merge is waiting for. The number of batches decoded
+ * ahead of the consumer is bounded, so that memory usage stays proportional to the number of sources.
+ *
+ * Lazily-parsed genotypes are decoded on the worker as well, both because that is most of the cost of parsing a
+ * record with many samples, and because the parser of the codec is not safe to use from the consumer thread while the
+ * worker parses the next records.
+ */
+final class DecodedVariantIterator implements CloseableIterator<VariantContext> {
+
+    /**
+     * Number of variants decoded at once, large enough to amortize the cost of scheduling
+     */
+    static final int VARIANTS_PER_BATCH = 256;
+
+    /**
+     * How many batches may be decoded ahead of the consumer
+     */
+    static final int MAX_PENDING_BATCHES = 2;
+
+    private final Iterator<VariantContext> source;
+
+    private final Executor decoderService;
+
+    private final String sourceName;
+
+    /**
+     * Batches being decoded, in source order. The last one is the tail of the chain, which completes after all others.
+     */
+    private final Deque<CompletableFuture<List<VariantContext>>> pendingBatches = new ArrayDeque<>(MAX_PENDING_BATCHES);
+
+    private Iterator<VariantContext> currentBatch = Collections.emptyIterator();
+
+    private boolean exhausted = false;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param source variants to decode. Only ever iterated by the worker threads, one at a time.
+     * @param decoderService pool of worker threads, which may be shared with other sources
+     * @param sourceName name of the source, for error messages
+     */
+    DecodedVariantIterator(final Iterator<VariantContext> source, final Executor decoderService, final String sourceName) {
+        this.source = Utils.nonNull(source);
+        this.decoderService = Utils.nonNull(decoderService);
+        this.sourceName = sourceName;
+        for ( int i = 0; i < MAX_PENDING_BATCHES; i++ ) {
+            scheduleNextBatch();
+        }
+    }
+
+    private void scheduleNextBatch() {
+        final CompletableFuture<List<VariantContext>> batch = pendingBatches.isEmpty() ?
+                CompletableFuture.supplyAsync(this::decodeBatch, decoderService) :
+                pendingBatches.peekLast().thenApplyAsync(previous -> previous.isEmpty() ? previous : decodeBatch(), decoderService);
+        pendingBatches.addLast(batch);
+    }
+
+    /**
+     * Body of the workers: decode the next batch of the source, or return an empty batch at the end of the source
+     */
+    private List<VariantContext> decodeBatch() {
+        final List<VariantContext> batch = new ArrayList<>(VARIANTS_PER_BATCH);
+        while ( !closed && batch.size() < VARIANTS_PER_BATCH && source.hasNext() ) {
+            final VariantContext variant = source.next();
+            final GenotypesContext genotypes = variant.getGenotypes();
+            if ( genotypes instanceof LazyGenotypesContext ) {
+                ((LazyGenotypesContext) genotypes).decode();
+            }
+            batch.add(variant);
+        }
+        return batch;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while ( !currentBatch.hasNext() && !exhausted ) {
+            final List<VariantContext> batch = waitFor(pendingBatches.removeFirst());
+            if ( batch.isEmpty() ) {
+                exhausted = true;
+            } else {
+                scheduleNextBatch();
+                currentBatch = batch.iterator();
+            }
+        }
+        return currentBatch.hasNext();
+    }
+
+    @Override
+    public VariantContext next() {
+        if ( !hasNext() ) {
+            throw new NoSuchElementException("hasNext should be called before next");
+        }
+        return currentBatch.next();
+    }
+
+    private List<VariantContext> waitFor(final CompletableFuture<List<VariantContext>> batch) {
+        try {
+            return batch.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for variants from " + sourceName, e);
+        } catch (final ExecutionException e) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Error decoding variants from " + sourceName, e.getCause());
+        }
+    }
+
+    /**
+     * Stop decoding, and wait until no worker is using the source any more, so that the source can be iterated again.
+     * Variants that have not been consumed yet are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if ( !pendingBatches.isEmpty() ) {
+            // the tail of the chain completes (normally or not) after all other batches
+            try {
+                pendingBatches.peekLast().handle((batch, error) -> null).get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                // can't happen: handle() doesn't fail
+                throw new GATKException("BUG: error while waiting for variant decoding to stop", e);
+            }
+            pendingBatches.clear();
+        }
+        currentBatch = Collections.emptyIterator();
+        exhausted = true;
+    }
+}
@@ -32,7 +32,7 @@ import java.util.*;
  *
  * @param <CACHED_FEATURE> Type of Feature record we are caching
  */
-class FeatureCache<CACHED_FEATURE extends Feature> {
+class FeatureCache<CACHED_FEATURE extends Feature> implements FeatureQueryCache<CACHED_FEATURE> {
     private static final Logger logger = LogManager.getLogger(FeatureCache.class);
 
     /**
@@ -113,6 +113,7 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
     /**
      * @return Number of times we called {@link #cacheHit(SimpleInterval)} and it returned true
      */
+    @Override
     public int getNumCacheHits() {
         return numCacheHits;
     }
@@ -120,6 +121,7 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
     /**
      * @return Number of times we called {@link #cacheHit(SimpleInterval)} and it returned false
      */
+    @Override
     public int getNumCacheMisses() {
         return numCacheMisses;
     }
@@ -136,6 +138,7 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
      *                    (replacing existing cache contents)
      * @param interval all Features from featureIter overlap this interval
      */
+    @Override
     public void fill( final Iterator<CACHED_FEATURE> featureIter, final SimpleInterval interval ) {
         cache.clear();
         while ( featureIter.hasNext() ) {
@@ -151,6 +154,7 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
      * @param interval the interval to check against the contents of our cache
      * @return true if all records overlapping the provided interval are already contained in our cache, otherwise false
      */
+    @Override
     public boolean cacheHit( final Locatable interval ) {
         final boolean cacheHit = cachedInterval != null && cachedInterval.contains(interval);
 
@@ -223,9 +227,23 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
         return matchingFeatures;
     }
 
+    /**
+     * Trims the cache to the start of the interval, then returns the Features up to its end. Since a hit means that
+     * the query didn't start before the cache, the start of the cache only ever moves forward.
+     *
+     * @param interval the query interval, which must be contained in the cache
+     * @return all cached Features that overlap the interval
+     */
+    @Override
+    public List<CACHED_FEATURE> getCachedFeatures( final Locatable interval ) {
+        trimToNewStartPosition(interval.getStart());
+        return getCachedFeaturesUpToStopPosition(interval.getEnd());
+    }
+
     /**
      * Print statistics about the cache hit rate for debugging.
      */
+    @Override
     public void printCacheStatistics() {
         printCacheStatistics("");
     }
@@ -234,6 +252,7 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
      * Print statistics about the cache hit rate for debugging.
      * @param sourceName The source for the features in this cache.
      */
+    @Override
     public void printCacheStatistics(final String sourceName) {
 
         final String sourceNameString = sourceName.isEmpty() ? "" : "for data source " + sourceName;
@@ -6,6 +6,7 @@ import htsjdk.samtools.util.Locatable;
 import htsjdk.tribble.*;
 import htsjdk.variant.bcf2.BCF2Codec;
 import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.AbstractVCFCodec;
 import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFHeader;
 import org.apache.logging.log4j.LogManager;
@@ -18,10 +19,13 @@ import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.utils.IndexUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.codecs.VCFColumnSelectingCodec;
+import org.broadinstitute.hellbender.utils.codecs.VCFLineRetainingCodec;
 import org.broadinstitute.hellbender.tools.sv.SVFeaturesHeader;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStream.Reader;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
 import org.genomicsdb.model.GenomicsDBExportConfiguration;
 import org.genomicsdb.reader.GenomicsDBFeatureReader;
 
@@ -35,6 +39,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.broadinstitute.hellbender.tools.genomicsdb.GATKGenomicsDBUtils.createExportConfiguration;
 import static org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStream.BCI_FILE_EXTENSION;
@@ -61,7 +66,8 @@ import static org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStre
  * following each interval during a query and caching them. Performance will suffer if the access pattern is
  * random, involves queries over intervals with DECREASING start positions instead of INCREASING start positions,
  * or involves lots of very large jumps forward on the genome or lots of contig switches. Query caching
- * can be disabled, if desired.
+ * can be disabled, if desired. Access patterns that go back and forth between a few regions can keep several
+ * blocks of records in the cache instead, via {@link #setQueryCacheBlocks(int)}.
  *
  * @param <T> The type of Feature returned by this data source
  */
@@ -81,6 +87,12 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private CloseableTribbleIterator<T> currentIterator;
 
+    /**
+     * Makes new instances of the codec of our feature reader, for the traversals of whole block-compressed files
+     * that are decompressed in parallel (see {@link #iterator}). Null for GenomicsDB inputs.
+     */
+    private final Supplier<FeatureCodec<T, ?>> codecFactory;
+
     /**
      * Our intervals for traversal. If set, restricts full traversals initiated via {@link #iterator} to
      * return only Features overlapping this set of intervals. Does not affect individual queries
@@ -90,12 +102,13 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
     /**
      * Cache containing Features from recent queries initiated via {@link #query(SimpleInterval)} and/or
-     * {@link #queryAndPrefetch(Locatable)}. This is guaranteed to start at the start position of the
-     * most recent query, but will typically end well after the end of the most recent query. Designed to
-     * improve performance of the common access pattern involving multiple queries across nearby intervals
-     * with gradually increasing start positions.
+     * {@link #queryAndPrefetch(Locatable)}. By default, this is a {@link FeatureCache}, which is guaranteed to
+     * start at the start position of the most recent query, but will typically end well after the end of the
+     * most recent query. Designed to improve performance of the common access pattern involving multiple queries
+     * across nearby intervals with gradually increasing start positions. See {@link #setQueryCacheBlocks} for
+     * other access patterns.
      */
-    private final FeatureCache<T> queryCache;
+    private FeatureQueryCache<T> queryCache;
 
     /**
      * When we experience a cache miss (ie., a query interval not fully contained within our cache) and need
@@ -308,6 +321,55 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
                              final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final GenomicsDBOptions genomicsDBOptions,
                              final boolean setNameOnCodec) {
+        this(featureInput, queryLookaheadBases, targetFeatureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                genomicsDBOptions, setNameOnCodec, VariantColumnSelection.ALL);
+    }
+
+    /**
+     * Creates a FeatureDataSource backed by the provided FeatureInput. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * @param featureInput             a FeatureInput specifying a source of Features
+     * @param queryLookaheadBases      look ahead this many bases during queries that produce cache misses
+     * @param targetFeatureType        When searching for a {@link FeatureCodec} for this data source, restrict the search to codecs
+     *                                 that produce this type of Feature. May be null, which results in an unrestricted search.
+     * @param cloudPrefetchBuffer      MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param genomicsDBOptions         options and info for reading from a GenomicsDB; may be null
+     * @param setNameOnCodec            If true, and if this FeatureDataSource uses a NameAwareCodec, the name of the FeatureInput will be used to set the codec's name. This exists as a mechanism to store the FeatureInput name in the source field of VariantContexts
+     * @param columnSelection          If the Features are variants from a VCF file, decode only these columns of each record (see {@link VariantColumnSelection}).
+     *                                 Ignored for other types of Features.
+     */
+    public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
+                             final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final GenomicsDBOptions genomicsDBOptions,
+                             final boolean setNameOnCodec, final VariantColumnSelection columnSelection) {
+        this(featureInput, queryLookaheadBases, targetFeatureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                genomicsDBOptions, setNameOnCodec, columnSelection, false);
+    }
+
+    /**
+     * Creates a FeatureDataSource backed by the provided FeatureInput. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * @param featureInput             a FeatureInput specifying a source of Features
+     * @param queryLookaheadBases      look ahead this many bases during queries that produce cache misses
+     * @param targetFeatureType        When searching for a {@link FeatureCodec} for this data source, restrict the search to codecs
+     *                                 that produce this type of Feature. May be null, which results in an unrestricted search.
+     * @param cloudPrefetchBuffer      MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param genomicsDBOptions         options and info for reading from a GenomicsDB; may be null
+     * @param setNameOnCodec            If true, and if this FeatureDataSource uses a NameAwareCodec, the name of the FeatureInput will be used to set the codec's name. This exists as a mechanism to store the FeatureInput name in the source field of VariantContexts
+     * @param columnSelection          If the Features are variants from a VCF file, decode only these columns of each record (see {@link VariantColumnSelection}).
+     *                                 Ignored for other types of Features.
+     * @param retainVCFLines           If true, and if the Features are variants from a VCF file, keep the line of each record in the variants
+     *                                 (see {@link VCFLineRetainingCodec}), so that unmodified records can be written out as is. Requires a
+     *                                 columnSelection that selects all columns.
+     */
+    public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
+                             final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final GenomicsDBOptions genomicsDBOptions,
+                             final boolean setNameOnCodec, final VariantColumnSelection columnSelection, final boolean retainVCFLines) {
+        Utils.nonNull(columnSelection, "columnSelection must not be null");
+        Utils.validateArg(!retainVCFLines || columnSelection.selectsAll(), "The lines of VCF records can only be retained if all of their columns are decoded");
         Utils.validateArg(queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         this.featureInput = Utils.nonNull(featureInput, "featureInput must not be null");
         if (IOUtils.isGenomicsDBPath(featureInput)) {
@@ -319,7 +381,9 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         this.featureReader = getFeatureReader(featureInput, targetFeatureType,
                 BucketUtils.getPrefetchingWrapper(cloudPrefetchBuffer),
                 BucketUtils.getPrefetchingWrapper(cloudIndexPrefetchBuffer),
-                genomicsDBOptions, setNameOnCodec);
+                genomicsDBOptions, setNameOnCodec, columnSelection, retainVCFLines);
+        this.codecFactory = IOUtils.isGenomicsDBPath(featureInput) ? null :
+                () -> makeCodec(featureInput, targetFeatureType, setNameOnCodec, columnSelection, retainVCFLines);
 
         if (IOUtils.isGenomicsDBPath(featureInput) ||
                 featureInput.getFeaturePath().toLowerCase().endsWith(BCI_FILE_EXTENSION)) {
@@ -349,11 +413,42 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         queryCache.printCacheStatistics( getName() );
     }
 
+    /**
+     * Set the number of blocks of Features (each covering the interval of a query that missed the cache, plus the
+     * query lookahead) that the query cache keeps in memory. With a single block (the default), the cache only moves
+     * forward, which suits queries with increasing start positions. With more blocks, the cache keeps the least
+     * recently used blocks in an interval tree, so that queries that go back to a recent block (eg., for the mates
+     * of read pairs, or for flanking regions) don't have to go back to disk.
+     * <p>
+     * Discards the current contents and statistics of the cache.
+     *
+     * @param numBlocks number of blocks to keep in memory (> 0)
+     */
+    public void setQueryCacheBlocks(final int numBlocks) {
+        Utils.validateArg(numBlocks > 0, "The number of query cache blocks must be > 0");
+        queryCache = numBlocks == 1 ? new FeatureCache<>() : new IntervalTreeFeatureCache<>(numBlocks);
+    }
+
+    /**
+     * @return Number of queries so far that were satisfied from the query cache
+     */
+    public int getNumCacheHits() {
+        return queryCache.getNumCacheHits();
+    }
+
+    /**
+     * @return Number of queries so far that had to go to disk
+     */
+    public int getNumCacheMisses() {
+        return queryCache.getNumCacheMisses();
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     private static <T extends Feature> FeatureReader<T> getFeatureReader(final FeatureInput<T> featureInput, final Class<? extends Feature> targetFeatureType,
                                                                          final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
                                                                          final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper,
-                                                                         final GenomicsDBOptions genomicsDBOptions, final boolean setNameOnCodec) {
+                                                                         final GenomicsDBOptions genomicsDBOptions, final boolean setNameOnCodec,
+                                                                         final VariantColumnSelection columnSelection, final boolean retainVCFLines) {
         if (IOUtils.isGenomicsDBPath(featureInput.getFeaturePath())) {
             Utils.nonNull(genomicsDBOptions);
             try {
@@ -370,7 +465,7 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
                 throw new UserException("GenomicsDB inputs can only be used to provide VariantContexts.", e);
             }
         } else {
-            final FeatureCodec<T, ?> codec = getCodecForFeatureInput(featureInput, targetFeatureType, setNameOnCodec);
+            final FeatureCodec<T, ?> codec = makeCodec(featureInput, targetFeatureType, setNameOnCodec, columnSelection, retainVCFLines);
             if ( featureInput.getFeaturePath().toLowerCase().endsWith(BCI_FILE_EXTENSION) ) {
                 return new Reader(featureInput, codec);
             }
@@ -378,6 +473,18 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         }
     }
 
+    /**
+     * @return a new FeatureCodec instance to use for a FeatureInput, decoding the selected columns of VCF records
+     *         and retaining their lines if requested
+     */
+    private static <T extends Feature> FeatureCodec<T, ?> makeCodec(final FeatureInput<T> featureInput, final Class<? extends Feature> targetFeatureType,
+                                                                    final boolean setNameOnCodec, final VariantColumnSelection columnSelection,
+                                                                    final boolean retainVCFLines) {
+        return retainVCFLines ?
+                retainLines(getCodecForFeatureInput(featureInput, targetFeatureType, setNameOnCodec)) :
+                selectColumns(getCodecForFeatureInput(featureInput, targetFeatureType, setNameOnCodec), columnSelection);
+    }
+
     /**
      * Get a new FeatureCodec instance to use for a FeatureInput. Avoid re-discovering which codec class to
      * use by checking to see if the FeatureInput already has a cached codec class. It not, discover the codec class
@@ -416,6 +523,28 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         return codec;
     }
 
+    /**
+     * Wrap a VCF codec so that it only decodes the selected columns. Other codecs are returned as is.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Feature> FeatureCodec<T, ?> selectColumns(final FeatureCodec<T, ?> codec, final VariantColumnSelection columnSelection) {
+        if (columnSelection.selectsAll() || !(codec instanceof AbstractVCFCodec)) {
+            return codec;
+        }
+        return (FeatureCodec<T, ?>) new VCFColumnSelectingCodec((AbstractVCFCodec) codec, columnSelection);
+    }
+
+    /**
+     * Wrap a VCF codec so that it keeps the lines of the records in the variants. Other codecs are returned as is.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Feature> FeatureCodec<T, ?> retainLines(final FeatureCodec<T, ?> codec) {
+        if (!(codec instanceof AbstractVCFCodec)) {
+            return codec;
+        }
+        return (FeatureCodec<T, ?>) new VCFLineRetainingCodec((AbstractVCFCodec) codec);
+    }
+
     private static <T extends Feature> AbstractFeatureReader<T, ?> getTribbleFeatureReader(final FeatureInput<T> featureInput, final FeatureCodec<T, ?> codec, final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper, final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper) {
         Utils.nonNull(codec);
         try {
@@ -516,6 +645,9 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      * overlapping our intervals if intervals were provided via {@link #setIntervalsForTraversal(List)}
      * <p>
      * Calling this method invalidates (closes) any previous iterator obtained from this method.
+     * <p>
+     * Traversals of whole block-compressed files have their blocks decompressed in parallel if
+     * {@link ParallelBlockCompressedInputStream#getDefaultDecompressionThreads} is > 0.
      *
      * @return an iterator over all Features in this data source, limited to Features that overlap the intervals supplied via {@link #setIntervalsForTraversal(List)} (if intervals were provided)
      */
@@ -527,8 +659,15 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         try {
             // Save the iterator returned so that we can close it properly later
-            currentIterator = intervalsForTraversal != null ? new FeatureIntervalIterator<>(intervalsForTraversal, featureReader, featureInput.getFeaturePath())
-                    : featureReader.iterator();
+            final int decompressionThreads = ParallelBlockCompressedInputStream.getDefaultDecompressionThreads();
+            if (intervalsForTraversal != null) {
+                currentIterator = new FeatureIntervalIterator<>(intervalsForTraversal, featureReader, featureInput.getFeaturePath());
+            } else if (decompressionThreads > 0 && codecFactory != null && IOUtil.hasBlockCompressedExtension(featureInput.getFeaturePath())) {
+                // decode the whole file ourselves, so that its blocks are decompressed in parallel
+                currentIterator = new ParallelInflatingFeatureIterator<>(featureInput.toPath(), codecFactory.get(), decompressionThreads);
+            } else {
+                currentIterator = featureReader.iterator();
+            }
             return currentIterator;
         } catch (final IOException e) {
             throw new GATKException("Error creating iterator over file " + featureInput.getFeaturePath(), e);
@@ -580,19 +719,14 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
                     "If it's a file, please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
         }
 
-        // If the query can be satisfied using existing cache contents, prepare for retrieval
-        // by discarding all Features at the beginning of the cache that end before the start
-        // of our query interval.
-        if (queryCache.cacheHit(interval)) {
-            queryCache.trimToNewStartPosition(interval.getStart());
-        }
-        // Otherwise, we have a cache miss, so go to disk to refill our cache.
-        else {
+        // If the query can't be satisfied using existing cache contents, we have a cache miss,
+        // so go to disk to refill our cache.
+        if (!queryCache.cacheHit(interval)) {
             refillQueryCache(interval);
         }
 
         // Return the subset of our cache that overlaps our query interval
-        return queryCache.getCachedFeaturesUpToStopPosition(interval.getEnd());
+        return queryCache.getCachedFeatures(interval);
     }
 
     /**
@@ -91,6 +91,11 @@ public final class FeatureManager implements AutoCloseable {
      */
     private final Map<FeatureInput<? extends Feature>, FeatureDataSource<? extends Feature>> featureSources;
 
+    /**
+     * Number of blocks of Features kept in the query cache of each of our FeatureDataSources
+     */
+    private int featureCacheBlocks = 1;
+
     /**
      * Create a FeatureManager given a CommandLineProgram tool instance, discovering all FeatureInput
      * arguments in the tool and creating query-able FeatureDataSources for them. Uses the default
@@ -222,7 +227,7 @@ public final class FeatureManager implements AutoCloseable {
                              final Class<? extends Feature> featureType, final int cloudPrefetchBuffer,
                              final int cloudIndexPrefetchBuffer, final Path reference) {
         // Create a new FeatureDataSource for this file, and add it to our query pool
-        featureSources.put(featureInput, new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, new GenomicsDBOptions(reference)));
+        featureSources.put(featureInput, withFeatureCacheBlocks(new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, new GenomicsDBOptions(reference))));
     }
 
     /**
@@ -242,12 +247,33 @@ public final class FeatureManager implements AutoCloseable {
                              final Class<? extends Feature> featureType, final int cloudPrefetchBuffer,
                              final int cloudIndexPrefetchBuffer, final GenomicsDBOptions genomicsDBOptions) {
         // Create a new FeatureDataSource for this file, and add it to our query pool
-        featureSources.put(featureInput, new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, genomicsDBOptions));
+        featureSources.put(featureInput, withFeatureCacheBlocks(new FeatureDataSource<>(featureInput, featureQueryLookahead, featureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, genomicsDBOptions)));
     }
 
     <F extends Feature> void addToFeatureSources (final FeatureInput<F> featureInput,
                                                   final FeatureDataSource<F> featureDataSource) {
-        featureSources.put(featureInput, featureDataSource);
+        featureSources.put(featureInput, withFeatureCacheBlocks(featureDataSource));
+    }
+
+    private <F extends Feature> FeatureDataSource<F> withFeatureCacheBlocks(final FeatureDataSource<F> featureDataSource) {
+        if ( featureCacheBlocks != 1 ) {
+            featureDataSource.setQueryCacheBlocks(featureCacheBlocks);
+        }
+        return featureDataSource;
+    }
+
+    /**
+     * Set the number of blocks of Features that each of our data sources (including those added later) keeps in its
+     * query cache. See {@link FeatureDataSource#setQueryCacheBlocks(int)}.
+     *
+     * @param numBlocks number of blocks to keep in memory per data source (> 0)
+     */
+    public void setFeatureCacheBlocks(final int numBlocks) {
+        Utils.validateArg(numBlocks > 0, "The number of feature cache blocks must be > 0");
+        if ( numBlocks != featureCacheBlocks ) {
+            featureCacheBlocks = numBlocks;
+            featureSources.values().forEach(source -> source.setQueryCacheBlocks(numBlocks));
+        }
     }
 
     /**
@@ -348,13 +374,16 @@ public final class FeatureManager implements AutoCloseable {
      * FeatureManager was initialized with, or was not an @Argument-annotated field in the tool
      * (or parent classes).
      *
+     * Queries are serialized, so that tools that call variants on multiple threads (eg., HaplotypeCaller with
+     * --region-threads) can share a single FeatureManager. The lock is uncontended in single-threaded traversals.
+     *
      * @param featureDescriptor FeatureInput argument from our tool representing the Feature source to query
      * @param interval interval to query over (returned Features will overlap this interval)
      * @param <T> type of Feature in the source represented by featureDescriptor
      * @return A List of all Features in the backing data source for the provided FeatureInput that overlap
      *         the provided interval (may be empty if there are none, but never null)
      */
-    public <T extends Feature> List<T> getFeatures( final FeatureInput<T> featureDescriptor, final Locatable interval ) {
+    public synchronized <T extends Feature> List<T> getFeatures( final FeatureInput<T> featureDescriptor, final Locatable interval ) {
         final FeatureDataSource<T> dataSource = lookupDataSource(featureDescriptor);
 
         // No danger of a ClassCastException here, since we verified that the FeatureDataSource for this
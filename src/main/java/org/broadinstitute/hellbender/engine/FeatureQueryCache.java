@@ -0,0 +1,78 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.Feature;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A cache of the Features fetched from disk by the queries of a {@link FeatureDataSource}.
+ *
+ * Usage:
+ * -Test whether each query interval is a cache hit via {@link #cacheHit(Locatable)}
+ *
+ * -If it is a cache miss, fill the cache using {@link #fill(Iterator, SimpleInterval)} with the Features overlapping
+ *  an interval that contains the query interval.
+ *
+ * -In both cases, retrieve the Features overlapping the query interval via {@link #getCachedFeatures(Locatable)}.
+ *
+ * The implementations differ in how much they keep in memory: {@link FeatureCache} keeps a single window that only
+ * moves forward, {@link IntervalTreeFeatureCache} keeps several blocks, evicting the least recently used ones.
+ *
+ * @param <CACHED_FEATURE> Type of Feature record we are caching
+ */
+interface FeatureQueryCache<CACHED_FEATURE extends Feature> {
+
+    /**
+     * Determines whether all records overlapping the provided interval are already contained in our cache,
+     * and updates the hit/miss counters.
+     *
+     * @param interval the interval to check against the contents of our cache
+     * @return true if all records overlapping the provided interval are already contained in our cache, otherwise false
+     */
+    boolean cacheHit( final Locatable interval );
+
+    /**
+     * Add the Features overlapping an interval to the cache, after a cache miss.
+     *
+     * @param featureIter iterator from which to pull Features with which to populate our cache, sorted by start position
+     *                    (the iterator is not closed)
+     * @param interval the interval the Features were fetched for. Must contain the interval of the query that missed.
+     */
+    void fill( final Iterator<CACHED_FEATURE> featureIter, final SimpleInterval interval );
+
+    /**
+     * Returns the cached Features that overlap the given interval, in order of start position. Must be called
+     * right after a successful {@link #cacheHit} or a {@link #fill} for this interval.
+     *
+     * @param interval the query interval
+     * @return all Features in our cache that overlap the query interval
+     */
+    List<CACHED_FEATURE> getCachedFeatures( final Locatable interval );
+
+    /**
+     * @return Number of times we've been able to satisfy a query using the cache
+     */
+    int getNumCacheHits();
+
+    /**
+     * @return Number of times we've had to go to disk to satisfy a query
+     */
+    int getNumCacheMisses();
+
+    /**
+     * Print statistics about the cache hit rate for debugging, for the given data source.
+     *
+     * @param sourceName name of the data source, or the empty string
+     */
+    void printCacheStatistics( final String sourceName );
+
+    /**
+     * Print statistics about the cache hit rate for debugging.
+     */
+    default void printCacheStatistics() {
+        printCacheStatistics("");
+    }
+}
@@ -14,9 +14,17 @@ import java.io.File;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineException;
@@ -46,6 +54,7 @@ import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.PassThroughVCFWriter;
 import org.broadinstitute.hellbender.utils.variant.writers.ShardingVCFWriter;
 import org.broadinstitute.hellbender.utils.variant.writers.IntervalFilteringVcfWriter;
 
@@ -75,6 +84,30 @@ public abstract class GATKTool extends CommandLineProgram {
     @Argument(fullName = SECONDS_BETWEEN_PROGRESS_UPDATES_NAME, shortName = SECONDS_BETWEEN_PROGRESS_UPDATES_NAME, doc = "Output traversal statistics every time this many seconds elapse", optional = true, common = true)
     private double secondsBetweenProgressUpdates = ProgressMeter.DEFAULT_SECONDS_BETWEEN_UPDATES;
 
+    public static final String LOCAL_SHARDS_LONG_NAME = "local-shards";
+
+    @Advanced
+    @Argument(fullName = LOCAL_SHARDS_LONG_NAME, doc = "Number of shards to divide the traversal intervals into, each traversed on its own thread by its own copy of the tool (1 to traverse all the intervals on one thread). Only supported by some tools.", optional = true, minValue = 1)
+    public int localShards = 1;
+
+    public static final String READ_PREFETCH_BUFFERS_LONG_NAME = "read-prefetch-buffers";
+
+    @Advanced
+    @Argument(fullName = READ_PREFETCH_BUFFERS_LONG_NAME, doc = "Number of buffers of reads (one per traversal interval, or per " + ReadPrefetcher.MAX_READS_PER_BUFFER + " reads) to decode ahead of the traversal on a background thread (0 to decode reads on the traversal thread). Hides the latency of the seeks to the next intervals on network file systems and cloud paths.", optional = true, minValue = 0)
+    public int readPrefetchBuffers = 0;
+
+    public static final String FEATURE_CACHE_BLOCKS_LONG_NAME = "feature-cache-blocks";
+
+    @Advanced
+    @Argument(fullName = FEATURE_CACHE_BLOCKS_LONG_NAME, doc = "Number of blocks of features each feature input keeps in memory to satisfy queries (1 to keep a single block that only moves forward). More blocks avoid re-reading features from disk when queries go back and forth, eg. for the mates of read pairs.", optional = true, minValue = 1)
+    public int featureCacheBlocks = 1;
+
+    public static final String PASS_THROUGH_UNMODIFIED_VARIANTS_LONG_NAME = "pass-through-unmodified-variants";
+
+    @Advanced
+    @Argument(fullName = PASS_THROUGH_UNMODIFIED_VARIANTS_LONG_NAME, doc = "If true, copy the records of the driving variants that are written out unmodified from their original VCF lines instead of encoding them again. Only applies to block-compressed VCF outputs (.vcf.gz) that are not sharded and have no MD5, and to VCF 4.0-4.2 inputs. The copied records keep their original formatting.", optional = true)
+    public boolean passThroughUnmodifiedVariants = false;
+
     @ArgumentCollection
     protected SequenceDictionaryValidationArgumentCollection seqValidationArguments = getSequenceDictionaryValidationArgumentCollection();
 
@@ -168,6 +201,12 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     List<SimpleInterval> userIntervals;
 
+    /**
+     * The shard traversed by this copy of the tool if it is traversing a local shard (see {@link #LOCAL_SHARDS_LONG_NAME}),
+     * or null if this is the copy of the tool that was run by the user.
+     */
+    LocalShard localShard = null;
+
     /**
      * Get the {@link ReferenceDataSource} for this {@link GATKTool}.
      * Will throw a {@link GATKException} if the reference is null.
@@ -459,8 +498,10 @@ public abstract class GATKTool extends CommandLineProgram {
         if (! readArguments.getReadPathSpecifiers().isEmpty()) {
             final SamReaderFactory factory = makeSamReaderFactory();
 
-            reads = new ReadsPathDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
+            final ReadsPathDataSource readsPathDataSource = new ReadsPathDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
                 (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+            readsPathDataSource.enablePrefetching(readPrefetchBuffers);
+            reads = readsPathDataSource;
         }
         else {
             reads = null;
@@ -469,9 +510,13 @@ public abstract class GATKTool extends CommandLineProgram {
 
     protected final SamReaderFactory makeSamReaderFactory() {
         SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
-        if (hasReference()) { // pass in reference if available, because CRAM files need it
+        if (hasReference() && !ReferenceTwoBitSource.isTwoBit(referenceArguments.getReferencePath())) { // pass in reference if available, because CRAM files need it
             factory = factory.referenceSequence(referenceArguments.getReferencePath());
         }
+        else if (hasReference() && hasCramInput()) { // htsjdk can't handle 2bit reference files
+            throw new UserException.BadInput("CRAM inputs require a fasta reference, but the reference is a .2bit file: " +
+                    referenceArguments.getReferenceSpecifier());
+        }
         else if (hasCramInput()) {
             throw UserException.MISSING_REFERENCE_FOR_CRAM;
         }
@@ -523,7 +568,9 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of intervals.
      */
     void initializeIntervals() {
-        if ( intervalArgumentCollection.intervalsSpecified() ) {
+        if ( localShard != null ) {
+            userIntervals = localShard.getIntervals();
+        } else if ( intervalArgumentCollection.intervalsSpecified() ) {
             final SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
             if ( sequenceDictionary == null ) {
                 throw new UserException("We require a sequence dictionary from a reference, a source of reads, or a source of variants to process intervals.  " +
@@ -734,6 +781,9 @@ public abstract class GATKTool extends CommandLineProgram {
         initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
 
         initializeFeatures();
+        if ( features != null ) {
+            features.setFeatureCacheBlocks(featureCacheBlocks);
+        }
 
         initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
 
@@ -743,6 +793,11 @@ public abstract class GATKTool extends CommandLineProgram {
 
         checkToolRequirements();
 
+        if ( localShards > 1 && !supportsLocalSharding() ) {
+            throw new CommandLineException.BadArgumentValue(LOCAL_SHARDS_LONG_NAME, Integer.toString(localShards),
+                    getClass().getSimpleName() + " does not support sharded local traversals");
+        }
+
         if ((getVariantOutputFilteringMode() != IntervalFilteringVcfWriter.Mode.ANYWHERE ) && userIntervals == null){
             throw new CommandLineException.MissingArgument("-L or -XL", "Intervals are required if --" + StandardArgumentDefinitions.VARIANT_OUTPUT_INTERVAL_FILTERING_MODE_LONG_NAME + " was specified or if the tool uses interval filtering.");
         }
@@ -750,11 +805,48 @@ public abstract class GATKTool extends CommandLineProgram {
         initializeProgressMeter(getProgressMeterRecordLabel());
     }
 
+    /**
+     * Does this tool support sharded local traversals (see {@link #LOCAL_SHARDS_LONG_NAME})? Tools that do should override
+     * to return true, and must implement {@link #mergeLocalShard}.
+     *
+     * In a sharded local traversal, the traversal intervals are divided into shards that are traversed concurrently by
+     * copies of the tool, parsed from the same command line. Each copy has its own data sources, and its traversal is
+     * restricted to its shard. The copies run {@link #onTraversalStart} and {@link #traverse}, but never
+     * {@link #onTraversalSuccess}: instead, their results are merged, in genomic order, into the copy of the tool that
+     * was run by the user, which doesn't traverse anything itself. Copies can tell they are traversing a shard with
+     * {@link #isLocalShardTraversal}, and must not write to the outputs of the tool. Each read is traversed by exactly one
+     * copy, and unmapped reads, if requested, are traversed by the copy of the last shard.
+     *
+     * @return true if this tool supports sharded local traversals, otherwise false
+     */
+    public boolean supportsLocalSharding() {
+        return false;
+    }
+
+    /**
+     * Merge the results of a copy of this tool that has traversed a local shard into this tool. Called, in genomic order
+     * of the shards, after the copy has finished its traversal. Must be overridden by tools that support sharded local
+     * traversals (see {@link #supportsLocalSharding}).
+     *
+     * @param shardTool copy of this tool, of the same class, that has traversed a shard
+     */
+    protected void mergeLocalShard(final GATKTool shardTool) {
+        throw new GATKException(getClass().getSimpleName() + " must implement mergeLocalShard to support sharded local traversals");
+    }
+
+    /**
+     * @return true if this copy of the tool is traversing a shard of a sharded local traversal (see {@link #supportsLocalSharding})
+     */
+    public final boolean isLocalShardTraversal() {
+        return localShard != null;
+    }
+
     /**
      * Helper method to initialize the progress meter without exposing engine level arguements.
      */
     protected final void initializeProgressMeter(final String progressMeterRecordLabel) {
-        progressMeter = new ProgressMeter(secondsBetweenProgressUpdates, disableProgressMeter());
+        // the copies of the tool that traverse local shards would log on top of each other
+        progressMeter = new ProgressMeter(secondsBetweenProgressUpdates, disableProgressMeter() || isLocalShardTraversal());
         progressMeter.setRecordLabel(progressMeterRecordLabel);
     }
 
@@ -926,7 +1018,13 @@ public abstract class GATKTool extends CommandLineProgram {
             options.add(Options.DO_NOT_WRITE_GENOTYPES);
         }
         final VariantContextWriter unfilteredWriter;
-        if (maxVariantsPerShard > 0) {
+        if (passThroughUnmodifiedVariants && maxVariantsPerShard == 0 && !createOutputVariantMD5 && !outputSitesOnlyVCFs
+                && PassThroughVCFWriter.canWrite(outPath)) {
+            unfilteredWriter = new PassThroughVCFWriter(
+                    outPath,
+                    options.contains(Options.INDEX_ON_THE_FLY) ? sequenceDictionary : null,
+                    lenientVCFProcessing);
+        } else if (maxVariantsPerShard > 0) {
             unfilteredWriter = new ShardingVCFWriter(
                     outPath,
                     maxVariantsPerShard,
@@ -941,6 +1039,11 @@ public abstract class GATKTool extends CommandLineProgram {
                     options.toArray(new Options[0]));
         }
 
+        if (passThroughUnmodifiedVariants && !(unfilteredWriter instanceof PassThroughVCFWriter)) {
+            logger.warn(String.format("--%s does not apply to %s, whose records will all be encoded",
+                    PASS_THROUGH_UNMODIFIED_VARIANTS_LONG_NAME, outPath.toUri()));
+        }
+
         return getVariantOutputFilteringMode() == IntervalFilteringVcfWriter.Mode.ANYWHERE ?
                 unfilteredWriter :
                 new IntervalFilteringVcfWriter(unfilteredWriter,
@@ -1116,7 +1219,11 @@ public abstract class GATKTool extends CommandLineProgram {
         try(final AutoCloseableNoCheckedExceptions thisTool = this::closeTool){
             onTraversalStart();
             progressMeter.start();
-            traverse();
+            if ( localShards > 1 ) {
+                traverseLocalShards();
+            } else {
+                traverse();
+            }
             if (!progressMeter.stopped()) {
                 progressMeter.stop();
             }
@@ -1124,6 +1231,87 @@ public abstract class GATKTool extends CommandLineProgram {
         }
     }
 
+    /**
+     * Divide the traversal intervals into shards, traverse each shard with its own copy of this tool on its own thread,
+     * and merge the results of the copies in genomic order (see {@link #supportsLocalSharding}).
+     */
+    private void traverseLocalShards() {
+        final List<SimpleInterval> traversalIntervals = getTraversalIntervals();
+        if ( traversalIntervals == null || traversalIntervals.isEmpty() ) {
+            throw new UserException("Sharded local traversals require intervals or a reference to divide into shards");
+        }
+        final String[] arguments = getCommandLineArguments();
+        if ( arguments == null ) {
+            throw new GATKException("Sharded local traversals require a tool whose arguments were parsed from a command line");
+        }
+
+        final List<LocalShard> shards = LocalShard.divideIntervals(traversalIntervals, localShards);
+        logger.info("Traversing " + shards.size() + " local shards on " + shards.size() + " threads");
+        final ExecutorService executor = Executors.newFixedThreadPool(shards.size(),
+                new ThreadFactoryBuilder().setNameFormat("local-shard-thread-%d").setDaemon(true).build());
+        try {
+            final List<Future<GATKTool>> shardTools = shards.stream()
+                    .map(shard -> executor.submit(() -> traverseLocalShard(arguments, shard)))
+                    .collect(Collectors.toList());
+            for ( int i = 0; i < shardTools.size(); i++ ) {
+                mergeLocalShard(waitForLocalShard(shardTools.get(i)));
+                logger.info("Finished local shard " + (i + 1) + " of " + shards.size());
+            }
+        } finally {
+            executor.shutdownNow();
+            try {
+                if ( !executor.awaitTermination(60, TimeUnit.SECONDS) ) {
+                    logger.warn("Timed out waiting for local shard threads to terminate");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Traverse a shard with a new copy of this tool, parsed from the same arguments
+     *
+     * @return the copy of the tool, once it has traversed the shard and closed its data sources
+     */
+    @SuppressWarnings("try")
+    private GATKTool traverseLocalShard(final String[] arguments, final LocalShard shard) {
+        final GATKTool shardTool;
+        try {
+            shardTool = getClass().getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new GATKException("Could not create a copy of " + getClass().getSimpleName() + " to traverse a local shard", e);
+        }
+        shardTool.localShard = shard;
+        shardTool.tmpDir = tmpDir;
+        shardTool.parseArgs(arguments);
+
+        // same lifecycle as runTool() and doWork(), except for onTraversalSuccess()
+        try ( final AutoCloseableNoCheckedExceptions shutdown = shardTool::onShutdown ) {
+            shardTool.onStartup();
+            try ( final AutoCloseableNoCheckedExceptions close = shardTool::closeTool ) {
+                shardTool.onTraversalStart();
+                shardTool.progressMeter.start();
+                shardTool.traverse();
+            }
+        }
+        return shardTool;
+    }
+
+    private static GATKTool waitForLocalShard(final Future<GATKTool> shardTool) {
+        try {
+            return shardTool.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for a local shard", e);
+        } catch (final ExecutionException e) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Error traversing a local shard", e.getCause());
+        }
+    }
+
     /**
      * This method is called by the GATK framework at the end of the {@link #doWork} template method.
      * It is called regardless of whether the {@link #traverse} has succeeded or not.
@@ -0,0 +1,228 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.IntervalTree;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.Feature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IntervalTreeFeatureCache: a {@link FeatureQueryCache} for {@link FeatureDataSource} that keeps the Features of
+ * several blocks in memory, for access patterns whose start positions don't always increase (eg., queries for both
+ * mates of a read pair, or for flanking regions), for which {@link FeatureCache} would go back to disk on every miss.
+ *
+ * Each cache miss adds a block with the Features fetched from disk (for the query interval plus the lookahead of the
+ * data source). The blocks are indexed by an interval tree per contig, so that a query is a hit if any resident block
+ * contains it. When there are more than the maximum number of blocks, the least recently used block is evicted.
+ *
+ * Within a block, the Features are kept in order of start position together with the running maximum of their end
+ * positions, so that the Features overlapping a query are found with a binary search, however long some Features are.
+ *
+ * @param <CACHED_FEATURE> Type of Feature record we are caching
+ */
+final class IntervalTreeFeatureCache<CACHED_FEATURE extends Feature> implements FeatureQueryCache<CACHED_FEATURE> {
+    private static final Logger logger = LogManager.getLogger(IntervalTreeFeatureCache.class);
+
+    /**
+     * The Features overlapping an interval, in order of start position
+     */
+    private static final class Block<F extends Feature> {
+        private final SimpleInterval interval;
+        private final List<F> features;
+
+        /**
+         * maxEnds[i] is the largest end position of features 0 to i, so it is non-decreasing
+         */
+        private final int[] maxEnds;
+
+        private Block( final SimpleInterval interval, final List<F> features ) {
+            this.interval = interval;
+            this.features = features;
+            maxEnds = new int[features.size()];
+            int maxEnd = Integer.MIN_VALUE;
+            for ( int i = 0; i < features.size(); i++ ) {
+                maxEnd = Math.max(maxEnd, features.get(i).getEnd());
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        private List<F> getOverlappingFeatures( final int start, final int end ) {
+            // the first Feature that may overlap is the first one such that it or a Feature before it ends at or after start
+            int low = 0;
+            int high = features.size();
+            while ( low < high ) {
+                final int mid = (low + high) >>> 1;
+                if ( maxEnds[mid] < start ) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            final List<F> overlapping = new ArrayList<>();
+            for ( int i = low; i < features.size() && features.get(i).getStart() <= end; i++ ) {
+                if ( features.get(i).getEnd() >= start ) {
+                    overlapping.add(features.get(i));
+                }
+            }
+            return overlapping;
+        }
+    }
+
+    private final int maxBlocks;
+
+    /**
+     * The resident blocks of each contig, by interval
+     */
+    private final Map<String, IntervalTree<Block<CACHED_FEATURE>>> blocksByContig = new HashMap<>();
+
+    /**
+     * The resident blocks, from the least to the most recently used
+     */
+    private final LinkedHashMap<Block<CACHED_FEATURE>, Boolean> blocksByRecentUse = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The block containing the most recent query, from which {@link #getCachedFeatures} returns the Features
+     */
+    private Block<CACHED_FEATURE> currentBlock;
+
+    private int numCacheHits = 0;
+
+    private int numCacheMisses = 0;
+
+    private int numEvictions = 0;
+
+    /**
+     * @param maxBlocks maximum number of blocks to keep in memory (> 0)
+     */
+    public IntervalTreeFeatureCache( final int maxBlocks ) {
+        Utils.validateArg(maxBlocks > 0, "the maximum number of blocks must be > 0");
+        this.maxBlocks = maxBlocks;
+    }
+
+    /**
+     * @return Number of blocks currently in memory
+     */
+    public int getNumBlocks() {
+        return blocksByRecentUse.size();
+    }
+
+    @Override
+    public int getNumCacheHits() {
+        return numCacheHits;
+    }
+
+    @Override
+    public int getNumCacheMisses() {
+        return numCacheMisses;
+    }
+
+    /**
+     * @return Number of blocks evicted to make room for new ones
+     */
+    public int getNumEvictions() {
+        return numEvictions;
+    }
+
+    @Override
+    public boolean cacheHit( final Locatable interval ) {
+        currentBlock = findContainingBlock(interval);
+
+        if ( currentBlock != null ) {
+            ++numCacheHits;
+            blocksByRecentUse.get(currentBlock);
+        }
+        else {
+            ++numCacheMisses;
+        }
+
+        return currentBlock != null;
+    }
+
+    private Block<CACHED_FEATURE> findContainingBlock( final Locatable interval ) {
+        final IntervalTree<Block<CACHED_FEATURE>> blocks = blocksByContig.get(interval.getContig());
+        if ( blocks == null ) {
+            return null;
+        }
+        final Iterator<IntervalTree.Node<Block<CACHED_FEATURE>>> overlappingBlocks = blocks.overlappers(interval.getStart(), interval.getEnd());
+        while ( overlappingBlocks.hasNext() ) {
+            final IntervalTree.Node<Block<CACHED_FEATURE>> node = overlappingBlocks.next();
+            if ( node.getStart() <= interval.getStart() && node.getEnd() >= interval.getEnd() ) {
+                return node.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a block for the given interval, replacing the resident blocks it contains, and evicts the least recently
+     * used blocks if there are too many.
+     */
+    @Override
+    public void fill( final Iterator<CACHED_FEATURE> featureIter, final SimpleInterval interval ) {
+        final List<CACHED_FEATURE> features = new ArrayList<>();
+        while ( featureIter.hasNext() ) {
+            features.add(featureIter.next());
+        }
+
+        final IntervalTree<Block<CACHED_FEATURE>> blocks = blocksByContig.computeIfAbsent(interval.getContig(), contig -> new IntervalTree<>());
+        final List<Block<CACHED_FEATURE>> containedBlocks = new ArrayList<>();
+        blocks.overlappers(interval.getStart(), interval.getEnd()).forEachRemaining(node -> {
+            if ( interval.contains(node.getValue().interval) ) {
+                containedBlocks.add(node.getValue());
+            }
+        });
+        containedBlocks.forEach(this::removeBlock);
+
+        currentBlock = new Block<>(interval, features);
+        blocksByContig.computeIfAbsent(interval.getContig(), contig -> new IntervalTree<>())
+                .put(interval.getStart(), interval.getEnd(), currentBlock);
+        blocksByRecentUse.put(currentBlock, Boolean.TRUE);
+
+        while ( blocksByRecentUse.size() > maxBlocks ) {
+            removeBlock(blocksByRecentUse.keySet().iterator().next());
+            ++numEvictions;
+        }
+    }
+
+    private void removeBlock( final Block<CACHED_FEATURE> block ) {
+        final IntervalTree<Block<CACHED_FEATURE>> blocks = blocksByContig.get(block.interval.getContig());
+        blocks.remove(block.interval.getStart(), block.interval.getEnd());
+        if ( blocks.size() == 0 ) {
+            blocksByContig.remove(block.interval.getContig());
+        }
+        blocksByRecentUse.remove(block);
+    }
+
+    @Override
+    public List<CACHED_FEATURE> getCachedFeatures( final Locatable interval ) {
+        if ( currentBlock == null || ! currentBlock.interval.contains(interval) ) {
+            throw new GATKException(String.format("BUG: attempted to retrieve Features for %s, which is not in the current block of the cache (%s)",
+                    new SimpleInterval(interval), currentBlock == null ? "none" : currentBlock.interval));
+        }
+        return currentBlock.getOverlappingFeatures(interval.getStart(), interval.getEnd());
+    }
+
+    @Override
+    public void printCacheStatistics( final String sourceName ) {
+        final String sourceNameString = sourceName.isEmpty() ? "" : "for data source " + sourceName;
+
+        final int totalQueries = getNumCacheHits() + getNumCacheMisses();
+        logger.debug(String.format("Cache hit rate %s was %.2f%% (%d out of %d total queries, %d blocks evicted)",
+                sourceNameString,
+                totalQueries > 0 ? ((double)getNumCacheHits() / totalQueries) * 100.0 : 0.0,
+                getNumCacheHits(),
+                totalQueries,
+                getNumEvictions()));
+    }
+}
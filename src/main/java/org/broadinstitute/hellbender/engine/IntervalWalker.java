@@ -3,6 +3,9 @@ package org.broadinstitute.hellbender.engine;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 
+import java.util.Collections;
+import java.util.stream.Collectors;
+
 /**
  * An IntervalWalker is a tool that processes a single interval at a time, with the ability to query
  * optional overlapping sources of reads, reference data, and/or variants/features.
@@ -65,6 +68,12 @@ public abstract class IntervalWalker extends WalkerBase {
     @Override
     public void traverse() {
         final ReadFilter readFilter = makeReadFilter();
+        if ( hasReads() ) {
+            // Each ReadsContext queries the reads overlapping its interval, which the reads source can prefetch
+            reads.setUpcomingTraversals(userIntervals.stream()
+                    .map(interval -> new TraversalParameters(Collections.singletonList(interval), false))
+                    .collect(Collectors.toList()));
+        }
         for ( final SimpleInterval interval : userIntervals ) {
             apply(interval,
                   new ReadsContext(reads, interval, readFilter),
@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A contiguous part of the traversal intervals of a tool, traversed by its own copy of the tool in a sharded
+ * local traversal (see {@link GATKTool#LOCAL_SHARDS_LONG_NAME}).
+ *
+ * Shards are in genomic order and don't overlap, so each locus belongs to exactly one shard. A read may overlap several
+ * shards: it belongs to the first one it overlaps, so that read traversals see each read exactly once.
+ */
+final class LocalShard {
+    private final int index;
+
+    private final List<SimpleInterval> intervals;
+
+    /**
+     * last interval of the previous shard, or null for the first shard
+     */
+    private final SimpleInterval previousShardEnd;
+
+    private final boolean isLast;
+
+    LocalShard(final int index, final List<SimpleInterval> intervals, final SimpleInterval previousShardEnd, final boolean isLast) {
+        Utils.nonEmpty(intervals);
+        this.index = index;
+        this.intervals = Collections.unmodifiableList(intervals);
+        this.previousShardEnd = previousShardEnd;
+        this.isLast = isLast;
+    }
+
+    /**
+     * Divide the traversal intervals into (at most) the given number of shards, of about the same number of bases.
+     * Intervals are split where needed.
+     *
+     * @param intervals sorted, non-overlapping traversal intervals
+     * @param numShards number of shards to make, must be positive
+     * @return shards in genomic order
+     */
+    static List<LocalShard> divideIntervals(final List<SimpleInterval> intervals, final int numShards) {
+        Utils.nonEmpty(intervals, "there are no intervals to divide into shards");
+        Utils.validateArg(numShards > 0, "the number of shards must be positive");
+        final long totalSize = intervals.stream().mapToLong(SimpleInterval::size).sum();
+        final long shardSize = (totalSize + numShards - 1) / numShards;
+
+        final List<List<SimpleInterval>> shardIntervals = new ArrayList<>(numShards);
+        List<SimpleInterval> currentShard = new ArrayList<>();
+        long currentShardSize = 0;
+        for ( final SimpleInterval interval : intervals ) {
+            int start = interval.getStart();
+            while ( start <= interval.getEnd() ) {
+                final int end = (int) Math.min(interval.getEnd(), start + (shardSize - currentShardSize) - 1);
+                currentShard.add(new SimpleInterval(interval.getContig(), start, end));
+                currentShardSize += end - start + 1;
+                start = end + 1;
+                if ( currentShardSize == shardSize ) {
+                    shardIntervals.add(currentShard);
+                    currentShard = new ArrayList<>();
+                    currentShardSize = 0;
+                }
+            }
+        }
+        if ( !currentShard.isEmpty() ) {
+            shardIntervals.add(currentShard);
+        }
+
+        final List<LocalShard> shards = new ArrayList<>(shardIntervals.size());
+        for ( int i = 0; i < shardIntervals.size(); i++ ) {
+            final SimpleInterval previousShardEnd = i == 0 ? null : shards.get(i - 1).getLastInterval();
+            shards.add(new LocalShard(i, shardIntervals.get(i), previousShardEnd, i == shardIntervals.size() - 1));
+        }
+        return shards;
+    }
+
+    /**
+     * @return index of this shard, in genomic order
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the intervals of this shard, sorted and non-overlapping
+     */
+    List<SimpleInterval> getIntervals() {
+        return intervals;
+    }
+
+    private SimpleInterval getLastInterval() {
+        return intervals.get(intervals.size() - 1);
+    }
+
+    /**
+     * @return true for the last shard, which also traverses the unmapped reads if they were requested
+     */
+    boolean isLast() {
+        return isLast;
+    }
+
+    /**
+     * @param read a read that overlaps this shard
+     * @return true if the read belongs to this shard, ie., doesn't overlap any previous shard. Since the read overlaps this
+     *         shard, it overlaps a previous shard if and only if it starts at or before the end of the previous shard.
+     */
+    boolean ownsRead(final GATKRead read) {
+        return previousShardEnd == null || read.getContig() == null || !read.getContig().equals(previousShardEnd.getContig()) ||
+                read.getStart() > previousShardEnd.getEnd();
+    }
+}
@@ -8,10 +8,12 @@ import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIteratorBuilder;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
@@ -32,7 +34,9 @@ import java.util.stream.Collectors;
  * - Include them into the {@link AlignmentContext} before passing to {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}.
  *
  * LocusWalker authors must implement the apply() method to process each position, and may optionally implement
- * onTraversalStart(), onTraversalSuccess() and/or closeTool().
+ * onTraversalStart(), onTraversalSuccess() and/or closeTool(). Tools that can process the reads at each position
+ * without keeping them may also opt into {@link #usesPileupColumns()}, which avoids allocating an AlignmentContext
+ * per position.
  *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
@@ -85,6 +89,19 @@ public abstract class LocusWalker extends WalkerBase {
         return false;
     }
 
+    /**
+     * Does this tool process positions with {@link #apply(PileupColumn, ReferenceContext, FeatureContext)}? Tools that
+     * do should override to return {@code true}, and override that method as well.
+     *
+     * The pileups of those tools are not copied into an AlignmentContext, unless they call
+     * {@link PileupColumn#toAlignmentContext()}. This is ignored if {@link #emitEmptyLoci()} returns {@code true}.
+     *
+     * @return {@code true} if this tool processes {@link PileupColumn}s, {@code false} otherwise
+     */
+    public boolean usesPileupColumns() {
+        return false;
+    }
+
 
     /**
      * Returns default value for the {@link #maxDepthPerSample} parameter, if none is provided on the command line.
@@ -146,6 +163,11 @@ public abstract class LocusWalker extends WalkerBase {
     @Override
     public void traverse() {
         final CountingReadFilter countedFilter = makeReadFilter();
+        if ( usesPileupColumns() && ! emitEmptyLoci() ) {
+            traversePileupColumns(countedFilter);
+            logger.info(countedFilter.getSummaryLine());
+            return;
+        }
         final Iterator<AlignmentContext> iterator = getAlignmentContextIterator(countedFilter);
 
         // iterate over each alignment, and apply the function
@@ -158,6 +180,42 @@ public abstract class LocusWalker extends WalkerBase {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Traversal of the positions covered by reads (and overlapping the user intervals, if any) for tools that
+     * process {@link PileupColumn}s, which are reused across positions.
+     */
+    private void traversePileupColumns(final CountingReadFilter readFilterToUse) {
+        final SAMFileHeader header = getHeaderForReads();
+        final Set<String> samples = header.getReadGroups().stream()
+                                          .map(SAMReadGroupRecord::getSample)
+                                          .collect(Collectors.toSet());
+        final LocusIteratorByState libs = new LocusIteratorByState(getTransformedReadStream(readFilterToUse).iterator(),
+                getDownsamplingInfo(), samples, header, includeDeletions(), includeNs());
+
+        // the sorted intervals to traverse, as in IntervalOverlappingIterator (which can't hold reused columns)
+        final Iterator<SimpleInterval> intervals = userIntervals == null ? null : userIntervals.iterator();
+        SimpleInterval currentInterval = intervals == null || ! intervals.hasNext() ? null : intervals.next();
+
+        while ( libs.hasNext() ) {
+            final PileupColumn column = libs.nextColumn();
+            if ( intervals != null ) {
+                while ( currentInterval != null && ! currentInterval.overlaps(column)
+                        && IntervalUtils.compareLocatables(currentInterval, column, header.getSequenceDictionary()) < 0 ) {
+                    currentInterval = intervals.hasNext() ? intervals.next() : null;
+                }
+                if ( currentInterval == null ) {
+                    break;
+                }
+                if ( ! currentInterval.overlaps(column) ) {
+                    continue;
+                }
+            }
+            final SimpleInterval locus = new SimpleInterval(column);
+            apply(column, new ReferenceContext(reference, locus), new FeatureContext(features, locus));
+            progressMeter.update(locus);
+        }
+    }
+
     /**
      * Helper method that returns an AlignmentContext Iterator object based on the provided parameters.
      *
@@ -200,6 +258,21 @@ public abstract class LocusWalker extends WalkerBase {
      */
     public abstract void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext);
 
+    /**
+     * Process the pileup of an individual position (with optional contextual information), for tools that return
+     * {@code true} from {@link #usesPileupColumns()}.
+     *
+     * The column is reused at the next position, and must not be kept after this method returns. The default
+     * implementation copies it into an AlignmentContext for {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}.
+     *
+     * @param column pileup of the current position
+     * @param referenceContext Reference bases spanning the current locus, as in {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}
+     * @param featureContext Features spanning the current locus, as in {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}
+     */
+    public void apply(PileupColumn column, ReferenceContext referenceContext, FeatureContext featureContext) {
+        apply(column.toAlignmentContext(), referenceContext, featureContext);
+    }
+
     /**
      * Marked final so that tool authors don't override it. Tool authors should override onTraversalSuccess() instead.
      */
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.CloseableIterator;
@@ -12,6 +13,7 @@ import htsjdk.variant.vcf.VCFUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.utils.SequenceDictionaryUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -20,6 +22,9 @@ import org.broadinstitute.hellbender.utils.variant.VcfUtils;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -37,6 +42,11 @@ import java.util.stream.Collectors;
  * -Targeted queries by one interval at a time. This also requires the files to have been indexed using
  *  the bundled tool IndexFeatureFile. Targeted queries by one interval at a time are unaffected by
  *  any intervals for full traversal set via {@link #setIntervalsForTraversal(List)}.
+ *
+ * By default, the variants of every source are decoded by the thread that iterates over the merged variants. If
+ * parallel decoding is enabled via {@link #enableParallelDecoding(int)}, full traversals instead decode each source
+ * ahead of the merge on a pool of worker threads (see {@link DecodedVariantIterator}), so that the cost of parsing
+ * many inputs is spread over several cores, and the merge only compares already-decoded records.
  */
 public final class MultiVariantDataSource implements GATKDataSource<VariantContext>, AutoCloseable {
     private static final Logger logger = LogManager.getLogger(MultiVariantDataSource.class);
@@ -58,8 +68,22 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      * over our feature reader.
      */
     private CloseableIterator<VariantContext> currentIterator;
+
+    /**
+     * Per-source iterators of the open traversal, if its variants are decoded in parallel. These have to be closed
+     * explicitly, since the merging iterator doesn't close the sources it has exhausted.
+     */
+    private final List<DecodedVariantIterator> currentDecodedIterators = new ArrayList<>();
+
     private SortedSet<String> mergedSamples;
 
+    /**
+     * Pool of worker threads that decode the sources during full traversals, or null if parallel decoding is disabled
+     */
+    private ExecutorService decoderService;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
     /**
      * Creates a MultiVariantDataSource backed by the provided FeatureInputs. We will look ahead the specified number of bases
      * during queries that produce cache misses.
@@ -82,13 +106,47 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      * @param reference reference to use when creating FeatureDataSources, may be null, only needed by GenomicsDB
      */
     public MultiVariantDataSource(final List<FeatureInput<VariantContext>> featureInputs, final int queryLookaheadBases, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference, final boolean skipDictionaryValidation) {
+        this(featureInputs, queryLookaheadBases, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference, skipDictionaryValidation, VariantColumnSelection.ALL);
+    }
+
+    /**
+     * Creates a MultiVariantDataSource backed by the provided FeatureInputs. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * @param featureInputs List of FeatureInput<VariantContext>> specifying sources of VariantContexts
+     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param cloudPrefetchBuffer  MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param reference reference to use when creating FeatureDataSources, may be null, only needed by GenomicsDB
+     * @param columnSelection decode only these columns of the variants of each source (see {@link VariantColumnSelection})
+     */
+    public MultiVariantDataSource(final List<FeatureInput<VariantContext>> featureInputs, final int queryLookaheadBases, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference, final boolean skipDictionaryValidation,
+                                  final VariantColumnSelection columnSelection) {
+        this(featureInputs, queryLookaheadBases, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference, skipDictionaryValidation, columnSelection, false);
+    }
+
+    /**
+     * Creates a MultiVariantDataSource backed by the provided FeatureInputs. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * @param featureInputs List of FeatureInput<VariantContext>> specifying sources of VariantContexts
+     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param cloudPrefetchBuffer  MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param reference reference to use when creating FeatureDataSources, may be null, only needed by GenomicsDB
+     * @param columnSelection decode only these columns of the variants of each source (see {@link VariantColumnSelection})
+     * @param retainVCFLines keep the lines of the records of VCF sources in their variants, so that unmodified records
+     *                       can be written out as is (see {@link FeatureDataSource})
+     */
+    public MultiVariantDataSource(final List<FeatureInput<VariantContext>> featureInputs, final int queryLookaheadBases, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference, final boolean skipDictionaryValidation,
+                                  final VariantColumnSelection columnSelection, final boolean retainVCFLines) {
         Utils.validateArg(queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         Utils.validateArg(featureInputs != null && featureInputs.size() > 0, "FeatureInputs list must be non-null and non-empty");
 
         featureInputs.forEach(
                 featureInput -> featureDataSources.add(
                         new FeatureDataSource<>(featureInput, queryLookaheadBases, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                reference, true)));
+                                                new GenomicsDBOptions(reference), true, columnSelection, retainVCFLines)));
 
         // Ensure that the merged header and sequence dictionary that we use are in sync with each
         // other, and reflect the actual dictionaries used to do validation:
@@ -131,6 +189,23 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
         return mergedHeader;
     }
 
+    /**
+     * Decode the variants of each source on a pool of worker threads during subsequent full traversals via
+     * {@link #iterator}. Queries via {@link #query(SimpleInterval)} are still decoded by the calling thread.
+     *
+     * @param numThreads number of worker threads, shared by all sources. 0 disables parallel decoding.
+     */
+    public void enableParallelDecoding( final int numThreads ) {
+        Utils.validateArg(numThreads >= 0, "the number of decoding threads must be >= 0");
+        closeOpenIterationIfNecessary();
+        shutdownDecoderService();
+        if ( numThreads > 0 ) {
+            decoderService = Executors.newFixedThreadPool(numThreads,
+                    new ThreadFactoryBuilder().setNameFormat("variant-decode-thread-%d").setDaemon(true).build());
+            logger.info("Decoding " + featureDataSources.size() + " variant source(s) on " + numThreads + " thread(s)");
+        }
+    }
+
     /**
      * Restricts traversals of this data source via {@link #iterator} to only return variants that overlap the provided
      * intervals. Calls to {@link #query(SimpleInterval)} are not affected by these intervals.
@@ -157,7 +232,7 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      */
     @Override
     public Iterator<VariantContext> iterator() {
-        return getMergedIteratorFromDataSources(ds -> ds.iterator());
+        return getMergedIteratorFromDataSources(ds -> ds.iterator(), decoderService != null);
     }
 
     /**
@@ -179,16 +254,18 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      */
     @Override
     public Iterator<VariantContext> query( final SimpleInterval interval ) {
-        return getMergedIteratorFromDataSources(ds -> ds.queryAndPrefetch(interval).iterator());
+        return getMergedIteratorFromDataSources(ds -> ds.queryAndPrefetch(interval).iterator(), false);
     }
 
     /**
      * Close any existing iterator, create a new iterator and update the local cached iterator reference.
      * @param iteratorFromSource function to retrieve individual iterator, to be applied to each data source
+     * @param decodeInParallel if true, decode each individual iterator on the worker threads of {@link #decoderService}
      * @return
      */
     private Iterator<VariantContext> getMergedIteratorFromDataSources(
-            final Function<FeatureDataSource<VariantContext>, Iterator<VariantContext>> iteratorFromSource) {
+            final Function<FeatureDataSource<VariantContext>, Iterator<VariantContext>> iteratorFromSource,
+            final boolean decodeInParallel) {
 
         // Tribble documentation states that having multiple iterators open simultaneously over the same FeatureReader
         // results in undefined behavior
@@ -196,16 +273,28 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
 
         if (featureDataSources.size() > 1) {
             final List<CloseableIterator<VariantContext>> iterators = new ArrayList<>(featureDataSources.size());
-            featureDataSources.forEach(ds -> iterators.add(getCloseableIteratorWrapper(iteratorFromSource.apply((ds)))));
+            featureDataSources.forEach(ds -> iterators.add(getSourceIterator(ds, iteratorFromSource, decodeInParallel)));
 
             final VariantContextComparator varComparator = new VariantContextComparator(getSequenceDictionary());
             currentIterator = new MergingIterator<>(varComparator, iterators);
         } else {
-            currentIterator = getCloseableIteratorWrapper(iteratorFromSource.apply(featureDataSources.get(0)));
+            currentIterator = getSourceIterator(featureDataSources.get(0), iteratorFromSource, decodeInParallel);
         }
         return currentIterator;
     }
 
+    private CloseableIterator<VariantContext> getSourceIterator(
+            final FeatureDataSource<VariantContext> dataSource,
+            final Function<FeatureDataSource<VariantContext>, Iterator<VariantContext>> iteratorFromSource,
+            final boolean decodeInParallel) {
+        if ( !decodeInParallel ) {
+            return getCloseableIteratorWrapper(iteratorFromSource.apply(dataSource));
+        }
+        final DecodedVariantIterator decodedIterator = new DecodedVariantIterator(iteratorFromSource.apply(dataSource), decoderService, dataSource.getName());
+        currentDecodedIterators.add(decodedIterator);
+        return decodedIterator;
+    }
+
     /**
      * Get the logical name of this data source.
      *
@@ -224,9 +313,24 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
     @Override
     public void close() {
         closeOpenIterationIfNecessary();
+        shutdownDecoderService();
         featureDataSources.forEach(dataSource -> dataSource.close());
     }
 
+    private void shutdownDecoderService() {
+        if ( decoderService != null ) {
+            decoderService.shutdown();
+            try {
+                if ( !decoderService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS) ) {
+                    logger.warn("Timed out waiting for variant decoding threads to terminate");
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            decoderService = null;
+        }
+    }
+
     private SAMSequenceDictionary getMergedSequenceDictionary(VCFHeader header) {
         return header != null ? header.getSequenceDictionary() : null;
     }
@@ -382,6 +486,9 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
             currentIterator.close();
             currentIterator = null;
         }
+        // wait for the workers to stop using the sources before they can be iterated again
+        currentDecodedIterators.forEach(DecodedVariantIterator::close);
+        currentDecodedIterators.clear();
     }
 
     /**
@@ -3,6 +3,8 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.MultiVariantInputArgumentCollection;
@@ -29,6 +31,12 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
     @ArgumentCollection
     protected MultiVariantInputArgumentCollection multiVariantInputArgumentCollection = getMultiVariantInputArgumentCollection();
 
+    public static final String VARIANT_DECODE_THREADS_LONG_NAME = "variant-decode-threads";
+
+    @Advanced
+    @Argument(fullName = VARIANT_DECODE_THREADS_LONG_NAME, doc = "Number of threads on which to decode the driving variants inputs ahead of merging them (0 to decode them on the traversal thread). Useful when combining many inputs, whose parsing would otherwise be bound by a single core.", optional = true, minValue = 0)
+    public int variantDecodeThreads = 0;
+
     // NOTE: keeping the driving source of variants separate from other, supplementary FeatureInputs in our FeatureManager
     // in GATKTool we do add the driving source to the Feature manager but we do need to treat it differently and thus this
     // field.
@@ -97,7 +105,8 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
         // Create a (MultiVariantDataSource) FeatureDataSource for the driving variants inputs using the
         // cache lookahead value from getDrivingVariantCacheLookAheadBases()
         drivingVariants = new MultiVariantDataSource(drivingVariantsFeatureInputs, getDrivingVariantCacheLookAheadBases(), cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                     referenceArguments.getReferencePath(), skipDictionaryValidation);
+                                                     referenceArguments.getReferencePath(), skipDictionaryValidation, getDrivingVariantsColumnSelection(), retainDrivingVariantLines());
+        drivingVariants.enableParallelDecoding(variantDecodeThreads);
 
         // Note: the intervals for the driving variants are set in onStartup()
     }
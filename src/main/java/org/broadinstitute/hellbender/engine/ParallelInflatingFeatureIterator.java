@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.FeatureCodec;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over all the Features of a block-compressed file, whose blocks are decompressed in parallel by a
+ * {@link ParallelBlockCompressedInputStream}, and decoded on the calling thread by a codec of their own.
+ *
+ * The codec must be a new instance, not shared with a FeatureReader, since it reads the header of the file again.
+ */
+class ParallelInflatingFeatureIterator<T extends Feature, SOURCE> implements CloseableTribbleIterator<T> {
+    private final Path path;
+    private final FeatureCodec<T, SOURCE> codec;
+    private final ParallelBlockCompressedInputStream inputStream;
+    private final SOURCE source;
+    private T nextFeature;
+
+    /**
+     * @param path block-compressed file to read
+     * @param codec codec to decode the file with
+     * @param numThreads number of decompression threads
+     */
+    public ParallelInflatingFeatureIterator( final Path path, final FeatureCodec<T, SOURCE> codec, final int numThreads ) {
+        this.path = path;
+        this.codec = codec;
+        try {
+            this.inputStream = new ParallelBlockCompressedInputStream(Files.newInputStream(path), path.toUri().toString(), numThreads, false);
+        } catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(path, e);
+        }
+        this.source = codec.makeSourceFromStream(inputStream);
+        try {
+            // skip the header, which was already read by the FeatureReader of the file
+            codec.readHeader(source);
+        } catch ( IOException e ) {
+            close();
+            throw new GATKException("Error reading the header of " + path.toUri(), e);
+        }
+        nextFeature = loadNextFeature();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextFeature != null;
+    }
+
+    @Override
+    public T next() {
+        if ( nextFeature == null ) {
+            throw new NoSuchElementException("No more Features in " + path.toUri());
+        }
+
+        final T toReturn = nextFeature;
+        nextFeature = loadNextFeature();
+        return toReturn;
+    }
+
+    /**
+     * @return the next Feature of the file, or null if we're out of Features
+     */
+    private T loadNextFeature() {
+        try {
+            while ( ! codec.isDone(source) ) {
+                // codecs return null for the lines that aren't Features (eg. comments)
+                final T feature = codec.decode(source);
+                if ( feature != null ) {
+                    return feature;
+                }
+            }
+            return null;
+        }
+        catch ( IOException e ) {
+            throw new GATKException("Error reading " + path.toUri(), e);
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        codec.close(source);
+        try {
+            inputStream.close();
+        }
+        catch ( IOException e ) {
+            throw new GATKException("Error closing " + path.toUri(), e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.OrderedWorkerPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Iterator over reads that have been filtered and transformed by a pool of worker threads, in the order of the source.
+ *
+ * The source is iterated by a dedicated reader thread, which groups the reads into batches and submits each batch to
+ * whichever worker is idle. Each worker owns one of the processing functions, so a function is never called by more
+ * than one thread at a time. The results of the batches are queued in source order, and are consumed by the thread
+ * iterating over this object (the traversal thread of {@link ReadWalker}).
+ *
+ * The number of batches in flight is bounded so that memory usage stays proportional to the number of workers,
+ * regardless of how far ahead of the consumer the reader gets.
+ */
+final class PipelinedReadIterator implements Iterator<GATKRead>, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(PipelinedReadIterator.class);
+
+    /**
+     * Number of reads handed to a worker at once, large enough to amortize the cost of scheduling
+     */
+    static final int READS_PER_BATCH = 1000;
+
+    /**
+     * How many batches each worker may have queued up before the reader thread blocks waiting for the consumer
+     */
+    private static final int MAX_PENDING_BATCHES_PER_THREAD = 4;
+
+    /**
+     * Marks the end of the source in the results of the worker pool. Compared by identity.
+     */
+    private static final List<GATKRead> END_OF_READS = Collections.unmodifiableList(new ArrayList<>());
+
+    private final ExecutorService readerService;
+
+    private final OrderedWorkerPool<Function<GATKRead, GATKRead>, List<GATKRead>> workerPool;
+
+    private Iterator<GATKRead> currentBatch = Collections.emptyIterator();
+
+    private boolean exhausted = false;
+
+    /**
+     * @param source reads to process. Only ever iterated by the reader thread.
+     * @param processors one processing function per worker thread. Each function returns the processed read,
+     *                   or null if the read should be dropped (eg. because it doesn't pass the read filters).
+     */
+    PipelinedReadIterator(final Iterator<GATKRead> source, final List<? extends Function<GATKRead, GATKRead>> processors) {
+        Utils.nonNull(source);
+        Utils.nonEmpty(processors, "at least one processor is required");
+        final int numThreads = processors.size();
+        workerPool = new OrderedWorkerPool<>("read-pipeline-thread-%d", "processing reads", processors, numThreads * MAX_PENDING_BATCHES_PER_THREAD);
+        readerService = OrderedWorkerPool.newDaemonThreadPool(1, "read-pipeline-reader");
+        readerService.submit(() -> readBatches(source));
+        logger.info("Processing reads on " + numThreads + " threads");
+    }
+
+    /**
+     * Body of the reader thread: split the source into batches, queued in order as soon as they are submitted
+     */
+    private Void readBatches(final Iterator<GATKRead> source) throws InterruptedException {
+        try {
+            List<GATKRead> batch = new ArrayList<>(READS_PER_BATCH);
+            while ( source.hasNext() ) {
+                batch.add(source.next());
+                if ( batch.size() == READS_PER_BATCH ) {
+                    submit(batch);
+                    batch = new ArrayList<>(READS_PER_BATCH);
+                }
+            }
+            if ( !batch.isEmpty() ) {
+                submit(batch);
+            }
+            workerPool.addResult(END_OF_READS);
+        } catch (final RuntimeException | Error e) {
+            // hand the error over to the consumer, in place of the batches that could not be read
+            workerPool.addFailure(e);
+        }
+        return null;
+    }
+
+    private void submit(final List<GATKRead> batch) throws InterruptedException {
+        workerPool.submit(processor -> {
+            final List<GATKRead> result = new ArrayList<>(batch.size());
+            for ( final GATKRead read : batch ) {
+                final GATKRead processed = processor.apply(read);
+                if ( processed != null ) {
+                    result.add(processed);
+                }
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public boolean hasNext() {
+        while ( !currentBatch.hasNext() && !exhausted ) {
+            final List<GATKRead> batch = workerPool.takeResult();
+            if ( batch == END_OF_READS ) {
+                exhausted = true;
+            } else {
+                currentBatch = batch.iterator();
+            }
+        }
+        return currentBatch.hasNext();
+    }
+
+    @Override
+    public GATKRead next() {
+        if ( !hasNext() ) {
+            throw new NoSuchElementException("No more reads");
+        }
+        return currentBatch.next();
+    }
+
+    /**
+     * Stop the reader and worker threads. Reads that have not been consumed yet are discarded.
+     */
+    @Override
+    public void close() {
+        // interrupt the reader first, so that it doesn't submit any more batches once the workers are stopped
+        readerService.shutdownNow();
+        workerPool.close();
+        OrderedWorkerPool.shutdownAndAwaitTermination(readerService, true, "the read pipeline reader thread");
+        currentBatch = Collections.emptyIterator();
+        exhausted = true;
+    }
+}
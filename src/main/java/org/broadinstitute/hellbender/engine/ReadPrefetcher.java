@@ -0,0 +1,350 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.QueryInterval;
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.OrderedWorkerPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Decodes the reads of the upcoming bounded traversals of a {@link ReadsPathDataSource} on a background thread, so that
+ * the seeks and the inflation of the blocks of the next intervals overlap with the processing of the current ones.
+ *
+ * The prefetcher is given the traversals in the order in which they will be requested. Each traversal is a single query
+ * of all its intervals (and of the unmapped reads, if requested), so that it returns the same reads in the same order as
+ * a traversal that is not prefetched, and the index is only consulted once per traversal. The reads of each of the
+ * (sorted and merged) intervals are put in their own buffer (or buffers, of at most {@link #MAX_READS_PER_BUFFER} reads),
+ * so that they are handed over as soon as the interval has been decoded, and the background thread stays at most a fixed
+ * number of buffers ahead of the consumer, so that memory usage stays bounded however many reads the intervals contain.
+ *
+ * While the prefetcher is open, the background thread has exclusive use of the readers of the data source: the data
+ * source must close the prefetcher before iterating over its readers on any other thread.
+ */
+final class ReadPrefetcher implements AutoCloseable {
+
+    /**
+     * Maximum number of reads per buffer, so that intervals with many reads don't use unbounded memory
+     */
+    static final int MAX_READS_PER_BUFFER = 10000;
+
+    /**
+     * How often the background thread checks whether the prefetcher was closed while it waits for the consumer
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    /**
+     * Reads decoded by the background thread, or the end of a traversal, or the error that ended the prefetching
+     */
+    private static final class Buffer {
+        private final int traversalIndex;
+        private final List<GATKRead> reads;
+        private final boolean endOfTraversal;
+        private final Throwable error;
+
+        private Buffer( final int traversalIndex, final List<GATKRead> reads, final boolean endOfTraversal, final Throwable error ) {
+            this.traversalIndex = traversalIndex;
+            this.reads = reads;
+            this.endOfTraversal = endOfTraversal;
+            this.error = error;
+        }
+    }
+
+    private final List<TraversalParameters> traversals;
+
+    /**
+     * The intervals of each traversal, sorted and merged, in the same order as {@link #traversals}
+     */
+    private final List<List<SimpleInterval>> optimizedIntervals;
+
+    private final BlockingQueue<Buffer> buffers;
+
+    private final ExecutorService prefetchService;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Index of the next traversal that can be requested by the consumer
+     */
+    private int nextTraversal = 0;
+
+    /**
+     * Index of the traversal being iterated over by the consumer, or -1 if there is none
+     */
+    private int activeTraversal = -1;
+
+    /**
+     * Set once the consumer has seen the error that stopped the background thread
+     */
+    private boolean failed = false;
+
+    private long buffersReady = 0;
+    private long stalls = 0;
+    private long stallNanos = 0;
+
+    /**
+     * @param traversals upcoming traversals, in the order in which they will be requested
+     * @param numBuffers maximum number of buffers of reads to decode ahead of the consumer
+     * @param dictionary sequence dictionary of the reads, used to sort the intervals
+     * @param traversalQuery returns the reads of a traversal: those overlapping any of its intervals, followed by the
+     *                       unmapped reads with no position if requested. Only ever called by the background thread.
+     */
+    ReadPrefetcher( final List<TraversalParameters> traversals, final int numBuffers, final SAMSequenceDictionary dictionary,
+                    final Function<TraversalParameters, Iterator<GATKRead>> traversalQuery ) {
+        Utils.nonNull(traversals);
+        Utils.validateArg(numBuffers > 0, "the number of buffers must be positive");
+        Utils.nonNull(dictionary);
+        Utils.nonNull(traversalQuery);
+
+        this.traversals = new ArrayList<>(traversals);
+        optimizedIntervals = new ArrayList<>(traversals.size());
+        for ( final TraversalParameters traversal : traversals ) {
+            optimizedIntervals.add(optimizeIntervals(traversal.getIntervalsForTraversal(), dictionary));
+        }
+        buffers = new ArrayBlockingQueue<>(numBuffers);
+
+        prefetchService = OrderedWorkerPool.newDaemonThreadPool(1, "read-prefetch-thread-%d");
+        prefetchService.submit(() -> prefetch(traversalQuery));
+    }
+
+    /**
+     * Sort and merge the intervals the same way that htsjdk does for a query of all the intervals at once
+     */
+    private static List<SimpleInterval> optimizeIntervals( final List<SimpleInterval> intervals, final SAMSequenceDictionary dictionary ) {
+        final QueryInterval[] queryIntervals = QueryInterval.optimizeIntervals(intervals.stream()
+                .map(interval -> IntervalUtils.convertSimpleIntervalToQueryInterval(interval, dictionary))
+                .toArray(QueryInterval[]::new));
+        final List<SimpleInterval> optimized = new ArrayList<>(queryIntervals.length);
+        for ( final QueryInterval queryInterval : queryIntervals ) {
+            optimized.add(new SimpleInterval(dictionary.getSequence(queryInterval.referenceIndex).getSequenceName(), queryInterval.start, queryInterval.end));
+        }
+        return optimized;
+    }
+
+    /**
+     * Body of the background thread: decode the reads of all the traversals, in order
+     */
+    private void prefetch( final Function<TraversalParameters, Iterator<GATKRead>> traversalQuery ) {
+        try {
+            for ( int traversalIndex = 0; traversalIndex < traversals.size(); traversalIndex++ ) {
+                final TraversalParameters traversal = traversals.get(traversalIndex);
+                // a traversal with no intervals and no unmapped reads returns no reads, rather than all of them
+                final boolean isEmpty = traversal.getIntervalsForTraversal().isEmpty() && !traversal.traverseUnmappedReads();
+                if ( !isEmpty && !prefetchReads(traversalIndex, traversalQuery.apply(traversal)) ) {
+                    return;
+                }
+                if ( !put(new Buffer(traversalIndex, Collections.emptyList(), true, null)) ) {
+                    return;
+                }
+            }
+        } catch ( final RuntimeException | Error e ) {
+            // hand the error over to the consumer, in place of the reads that could not be decoded
+            put(new Buffer(-1, Collections.emptyList(), false, e));
+        }
+    }
+
+    /**
+     * Buffer the reads of a traversal, starting a new buffer whenever the reads move on to the next of its intervals.
+     * Since the intervals are sorted and merged and the reads are sorted by start, a read starting after the end of the
+     * current interval (or on a later contig) only overlaps later intervals.
+     *
+     * @return false if the prefetcher was closed
+     */
+    private boolean prefetchReads( final int traversalIndex, final Iterator<GATKRead> reads ) {
+        final List<SimpleInterval> intervals = optimizedIntervals.get(traversalIndex);
+        int currentInterval = 0;
+        List<GATKRead> buffer = new ArrayList<>();
+        while ( reads.hasNext() ) {
+            if ( closed ) {
+                return false;
+            }
+            final GATKRead read = reads.next();
+            if ( currentInterval < intervals.size() && startsAfter(read, intervals.get(currentInterval)) ) {
+                do {
+                    currentInterval++;
+                } while ( currentInterval < intervals.size() && startsAfter(read, intervals.get(currentInterval)) );
+                if ( !buffer.isEmpty() ) {
+                    if ( !put(new Buffer(traversalIndex, buffer, false, null)) ) {
+                        return false;
+                    }
+                    buffer = new ArrayList<>();
+                }
+            }
+            buffer.add(read);
+            if ( buffer.size() == MAX_READS_PER_BUFFER ) {
+                if ( !put(new Buffer(traversalIndex, buffer, false, null)) ) {
+                    return false;
+                }
+                buffer = new ArrayList<>();
+            }
+        }
+        return buffer.isEmpty() || put(new Buffer(traversalIndex, buffer, false, null));
+    }
+
+    /**
+     * @return true if the read starts after the end of the interval, or is on another contig (or has no position)
+     */
+    private static boolean startsAfter( final GATKRead read, final SimpleInterval interval ) {
+        return !interval.getContig().equals(read.getAssignedContig()) || read.getAssignedStart() > interval.getEnd();
+    }
+
+    /**
+     * Wait for room in the queue of buffers. The background thread is never interrupted, since interrupting a thread
+     * blocked in a read would close the channels of the data source.
+     *
+     * @return false if the prefetcher was closed
+     */
+    private boolean put( final Buffer buffer ) {
+        try {
+            while ( !closed ) {
+                if ( buffers.offer(buffer, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) ) {
+                    return true;
+                }
+            }
+            return false;
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Start iterating over the reads of a traversal, if it is one of the upcoming traversals of this prefetcher.
+     * The traversals before it are skipped, as is the rest of the traversal that was being iterated over:
+     * iterators returned previously by this method return no more reads.
+     *
+     * @param intervals intervals of the traversal, as passed to {@link ReadsDataSource#setTraversalBounds}
+     * @param traverseUnmapped whether the traversal includes the unmapped reads
+     * @return an iterator over the reads of the traversal, or null if it is not one of the upcoming traversals (or if
+     *         the prefetching failed)
+     */
+    Iterator<GATKRead> iterator( final List<SimpleInterval> intervals, final boolean traverseUnmapped ) {
+        if ( failed ) {
+            return null;
+        }
+        final List<SimpleInterval> requestedIntervals = intervals != null ? intervals : Collections.emptyList();
+        for ( int traversalIndex = nextTraversal; traversalIndex < traversals.size(); traversalIndex++ ) {
+            final TraversalParameters traversal = traversals.get(traversalIndex);
+            if ( traversal.traverseUnmappedReads() == traverseUnmapped && traversal.getIntervalsForTraversal().equals(requestedIntervals) ) {
+                nextTraversal = traversalIndex + 1;
+                activeTraversal = traversalIndex;
+                return new TraversalIterator(traversalIndex);
+            }
+        }
+        return null;
+    }
+
+    private final class TraversalIterator implements Iterator<GATKRead> {
+        private final int traversalIndex;
+        private Iterator<GATKRead> currentBuffer = Collections.emptyIterator();
+        private boolean exhausted = false;
+
+        private TraversalIterator( final int traversalIndex ) {
+            this.traversalIndex = traversalIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if ( !exhausted && activeTraversal != traversalIndex ) {
+                // another traversal was started, or the prefetcher was closed
+                exhausted = true;
+                currentBuffer = Collections.emptyIterator();
+            }
+            while ( !currentBuffer.hasNext() && !exhausted ) {
+                final Buffer buffer = takeBuffer();
+                if ( buffer.error != null ) {
+                    exhausted = true;
+                    activeTraversal = -1;
+                    failed = true;
+                    if ( buffer.error instanceof RuntimeException ) {
+                        throw (RuntimeException) buffer.error;
+                    }
+                    throw new GATKException("Error prefetching reads", buffer.error);
+                } else if ( buffer.traversalIndex < traversalIndex ) {
+                    // left over from a traversal that was skipped or not iterated to the end
+                    continue;
+                } else if ( buffer.endOfTraversal ) {
+                    exhausted = true;
+                    activeTraversal = -1;
+                } else {
+                    currentBuffer = buffer.reads.iterator();
+                }
+            }
+            return currentBuffer.hasNext();
+        }
+
+        @Override
+        public GATKRead next() {
+            if ( !hasNext() ) {
+                throw new NoSuchElementException("No more reads");
+            }
+            return currentBuffer.next();
+        }
+    }
+
+    private Buffer takeBuffer() {
+        final Buffer buffer = buffers.poll();
+        if ( buffer != null ) {
+            buffersReady++;
+            return buffer;
+        }
+        stalls++;
+        final long start = System.nanoTime();
+        try {
+            return buffers.take();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for prefetched reads", e);
+        } finally {
+            stallNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * @return number of buffers that had already been decoded when the consumer needed them
+     */
+    long getBuffersReady() {
+        return buffersReady;
+    }
+
+    /**
+     * @return number of times the consumer had to wait for a buffer to be decoded
+     */
+    long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * @return total time the consumer spent waiting for buffers to be decoded, in nanoseconds
+     */
+    long getStallNanos() {
+        return stallNanos;
+    }
+
+    /**
+     * Stop the background thread, waiting for it to finish decoding the current read. Reads that have not been
+     * consumed yet are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        activeTraversal = -1;
+        buffers.clear();
+        // not interrupted, see put()
+        OrderedWorkerPool.shutdownAndAwaitTermination(prefetchService, false, "the read prefetching thread");
+        buffers.clear();
+    }
+}
@@ -1,14 +1,21 @@
 package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * A ReadWalker is a tool that processes a single read at a time from one or multiple sources of reads, with
@@ -24,9 +31,25 @@ import java.util.List;
  *
  * ReadWalker authors must implement the apply() method to process each read, and may optionally implement
  * onTraversalStart() and/or onTraversalSuccess(). See the PrintReadsWithReference walker for an example.
+ *
+ * Walkers that override {@link #supportsPipelinedTraversal()} can be run with {@code --read-pipeline-threads}, in which
+ * case reads are decoded on a reader thread, filtered and transformed on a pool of worker threads, and handed to
+ * {@link #apply} in their original order on the traversal thread.
  */
 public abstract class ReadWalker extends WalkerBase {
 
+    public static final String READ_PIPELINE_THREADS_LONG_NAME = "read-pipeline-threads";
+
+    /**
+     * Number of threads used to filter and transform reads, in addition to a thread reading the input and to the
+     * traversal thread that calls {@link #apply}. Only supported by tools whose per-read work is done by their read
+     * transformers (see {@link #supportsPipelinedTraversal()}). The output is identical to that of the default
+     * single-threaded traversal.
+     */
+    @Advanced
+    @Argument(fullName = READ_PIPELINE_THREADS_LONG_NAME, doc = "Number of threads to filter and transform reads with (0 to process them on the traversal thread). Only supported by some tools.", optional = true, minValue = 0)
+    public int readPipelineThreads = 0;
+
     @Override
     public boolean requiresReads() {
         return true;
@@ -50,14 +73,41 @@ public abstract class ReadWalker extends WalkerBase {
     protected final void onStartup() {
         super.onStartup();
 
+        if ( readPipelineThreads > 0 && !supportsPipelinedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue(READ_PIPELINE_THREADS_LONG_NAME, Integer.toString(readPipelineThreads),
+                    getClass().getSimpleName() + " does not support pipelined traversal");
+        }
         setReadTraversalBounds();
     }
 
+    /**
+     * Whether reads can be filtered and transformed on several threads at once by this walker, so that it can be run
+     * with {@code --read-pipeline-threads}.
+     *
+     * Walkers that return true declare that:
+     * - each call to {@link #makeReadFilter()}, {@link #makePreReadFilterTransformer()} and {@link #makePostReadFilterTransformer()}
+     *   returns an object that is independent of those returned by the other calls, and whose result for a read does
+     *   not depend on the reads it has seen before. One of each is created per worker thread.
+     * - the read filters they use can be tested by several threads at once.
+     * - {@link #apply} does no expensive per-read work, since it is still called on a single thread. It only sees
+     *   the reads in order and typically just writes them out.
+     *
+     * The default implementation returns false.
+     */
+    public boolean supportsPipelinedTraversal() {
+        return false;
+    }
+
     /**
      * Initialize traversal bounds if intervals are specified
      */
     void setReadTraversalBounds() {
-        if ( hasUserSuppliedIntervals() ) {
+        if ( isLocalShardTraversal() ) {
+            // the unmapped reads are traversed with the last shard, if the user intervals include them or if there are no user intervals
+            final boolean traverseUnmapped = localShard.isLast() && (!intervalArgumentCollection.intervalsSpecified() ||
+                    intervalArgumentCollection.getTraversalParameters(getHeaderForReads().getSequenceDictionary()).traverseUnmappedReads());
+            reads.setTraversalBounds(new TraversalParameters(userIntervals, traverseUnmapped));
+        } else if ( hasUserSuppliedIntervals() ) {
             final SAMSequenceDictionary dict = getHeaderForReads().getSequenceDictionary();
             final boolean traverseUnmapped =
                     intervalArgumentCollection.getTraversalParameters(dict).traverseUnmappedReads();
@@ -91,10 +141,22 @@ public abstract class ReadWalker extends WalkerBase {
      */
     @Override
     public void traverse() {
+        if ( readPipelineThreads > 0 ) {
+            traversePipelined();
+            return;
+        }
+
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
+        // Reads owned by another local shard are dropped before the counted filter, so that they are only counted once.
         final CountingReadFilter countedFilter = makeReadFilter();
-        getTransformedReadStream(countedFilter)
+        final ReadTransformer preTransformer = makePreReadFilterTransformer();
+        final ReadTransformer postTransformer = makePostReadFilterTransformer();
+        Utils.stream(reads)
+                .filter(this::isInLocalShard)
+                .map(preTransformer)
+                .filter(countedFilter)
+                .map(postTransformer)
                 .forEach(read -> {
                     final SimpleInterval readInterval = getReadInterval(read);
                     apply(read,
@@ -107,6 +169,45 @@ public abstract class ReadWalker extends WalkerBase {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Pipelined version of {@link #traverse()}: each worker thread gets its own filter and transformers, and
+     * {@link #apply} is called with the reads in their original order, along with their reference and feature contexts,
+     * which are still created on the traversal thread.
+     */
+    private void traversePipelined() {
+        final List<CountingReadFilter> filters = new ArrayList<>(readPipelineThreads);
+        final List<Function<GATKRead, GATKRead>> processors = new ArrayList<>(readPipelineThreads);
+        for ( int i = 0; i < readPipelineThreads; i++ ) {
+            final CountingReadFilter filter = makeReadFilter();
+            final ReadTransformer preTransformer = makePreReadFilterTransformer();
+            final ReadTransformer postTransformer = makePostReadFilterTransformer();
+            filters.add(filter);
+            processors.add(read -> {
+                if ( !isInLocalShard(read) ) {
+                    return null;
+                }
+                final GATKRead transformed = preTransformer.apply(read);
+                return filter.test(transformed) ? postTransformer.apply(transformed) : null;
+            });
+        }
+
+        try ( final PipelinedReadIterator pipeline = new PipelinedReadIterator(reads.iterator(), processors) ) {
+            Utils.stream(pipeline).forEach(read -> {
+                final SimpleInterval readInterval = getReadInterval(read);
+                apply(read,
+                      new ReferenceContext(reference, readInterval),
+                      new FeatureContext(features, readInterval));
+
+                progressMeter.update(readInterval);
+            });
+        }
+
+        // the workers are done with their filters once the pipeline has been closed
+        final CountingReadFilter countedFilter = filters.get(0);
+        filters.subList(1, filters.size()).forEach(countedFilter::addFilteredCounts);
+        logger.info(countedFilter.getSummaryLine());
+    }
+
     /**
      * Returns an interval for the read.
      * Note: some walkers must be able to work on any read, including those whose coordinates do not form a valid SimpleInterval.
@@ -116,6 +217,14 @@ public abstract class ReadWalker extends WalkerBase {
         return !read.isUnmapped() && SimpleInterval.isValid(read.getContig(), read.getStart(), read.getEnd()) ? new SimpleInterval(read) : null;
     }
 
+    /**
+     * @return true if the read should be traversed by this copy of the tool: reads that overlap several local shards are
+     *         only traversed with the first one (see {@link #supportsLocalSharding})
+     */
+    private boolean isInLocalShard(final GATKRead read) {
+        return localShard == null || localShard.ownsRead(read);
+    }
+
     /**
      * Returns the default list of CommandLineReadFilters that are used for this tool. The filters returned
      * by this method are subject to selective enabling/disabling by the user via the command line. The
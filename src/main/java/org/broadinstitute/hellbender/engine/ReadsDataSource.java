@@ -55,6 +55,15 @@ public interface ReadsDataSource extends GATKDataSource<GATKRead>, AutoCloseable
         setTraversalBounds(traversalParameters.getIntervalsForTraversal(), traversalParameters.traverseUnmappedReads());
     }
 
+    /**
+     * Announces the next bounded traversals of this data source, in the order in which they will be requested, so that
+     * implementations that prefetch reads can start decoding them ahead of time. Does nothing by default.
+     *
+     * @param traversals the next traversals, each requested via {@link #setTraversalBounds} followed by {@link #iterator}
+     */
+    default void setUpcomingTraversals(List<TraversalParameters> traversals) {
+    }
+
     /**
      * @return true if traversals initiated via {@link #iterator} will be restricted to reads that overlap intervals
      *         as configured via {@link #setTraversalBounds}, otherwise false
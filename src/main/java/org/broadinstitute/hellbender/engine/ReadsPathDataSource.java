@@ -20,6 +20,7 @@ import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -27,6 +28,7 @@ import org.broadinstitute.hellbender.utils.read.ReadConstants;
 
 import java.io.IOException;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -63,6 +65,12 @@ public final class ReadsPathDataSource implements ReadsDataSource {
      */
     private final Map<SamReader, Path> backingPaths;
 
+    /**
+     * Factory of our readers, kept to open the additional readers of the unbounded traversals of BAM files whose
+     * blocks are decompressed in parallel
+     */
+    private final SamReaderFactory samReaderFactory;
+
     /**
      * Only reads that overlap these intervals (and unmapped reads, if {@link #traverseUnmapped} is set) will be returned
      * during a full iteration. Null if iteration is unbounded.
@@ -97,6 +105,20 @@ public final class ReadsPathDataSource implements ReadsDataSource {
      */
     private boolean isClosed;
 
+    /**
+     * Number of buffers of reads to decode ahead of bounded traversals on a background thread, or 0 if prefetching is disabled
+     */
+    private int prefetchBuffers = 0;
+
+    /**
+     * Prefetcher for the upcoming bounded traversals, or null if there is none. While it is open, it has exclusive use of our readers.
+     */
+    private ReadPrefetcher prefetcher = null;
+
+    private long prefetchBuffersReady = 0;
+    private long prefetchStalls = 0;
+    private long prefetchStallNanos = 0;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -212,7 +234,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
         backingPaths = new LinkedHashMap<>(samPaths.size() * 2);
         indicesAvailable = true;
 
-        final SamReaderFactory samReaderFactory =
+        samReaderFactory =
                 customSamReaderFactory == null ?
                     SamReaderFactory.makeDefault().validationStringency(ReadConstants.DEFAULT_READ_VALIDATION_STRINGENCY) :
                     customSamReaderFactory;
@@ -281,6 +303,43 @@ public final class ReadsPathDataSource implements ReadsDataSource {
         return indicesAvailable();
     }
 
+    /**
+     * Decode the reads of bounded traversals (and of queries announced via {@link #setUpcomingTraversals}) on a background
+     * thread, up to the given number of buffers ahead of the caller. Each traversal is a single query of all its intervals,
+     * and the reads of each interval are decoded into their own buffer (or buffers, if it has more than
+     * {@link ReadPrefetcher#MAX_READS_PER_BUFFER} reads), so this hides the latency of the seeks to the next intervals,
+     * which is high for network file systems and cloud paths.
+     *
+     * Unbounded traversals, {@link #queryUnmapped} and queries that were not announced are not prefetched, and stop any
+     * ongoing prefetching.
+     *
+     * @param numBuffers number of buffers to decode ahead, or 0 to disable prefetching
+     */
+    public void enablePrefetching( final int numBuffers ) {
+        Utils.validateArg(numBuffers >= 0, "the number of prefetch buffers must be >= 0");
+        stopPrefetching();
+        prefetchBuffers = numBuffers;
+    }
+
+    /**
+     * If prefetching is enabled (see {@link #enablePrefetching}), starts decoding the reads of the given traversals in the
+     * background. Each traversal is prefetched if it is requested, in this order, either via {@link #setTraversalBounds}
+     * followed by {@link #iterator}, or (for single intervals without unmapped reads) via {@link #query}.
+     *
+     * @param traversals the next traversals, in order
+     */
+    @Override
+    public void setUpcomingTraversals( final List<TraversalParameters> traversals ) {
+        Utils.nonNull(traversals);
+        if ( prefetchBuffers == 0 ) {
+            return;
+        }
+        if ( ! indicesAvailable ) {
+            raiseExceptionForMissingIndex("Traversal by intervals was requested but some input files are not indexed.");
+        }
+        startPrefetching(traversals);
+    }
+
     /**
      * Restricts a traversal of this data source via {@link #iterator} to only return reads that overlap the given intervals,
      * and to unmapped reads if specified.
@@ -327,11 +386,25 @@ public final class ReadsPathDataSource implements ReadsDataSource {
      * Iterate over all reads in this data source. If intervals were provided via {@link #setTraversalBounds},
      * iteration is limited to reads that overlap that set of intervals.
      *
+     * Unbounded iterations over BAM files have their blocks decompressed in parallel if
+     * {@link ParallelBlockCompressedInputStream#getDefaultDecompressionThreads} is > 0.
+     *
      * @return An iterator over the reads in this data source, limited to reads that overlap the intervals supplied
      *         via {@link #setTraversalBounds} (if intervals were provided)
      */
     @Override
     public Iterator<GATKRead> iterator() {
+        if ( prefetchBuffers > 0 && traversalIsBounded() ) {
+            final Iterator<GATKRead> prefetchedReads = getPrefetchedReads(intervalsForTraversal, traverseUnmapped);
+            if ( prefetchedReads != null ) {
+                return prefetchedReads;
+            }
+            // the traversal wasn't announced, so start prefetching its intervals now
+            startPrefetching(Arrays.asList(new TraversalParameters(intervalsForTraversal, traverseUnmapped)));
+            return getPrefetchedReads(intervalsForTraversal, traverseUnmapped);
+        }
+
+        stopPrefetching();
         logger.debug("Preparing readers for traversal");
         return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped);
     }
@@ -349,6 +422,14 @@ public final class ReadsPathDataSource implements ReadsDataSource {
             raiseExceptionForMissingIndex("Cannot query reads data source by interval unless all files are indexed");
         }
 
+        if ( prefetchBuffers > 0 ) {
+            final Iterator<GATKRead> prefetchedReads = getPrefetchedReads(Arrays.asList(interval), false);
+            if ( prefetchedReads != null ) {
+                return prefetchedReads;
+            }
+        }
+
+        stopPrefetching();
         return prepareIteratorsForTraversal(Arrays.asList(interval));
     }
 
@@ -362,6 +443,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
             raiseExceptionForMissingIndex("Cannot query reads data source by interval unless all files are indexed");
         }
 
+        stopPrefetching();
         return prepareIteratorsForTraversal(null, true);
     }
 
@@ -376,6 +458,53 @@ public final class ReadsPathDataSource implements ReadsDataSource {
         return headerMerger != null ? headerMerger.getMergedHeader() : readers.entrySet().iterator().next().getKey().getFileHeader();
     }
 
+    /**
+     * @return an iterator over the prefetched reads of the given traversal, or null if it is not one of the upcoming
+     *         traversals of our prefetcher
+     */
+    private Iterator<GATKRead> getPrefetchedReads( final List<SimpleInterval> intervals, final boolean traverseUnmapped ) {
+        return prefetcher != null ? prefetcher.iterator(intervals, traverseUnmapped) : null;
+    }
+
+    /**
+     * Replace any ongoing prefetching with the prefetching of the given traversals. The prefetcher queries our readers
+     * on its own thread, through {@link #prepareIteratorsForTraversal}.
+     */
+    private void startPrefetching( final List<TraversalParameters> traversals ) {
+        stopPrefetching();
+        prefetcher = new ReadPrefetcher(traversals, prefetchBuffers, getSequenceDictionary(),
+                traversal -> prepareIteratorsForTraversal(traversal.getIntervalsForTraversal(), traversal.traverseUnmappedReads()));
+    }
+
+    /**
+     * Stop any ongoing prefetching, so that our readers can be used by the calling thread
+     */
+    private void stopPrefetching() {
+        if ( prefetcher != null ) {
+            prefetcher.close();
+            prefetchBuffersReady += prefetcher.getBuffersReady();
+            prefetchStalls += prefetcher.getStalls();
+            prefetchStallNanos += prefetcher.getStallNanos();
+            prefetcher = null;
+        }
+    }
+
+    /**
+     * @return number of prefetched buffers of reads that were ready when they were needed
+     */
+    @VisibleForTesting
+    long getPrefetchBuffersReady() {
+        return prefetchBuffersReady + (prefetcher != null ? prefetcher.getBuffersReady() : 0);
+    }
+
+    /**
+     * @return number of times a traversal had to wait for prefetched reads to be decoded
+     */
+    @VisibleForTesting
+    long getPrefetchStalls() {
+        return prefetchStalls + (prefetcher != null ? prefetcher.getStalls() : 0);
+    }
+
     /**
      * Prepare iterators over all readers in response to a request for a complete iteration or query
      *
@@ -401,6 +530,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
         closePreviousIterationsIfNecessary();
 
         final boolean traversalIsBounded = (queryIntervals != null && ! queryIntervals.isEmpty()) || queryUnmapped;
+        final int decompressionThreads = ParallelBlockCompressedInputStream.getDefaultDecompressionThreads();
 
         // Set up an iterator for each reader, bounded to overlap with the supplied intervals if there are any
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
@@ -414,6 +544,8 @@ public final class ReadsPathDataSource implements ReadsDataSource {
                                 queryUnmapped
                         )
                 );
+            } else if ( decompressionThreads > 0 && readerEntry.getKey().type().equals(SamReader.Type.BAM_TYPE) ) {
+                readerEntry.setValue(openParallelInflatingIterator(readerEntry.getKey(), decompressionThreads));
             } else {
                 readerEntry.setValue(readerEntry.getKey().iterator());
             }
@@ -492,6 +624,11 @@ public final class ReadsPathDataSource implements ReadsDataSource {
             return;
         }
         isClosed = true;
+        stopPrefetching();
+        if ( prefetchBuffersReady + prefetchStalls > 0 ) {
+            logger.info(String.format("Read prefetching: %d of %d buffers of reads were ready when needed, waited %.2f seconds for the others",
+                    prefetchBuffersReady, prefetchBuffersReady + prefetchStalls, prefetchStallNanos / 1e9));
+        }
         closePreviousIterationsIfNecessary();
 
         try {
@@ -508,6 +645,52 @@ public final class ReadsPathDataSource implements ReadsDataSource {
         return isClosed;
     }
 
+    /**
+     * Open an unbounded iteration over a BAM file whose blocks are decompressed in parallel. htsjdk always decompresses
+     * BAM inputs itself, so the file is read through a separate reader, from a {@link ParallelBlockCompressedInputStream}
+     * that hands it the decompressed data as stored blocks. The records are given the header of our own reader, so that
+     * they can be merged with those of our other readers.
+     *
+     * @param reader our reader of the BAM file
+     * @param numThreads number of decompression threads
+     * @return iterator over all the reads of the file, which closes the additional reader when it is closed
+     */
+    private CloseableIterator<SAMRecord> openParallelInflatingIterator( final SamReader reader, final int numThreads ) {
+        final Path samPath = backingPaths.get(reader);
+        final SamReader streamReader;
+        try {
+            streamReader = samReaderFactory.open(SamInputResource.of(new ParallelBlockCompressedInputStream(
+                    Files.newInputStream(samPath), samPath.toUri().toString(), numThreads, true)));
+        } catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(samPath, e);
+        }
+        final SAMFileHeader header = reader.getFileHeader();
+        final CloseableIterator<SAMRecord> streamIterator = streamReader.iterator();
+        return new CloseableIterator<SAMRecord>() {
+            @Override
+            public boolean hasNext() {
+                return streamIterator.hasNext();
+            }
+
+            @Override
+            public SAMRecord next() {
+                final SAMRecord record = streamIterator.next();
+                record.setHeader(header);
+                return record;
+            }
+
+            @Override
+            public void close() {
+                streamIterator.close();
+                try {
+                    streamReader.close();
+                } catch ( IOException e ) {
+                    throw new GATKException("Error closing SAMReader for " + samPath.toUri(), e);
+                }
+            }
+        };
+    }
+
     /**
      * Close any previously-opened iterations over our readers (htsjdk allows only one open iteration per reader).
      */
@@ -17,14 +17,15 @@ import java.util.Iterator;
 public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable {
 
     /**
-     * Initialize this data source using a fasta file.
+     * Initialize this data source using a fasta or .2bit file.
      *
-     * The provided fasta file must have companion .fai and .dict files.
+     * The provided fasta file must have companion .fai and .dict files. A .2bit file is memory-mapped
+     * (see {@link ReferenceTwoBitSource}).
      *
-     * @param fastaPath reference fasta Path
+     * @param fastaPath reference fasta or .2bit Path
      */
     public static ReferenceDataSource of(final Path fastaPath) {
-        return new ReferenceFileSource(fastaPath);
+        return ReferenceTwoBitSource.isTwoBit(fastaPath) ? new ReferenceTwoBitSource(fastaPath) : new ReferenceFileSource(fastaPath);
     }
 
     /**
@@ -36,11 +37,16 @@ public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable
      *
      * NOTE: Most GATK tools do not support data created by setting {@code preserveFileBases} to {@code true}.
      *
-     * @param fastaPath reference fasta Path
+     * A .2bit file is memory-mapped (see {@link ReferenceTwoBitSource}). Since the .2bit format does not support
+     * ambiguity codes, only capitalization is preserved for .2bit files.
+     *
+     * @param fastaPath reference fasta or .2bit Path
      * @param preserveAmbiguityCodesAndCapitalization Whether to preserve the original bases in the given reference file path.
      */
     public static ReferenceDataSource of(final Path fastaPath, final boolean preserveAmbiguityCodesAndCapitalization) {
-        return new ReferenceFileSource(fastaPath, preserveAmbiguityCodesAndCapitalization);
+        return ReferenceTwoBitSource.isTwoBit(fastaPath) ?
+                new ReferenceTwoBitSource(fastaPath, preserveAmbiguityCodesAndCapitalization) :
+                new ReferenceFileSource(fastaPath, preserveAmbiguityCodesAndCapitalization);
     }
 
     /**
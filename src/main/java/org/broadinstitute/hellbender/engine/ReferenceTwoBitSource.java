@@ -0,0 +1,108 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.reference.TwoBitReference;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Manages traversals and queries over reference data stored in .2bit format.
+ *
+ * The .2bit file is memory-mapped (when it is on the local file system), so queries decode the packed bases directly
+ * from the page cache instead of reading and parsing fasta text through a cache window: random access is as cheap as
+ * sequential access, the reference is shared with any other thread or process using the same file, and only the
+ * sequence names, lengths and N/masked blocks are kept on the heap. Queries are thread-safe.
+ *
+ * Unlike fasta files, .2bit files don't need companion .fai and .dict files. Ambiguity codes are not supported by the
+ * .2bit format, so they are stored as Ns. Use {@link org.broadinstitute.hellbender.tools.reference.FastaToTwoBit} to
+ * convert a fasta reference.
+ */
+public final class ReferenceTwoBitSource implements ReferenceDataSource {
+
+    private final TwoBitReference reference;
+
+    /**
+     * Initialize this data source using a .2bit file. All bases are uppercased.
+     *
+     * @param twoBitPath reference .2bit file
+     */
+    public ReferenceTwoBitSource(final Path twoBitPath) {
+        this(twoBitPath, false);
+    }
+
+    /**
+     * Initialize this data source using a .2bit file.
+     *
+     * @param twoBitPath reference .2bit file
+     * @param preserveCase if true, preserve lowercase (masked) bases, otherwise uppercase all bases
+     */
+    public ReferenceTwoBitSource(final Path twoBitPath, final boolean preserveCase) {
+        Utils.nonNull(twoBitPath);
+        reference = new TwoBitReference(new GATKPath(twoBitPath.toUri().toString()), preserveCase, true);
+    }
+
+    /**
+     * @return true if this path has the .2bit extension
+     */
+    public static boolean isTwoBit(final Path path) {
+        return path.getFileName() != null && path.getFileName().toString().endsWith(TwoBitReference.TWO_BIT_EXTENSION);
+    }
+
+    /**
+     * Start an iteration over the entire reference. Not yet supported!
+     *
+     * @return iterator over all bases in this reference
+     */
+    @Override
+    public Iterator<Byte> iterator() {
+        throw new UnsupportedOperationException("Iteration over entire reference not yet implemented");
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back all bases spanning that interval at once.
+     * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
+     * class for guidance on how to work with bases in this format.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop, which must be on the contig; may be start - 1 to get an empty sequence
+     * @return a ReferenceSequence containing all bases spanning the query interval, prefetched
+     */
+    @Override
+    public ReferenceSequence queryAndPrefetch(final String contig, final long start, final long stop) {
+        Utils.nonNull(contig);
+        final SAMSequenceRecord contigRecord = reference.getSequenceDictionary().getSequence(contig);
+        Utils.validateArg(contigRecord != null, () -> "Contig " + contig + " not found in reference dictionary");
+        Utils.validateArg(start >= 1 && stop >= start - 1 && stop <= contigRecord.getSequenceLength(),
+                () -> "Invalid query " + contig + ":" + start + "-" + stop + " on a contig of length " + contigRecord.getSequenceLength());
+
+        // like fasta files, return an empty sequence when stop = start - 1
+        if ( stop < start ) {
+            return new ReferenceSequence(contig, contigRecord.getSequenceIndex(), new byte[0]);
+        }
+        return reference.getReferenceBases(new SimpleInterval(contig, (int) start, (int) stop));
+    }
+
+    /**
+     * Get the sequence dictionary for this reference
+     *
+     * @return SAMSequenceDictionary for this reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return reference.getSequenceDictionary();
+    }
+
+    /**
+     * Permanently close this data source
+     */
+    @Override
+    public void close() {
+        reference.close();
+    }
+}
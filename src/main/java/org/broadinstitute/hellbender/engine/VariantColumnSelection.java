@@ -0,0 +1,93 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The columns of a source of variants that a tool uses: the INFO fields, the FORMAT (genotype) fields and the samples
+ * to decode. Everything else is dropped from each record before it is parsed, which saves most of the cost of decoding
+ * records with many samples when a tool only looks at a few fields (see {@link VariantWalkerBase#getDrivingVariantsColumnSelection}).
+ *
+ * Each of the three sets may be null, meaning that all fields (or samples) are used. Only text VCF inputs are subset:
+ * other inputs (eg. BCF, GenomicsDB) are always fully decoded.
+ */
+public final class VariantColumnSelection {
+
+    /**
+     * Selects every column, ie. variants are decoded as usual
+     */
+    public static final VariantColumnSelection ALL = new VariantColumnSelection(null, null, null);
+
+    /**
+     * Selects no INFO fields, no FORMAT fields and no samples, for tools that only look at the sites
+     */
+    public static final VariantColumnSelection SITES_ONLY = new VariantColumnSelection(Collections.emptySet(), Collections.emptySet(), Collections.emptySet());
+
+    private final Set<String> infoFields;
+
+    private final Set<String> formatFields;
+
+    private final Set<String> samples;
+
+    /**
+     * @param infoFields keys of the INFO fields to decode, or null for all of them. The END field, which determines the
+     *                   end of each variant, is always decoded.
+     * @param formatFields keys of the FORMAT fields to decode, or null for all of them. If none of these keys is present
+     *                     in a record that has genotypes, its first FORMAT field is decoded.
+     * @param samples names of the samples whose genotypes to decode, or null for all of them. Samples that are not
+     *                present in an input are ignored.
+     */
+    public VariantColumnSelection(final Collection<String> infoFields, final Collection<String> formatFields, final Collection<String> samples) {
+        this.infoFields = copyOrNull(infoFields);
+        this.formatFields = copyOrNull(formatFields);
+        this.samples = copyOrNull(samples);
+    }
+
+    private static Set<String> copyOrNull(final Collection<String> values) {
+        if ( values == null ) {
+            return null;
+        }
+        Utils.containsNoNull(values, "column names must not be null");
+        return Collections.unmodifiableSet(new LinkedHashSet<>(values));
+    }
+
+    /**
+     * @return keys of the INFO fields to decode, or null for all of them
+     */
+    public Set<String> getInfoFields() {
+        return infoFields;
+    }
+
+    /**
+     * @return keys of the FORMAT fields to decode, or null for all of them
+     */
+    public Set<String> getFormatFields() {
+        return formatFields;
+    }
+
+    /**
+     * @return names of the samples to decode, or null for all of them
+     */
+    public Set<String> getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return true if this selects every column, ie. variants don't need to be subset
+     */
+    public boolean selectsAll() {
+        return infoFields == null && formatFields == null && samples == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VariantColumnSelection(INFO: %s, FORMAT: %s, samples: %s)",
+                infoFields == null ? "all" : infoFields,
+                formatFields == null ? "all" : formatFields,
+                samples == null ? "all" : samples);
+    }
+}
@@ -55,7 +55,7 @@ public abstract class VariantWalker extends VariantWalkerBase {
         // Create a FeatureDataSource for the driving variants FeatureInput, using the
         // cache lookahead value from getDrivingVariantCacheLookAheadBases()
         drivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                  getGenomicsDBOptions());
+                                                  getGenomicsDBOptions(), false, getDrivingVariantsColumnSelection(), retainDrivingVariantLines());
 
         // Also add the driving variants FeatureInput to FeatureManager as well so that it can be queried,
         // but use a lookahead value of 0 to avoid caching because of windowed queries that need to "look behind" as well.
@@ -105,6 +105,31 @@ public abstract class VariantWalkerBase extends WalkerBase {
      */
     protected abstract void initializeDrivingVariants();
 
+    /**
+     * Returns the columns of the driving variants that this tool uses: the INFO fields, FORMAT fields and samples
+     * that are decoded. Everything else is dropped from the records before they are parsed, and from the header of
+     * the driving variants, which makes traversals of inputs with many samples much cheaper for tools that only look
+     * at a few fields. Only text VCF inputs are subset.
+     *
+     * Defaults to {@link VariantColumnSelection#ALL}. Tools that write the driving variants to their output, or that
+     * otherwise need the full records, should not override this. Called by the framework during feature
+     * initialization, after the command line arguments have been parsed.
+     *
+     * @return the columns of the driving variants to decode
+     */
+    protected VariantColumnSelection getDrivingVariantsColumnSelection() {
+        return VariantColumnSelection.ALL;
+    }
+
+    /**
+     * @return true if the lines of the records of the driving variants should be kept in the variants, so that the
+     *         VCF writers of this tool can write unmodified records as is (see {@link GATKTool#PASS_THROUGH_UNMODIFIED_VARIANTS_LONG_NAME}).
+     *         The lines are never kept for tools that only decode some of the columns of the driving variants.
+     */
+    final boolean retainDrivingVariantLines() {
+        return passThroughUnmodifiedVariants && getDrivingVariantsColumnSelection().selectsAll();
+    }
+
     /**
      * Return the VCFHeader to be used for the driving variants for this tool. The value returned will usually
      * have been prepared in {@link #initializeDrivingVariants}
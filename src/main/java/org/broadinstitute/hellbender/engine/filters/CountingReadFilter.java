@@ -76,6 +76,18 @@ public class CountingReadFilter extends ReadFilter {
         filteredCount = 0;
     }
 
+    /**
+     * Add the counts of another filter to the counts of this one, at every level of filter nesting. Used to report a
+     * single summary for several copies of the same filter that have been applied to different reads.
+     *
+     * @param other a filter with the same structure as this one, such as another one obtained from the same tool
+     */
+    public void addFilteredCounts(final CountingReadFilter other) {
+        Utils.nonNull(other);
+        Utils.validateArg(getClass() == other.getClass(), () -> "Can't add the counts of " + other.getName() + " to those of " + getName());
+        filteredCount += other.filteredCount;
+    }
+
     public String getName() {return delegateFilter.getName();}
 
     // Returns a summary line with filter counts organized by level
@@ -148,6 +160,12 @@ public class CountingReadFilter extends ReadFilter {
         public String getName() {
             return "NOT " + delegateCountingFilter.getName();
         }
+
+        @Override
+        public void addFilteredCounts(final CountingReadFilter other) {
+            super.addFilteredCounts(other);
+            delegateCountingFilter.addFilteredCounts(((CountingNegateReadFilter) other).delegateCountingFilter);
+        }
     }
 
     /**
@@ -190,6 +208,13 @@ public class CountingReadFilter extends ReadFilter {
             this.rhs.resetFilteredCount();
         }
 
+        @Override
+        public void addFilteredCounts(final CountingReadFilter other) {
+            super.addFilteredCounts(other);
+            lhs.addFilteredCounts(((CountingBinopReadFilter) other).lhs);
+            rhs.addFilteredCounts(((CountingBinopReadFilter) other).rhs);
+        }
+
         @Override
         public abstract String getName();
     }
@@ -17,6 +17,8 @@ import java.util.List;
 public class ApplyBQSRUniqueArgumentCollection implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    public static final String PRECOMPUTE_RECALIBRATED_QUALITIES_LONG_NAME = "precompute-recalibrated-qualities";
+
     /**
      * Turns on the base quantization module. It requires a recalibration report.
      *
@@ -61,6 +63,16 @@ public class ApplyBQSRUniqueArgumentCollection implements Serializable {
     @Argument(fullName = "global-qscore-prior", doc = "Global Qscore Bayesian prior to use for BQSR", optional = true)
     public double globalQScorePrior = -1.0;
 
+    /**
+     * Compute the contribution of every read group, reported quality and covariate value to the recalibrated
+     * qualities once, when the recalibration report is loaded, rather than for every base. This makes the
+     * recalibration of each base a handful of array lookups, at the cost of a few seconds of startup time and a
+     * table that grows with the number of read groups. The recalibrated qualities are identical either way.
+     */
+    @Advanced
+    @Argument(fullName = PRECOMPUTE_RECALIBRATED_QUALITIES_LONG_NAME, doc = "Precompute the recalibrated qualities from the recalibration report", optional = true)
+    public boolean precomputeRecalibratedQualities = false;
+
     /**
      * Combine the extra arguments in {@link ApplyBQSRArgumentCollection} that are not in this {@link ApplyBQSRUniqueArgumentCollection}
      * from the given {@link RecalibrationArgumentCollection} to create a {@link ApplyBQSRArgumentCollection}.
@@ -75,6 +87,7 @@ public class ApplyBQSRUniqueArgumentCollection implements Serializable {
         ret.roundDown = this.roundDown;
         ret.emitOriginalQuals = this.emitOriginalQuals;
         ret.globalQScorePrior = this.globalQScorePrior;
+        ret.precomputeRecalibratedQualities = this.precomputeRecalibratedQualities;
         // include all the fields from RecalibrationArgumentCollection
         ret.PRESERVE_QSCORES_LESS_THAN = bqsrArgs.PRESERVE_QSCORES_LESS_THAN;
         ret.useOriginalBaseQualities = bqsrArgs.useOriginalBaseQualities;
@@ -95,6 +95,14 @@ public final class PrintReads extends ReadWalker {
     public GATKPath output;
     private SAMFileGATKReadWriter outputWriter;
 
+    /**
+     * Reads are only written out by {@link #apply}, so they can be filtered and transformed on several threads.
+     */
+    @Override
+    public boolean supportsPipelinedTraversal() {
+        return true;
+    }
+
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(output, true);
@@ -14,6 +14,7 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.CoverageAnalysisProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.GATKTool;
 import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
@@ -150,6 +151,16 @@ public final class CollectReadCounts extends ReadWalker {
         return readFilters;
     }
 
+    @Override
+    public boolean supportsLocalSharding() {
+        return true;
+    }
+
+    @Override
+    protected void mergeLocalShard(final GATKTool shardTool) {
+        intervalMultiset.addAll(((CollectReadCounts) shardTool).intervalMultiset);
+    }
+
     @Override
     public void onTraversalStart() {
         validateArguments();
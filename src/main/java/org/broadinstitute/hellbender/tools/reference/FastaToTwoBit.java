@@ -0,0 +1,220 @@
+package org.broadinstitute.hellbender.tools.reference;
+
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.GATKPath;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.reference.TwoBitReference;
+import picard.cmdline.programgroups.ReferenceProgramGroup;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convert a FASTA reference to the .2bit format
+ *
+ * <p>The .2bit format (<a href="http://genome.ucsc.edu/FAQ/FAQformat.html#format7">http://genome.ucsc.edu/FAQ/FAQformat.html#format7</a>)
+ * packs each base into two bits, and stores runs of Ns and of lowercase (masked) bases as blocks. A .2bit reference is
+ * about a quarter of the size of the FASTA, and needs neither a .fai nor a .dict file.</p>
+ *
+ * <p>Tools given a .2bit reference with -R memory-map it, so that random access to the reference is as cheap as sequential
+ * access, and the reference is shared, through the page cache, by all the tools running on the same machine. Note that
+ * CRAM files still require a FASTA reference.</p>
+ *
+ * <p>The .2bit format does not support ambiguity codes: all bases other than A, C, G and T are converted to N.
+ * The output can also be read by the UCSC tools (eg. twoBitToFa) and by the Spark tools.</p>
+ *
+ * <h3>Input</h3>
+ *
+ * <ul>
+ *     <li>Reference FASTA file</li>
+ * </ul>
+ *
+ * <h3>Output</h3>
+ *
+ * <ul>
+ *     <li>Reference .2bit file</li>
+ * </ul>
+ *
+ * <h3>Usage example</h3>
+ *
+ * <pre>
+ * gatk FastaToTwoBit \
+ *     -I reference.fasta \
+ *     -O reference.2bit
+ * </pre>
+ */
+@DocumentedFeature
+@CommandLineProgramProperties(
+        summary = "Convert a FASTA reference to the .2bit format, which GATK tools can memory-map",
+        oneLineSummary = "Convert a FASTA reference to the .2bit format",
+        programGroup = ReferenceProgramGroup.class
+)
+public final class FastaToTwoBit extends CommandLineProgram {
+
+    @Argument(fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
+            shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME,
+            doc = "Input reference FASTA file.")
+    private GATKPath input = null;
+
+    @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME,
+            shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
+            doc = "Output reference file (ending in \"" + TwoBitReference.TWO_BIT_EXTENSION + "\").")
+    private GATKPath output = null;
+
+    // Maximum length of a sequence name, which is stored in a single byte
+    private static final int MAX_NAME_LENGTH = 255;
+
+    // Size of the metadata of a sequence record, excluding the N and masked blocks: dnaSize, nBlockCount, maskBlockCount and reserved
+    private static final int SEQUENCE_RECORD_FIXED_SIZE = 4 * Integer.BYTES;
+
+    @Override
+    protected Object doWork() {
+        if ( !output.getURI().getPath().endsWith(TwoBitReference.TWO_BIT_EXTENSION) ) {
+            throw new UserException.BadInput("Output file must end with a " + TwoBitReference.TWO_BIT_EXTENSION + " extension: " + output);
+        }
+
+        // The offsets of the sequence records must be written before the records, so the records are first written to
+        // a temporary file. This way only one sequence is kept in memory at a time.
+        final Path records = IOUtils.createTempPath("FastaToTwoBit", ".records");
+        final List<String> names = new ArrayList<>();
+        final List<Long> recordSizes = new ArrayList<>();
+        try ( final ReferenceSequenceFile fasta = ReferenceSequenceFileFactory.getReferenceSequenceFile(input.toPath(), true);
+              final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(records))) ) {
+            ReferenceSequence sequence;
+            while ( (sequence = fasta.nextSequence()) != null ) {
+                if ( sequence.getName().getBytes(StandardCharsets.US_ASCII).length > MAX_NAME_LENGTH ) {
+                    throw new UserException.BadInput("Sequence names can be at most " + MAX_NAME_LENGTH + " characters long in .2bit files: " + sequence.getName());
+                }
+                names.add(sequence.getName());
+                recordSizes.add(writeSequenceRecord(out, sequence.getBases()));
+            }
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(input, "Error while converting the reference", e);
+        }
+
+        try ( final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output.getOutputStream())) ) {
+            writeHeaderAndIndex(out, names, recordSizes);
+            Files.copy(records, out);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(output, "Error while writing the .2bit reference", e);
+        } finally {
+            // don't wait for the exit to free the disk space used by the records
+            IOUtils.tryDelete(records.toFile());
+        }
+        logger.info("Converted " + names.size() + " sequences to " + output);
+        return null;
+    }
+
+    /**
+     * Writes the header, in big-endian order (readers detect the byte order from the signature), and the index
+     * of the sequences, whose records are written right after the index in the same order.
+     */
+    private void writeHeaderAndIndex( final DataOutputStream out, final List<String> names, final List<Long> recordSizes ) throws IOException {
+        out.writeInt(TwoBitReference.TWO_BIT_SIGNATURE);
+        out.writeInt(TwoBitReference.TWO_BIT_SUPPORTED_VERSION);
+        out.writeInt(names.size());
+        out.writeInt(0);
+
+        long indexSize = 0;
+        for ( final String name : names ) {
+            indexSize += 1 + name.length() + Integer.BYTES;
+        }
+        long recordOffset = TwoBitReference.HEADER_LENGTH_IN_BYTES + indexSize;
+        final long fileSize = recordOffset + recordSizes.stream().mapToLong(Long::longValue).sum();
+        // The 2bit format itself is limited to 4GB, but our reader is limited to 2GB
+        if ( fileSize > Integer.MAX_VALUE ) {
+            throw new UserException.BadInput("The .2bit reference would be " + fileSize + " bytes, but we only support .2bit references up to " + Integer.MAX_VALUE + " bytes in size");
+        }
+
+        for ( int i = 0; i < names.size(); i++ ) {
+            final byte[] name = names.get(i).getBytes(StandardCharsets.US_ASCII);
+            out.writeByte(name.length);
+            out.write(name);
+            out.writeInt((int) recordOffset);
+            recordOffset += recordSizes.get(i);
+        }
+    }
+
+    /**
+     * Writes the record of a sequence: its size, the blocks of Ns (any base other than A, C, G or T), the blocks of
+     * lowercase (masked) bases, and the packed bases. Ns are packed as Ts, as they are by the UCSC tools.
+     *
+     * @return the size of the record in bytes
+     */
+    private static long writeSequenceRecord( final DataOutputStream out, final byte[] bases ) throws IOException {
+        final List<int[]> nBlocks = findBlocks(bases, true);
+        final List<int[]> maskBlocks = findBlocks(bases, false);
+
+        out.writeInt(bases.length);
+        writeBlocks(out, nBlocks);
+        writeBlocks(out, maskBlocks);
+        out.writeInt(0);
+
+        final byte[] packedBases = new byte[(bases.length + 3) / 4];
+        for ( int i = 0; i < bases.length; i++ ) {
+            packedBases[i >> 2] |= encodeBase(bases[i]) << (6 - 2 * (i & 3));
+        }
+        out.write(packedBases);
+
+        return SEQUENCE_RECORD_FIXED_SIZE + 2L * Integer.BYTES * (nBlocks.size() + maskBlocks.size()) + packedBases.length;
+    }
+
+    private static int encodeBase( final byte base ) {
+        switch ( base ) {
+            case 'C': case 'c': return 1;
+            case 'A': case 'a': return 2;
+            case 'G': case 'g': return 3;
+            default: return 0;
+        }
+    }
+
+    private static boolean isN( final byte base ) {
+        switch ( base ) {
+            case 'A': case 'a': case 'C': case 'c': case 'G': case 'g': case 'T': case 't': return false;
+            default: return true;
+        }
+    }
+
+    /**
+     * @param nBlocks if true, find the runs of Ns, otherwise find the runs of lowercase bases
+     * @return the 0-based start and the length of each run, in order
+     */
+    private static List<int[]> findBlocks( final byte[] bases, final boolean nBlocks ) {
+        final List<int[]> blocks = new ArrayList<>();
+        int blockStart = -1;
+        for ( int i = 0; i <= bases.length; i++ ) {
+            final boolean inBlock = i < bases.length && (nBlocks ? isN(bases[i]) : Character.isLowerCase(bases[i]));
+            if ( inBlock && blockStart < 0 ) {
+                blockStart = i;
+            } else if ( !inBlock && blockStart >= 0 ) {
+                blocks.add(new int[]{blockStart, i - blockStart});
+                blockStart = -1;
+            }
+        }
+        return blocks;
+    }
+
+    private static void writeBlocks( final DataOutputStream out, final List<int[]> blocks ) throws IOException {
+        out.writeInt(blocks.size());
+        for ( final int[] block : blocks ) {
+            out.writeInt(block[0]);
+        }
+        for ( final int[] block : blocks ) {
+            out.writeInt(block[1]);
+        }
+    }
+}
@@ -41,6 +41,14 @@ public final class CountVariants extends VariantWalker {
     @ArgumentCollection
     final public OptionalTextOutputArgumentCollection out = new OptionalTextOutputArgumentCollection();
 
+    /**
+     * Only the sites are counted, so none of the INFO fields or genotypes are decoded.
+     */
+    @Override
+    protected VariantColumnSelection getDrivingVariantsColumnSelection() {
+        return VariantColumnSelection.SITES_ONLY;
+    }
+
     @Override
     public void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
         count++;
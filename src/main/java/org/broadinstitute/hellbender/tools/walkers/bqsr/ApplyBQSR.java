@@ -108,6 +108,14 @@ public final class ApplyBQSR extends ReadWalker{
         return new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
     }
 
+    /**
+     * Reads are only written out by {@link #apply}, so they can be filtered and transformed on several threads.
+     */
+    @Override
+    public boolean supportsPipelinedTraversal() {
+        return true;
+    }
+
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(OUTPUT, true);
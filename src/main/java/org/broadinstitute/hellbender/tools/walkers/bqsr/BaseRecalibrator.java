@@ -1,8 +1,10 @@
 package org.broadinstitute.hellbender.tools.walkers.bqsr;
 
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.tribble.Feature;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
@@ -89,6 +91,7 @@ public final class BaseRecalibrator extends ReadWalker {
             "(such as read group, reported quality score, machine cycle, and nucleotide context).";
 
     public static final String KNOWN_SITES_ARG_FULL_NAME = "known-sites";
+    public static final String RECALIBRATION_THREADS_LONG_NAME = "recalibration-threads";
 
     protected static final Logger logger = LogManager.getLogger(BaseRecalibrator.class);
 
@@ -119,8 +122,22 @@ public final class BaseRecalibrator extends ReadWalker {
     @WorkflowOutput
     private GATKPath recalTableFile = null;
 
+    /**
+     * Number of threads used to collect the recalibration data. With more than one thread, reads are handed out in
+     * batches to a pool of independent recalibration engines, each with its own tables, which are combined once all reads
+     * have been processed. Reading the input and querying the known sites still happen on the traversal thread.
+     *
+     * The recalibration report is the same as the one of a single-threaded run, up to the rounding of the summed error
+     * counts, which are added up in a different order.
+     */
+    @Advanced
+    @Argument(fullName = RECALIBRATION_THREADS_LONG_NAME, doc = "Number of threads to use for collecting recalibration data", optional = true, minValue = 1)
+    public int recalibrationThreads = 1;
+
     private BaseRecalibrationEngine recalibrationEngine;
 
+    private BaseRecalibratorReadDispatcher readDispatcher;
+
     private ReferenceDataSource referenceDataSource; // datasource for the reference. We're using a different one from the engine itself to avoid messing with its caches.
 
     /**
@@ -145,9 +162,18 @@ public final class BaseRecalibrator extends ReadWalker {
 
         Utils.warnOnNonIlluminaReadGroups(getHeaderForReads(), logger);
 
-        recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
-        recalibrationEngine.logCovariatesUsed();
-        referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferencePath());
+        if (recalibrationThreads > 1) {
+            // each engine gets its own copy of the header, since the read groups are updated with the platform of the reads.
+            // The engine of the first worker becomes recalibrationEngine once the data of all workers has been combined.
+            final SAMFileHeader header = getHeaderForReads();
+            readDispatcher = new BaseRecalibratorReadDispatcher(recalibrationThreads,
+                    () -> new BaseRecalibrationEngine(recalArgs, header.clone()),
+                    () -> ReferenceDataSource.of(referenceArguments.getReferencePath()));
+        } else {
+            recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
+            recalibrationEngine.logCovariatesUsed();
+            referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferencePath());
+        }
     }
 
     @Override
@@ -186,12 +212,23 @@ public final class BaseRecalibrator extends ReadWalker {
      */
     @Override
     public void apply( GATKRead read, ReferenceContext ref, FeatureContext featureContext ) {
-        recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+        if (readDispatcher != null) {
+            readDispatcher.add(read, featureContext.getValues(knownSites));
+        } else {
+            recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
+        }
     }
 
     @Override
     public Object onTraversalSuccess() {
-        recalibrationEngine.finalizeData();
+        final long numReadsProcessed;
+        if (readDispatcher != null) {
+            recalibrationEngine = readDispatcher.finalizeData();
+            numReadsProcessed = readDispatcher.getNumReadsProcessed();
+        } else {
+            recalibrationEngine.finalizeData();
+            numReadsProcessed = recalibrationEngine.getNumReadsProcessed();
+        }
 
         logger.info("Calculating quantized quality scores...");
         quantizeQualityScores();
@@ -200,10 +237,17 @@ public final class BaseRecalibrator extends ReadWalker {
         generateReport();
         logger.info("...done!");
 
-        logger.info("BaseRecalibrator was able to recalibrate " + recalibrationEngine.getNumReadsProcessed() + " reads");
+        logger.info("BaseRecalibrator was able to recalibrate " + numReadsProcessed + " reads");
         return "SUCCESS";
     }
 
+    @Override
+    public void closeTool() {
+        if (readDispatcher != null) {
+            readDispatcher.close();
+        }
+    }
+
     /**
      * go through the quality score table and use the # observations and the empirical quality score
      * to build a quality score histogram for quantization. Then use the QuantizeQual algorithm to
@@ -0,0 +1,171 @@
+package org.broadinstitute.hellbender.tools.walkers.bqsr;
+
+import htsjdk.samtools.util.Locatable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
+import org.broadinstitute.hellbender.utils.runtime.OrderedWorkerPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Collects recalibration data on a fixed pool of worker threads.
+ *
+ * Reads are grouped into batches on the traversal thread, and each batch is processed by whichever worker is idle.
+ * Every worker owns a {@link BaseRecalibrationEngine} and a {@link ReferenceDataSource}, so no recalibration table is
+ * ever updated by more than one thread. Once all reads have been processed the tables of the workers are combined with
+ * {@link RecalibrationTables#inPlaceCombine}, as {@link org.broadinstitute.hellbender.tools.spark.transforms.BaseRecalibratorSparkFn}
+ * does for the tables of each partition.
+ *
+ * The number of batches in flight is bounded so that memory usage stays proportional to the number of threads.
+ *
+ * Callers must only add reads from a single (traversal) thread.
+ */
+public final class BaseRecalibratorReadDispatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(BaseRecalibratorReadDispatcher.class);
+
+    /**
+     * Number of reads handed to a worker at once, large enough to amortize the cost of scheduling
+     */
+    static final int READS_PER_BATCH = 1000;
+
+    /**
+     * How many batches each worker may have queued up before the traversal thread blocks waiting for them
+     */
+    private static final int MAX_PENDING_BATCHES_PER_THREAD = 4;
+
+    /**
+     * A recalibration engine together with the reference reader it uses. Only ever used by one thread at a time.
+     */
+    private static final class Worker {
+        private final BaseRecalibrationEngine engine;
+        private final ReferenceDataSource reference;
+
+        private Worker(final BaseRecalibrationEngine engine, final ReferenceDataSource reference) {
+            this.engine = Utils.nonNull(engine, "engine factory returned null");
+            this.reference = Utils.nonNull(reference, "reference factory returned null");
+        }
+
+        private void process(final List<GATKRead> reads, final List<List<? extends Locatable>> knownSites) {
+            for ( int i = 0; i < reads.size(); i++ ) {
+                engine.processRead(reads.get(i), reference, knownSites.get(i));
+            }
+        }
+    }
+
+    private final List<Worker> workers;
+
+    private final OrderedWorkerPool<Worker, Void> workerPool;
+
+    private List<GATKRead> currentReads = new ArrayList<>(READS_PER_BATCH);
+
+    private List<List<? extends Locatable>> currentKnownSites = new ArrayList<>(READS_PER_BATCH);
+
+    private boolean finalized = false;
+
+    /**
+     * @param numThreads number of worker threads (and engines) to use, must be positive
+     * @param engineFactory creates a new, independent engine for each worker thread. Engines must not share a
+     *                      {@link htsjdk.samtools.SAMFileHeader}, since processing a read may update its read group.
+     * @param referenceFactory opens a new reference reader for each worker thread
+     */
+    public BaseRecalibratorReadDispatcher(final int numThreads, final Supplier<BaseRecalibrationEngine> engineFactory, final Supplier<ReferenceDataSource> referenceFactory) {
+        Utils.validateArg(numThreads > 0, () -> "the number of recalibration threads must be positive but was " + numThreads);
+        Utils.nonNull(engineFactory);
+        Utils.nonNull(referenceFactory);
+
+        workers = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            workers.add(new Worker(engineFactory.get(), referenceFactory.get()));
+        }
+        workers.get(0).engine.logCovariatesUsed();
+        workerPool = new OrderedWorkerPool<>("bqsr-thread-%d", "collecting recalibration data", workers, numThreads * MAX_PENDING_BATCHES_PER_THREAD);
+        logger.info("Collecting recalibration data on " + numThreads + " threads");
+    }
+
+    /**
+     * Queue a read for processing. If too many batches are pending this method blocks until the oldest one is done.
+     *
+     * @param read read to process. Must not be modified by the caller after this call.
+     * @param knownSites known sites of variation overlapping the read, already fetched on the traversal thread
+     */
+    public void add(final GATKRead read, final List<? extends Locatable> knownSites) {
+        Utils.nonNull(read);
+        Utils.nonNull(knownSites);
+        Utils.validate(!finalized, "reads can't be added once the recalibration tables have been finalized");
+        currentReads.add(read);
+        currentKnownSites.add(knownSites);
+        if ( currentReads.size() == READS_PER_BATCH ) {
+            submitCurrentBatch();
+        }
+
+        while ( workerPool.isNextResultReady() ) {
+            workerPool.takeResult();
+        }
+    }
+
+    private void submitCurrentBatch() {
+        while ( workerPool.isFull() ) {
+            workerPool.takeResult();
+        }
+        final List<GATKRead> reads = currentReads;
+        final List<List<? extends Locatable>> knownSites = currentKnownSites;
+        currentReads = new ArrayList<>(READS_PER_BATCH);
+        currentKnownSites = new ArrayList<>(READS_PER_BATCH);
+        try {
+            workerPool.submit(worker -> {
+                worker.process(reads, knownSites);
+                return null;
+            });
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while submitting reads to the recalibration threads", e);
+        }
+    }
+
+    /**
+     * Wait for all reads to be processed, then combine and finalize the recalibration tables of all workers.
+     *
+     * @return the engine of the first worker, whose tables now hold the finalized data of all workers
+     */
+    public BaseRecalibrationEngine finalizeData() {
+        Utils.validate(!finalized, "finalizeData() has already been called");
+        if ( !currentReads.isEmpty() ) {
+            submitCurrentBatch();
+        }
+        while ( workerPool.hasPendingTasks() ) {
+            workerPool.takeResult();
+        }
+
+        final BaseRecalibrationEngine combined = workers.get(0).engine;
+        for ( final Worker worker : workers.subList(1, workers.size()) ) {
+            RecalibrationTables.inPlaceCombine(combined.getRecalibrationTables(), worker.engine.getRecalibrationTables());
+        }
+        combined.finalizeData();
+        finalized = true;
+        return combined;
+    }
+
+    /**
+     * @return total number of reads processed by all workers so far
+     */
+    public long getNumReadsProcessed() {
+        return workers.stream().mapToLong(worker -> worker.engine.getNumReadsProcessed()).sum();
+    }
+
+    /**
+     * Stop the worker threads and close their reference readers. Pending reads that have not been processed are discarded.
+     */
+    @Override
+    public void close() {
+        workerPool.close();
+        workers.forEach(worker -> worker.reference.close());
+    }
+}
@@ -15,7 +15,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
-import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.tsv.TableUtils;
 
@@ -149,6 +149,9 @@ public class GetPileupSummaries extends LocusWalker {
 
     PileupSummary.PileupSummaryTableWriter writer;
 
+    // pileup summaries of a local shard, which are written by the tool that merges the shards
+    private List<PileupSummary> shardPileupSummaries;
+
     @Override
     public boolean requiresReads() {
         return true;
@@ -194,6 +197,11 @@ public class GetPileupSummaries extends LocusWalker {
             throw new UserException.BadInput("Population vcf does not have an allele frequency (AF) info field in its header.");
         }
 
+        if (isLocalShardTraversal()) {
+            shardPileupSummaries = new ArrayList<>();
+            return;
+        }
+
         try {
             writer = new PileupSummary.PileupSummaryTableWriter(IOUtils.fileToPath(outputTable));
             final String sampleName = ReadUtils.getSamplesFromHeader(getHeaderForReads()).stream().findFirst().get();
@@ -206,19 +214,67 @@ public class GetPileupSummaries extends LocusWalker {
 
     @Override
     public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+        final VariantContext vc = getSiteToSummarize(featureContext);
+        if (vc != null) {
+            addPileupSummary(new PileupSummary(vc, alignmentContext.getBasePileup()));
+        }
+    }
+
+    @Override
+    public boolean usesPileupColumns() {
+        return true;
+    }
+
+    /**
+     * Most loci have no population variant, so their pileups are never copied out of the column.
+     */
+    @Override
+    public void apply(PileupColumn column, ReferenceContext referenceContext, FeatureContext featureContext) {
+        final VariantContext vc = getSiteToSummarize(featureContext);
+        if (vc != null) {
+            addPileupSummary(new PileupSummary(vc, column.getBaseCounts()));
+        }
+    }
+
+    /**
+     * @return the population variant at the current locus if it is a biallelic SNP whose allele frequency is in range,
+     *         null otherwise
+     */
+    private VariantContext getSiteToSummarize(final FeatureContext featureContext) {
         final List<VariantContext> vcs = featureContext.getValues(variants);
         if (vcs.isEmpty()) {
-            return;
+            return null;
         }
         final VariantContext vc = vcs.get(0);
+        return vc.isBiallelic() && vc.isSNP() && alleleFrequencyInRange(vc) ? vc : null;
+    }
 
-        if ( vc.isBiallelic() && vc.isSNP() && alleleFrequencyInRange(vc) ) {
-            final ReadPileup pileup = alignmentContext.getBasePileup();
-            try {
-                writer.writeRecord(new PileupSummary(vc, pileup));
-            } catch (final IOException ex) {
-                throw new UserException(String.format("Encountered an IO exception while writing to %s", outputTable));
-            }
+    private void addPileupSummary(final PileupSummary pileupSummary) {
+        if (shardPileupSummaries != null) {
+            shardPileupSummaries.add(pileupSummary);
+            return;
+        }
+        try {
+            writer.writeRecord(pileupSummary);
+        } catch (final IOException ex) {
+            throw new UserException(String.format("Encountered an IO exception while writing to %s", outputTable));
+        }
+    }
+
+    @Override
+    public boolean supportsLocalSharding() {
+        return true;
+    }
+
+    @Override
+    protected void mergeLocalShard(final GATKTool shardTool) {
+        final GetPileupSummaries shard = (GetPileupSummaries) shardTool;
+        sawVariantsWithoutAlleleFrequency |= shard.sawVariantsWithoutAlleleFrequency;
+        sawVariantsWithAlleleFrequency |= shard.sawVariantsWithAlleleFrequency;
+        try {
+            writer.writeAllRecords(shard.shardPileupSummaries);
+        } catch (final IOException ex) {
+            throw new UserException(String.format("Encountered an IO exception while writing to %s", outputTable));
         }
     }
 
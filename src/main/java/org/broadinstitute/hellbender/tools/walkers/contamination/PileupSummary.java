@@ -45,12 +45,19 @@ public class PileupSummary implements Locatable {
     }
 
     public PileupSummary(final VariantContext vc, final ReadPileup pileup) {
+        this(vc, pileup.getBaseCounts());
+    }
+
+    /**
+     * @param vc a biallelic SNP
+     * @param baseCounts counts of A, C, G, T at the SNP, as returned by {@link ReadPileup#getBaseCounts()}
+     */
+    public PileupSummary(final VariantContext vc, final int[] baseCounts) {
         contig = vc.getContig();
         position = vc.getStart();
         alleleFrequency = vc.getAttributeAsDouble(VCFConstants.ALLELE_FREQUENCY_KEY, 0);
         final byte altBase = vc.getAlternateAllele(0).getBases()[0];
         final byte refBase = vc.getReference().getBases()[0];
-        final int[] baseCounts = pileup.getBaseCounts();
         altCount = baseCounts[BaseUtils.simpleBaseToBaseIndex(altBase)];
         refCount = baseCounts[BaseUtils.simpleBaseToBaseIndex(refBase)];
         totalCount = (int) MathUtils.sum(baseCounts);
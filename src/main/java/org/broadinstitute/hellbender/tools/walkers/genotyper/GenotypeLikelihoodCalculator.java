@@ -33,6 +33,13 @@ import java.util.Arrays;
  *
  * If the cache-friendliness of this class is broken, it will show up as a severe regression in the runtime of its unit tests
  * for larger ploidies and allele counts.
+ *
+ * Genotypes with three or more distinct alleles, which make up nearly all genotypes at high ploidy with many alleles, are
+ * computed in batches by {@link MultiallelicGenotypeBatch}: the allele indices and counts of a batch of genotypes are
+ * laid out in flat tables, and the batch is evaluated over blocks of reads small enough for the likelihoods of all
+ * alleles over the block to stay in the cache. Rather than taking one logarithm per genotype and read, the per-read
+ * likelihoods of a genotype are multiplied together and a logarithm is only taken when the product is about to underflow
+ * or overflow.
  */
 public class GenotypeLikelihoodCalculator {
 
@@ -68,14 +75,19 @@ public class GenotypeLikelihoodCalculator {
         final double[][] log10LikelihoodsByAlleleAndRead = log10AlleleLikelihoods.asRealMatrix().getData();
 
         final boolean triallelicGenotypesPossible = alleleCount > 2 && ploidy > 2;
-        final double[] perReadBuffer = triallelicGenotypesPossible ? new double[readCount] : null;
 
         // non-log space log10AlleleLikelihoods for multiallelic computation requires rescaling for stability when we
         // exponentiate away the log, and we store the scaling factor to bring back later
         final Pair<double[][], Double> rescaledNonLogLikelihoodsAndCorrection = !triallelicGenotypesPossible ? null :
                 rescaledNonLogLikelihoods(log10AlleleLikelihoods);
 
-        final double[] result = new double[GenotypeIndexCalculator.genotypeCount(ploidy, alleleCount)];
+        final int genotypeCount = GenotypeIndexCalculator.genotypeCount(ploidy, alleleCount);
+        final double[] result = new double[genotypeCount];
+        final MultiallelicGenotypeBatch multiallelicBatch = triallelicGenotypesPossible ?
+                new MultiallelicGenotypeBatch(Math.min(MultiallelicGenotypeBatch.MAX_GENOTYPES, genotypeCount), Math.min(alleleCount, ploidy)) : null;
+        final double[][] rescaledNonLogLikelihoods = triallelicGenotypesPossible ? rescaledNonLogLikelihoodsAndCorrection.getLeft() : null;
+        final double multiallelicCorrection = triallelicGenotypesPossible ?
+                rescaledNonLogLikelihoodsAndCorrection.getRight() - readCount * Math.log10(ploidy) : 0;
 
         for (final GenotypeAlleleCounts gac : GenotypeAlleleCounts.iterable(ploidy, alleleCount)) {
             final int componentCount = gac.distinctAlleleCount();
@@ -97,18 +109,114 @@ public class GenotypeLikelihoodCalculator {
                 result[genotypeIndex] = new IndexRange(0, readCount).sum(r -> MathUtils.approximateLog10SumLog10(log10ReadLks1[r] + log10Count1, log10ReadLks2[r] + log10Count2))
                         - readCount * Math.log10(ploidy);
             } else {
-                // the multiallelic case is conceptually the same as the biallelic case but done in non-log space
-                // We implement in a cache-friendly way by summing nA * P(read|A) over all alleles for each read, but iterating over reads as the inner loop
-                Arrays.fill(perReadBuffer,0, readCount, 0);
-                final double[][] rescaledNonLogLikelihoods = rescaledNonLogLikelihoodsAndCorrection.getLeft();
-                final double log10Rescaling = rescaledNonLogLikelihoodsAndCorrection.getRight();
-                gac.forEachAlleleIndexAndCount((a, f) -> new IndexRange(0, readCount).forEach(r -> perReadBuffer[r] += f * rescaledNonLogLikelihoods[a][r]));
-                result[genotypeIndex] = new IndexRange(0, readCount).sum(r -> Math.log10(perReadBuffer[r])) - readCount * Math.log10(ploidy) + log10Rescaling;
+                // the multiallelic case is conceptually the same as the biallelic case but done in non-log space, a batch
+                // of genotypes at a time
+                multiallelicBatch.add(gac);
+                if (multiallelicBatch.isFull()) {
+                    multiallelicBatch.computeLog10Likelihoods(rescaledNonLogLikelihoods, readCount, multiallelicCorrection, result);
+                }
             }
         }
+        if (triallelicGenotypesPossible) {
+            multiallelicBatch.computeLog10Likelihoods(rescaledNonLogLikelihoods, readCount, multiallelicCorrection, result);
+        }
         return result;
     }
 
+    /**
+     * A batch of genotypes with three or more distinct alleles, whose likelihoods are computed together.
+     *
+     * The allele indices and counts of the genotypes are stored one genotype after the other in flat arrays, so that
+     * evaluating a genotype doesn't go through {@link GenotypeAlleleCounts}. The batch is evaluated over blocks of
+     * {@link #READ_BLOCK_SIZE} reads: for each genotype, the likelihood of each read of the block given the genotype,
+     * nA * P(read | A) + nB * P(read | B) + ..., is multiplied into a running product, whose logarithm is accumulated
+     * before it can leave the range of normal doubles. Per-read likelihoods too small to be multiplied safely (including 0)
+     * have their logarithm accumulated directly instead.
+     */
+    private static final class MultiallelicGenotypeBatch {
+        private static final int MAX_GENOTYPES = 1024;
+        private static final int READ_BLOCK_SIZE = 128;
+
+        // per-read likelihoods below this are not multiplied into the product
+        private static final double MIN_PRODUCT_FACTOR = 1e-100;
+        // the product is moved to the log-space sum once it leaves [MIN_PRODUCT, MAX_PRODUCT], which keeps it far from
+        // underflow and overflow after the next multiplication by a factor in [MIN_PRODUCT_FACTOR, ploidy]
+        private static final double MIN_PRODUCT = 1e-200;
+        private static final double MAX_PRODUCT = 1e200;
+
+        private final int[] genotypeIndices;
+        // the components of the g-th genotype are at positions componentStarts[g] to componentStarts[g+1] (exclusive)
+        private final int[] componentStarts;
+        private final int[] componentAlleles;
+        private final double[] componentCounts;
+        private final double[] log10Sums;
+        private int size = 0;
+
+        /**
+         * @param capacity the number of genotypes of a batch, at most {@link #MAX_GENOTYPES}
+         * @param maxComponentCount the maximum number of distinct alleles of a genotype
+         */
+        private MultiallelicGenotypeBatch(final int capacity, final int maxComponentCount) {
+            genotypeIndices = new int[capacity];
+            componentStarts = new int[capacity + 1];
+            log10Sums = new double[capacity];
+            componentAlleles = new int[capacity * maxComponentCount];
+            componentCounts = new double[capacity * maxComponentCount];
+        }
+
+        private void add(final GenotypeAlleleCounts gac) {
+            genotypeIndices[size] = gac.index();
+            int component = componentStarts[size];
+            for (int n = 0; n < gac.distinctAlleleCount(); n++, component++) {
+                componentAlleles[component] = gac.alleleIndexAt(n);
+                componentCounts[component] = gac.alleleCountAt(n);
+            }
+            componentStarts[++size] = component;
+        }
+
+        private boolean isFull() {
+            return size == genotypeIndices.length;
+        }
+
+        /**
+         * Write the log10 likelihoods of the genotypes of this batch, plus a correction, into the result, then empty the batch
+         *
+         * @param likelihoods the rescaled non-log likelihoods by allele and read
+         */
+        private void computeLog10Likelihoods(final double[][] likelihoods, final int readCount, final double correction, final double[] result) {
+            Arrays.fill(log10Sums, 0, size, 0);
+            for (int blockStart = 0; blockStart < readCount; blockStart += READ_BLOCK_SIZE) {
+                final int blockEnd = Math.min(blockStart + READ_BLOCK_SIZE, readCount);
+                for (int g = 0; g < size; g++) {
+                    final int componentStart = componentStarts[g];
+                    final int componentEnd = componentStarts[g + 1];
+                    double product = 1;
+                    double log10Sum = 0;
+                    for (int r = blockStart; r < blockEnd; r++) {
+                        double readLikelihood = 0;
+                        for (int c = componentStart; c < componentEnd; c++) {
+                            readLikelihood += componentCounts[c] * likelihoods[componentAlleles[c]][r];
+                        }
+                        if (readLikelihood < MIN_PRODUCT_FACTOR) {
+                            log10Sum += Math.log10(readLikelihood);
+                        } else {
+                            product *= readLikelihood;
+                            if (product < MIN_PRODUCT || product > MAX_PRODUCT) {
+                                log10Sum += Math.log10(product);
+                                product = 1;
+                            }
+                        }
+                    }
+                    log10Sums[g] += log10Sum + Math.log10(product);
+                }
+            }
+            for (int g = 0; g < size; g++) {
+                result[genotypeIndices[g]] = log10Sums[g] + correction;
+            }
+            size = 0;
+        }
+    }
+
 
     /**
      * Given an input log10 log10Likelihoods matrix, subtract off the maximum of each read column so that each column's maximum is zero for numerical
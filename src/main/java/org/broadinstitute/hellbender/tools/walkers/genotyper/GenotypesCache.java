@@ -2,8 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers.genotyper;
 
 import org.broadinstitute.hellbender.utils.Utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This class holds caches of {@link GenotypeAlleleCounts} for multiple fixed ploidy, allele count pairs,
@@ -11,7 +10,8 @@ import java.util.List;
  * so the caches here are only necessary when incremental traversal over genotypes in the canonical order is not possible.
  *
  *
- * This class is thread-safe since modifying the caches is synchronized.
+ * This class is thread-safe.  The caches are never modified in place: extending them, which is synchronized, publishes
+ * new arrays through a volatile field, so that looking up a genotype that is already cached takes no lock.
  */
 public final class GenotypesCache {
 
@@ -24,7 +24,7 @@ public final class GenotypesCache {
      * Cache of GenotypeAlleleCounts objects by ploidy.  Format is caches[p][n] = nth genotype of ploidy p in canonical order,
      * with p up to the current maximum ploidy and n up to the maximum number of cached genotypes per table.
      */
-    private static List<List<GenotypeAlleleCounts>> caches = new ArrayList<>();
+    private static volatile GenotypeAlleleCounts[][] caches = new GenotypeAlleleCounts[0][];
 
     private GenotypesCache(){ }
 
@@ -40,50 +40,64 @@ public final class GenotypesCache {
      * @return never {@code null}.
      */
     public static GenotypeAlleleCounts get(final int ploidy, final int genotypeIndex) {
-        ensureCapacity(genotypeIndex, ploidy);
         Utils.validateArg(ploidy >= 0, "ploidy may not be negative");
         Utils.validateArg(genotypeIndex >= 0, "genotype index may not be negative");
-        final List<GenotypeAlleleCounts> cache = caches.get(ploidy);
-        if (genotypeIndex < cache.size()) {
-            return cache.get(genotypeIndex);
+        final GenotypeAlleleCounts[] cache = ensureCapacity(genotypeIndex, ploidy);
+        if (genotypeIndex < cache.length) {
+            return cache[genotypeIndex];
         } else {
-            final GenotypeAlleleCounts result = cache.get(cache.size() - 1).copy();
-            result.increase(genotypeIndex + 1 - cache.size());
+            final GenotypeAlleleCounts result = cache[cache.length - 1].copy();
+            result.increase(genotypeIndex + 1 - cache.length);
             return result;
         }
     }
 
     /**
-     * Extends the genotype allele counts cache for a certain ploidy up to a given size
-     *
-     * This method is synchronized since it modifies the shared cache.
+     * Returns the cache for a ploidy, extended if necessary to the genotype index or to {@link #MAX_CACHE_SIZE}.
      */
-    private static synchronized void extendCache(final int ploidy, final int newSize) {
-        final List<GenotypeAlleleCounts> cache = caches.get(ploidy);
-
-        if (cache.isEmpty()) {
-            cache.add(GenotypeAlleleCounts.first(ploidy));
-        }
-
-        while (cache.size() < newSize) {
-            cache.add(cache.get(cache.size() - 1).next());
+    private static GenotypeAlleleCounts[] ensureCapacity(final int genotypeIndex, final int ploidy) {
+        final GenotypeAlleleCounts[][] current = caches;
+        if (ploidy < current.length) {
+            final GenotypeAlleleCounts[] cache = current[ploidy];
+            if (cache.length > genotypeIndex || cache.length == MAX_CACHE_SIZE) {
+                return cache;
+            }
         }
+        return extendCache(ploidy, genotypeIndex);
     }
 
     /**
-     * Update cache if necessary
+     * Extends the genotype allele counts cache for a certain ploidy so that it covers a genotype index, up to
+     * {@link #MAX_CACHE_SIZE}, and publishes the new caches.
+     *
+     * This method is synchronized since it replaces the shared caches.
      */
-    private static void ensureCapacity(final int genotypeIndex, final int ploidy) {
-        // add empty lists of genotypes until we have initialized all ploidies up to and including this one
-        while (ploidy >= caches.size()) {
-            caches.add(new ArrayList<>());
+    private static synchronized GenotypeAlleleCounts[] extendCache(final int ploidy, final int genotypeIndex) {
+        GenotypeAlleleCounts[][] newCaches = caches;
+        if (ploidy >= newCaches.length) {
+            // add empty caches until we have initialized all ploidies up to and including this one
+            final int oldLength = newCaches.length;
+            newCaches = Arrays.copyOf(newCaches, ploidy + 1);
+            for (int p = oldLength; p <= ploidy; p++) {
+                newCaches[p] = new GenotypeAlleleCounts[] {GenotypeAlleleCounts.first(p)};
+            }
+        } else {
+            newCaches = newCaches.clone();
         }
 
-        final List<GenotypeAlleleCounts> cache = caches.get(ploidy);
+        final GenotypeAlleleCounts[] cache = newCaches[ploidy];
+        if (cache.length > genotypeIndex || cache.length == MAX_CACHE_SIZE) {
+            caches = newCaches;
+            return cache;
+        }
 
-        if (cache.size() <= genotypeIndex && cache.size() < MAX_CACHE_SIZE) {
-            final int newSize = Math.min(Math.max(cache.size() * 2 + 1, genotypeIndex), MAX_CACHE_SIZE);
-            extendCache(ploidy, newSize);
+        final int newSize = Math.min(Math.max(cache.length * 2 + 1, genotypeIndex + 1), MAX_CACHE_SIZE);
+        final GenotypeAlleleCounts[] newCache = Arrays.copyOf(cache, newSize);
+        for (int n = cache.length; n < newSize; n++) {
+            newCache[n] = newCache[n - 1].next();
         }
+        newCaches[ploidy] = newCache;
+        caches = newCaches;
+        return newCache;
     }
-}
\ No newline at end of file
+}
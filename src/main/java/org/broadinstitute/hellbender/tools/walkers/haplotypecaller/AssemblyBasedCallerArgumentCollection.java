@@ -5,11 +5,14 @@ import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Hidden;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingAssembler;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignmentCache;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignmentConstants;
 
 /**
@@ -30,6 +33,8 @@ public abstract class AssemblyBasedCallerArgumentCollection {
 
     public static final String MIN_BASE_QUALITY_SCORE_LONG_NAME = "min-base-quality-score";
     public static final String SMITH_WATERMAN_LONG_NAME = "smith-waterman";
+    public static final String SMITH_WATERMAN_CACHE_SIZE_LONG_NAME = "smith-waterman-cache-size";
+    public static final String SMITH_WATERMAN_CACHE_FILE_LONG_NAME = "smith-waterman-cache-file";
     public static final String FORCE_CALL_ALLELES_LONG_NAME = "alleles";
     public static final String FORCE_CALL_FILTERED_ALLELES_LONG_NAME = "force-call-filtered-alleles";
     public static final String FORCE_CALL_FILTERED_ALLELES_SHORT_NAME = "genotype-filtered-alleles";
@@ -73,6 +78,11 @@ public abstract class AssemblyBasedCallerArgumentCollection {
     public static final String OVERRIDE_FRAGMENT_SOFTCLIP_CHECK_LONG_NAME = "override-fragment-softclip-check";
 
     public ReadThreadingAssembler createReadThreadingAssembler() {
+        if ( assemblerArgs.assemblyKmerThreads > 1 && assemblerArgs.debugGraphTransformations ) {
+            throw new CommandLineException.BadArgumentValue(ReadThreadingAssemblerArgumentCollection.ASSEMBLY_KMER_THREADS_LONG_NAME,
+                    String.valueOf(assemblerArgs.assemblyKmerThreads),
+                    "debug graphs can't be written when building graphs with several threads, use --" + ReadThreadingAssemblerArgumentCollection.DEBUG_GRAPH_TRANSFORMATIONS_LONG_NAME + " without it");
+        }
         final ReadThreadingAssembler assemblyEngine = assemblerArgs.makeReadThreadingAssembler();
         assemblyEngine.setDebug(assemblerArgs.debugAssembly);
         assemblyEngine.setMinBaseQualityToUseInAssembly(minBaseQualityScore);
@@ -168,6 +178,23 @@ public abstract class AssemblyBasedCallerArgumentCollection {
     @Argument(fullName = SMITH_WATERMAN_LONG_NAME, doc = "Which Smith-Waterman implementation to use, generally FASTEST_AVAILABLE is the right choice", optional = true)
     public SmithWatermanAligner.Implementation smithWatermanImplementation = SmithWatermanAligner.Implementation.FASTEST_AVAILABLE;
 
+    /**
+     * Maximum number of haplotype-to-reference alignments to keep in a least-recently-used cache, so that haplotypes
+     * that are assembled again at the same locus are not realigned. Alignments of reads to haplotypes are never cached.
+     */
+    @Advanced
+    @Argument(fullName = SMITH_WATERMAN_CACHE_SIZE_LONG_NAME, doc = "Number of haplotype-to-reference Smith-Waterman alignments to cache (0 to disable the cache)", optional = true, minValue = 0)
+    public int smithWatermanCacheSize = 0;
+
+    /**
+     * File the Smith-Waterman cache is loaded from, if it exists, and saved to at the end of the run. Sharing this file
+     * between runs over the same intervals (eg. the samples of a cohort) lets them reuse each other's alignments.
+     * Requires --smith-waterman-cache-size.
+     */
+    @Advanced
+    @Argument(fullName = SMITH_WATERMAN_CACHE_FILE_LONG_NAME, doc = "File to load the Smith-Waterman cache from and save it to", optional = true)
+    public GATKPath smithWatermanCacheFile = null;
+
     /**
      * The reference confidence mode makes it possible to emit a per-bp or summarized confidence estimate for a site being strictly homozygous-reference.
      * See https://software.broadinstitute.org/gatk/documentation/article.php?id=4017 for information about GVCFs.
@@ -317,6 +344,21 @@ public abstract class AssemblyBasedCallerArgumentCollection {
                 smithWatermanDanglingEndGapExtendPenalty);
     }
 
+    /**
+     * @return a new cache for haplotype-to-reference alignments, loaded from {@link #smithWatermanCacheFile} if it exists,
+     *         or null if caching is disabled
+     */
+    public SmithWatermanAlignmentCache makeSmithWatermanCache() {
+        if ( smithWatermanCacheSize == 0 ) {
+            if ( smithWatermanCacheFile != null ) {
+                throw new CommandLineException.MissingArgument(SMITH_WATERMAN_CACHE_SIZE_LONG_NAME,
+                        "A cache size is required to use " + SMITH_WATERMAN_CACHE_FILE_LONG_NAME);
+            }
+            return null;
+        }
+        return new SmithWatermanAlignmentCache(smithWatermanCacheSize, smithWatermanCacheFile == null ? null : smithWatermanCacheFile.toPath());
+    }
+
     public SWParameters getHaplotypeToReferenceSWParameters() {
         return new SWParameters(
                 smithWatermanHaplotypeToReferenceMatchValue,
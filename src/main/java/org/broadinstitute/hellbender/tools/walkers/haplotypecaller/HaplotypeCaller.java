@@ -3,8 +3,10 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.GATKPlugin.GATKReadFilterPluginDescriptor;
@@ -23,6 +25,8 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEng
 import org.broadinstitute.hellbender.transformers.DRAGENMappingQualityReadTransformer;
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
 import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignmentCache;
 
 import java.util.Collection;
 import java.util.List;
@@ -160,6 +164,8 @@ import java.util.Optional;
 @DocumentedFeature
 public class HaplotypeCaller extends AssemblyRegionWalker {
 
+    public static final String REGION_THREADS_LONG_NAME = "region-threads";
+
     @ArgumentCollection
     private HaplotypeCallerArgumentCollection hcArgs = new HaplotypeCallerArgumentCollection();
 
@@ -171,10 +177,28 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
             doc = "File to which variants should be written")
     public GATKPath outputVCF = null;
 
+    /**
+     * Number of threads used to assemble and genotype assembly regions. With more than one thread, regions are
+     * dispatched to a pool of independent engines as soon as the traversal has determined them, and the resulting calls
+     * are written in the original region order, so the output is identical to a single-threaded run. Active region
+     * determination still happens on the traversal thread, as does the native PairHMM threading controlled by
+     * --native-pair-hmm-threads, which is applied separately to each region thread.
+     *
+     * This mode is incompatible with the debugging outputs that write to a single shared file (bamout, assembly graph
+     * and state outputs, allele likelihood matrices and genotyper debug output).
+     */
+    @Advanced
+    @Argument(fullName = REGION_THREADS_LONG_NAME, doc = "Number of threads to use for assembling and genotyping assembly regions", optional = true, minValue = 1)
+    public int regionThreads = 1;
+
     private VariantContextWriter vcfWriter;
 
     private HaplotypeCallerEngine hcEngine;
 
+    private HaplotypeCallerRegionDispatcher regionDispatcher;
+
+    private SmithWatermanAlignmentCache smithWatermanCache;
+
     @Override
     public List<ReadFilter> getDefaultReadFilters() {
         return HaplotypeCallerEngine.makeStandardHCReadFilters();
@@ -206,9 +230,31 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
                     HaplotypeCallerArgumentCollection.FLOW_GATK_MODE_LONG_NAME);
         }
 
+        if (regionThreads > 1) {
+            validateRegionThreadsArguments();
+        }
+
         return null;
     }
 
+    /**
+     * Debugging outputs are written by each engine to a single path, so they can't be produced by more than one engine at once.
+     */
+    private void validateRegionThreadsArguments() {
+        final String conflictingArgument = hcArgs.bamOutputPath != null ? AssemblyBasedCallerArgumentCollection.BAM_OUTPUT_LONG_NAME
+                : hcArgs.alleleLikelihoodMatrixPath != null ? AssemblyBasedCallerArgumentCollection.ALLELE_LIKELIHOOD_MATRIX_PATH
+                : hcArgs.assemblyStateOutput != null ? HaplotypeCallerArgumentCollection.DEBUG_ASSEMBLY_REGION_STATE_LONG_NAME
+                : hcArgs.genotyperDebugOutStream != null ? HaplotypeCallerArgumentCollection.DEBUG_GENOTYPER_OUTPUT_LONG_NAME
+                : hcArgs.assemblerArgs.debugAssemblyVariantsOut != null ? ReadThreadingAssemblerArgumentCollection.DEBUG_ASSEMBLY_VARIANTS_OUT_LONG_NAME
+                : hcArgs.assemblerArgs.graphOutput != null ? ReadThreadingAssemblerArgumentCollection.GRAPH_OUTPUT_LONG_NAME
+                : hcArgs.assemblerArgs.haplotypeHistogramOutput != null ? ReadThreadingAssemblerArgumentCollection.HAPLOTYPE_DEBUG_HISTOGRAM_OUTPUT_LONG_NAME
+                : null;
+        if (conflictingArgument != null) {
+            throw new CommandLineException.BadArgumentValue(REGION_THREADS_LONG_NAME, String.valueOf(regionThreads),
+                    "multiple region threads can't be used together with --" + conflictingArgument);
+        }
+    }
+
     @Override
     public ReadTransformer makePreReadFilterTransformer() { return HaplotypeCallerEngine.makeStandardHCReadTransformer(); }
 
@@ -261,14 +307,34 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
             logger.warn("*************************************************************************");
         }
 
-        final VariantAnnotatorEngine variantAnnotatorEngine = new VariantAnnotatorEngine(makeVariantAnnotations(),
-                hcArgs.dbsnp.dbsnp, hcArgs.comps,  hcArgs.emitReferenceConfidence != ReferenceConfidenceMode.NONE, false);
-        hcEngine = buildHaplotypeCallerEngine(hcArgs, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), variantAnnotatorEngine);
+        // a single cache is shared by the engines of all region threads
+        smithWatermanCache = hcArgs.makeSmithWatermanCache();
+        hcEngine = useSmithWatermanCache(buildHaplotypeCallerEngine(hcArgs, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), makeVariantAnnotatorEngine()));
 
         // The HC engine will make the right kind (VCF or GVCF) of writer for us
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = hcEngine.makeVCFWriter(outputVCF, sequenceDictionary, createOutputVariantIndex, createOutputVariantMD5, outputSitesOnlyVCFs);
         hcEngine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
+
+        // The main engine keeps doing active region determination on the traversal thread, while each region thread
+        // gets an engine (and reference reader) of its own for calling
+        if (regionThreads > 1) {
+            regionDispatcher = new HaplotypeCallerRegionDispatcher(regionThreads,
+                    () -> useSmithWatermanCache(buildHaplotypeCallerEngine(hcArgs, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), makeVariantAnnotatorEngine())),
+                    vcfWriter::add);
+        }
+    }
+
+    private HaplotypeCallerEngine useSmithWatermanCache(final HaplotypeCallerEngine engine) {
+        if ( smithWatermanCache != null ) {
+            engine.setHaplotypeToReferenceAlignmentCache(smithWatermanCache);
+        }
+        return engine;
+    }
+
+    private VariantAnnotatorEngine makeVariantAnnotatorEngine() {
+        return new VariantAnnotatorEngine(makeVariantAnnotations(),
+                hcArgs.dbsnp.dbsnp, hcArgs.comps,  hcArgs.emitReferenceConfidence != ReferenceConfidenceMode.NONE, false);
     }
 
     protected HaplotypeCallerEngine buildHaplotypeCallerEngine(final HaplotypeCallerArgumentCollection hcArgs, final AssemblyRegionArgumentCollection assemblyRegionArgs, final boolean createOutputBamIndex, final boolean createOutputBamMD5, final SAMFileHeader headerForReads, final CachingIndexedFastaSequenceFile referenceReader, final VariantAnnotatorEngine variantAnnotatorEngine) {
@@ -281,11 +347,39 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
 
     @Override
     public void apply(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
-        hcEngine.callRegion(region, featureContext, referenceContext).forEach(vcfWriter::add);
+        if (regionDispatcher != null) {
+            regionDispatcher.submit(region, featureContext, detachReferenceContext(referenceContext));
+        } else {
+            hcEngine.callRegion(region, featureContext, referenceContext).forEach(vcfWriter::add);
+        }
+    }
+
+    /**
+     * Copy the bases of the given context into memory, so that the region can be called on another thread
+     * without touching the (non thread-safe) reference data source of the traversal.
+     */
+    private ReferenceContext detachReferenceContext(final ReferenceContext referenceContext) {
+        if (!referenceContext.hasBackingDataSource()) {
+            return referenceContext;
+        }
+        final ReferenceBases bases = new ReferenceBases(referenceContext.getBases(), referenceContext.getWindow());
+        return new ReferenceContext(new ReferenceMemorySource(bases, getReferenceDictionary()), referenceContext.getInterval(), referenceContext.getWindow());
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        if (regionDispatcher != null) {
+            regionDispatcher.flush();
+        }
+        return null;
     }
 
     @Override
     public void closeTool() {
+        if ( regionDispatcher != null ) {
+            regionDispatcher.close();
+        }
+
         if ( vcfWriter != null ) {
             vcfWriter.close();
         }
@@ -294,5 +388,8 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
             hcEngine.shutdown();
         }
 
+        if ( smithWatermanCache != null ) {
+            smithWatermanCache.close();
+        }
     }
 }
@@ -52,7 +52,9 @@ import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.CachingSmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignmentCache;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
@@ -156,6 +158,11 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     protected SmithWatermanAligner aligner;
 
+    /**
+     * Aligner used for haplotype-to-reference alignments: {@link #aligner}, possibly behind a cache of alignments
+     */
+    protected SmithWatermanAligner haplotypeToReferenceAligner;
+
     private final DragstrParams dragstrParams;
 
     public static final byte MIN_TAIL_QUALITY_WITH_ERROR_CORRECTION = 6;
@@ -218,6 +225,7 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         this.referenceReader = Utils.nonNull(referenceReader);
         this.annotationEngine = Utils.nonNull(annotationEngine);
         this.aligner = SmithWatermanAligner.getAligner(hcArgs.smithWatermanImplementation);
+        this.haplotypeToReferenceAligner = aligner;
         forceCallingAllelesPresent = hcArgs.alleles != null;
 
         // Add necessary debug streams to the output
@@ -778,7 +786,7 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         }
 
         // run the local assembler, getting back a collection of information on how we should proceed
-        final AssemblyResultSet untrimmedAssemblyResult = AssemblyBasedCallerUtils.assembleReads(region, hcArgs, readsHeader, samplesList, logger, referenceReader, assemblyEngine, aligner, !hcArgs.doNotCorrectOverlappingBaseQualities, hcArgs.fbargs, false);
+        final AssemblyResultSet untrimmedAssemblyResult = AssemblyBasedCallerUtils.assembleReads(region, hcArgs, readsHeader, samplesList, logger, referenceReader, assemblyEngine, haplotypeToReferenceAligner, !hcArgs.doNotCorrectOverlappingBaseQualities, hcArgs.fbargs, false);
         ReadThreadingAssembler.addAssembledVariantsToEventMapOutput(untrimmedAssemblyResult, assembledEventMapVariants, hcArgs.maxMnpDistance, assembledEventMapVcfOutputWriter);
 
         if (assemblyDebugOutStream != null) {
@@ -813,7 +821,7 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         }
 
         AssemblyResultSet assemblyResult = untrimmedAssemblyResult.trimTo(trimmingResult.getVariantRegion());
-        assemblyResult.addGivenAlleles(givenAlleles, hcArgs.maxMnpDistance, aligner, hcArgs.getHaplotypeToReferenceSWParameters());
+        assemblyResult.addGivenAlleles(givenAlleles, hcArgs.maxMnpDistance, haplotypeToReferenceAligner, hcArgs.getHaplotypeToReferenceSWParameters());
 
         // Pre-work for the PDHMM, if we are in PDHMM mode then here is where we re-compute the haplotypes as PD haplotypes.
         if (hcArgs.pileupDetectionArgs.generatePDHaplotypes) {
@@ -835,7 +843,7 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             assemblyResult = PartiallyDeterminedHaplotypeComputationEngine.generatePDHaplotypes(assemblyResult,
                     badPileupEvents,
                     goodPileupEvents,
-                    aligner,
+                    haplotypeToReferenceAligner,
                     hcArgs);
         }
 
@@ -847,7 +855,7 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         if (!hcArgs.pileupDetectionArgs.generatePDHaplotypes ||
                         (hcArgs.pileupDetectionArgs.useGGAFallback && !assemblyResult.hasOverwrittenHaps())) { // If we are generating PDHaps assert that it failed before calling this
             assemblyResult.removeHaplotypesWithBadAlleles(hcArgs, badPileupEvents);
-            assemblyResult.injectPileupEvents(region, hcArgs, aligner, goodPileupEvents);
+            assemblyResult.injectPileupEvents(region, hcArgs, haplotypeToReferenceAligner, goodPileupEvents);
         }
         final AssemblyRegion regionForGenotyping = assemblyResult.getRegionForGenotyping();
         final List<GATKRead> readStubs = regionForGenotyping.getReads().stream()
@@ -1102,6 +1110,17 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         }
     }
 
+    /**
+     * Look haplotype-to-reference alignments up in a cache before computing them. Alignments of reads to haplotypes
+     * are not affected.
+     *
+     * @param cache cache to use, which may be shared between engines. It is not closed by {@link #shutdown()}.
+     */
+    public void setHaplotypeToReferenceAlignmentCache(final SmithWatermanAlignmentCache cache) {
+        Utils.nonNull(cache);
+        haplotypeToReferenceAligner = new CachingSmithWatermanAligner(aligner, cache);
+    }
+
     /**
      * Shutdown this HC engine, closing resources as appropriate
      */
@@ -1129,6 +1148,7 @@ public class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         HaplotypeCallerGenotypingDebugger.close();
         // Write assembly region debug output if present
         assemblyEngine.printDebugHistograms();
+        assemblyEngine.close();
 
     }
 
@@ -49,6 +49,7 @@ public class HaplotypeCallerReadThreadingAssemblerArgumentCollection extends Rea
         assemblyEngine.setRecoverAllDanglingBranches(recoverAllDanglingBranches);
         assemblyEngine.setMinDanglingBranchLength(minDanglingBranchLength);
         assemblyEngine.setArtificialHaplotypeRecoveryMode(disableArtificialHaplotypeRecovery);
+        assemblyEngine.setNumKmerThreads(assemblyKmerThreads);
 
         if ( graphOutput != null ) {
             assemblyEngine.setGraphWriter(new File(graphOutput));
@@ -0,0 +1,111 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedWorkerPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Calls assembly regions on a fixed pool of worker threads and hands the resulting variants to a consumer
+ * in the order in which the regions were submitted.
+ *
+ * Each worker uses its own {@link HaplotypeCallerEngine}, and therefore its own assembler, read likelihood
+ * calculation engine and genotyping engines. Regions are independent of each other once the traversal has produced
+ * them, so the stream of variants delivered to the consumer is identical to the one obtained by calling
+ * {@link HaplotypeCallerEngine#callRegion} on each region serially. This makes it safe to feed the output directly into
+ * a {@link org.broadinstitute.hellbender.utils.variant.writers.GVCFWriter}, which requires sorted input.
+ *
+ * The number of regions in flight is bounded so that memory usage stays proportional to the number of threads.
+ *
+ * Callers must only submit regions from a single (traversal) thread, and must materialize the reference bases
+ * for each region up front since reference data sources are not thread-safe.
+ */
+public final class HaplotypeCallerRegionDispatcher implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(HaplotypeCallerRegionDispatcher.class);
+
+    /**
+     * How many regions each worker may have queued up before the traversal thread blocks waiting for results
+     */
+    private static final int MAX_PENDING_REGIONS_PER_THREAD = 4;
+
+    private final List<HaplotypeCallerEngine> engines;
+
+    private final OrderedWorkerPool<HaplotypeCallerEngine, List<VariantContext>> workerPool;
+
+    private final Consumer<VariantContext> consumer;
+
+    /**
+     * @param numThreads number of worker threads (and engines) to use, must be positive
+     * @param engineFactory creates a new, independent engine for each worker thread
+     * @param consumer receives calls in submission order, always on the thread that calls {@link #submit} or {@link #flush}
+     */
+    public HaplotypeCallerRegionDispatcher(final int numThreads, final Supplier<HaplotypeCallerEngine> engineFactory, final Consumer<VariantContext> consumer) {
+        Utils.validateArg(numThreads > 0, () -> "the number of region threads must be positive but was " + numThreads);
+        Utils.nonNull(engineFactory);
+        this.consumer = Utils.nonNull(consumer);
+
+        engines = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            engines.add(Utils.nonNull(engineFactory.get(), "engine factory returned null"));
+        }
+        workerPool = new OrderedWorkerPool<>("hc-region-thread-%d", "calling assembly regions", engines, numThreads * MAX_PENDING_REGIONS_PER_THREAD);
+        logger.info("Calling assembly regions on " + numThreads + " threads");
+    }
+
+    /**
+     * Queue a region for calling. Results of previously submitted regions that are already available are passed to
+     * the consumer before returning; if too many regions are pending this method blocks until the oldest one is done.
+     *
+     * @param region region to call. Must not be modified by the caller after submission.
+     * @param features features overlapping the region. The backing {@link org.broadinstitute.hellbender.engine.FeatureManager} must be safe to query concurrently.
+     * @param referenceContext reference context for the padded span of the region. Must not be backed by a shared file reader.
+     */
+    public void submit(final AssemblyRegion region, final FeatureContext features, final ReferenceContext referenceContext) {
+        Utils.nonNull(region);
+        while ( workerPool.isFull() ) {
+            emitNext();
+        }
+        try {
+            workerPool.submit(engine -> engine.callRegion(region, features, referenceContext));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while submitting an assembly region", e);
+        }
+
+        while ( workerPool.isNextResultReady() ) {
+            emitNext();
+        }
+    }
+
+    /**
+     * Wait for all submitted regions to be called and pass their results to the consumer.
+     */
+    public void flush() {
+        while ( workerPool.hasPendingTasks() ) {
+            emitNext();
+        }
+    }
+
+    private void emitNext() {
+        workerPool.takeResult().forEach(consumer);
+    }
+
+    /**
+     * Stop the worker threads and shut down all engines. Pending regions that have not been flushed are discarded.
+     */
+    @Override
+    public void close() {
+        workerPool.close();
+        engines.forEach(HaplotypeCallerEngine::shutdown);
+    }
+}
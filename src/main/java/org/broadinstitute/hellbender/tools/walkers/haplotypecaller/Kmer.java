@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Fast wrapper for byte[] kmers
@@ -113,6 +114,16 @@ public final class Kmer {
         return length;
     }
 
+    /**
+     * Get a single base of this kmer, without copying its bases
+     * @param i the offset of the base in this kmer, must be >= 0 and < length()
+     * @return the i-th base of this kmer
+     */
+    public byte base(final int i) {
+        Objects.checkIndex(i, length);
+        return bases[start + i];
+    }
+
     /**
      * Gets a set of differing positions and bases from another k-mer, limiting up to a max distance.
      * For example, if this = "ACATT" and other = "ACGGT":
@@ -31,6 +31,7 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     public static final String PHRED_SCALED_GLOBAL_READ_MISMAPPING_RATE_LONG_NAME = "phred-scaled-global-read-mismapping-rate";
     public static final String DISABLE_SYMMETRIC_HMM_NORMALIZING_LONG_NAME = "disable-symmetric-hmm-normalizing";
     public static final String DYNAMIC_READ_DISQUALIFICATION_THRESHOLD_LONG_NAME = "dynamic-read-disqualification-threshold";
+    public static final String READ_LIKELIHOOD_CACHE_SIZE_LONG_NAME = "read-likelihood-cache-size";
     public static final String FLOW_HMM_ENGINE_MIN_INDEL_ADJUST_LONG_NAME = "flow-hmm-engine-min-indel-adjust";
     public static final String FLOW_HMM_ENGINE_FLAT_INSERTION_PENATLY_LONG_NAME = "flow-hmm-engine-flat-insertion-penatly";
     public static final String FLOW_HMM_ENGINE_FLAT_DELETION_PENATLY_LONG_NAME = "flow-hmm-engine-flat-deletion-penatly";
@@ -66,6 +67,11 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
 
     /**
      * The PairHMM implementation to use for genotype likelihood calculations. The various implementations balance a tradeoff of accuracy and runtime.
+     *
+     * VECTOR_API_LOGLESS_CACHING, which FASTEST_AVAILABLE falls back to when AVX is not supported, needs the JVM to be started
+     * with --add-modules jdk.incubator.vector. The gatk launcher does this when given --vector-pairhmm, or when this
+     * argument is VECTOR_API_LOGLESS_CACHING; when running the GATK jar directly with java -jar, the flag must be given to
+     * java explicitly. The JVM then prints a warning about using incubator modules.
      */
     @Advanced
     @Argument(fullName = PAIR_HMM_IMPLEMENTATION_LONG_NAME, shortName = "pairHMM", doc = "The PairHMM implementation to use for genotype likelihood calculations", optional = true)
@@ -130,6 +136,18 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     @Argument(fullName="pair-hmm-results-file", doc="File to write exact pairHMM inputs/outputs to for debugging purposes", optional = true)
     public GATKPath pairHmmResultsFile = null;
 
+    /**
+     * Reads that overlap several assembly regions are often evaluated again against the same haplotypes, for example
+     * when the regions are genotyped against the same given alleles. This caches the PairHMM likelihoods of up to this
+     * many reads, keyed by the read, its modified qualities and the haplotype bases, so that they are not computed
+     * again. Reads are evicted once the traversal has moved past them, and the hit rate of the cache is logged at the
+     * end of the run. The cache only applies to the PairHMM likelihood engine, and is disabled when a pair-hmm results
+     * file is written.
+     */
+    @Advanced
+    @Argument(fullName = READ_LIKELIHOOD_CACHE_SIZE_LONG_NAME, doc = "Maximum number of reads whose PairHMM likelihoods are cached for reuse by overlapping assembly regions (0 to disable)", optional = true, minValue = 0)
+    public int readLikelihoodCacheSize = 0;
+
     @ArgumentCollection
     public PairHMMNativeArgumentCollection pairHMMNativeArgs = new PairHMMNativeArgumentCollection();
 
@@ -30,6 +30,7 @@ public class MutectReadThreadingAssemblerArgumentCollection extends ReadThreadin
         assemblyEngine.setRecoverAllDanglingBranches(recoverAllDanglingBranches);
         assemblyEngine.setMinDanglingBranchLength(minDanglingBranchLength);
         assemblyEngine.setArtificialHaplotypeRecoveryMode(disableArtificialHaplotypeRecovery);
+        assemblyEngine.setNumKmerThreads(assemblyKmerThreads);
 
         if ( graphOutput != null ) {
             assemblyEngine.setGraphWriter(new File(graphOutput));
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
@@ -74,6 +75,9 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     
     private final byte baseQualityScoreThreshold;
 
+    // null if likelihoods are not cached
+    private final ReadLikelihoodCache likelihoodCache;
+
     /**
      * Create a new PairHMMLikelihoodCalculationEngine using provided parameters and hmm to do its calculations
      *
@@ -130,6 +134,34 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                                               final boolean symmetricallyNormalizeAllelesToReference,
                                               final boolean disableCapReadQualitiesToMapQ,
                                               final boolean modifySoftclippedBases) {
+        this(constantGCP, dragstrParams, arguments, hmmType, resultsFile, log10globalReadMismappingRate, pcrErrorModel, baseQualityScoreThreshold,
+                dynamicReadDisqualificaiton, readDisqualificationScale, expectedErrorRatePerBase, symmetricallyNormalizeAllelesToReference,
+                disableCapReadQualitiesToMapQ, modifySoftclippedBases, 0);
+    }
+
+    /**
+     * Create a new PairHMMLikelihoodCalculationEngine using provided parameters and hmm to do its calculations,
+     * optionally reusing the likelihoods of reads evaluated again against the same haplotypes
+     *
+     * @param readLikelihoodCacheSize maximum number of reads whose likelihoods are cached, see {@link ReadLikelihoodCache};
+     *                                0 disables the cache. The cache is also disabled when resultsFile is given, since
+     *                                cached likelihoods would be missing from it.
+     */
+    public PairHMMLikelihoodCalculationEngine(final byte constantGCP,
+                                              final DragstrParams dragstrParams,
+                                              final PairHMMNativeArguments arguments,
+                                              final PairHMM.Implementation hmmType,
+                                              final GATKPath resultsFile,
+                                              final double log10globalReadMismappingRate,
+                                              final PCRErrorModel pcrErrorModel,
+                                              final byte baseQualityScoreThreshold,
+                                              final boolean dynamicReadDisqualificaiton,
+                                              final double readDisqualificationScale,
+                                              final double expectedErrorRatePerBase,
+                                              final boolean symmetricallyNormalizeAllelesToReference,
+                                              final boolean disableCapReadQualitiesToMapQ,
+                                              final boolean modifySoftclippedBases,
+                                              final int readLikelihoodCacheSize) {
         Utils.nonNull(hmmType, "hmmType is null");
         Utils.nonNull(pcrErrorModel, "pcrErrorModel is null");
         if (constantGCP < 0){
@@ -159,11 +191,28 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
             throw new IllegalArgumentException("baseQualityScoreThreshold must be greater than or equal to " + QualityUtils.MIN_USABLE_Q_SCORE + " (QualityUtils.MIN_USABLE_Q_SCORE)");
         }
         this.baseQualityScoreThreshold = baseQualityScoreThreshold;
+
+        Utils.validateArg(readLikelihoodCacheSize >= 0, "readLikelihoodCacheSize must be non-negative");
+        if (readLikelihoodCacheSize > 0 && resultsFile != null) {
+            logger.warn("The read likelihood cache is disabled since the pair-hmm results file needs all likelihoods to be computed");
+        }
+        this.likelihoodCache = readLikelihoodCacheSize > 0 && resultsFile == null ? new ReadLikelihoodCache(readLikelihoodCacheSize) : null;
+    }
+
+    /**
+     * @return the cache of read likelihoods of this engine, null if it has none
+     */
+    @VisibleForTesting
+    ReadLikelihoodCache getLikelihoodCache() {
+        return likelihoodCache;
     }
 
     @Override
     public void close() {
         pairHMM.close();
+        if (likelihoodCache != null) {
+            likelihoodCache.logStatistics();
+        }
     }
 
     @Override
@@ -189,12 +238,16 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         final AlleleList<Haplotype> haplotypes = new IndexedAlleleList<>(haplotypeList);
 
         initializePairHMM(haplotypeList, perSampleReadList);
+        if (likelihoodCache != null) {
+            evictPassedReads(perSampleReadList);
+        }
+        final ReadLikelihoodCache.HaplotypeKey[] haplotypeKeys = likelihoodCache == null ? null : ReadLikelihoodCache.makeHaplotypeKeys(haplotypeList);
 
         // Add likelihoods for each sample's reads to our result
         final AlleleLikelihoods<GATKRead, Haplotype> result = new AlleleLikelihoods<>(samples, haplotypes, perSampleReadList);
         final int sampleCount = result.numberOfSamples();
         for (int i = 0; i < sampleCount; i++) {
-            computeReadLikelihoods(result.sampleMatrix(i));
+            computeReadLikelihoods(result.sampleMatrix(i), haplotypeKeys);
         }
 
         result.normalizeLikelihoods(log10globalReadMismappingRate, symmetricallyNormalizeAllelesToReference);
@@ -257,7 +310,27 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         pairHMM.initialize(haplotypes, perSampleReadList, readMaxLength, haplotypeMaxLength);
     }
 
-    private void computeReadLikelihoods(final LikelihoodMatrix<GATKRead, Haplotype> likelihoods) {
+    /**
+     * Evict from the likelihood cache the reads that end before the first read of the current region, which the
+     * traversal has moved past for good
+     */
+    private void evictPassedReads(final Map<String, List<GATKRead>> perSampleReadList) {
+        String contig = null;
+        int start = Integer.MAX_VALUE;
+        for (final List<GATKRead> reads : perSampleReadList.values()) {
+            for (final GATKRead read : reads) {
+                if (!read.isUnmapped()) {
+                    contig = read.getContig();
+                    start = Math.min(start, read.getStart());
+                }
+            }
+        }
+        if (contig != null) {
+            likelihoodCache.evictReadsEndingBefore(contig, start);
+        }
+    }
+
+    private void computeReadLikelihoods(final LikelihoodMatrix<GATKRead, Haplotype> likelihoods, final ReadLikelihoodCache.HaplotypeKey[] haplotypeKeys) {
         // Modify the read qualities by applying the PCR error model and capping the minimum base,insertion,deletion qualities
         final List<GATKRead> processedReads = modifyReadQualities(likelihoods.evidence());
 
@@ -268,8 +341,106 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                 HaplotypeCallerGenotypingDebugger.println(Arrays.toString(read.getBaseQualitiesNoCopy()));
             }
         }
-        // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, inputScoreImputator);
+        if (likelihoodCache == null) {
+            // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
+            pairHMM.computeLog10Likelihoods(likelihoods, processedReads, inputScoreImputator);
+        } else {
+            computeReadLikelihoodsWithCache(likelihoods, processedReads, haplotypeKeys);
+        }
+    }
+
+    /**
+     * Take the likelihoods of the reads the cache has for all the haplotypes from it, and only run the PairHMM on the
+     * others, whose likelihoods are then added to the cache
+     */
+    private void computeReadLikelihoodsWithCache(final LikelihoodMatrix<GATKRead, Haplotype> likelihoods, final List<GATKRead> processedReads,
+                                                 final ReadLikelihoodCache.HaplotypeKey[] haplotypeKeys) {
+        final int haplotypeCount = likelihoods.numberOfAlleles();
+        final double[] readLikelihoods = new double[haplotypeCount];
+        final List<ReadLikelihoodCache.ReadKey> readKeys = new ArrayList<>(processedReads.size());
+        final List<Integer> uncachedReadIndices = new ArrayList<>();
+        final List<GATKRead> uncachedProcessedReads = new ArrayList<>();
+        for (int r = 0; r < processedReads.size(); r++) {
+            final ReadLikelihoodCache.ReadKey readKey = ReadLikelihoodCache.makeReadKey(likelihoods.getEvidence(r), processedReads.get(r));
+            readKeys.add(readKey);
+            if (likelihoodCache.get(readKey, haplotypeKeys, readLikelihoods)) {
+                for (int h = 0; h < haplotypeCount; h++) {
+                    likelihoods.set(h, r, readLikelihoods[h]);
+                }
+            } else {
+                uncachedReadIndices.add(r);
+                uncachedProcessedReads.add(processedReads.get(r));
+            }
+        }
+
+        pairHMM.computeLog10Likelihoods(new ReadSubsetLikelihoodMatrix(likelihoods, uncachedReadIndices), uncachedProcessedReads, inputScoreImputator);
+
+        for (final int r : uncachedReadIndices) {
+            for (int h = 0; h < haplotypeCount; h++) {
+                readLikelihoods[h] = likelihoods.get(h, r);
+            }
+            likelihoodCache.put(readKeys.get(r), likelihoods.getEvidence(r), haplotypeKeys, readLikelihoods);
+        }
+    }
+
+    /**
+     * View of some of the reads of a likelihood matrix, in which the PairHMM writes the likelihoods of the reads
+     * that were not found in the likelihood cache
+     */
+    private static final class ReadSubsetLikelihoodMatrix implements LikelihoodMatrix<GATKRead, Haplotype> {
+        private final LikelihoodMatrix<GATKRead, Haplotype> matrix;
+        private final List<Integer> readIndices;
+        private final List<GATKRead> reads;
+
+        private ReadSubsetLikelihoodMatrix(final LikelihoodMatrix<GATKRead, Haplotype> matrix, final List<Integer> readIndices) {
+            this.matrix = matrix;
+            this.readIndices = readIndices;
+            this.reads = new ArrayList<>(readIndices.size());
+            for (final int r : readIndices) {
+                reads.add(matrix.getEvidence(r));
+            }
+        }
+
+        @Override
+        public List<GATKRead> evidence() { return Collections.unmodifiableList(reads); }
+
+        @Override
+        public List<Haplotype> alleles() { return matrix.alleles(); }
+
+        @Override
+        public void set(final int alleleIndex, final int evidenceIndex, final double value) {
+            matrix.set(alleleIndex, readIndices.get(evidenceIndex), value);
+        }
+
+        @Override
+        public double get(final int alleleIndex, final int evidenceIndex) {
+            return matrix.get(alleleIndex, readIndices.get(evidenceIndex));
+        }
+
+        @Override
+        public int indexOfAllele(final Allele allele) { return matrix.indexOfAllele(allele); }
+
+        @Override
+        public int indexOfEvidence(final GATKRead evidence) { return reads.indexOf(evidence); }
+
+        @Override
+        public int numberOfAlleles() { return matrix.numberOfAlleles(); }
+
+        @Override
+        public int evidenceCount() { return reads.size(); }
+
+        @Override
+        public Haplotype getAllele(final int alleleIndex) { return matrix.getAllele(alleleIndex); }
+
+        @Override
+        public GATKRead getEvidence(final int evidenceIndex) { return reads.get(evidenceIndex); }
+
+        @Override
+        public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
+            for (int r = 0; r < reads.size(); r++) {
+                dest[offset + r] = get(alleleIndex, r);
+            }
+        }
     }
 
     /**
@@ -65,6 +65,18 @@ public class RampedHaplotypeCaller extends HaplotypeCaller {
     @ArgumentCollection
     private RampedHaplotypeCallerArgumentCollection rpArgs = new RampedHaplotypeCallerArgumentCollection();
 
+    /**
+     * Each region thread has an engine of its own, and all of them would write to the same off-ramp file.
+     */
+    @Override
+    protected String[] customCommandLineValidation() {
+        if (regionThreads > 1) {
+            throw new CommandLineException.BadArgumentValue(REGION_THREADS_LONG_NAME, String.valueOf(regionThreads),
+                    "RampedHaplotypeCaller can only be run with a single region thread");
+        }
+        return super.customCommandLineValidation();
+    }
+
     @Override
     public void onTraversalStart() {
         super.onTraversalStart();
@@ -0,0 +1,268 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import it.unimi.dsi.fastutil.objects.Object2DoubleOpenHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of the raw (un-normalized) log10 likelihoods computed by the PairHMM for pairs of reads and haplotypes,
+ * so that a read evaluated again against the same haplotypes, as happens when assembly regions overlap or are
+ * genotyped more than once, doesn't go through the PairHMM again.
+ *
+ * Reads are keyed by their name and flags together with the bases and base, insertion and deletion qualities given to
+ * the PairHMM, that is after soft-clipping, the PCR indel error model and quality capping have been applied; the
+ * arrays themselves are compared, not just their hashes, so that a collision can never return the likelihoods of
+ * another read. Haplotypes are keyed by their bases. A cache belongs to a single likelihood engine, whose PCR indel
+ * model and gap penalties are therefore the same for all its entries.
+ *
+ * When the cache holds more than its maximum number of reads the least recently used read is evicted. Reads are also
+ * evicted once the traversal has moved past them, see {@link #evictReadsEndingBefore}.
+ *
+ * This class is not thread-safe.
+ */
+public final class ReadLikelihoodCache {
+    private static final Logger logger = LogManager.getLogger(ReadLikelihoodCache.class);
+
+    /**
+     * Key of a read, as given to the PairHMM
+     */
+    static final class ReadKey {
+        private final String name;
+        private final int flags;
+        private final byte[] bases;
+        private final byte[] quals;
+        private final byte[] insertionQuals;
+        private final byte[] deletionQuals;
+        private final int hashCode;
+
+        private ReadKey(final String name, final int flags, final byte[] bases, final byte[] quals,
+                        final byte[] insertionQuals, final byte[] deletionQuals) {
+            this.name = name;
+            this.flags = flags;
+            this.bases = bases;
+            this.quals = quals;
+            this.insertionQuals = insertionQuals;
+            this.deletionQuals = deletionQuals;
+            int hash = 31 * (name == null ? 0 : name.hashCode()) + flags;
+            hash = 31 * hash + Arrays.hashCode(bases);
+            hash = 31 * hash + Arrays.hashCode(quals);
+            hash = 31 * hash + Arrays.hashCode(insertionQuals);
+            this.hashCode = 31 * hash + Arrays.hashCode(deletionQuals);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !(o instanceof ReadKey) ) {
+                return false;
+            }
+            final ReadKey other = (ReadKey) o;
+            return hashCode == other.hashCode && flags == other.flags && Objects.equals(name, other.name) &&
+                    Arrays.equals(bases, other.bases) && Arrays.equals(quals, other.quals) &&
+                    Arrays.equals(insertionQuals, other.insertionQuals) && Arrays.equals(deletionQuals, other.deletionQuals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Key of a haplotype: its bases
+     */
+    static final class HaplotypeKey {
+        private final byte[] bases;
+        private final int hashCode;
+
+        private HaplotypeKey(final byte[] bases) {
+            this.bases = bases;
+            this.hashCode = Arrays.hashCode(bases);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o || (o instanceof HaplotypeKey && hashCode == ((HaplotypeKey) o).hashCode &&
+                    Arrays.equals(bases, ((HaplotypeKey) o).bases));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The likelihoods of a read given the haplotypes it was evaluated against, and the last locus it was seen at
+     */
+    private static final class Entry {
+        private final Object2DoubleOpenHashMap<HaplotypeKey> likelihoods = new Object2DoubleOpenHashMap<>();
+        private String contig;
+        private int end;
+    }
+
+    private final int maxReads;
+
+    private final LinkedHashMap<ReadKey, Entry> entries;
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private long evictions = 0;
+
+    /**
+     * @param maxReads maximum number of reads whose likelihoods are kept, must be positive
+     */
+    public ReadLikelihoodCache(final int maxReads) {
+        Utils.validateArg(maxReads > 0, () -> "the size of the read likelihood cache must be positive but was " + maxReads);
+        this.maxReads = maxReads;
+        // access-ordered, so that the eldest entry is the least recently used read
+        this.entries = new LinkedHashMap<ReadKey, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ReadKey, Entry> eldest) {
+                if ( size() > ReadLikelihoodCache.this.maxReads ) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param originalRead the read as given to the likelihood engine, which provides its name and flags
+     * @param processedRead the copy of originalRead given to the PairHMM, with its modified qualities
+     * @return the key of the read
+     */
+    static ReadKey makeReadKey(final GATKRead originalRead, final GATKRead processedRead) {
+        Utils.nonNull(originalRead);
+        Utils.nonNull(processedRead);
+        return new ReadKey(originalRead.getName(), ReadUtils.getSAMFlagsForRead(originalRead),
+                processedRead.getBases(), processedRead.getBaseQualities(),
+                ReadUtils.getBaseInsertionQualities(processedRead), ReadUtils.getBaseDeletionQualities(processedRead));
+    }
+
+    /**
+     * @return the keys of haplotypes, in the same order
+     */
+    static HaplotypeKey[] makeHaplotypeKeys(final List<Haplotype> haplotypes) {
+        Utils.nonNull(haplotypes);
+        return haplotypes.stream().map(h -> new HaplotypeKey(h.getBases().clone())).toArray(HaplotypeKey[]::new);
+    }
+
+    /**
+     * Look up the likelihoods of a read given all of the haplotypes.
+     *
+     * @param read the key of the read
+     * @param haplotypes the keys of the haplotypes
+     * @param dest where to write the likelihood of the read given each haplotype, of the same length as haplotypes
+     * @return true if the cache had the likelihoods of the read for all the haplotypes, in which case they were
+     *         written to dest, false otherwise
+     */
+    boolean get(final ReadKey read, final HaplotypeKey[] haplotypes, final double[] dest) {
+        Utils.validateArg(dest.length == haplotypes.length, "there must be one likelihood per haplotype");
+        final Entry entry = entries.get(read);
+        if ( entry != null ) {
+            int found = 0;
+            while ( found < haplotypes.length && entry.likelihoods.containsKey(haplotypes[found]) ) {
+                dest[found] = entry.likelihoods.getDouble(haplotypes[found]);
+                found++;
+            }
+            if ( found == haplotypes.length ) {
+                hits += haplotypes.length;
+                return true;
+            }
+        }
+        misses += haplotypes.length;
+        return false;
+    }
+
+    /**
+     * Add the likelihoods of a read given some haplotypes, keeping those it already had for other haplotypes
+     *
+     * @param read the key of the read
+     * @param originalRead the read the key was made from, before its qualities were modified, whose location is used
+     *                     to evict the entry once the traversal has moved past it
+     * @param haplotypes the keys of the haplotypes
+     * @param likelihoods the likelihood of the read given each haplotype
+     */
+    void put(final ReadKey read, final GATKRead originalRead, final HaplotypeKey[] haplotypes, final double[] likelihoods) {
+        Utils.validateArg(likelihoods.length == haplotypes.length, "there must be one likelihood per haplotype");
+        final Entry entry = entries.computeIfAbsent(read, k -> new Entry());
+        entry.contig = originalRead.getContig();
+        entry.end = originalRead.getEnd();
+        for ( int i = 0; i < haplotypes.length; i++ ) {
+            entry.likelihoods.put(haplotypes[i], likelihoods[i]);
+        }
+    }
+
+    /**
+     * Evict the reads that can't be seen again now that the traversal has reached position on contig: those that were
+     * last seen on another contig, or ending before position.
+     */
+    public void evictReadsEndingBefore(final String contig, final int position) {
+        Utils.nonNull(contig);
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while ( iterator.hasNext() ) {
+            final Entry entry = iterator.next();
+            if ( !contig.equals(entry.contig) || entry.end < position ) {
+                iterator.remove();
+                evictions++;
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of read-haplotype likelihoods found in the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of read-haplotype likelihoods that had to be computed
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return fraction of the read-haplotype likelihoods found in the cache, 0 if there was no lookup
+     */
+    public double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Log the hit rate of the cache
+     */
+    public void logStatistics() {
+        logger.info(String.format("Read likelihood cache: %d hits, %d misses (%.2f%% hit rate), %d reads evicted, %d reads cached",
+                hits, misses, 100.0 * getHitRate(), evictions, entries.size()));
+    }
+}
@@ -24,6 +24,7 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     public static final String CAPTURE_ASSEMBLY_FAILURE_BAM_LONG_NAME = "capture-assembly-failure-bam";
     public static final String KMER_SIZE_LONG_NAME = "kmer-size";
     public static final String DONT_INCREASE_KMER_SIZE_LONG_NAME = "dont-increase-kmer-sizes-for-cycles";
+    public static final String ASSEMBLY_KMER_THREADS_LONG_NAME = "assembly-kmer-threads";
     public static final String LINKED_DE_BRUIJN_GRAPH_LONG_NAME = "linked-de-bruijn-graph";
     public static final String ALLOW_NON_UNIQUE_KMERS_IN_REF_LONG_NAME = "allow-non-unique-kmers-in-ref";
     public static final String NUM_PRUNING_SAMPLES_LONG_NAME = "num-pruning-samples";
@@ -67,6 +68,16 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     @Argument(fullName= DONT_INCREASE_KMER_SIZE_LONG_NAME, doc="Disable iterating over kmer sizes when graph cycles are detected", optional = true)
     public boolean dontIncreaseKmerSizesForCycles = false;
 
+    /**
+     * The assembly graphs of the different kmer sizes of a region (including the larger kmer sizes attempted when the
+     * graphs have cycles) are independent of each other, and can be built and pruned concurrently. Assembly results are
+     * the same as when building them one after another, but some larger kmer sizes may be attempted in vain. This is not
+     * used with linked de Bruijn graphs, and can't be combined with --debug-graph-transformations.
+     */
+    @Advanced
+    @Argument(fullName= ASSEMBLY_KMER_THREADS_LONG_NAME, doc="Number of threads building the assembly graphs of the different kmer sizes of a region concurrently (0 to build them one after another)", optional = true, minValue = 0)
+    public int assemblyKmerThreads = 0;
+
     /**
      * By default, the program does not allow processing of reference sections that contain non-unique kmers. Disabling
      * this check may cause problems in the assembly graph.
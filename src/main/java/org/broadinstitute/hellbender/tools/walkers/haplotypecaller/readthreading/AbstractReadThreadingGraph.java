@@ -52,7 +52,7 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
     /**
      * A map from kmers -> their corresponding vertex in the graph
      */
-    protected final Map<Kmer, MultiDeBruijnVertex> kmerToVertexMap = new LinkedHashMap<>();
+    protected final KmerVertexMap kmerToVertexMap;
     protected final boolean debugGraphTransformations;
     protected final byte minBaseQualityToUseInAssembly;
     protected List<MultiDeBruijnVertex> referencePath = null;
@@ -72,6 +72,7 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
 
     AbstractReadThreadingGraph(int kmerSize, EdgeFactory<MultiDeBruijnVertex, MultiSampleEdge> edgeFactory) {
         super(kmerSize, edgeFactory);
+        kmerToVertexMap = new KmerVertexMap(kmerSize);
         debugGraphTransformations = false;
         minBaseQualityToUseInAssembly = 0;
     }
@@ -85,6 +86,7 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
         super(kmerSize, new MyEdgeFactory(numPruningSamples));
 
         Utils.validateArg(kmerSize > 0, () -> "bad minkKmerSize " + kmerSize);
+        kmerToVertexMap = new KmerVertexMap(kmerSize);
 
         this.debugGraphTransformations = debugGraphTransformations;
         this.minBaseQualityToUseInAssembly = minBaseQualityToUseInAssembly;
@@ -956,9 +958,8 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
      * @return a non-null vertex
      */
     private MultiDeBruijnVertex getOrCreateKmerVertex(final byte[] sequence, final int start) {
-        final Kmer kmer = new Kmer(sequence, start, kmerSize);
-        final MultiDeBruijnVertex vertex = getKmerVertex(kmer, true);
-        return (vertex != null) ? vertex : createVertex(kmer);
+        final MultiDeBruijnVertex vertex = kmerToVertexMap.get(sequence, start);
+        return (vertex != null) ? vertex : createVertex(new Kmer(sequence, start, kmerSize));
     }
 
     /**
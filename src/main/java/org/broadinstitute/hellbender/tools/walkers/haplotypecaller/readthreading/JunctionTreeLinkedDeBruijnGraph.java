@@ -61,8 +61,7 @@ public class JunctionTreeLinkedDeBruijnGraph extends AbstractReadThreadingGraph
 
     protected int findStartForJunctionThreading(final SequenceForKmers seqForKmers) {
         for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if ( kmerToVertexMap.containsKey(kmer1) ) {
+            if ( kmerToVertexMap.get(seqForKmers.sequence, i) != null ) {
                 return i;
             }
         }
@@ -463,7 +462,7 @@ public class JunctionTreeLinkedDeBruijnGraph extends AbstractReadThreadingGraph
             return;
         }
 
-        final MultiDeBruijnVertex startingVertex = kmerToVertexMap.get(new Kmer(seqForKmers.sequence, startPos, kmerSize));
+        final MultiDeBruijnVertex startingVertex = kmerToVertexMap.get(seqForKmers.sequence, startPos);
 
         // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate
         MultiDeBruijnVertex lastVertex = startingVertex;
@@ -473,8 +472,7 @@ public class JunctionTreeLinkedDeBruijnGraph extends AbstractReadThreadingGraph
             if (!hasToRediscoverKmer) {
                 vertex = extendJunctionThreadingByOne(lastVertex, seqForKmers.sequence, i, nodeHelper, true);
             } else {
-                Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
-                vertex = kmerToVertexMap.get(kmer);
+                vertex = kmerToVertexMap.get(seqForKmers.sequence, i);
             }
 
             // If we missed the vertex, attempt to recover the path from the graph if there is no ambiguity
@@ -0,0 +1,230 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A map from the kmers of a read threading graph to their vertices.
+ *
+ * Kmers of the graph's kmer size made only of A, C, G and T bases (nearly all of them) are packed 2 bits per base into
+ * a long when the kmer size is at most {@link #MAX_PACKED_KMER_SIZE}, and stored in an open-addressing table with
+ * linear probing, so that neither lookups nor entries need Kmer objects. Other kmers (longer ones, or those with other
+ * bases) are kept in a regular HashMap.
+ *
+ * Unlike the LinkedHashMap this replaces, iteration order is unspecified.
+ */
+public final class KmerVertexMap {
+    /**
+     * The largest kmer size whose kmers are packed into longs
+     */
+    public static final int MAX_PACKED_KMER_SIZE = 31;
+
+    // packed kmers are non-negative, since they use at most 62 bits
+    private static final long NOT_PACKED = -1L;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int kmerSize;
+
+    // the table of packed kmers: a slot is empty if its vertex is null. The capacity is a power of 2.
+    private long[] keys;
+    private MultiDeBruijnVertex[] vertices;
+    private int packedSize = 0;
+    private int shift;
+
+    private final Map<Kmer, MultiDeBruijnVertex> otherKmers = new HashMap<>();
+
+    /**
+     * @param kmerSize the size of the kmers of the graph, must be > 0
+     */
+    public KmerVertexMap(final int kmerSize) {
+        Utils.validateArg(kmerSize > 0, () -> "bad kmerSize " + kmerSize);
+        this.kmerSize = kmerSize;
+        allocateTable(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the vertex of kmer, or null if there is none
+     */
+    public MultiDeBruijnVertex get(final Kmer kmer) {
+        final long packed = pack(kmer);
+        if (packed == NOT_PACKED) {
+            return otherKmers.get(kmer);
+        }
+        return vertices[findSlot(packed)];
+    }
+
+    /**
+     * Get the vertex of the kmer of the graph's kmer size starting at start in sequence, without making a Kmer
+     *
+     * @return the vertex of the kmer, or null if there is none
+     */
+    public MultiDeBruijnVertex get(final byte[] sequence, final int start) {
+        final long packed = pack(sequence, start);
+        if (packed == NOT_PACKED) {
+            return otherKmers.get(new Kmer(sequence, start, kmerSize));
+        }
+        return vertices[findSlot(packed)];
+    }
+
+    public boolean containsKey(final Kmer kmer) {
+        return get(kmer) != null;
+    }
+
+    /**
+     * @return the previous vertex of kmer, or null if there was none
+     */
+    public MultiDeBruijnVertex put(final Kmer kmer, final MultiDeBruijnVertex vertex) {
+        Utils.nonNull(vertex);
+        final long packed = pack(kmer);
+        if (packed == NOT_PACKED) {
+            return otherKmers.put(kmer, vertex);
+        }
+        final int slot = findSlot(packed);
+        final MultiDeBruijnVertex previous = vertices[slot];
+        keys[slot] = packed;
+        vertices[slot] = vertex;
+        if (previous == null && ++packedSize * 2 > keys.length) {
+            allocateTable(keys.length * 2);
+        }
+        return previous;
+    }
+
+    /**
+     * @return the current vertex of kmer, or null if there was none and vertex was added
+     */
+    public MultiDeBruijnVertex putIfAbsent(final Kmer kmer, final MultiDeBruijnVertex vertex) {
+        final MultiDeBruijnVertex current = get(kmer);
+        return current != null ? current : put(kmer, vertex);
+    }
+
+    /**
+     * @return the removed vertex of kmer, or null if there was none
+     */
+    public MultiDeBruijnVertex remove(final Kmer kmer) {
+        final long packed = pack(kmer);
+        if (packed == NOT_PACKED) {
+            return otherKmers.remove(kmer);
+        }
+        int hole = findSlot(packed);
+        final MultiDeBruijnVertex removed = vertices[hole];
+        if (removed == null) {
+            return null;
+        }
+
+        // shift back the following entries of the probe sequence that can't be found anymore past the hole
+        final int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; vertices[i] != null; i = (i + 1) & mask) {
+            final int home = homeSlot(keys[i]);
+            final boolean homeIsInHoleToI = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+            if (!homeIsInHoleToI) {
+                keys[hole] = keys[i];
+                vertices[hole] = vertices[i];
+                hole = i;
+            }
+        }
+        vertices[hole] = null;
+        packedSize--;
+        return removed;
+    }
+
+    public int size() {
+        return packedSize + otherKmers.size();
+    }
+
+    /**
+     * @return a new collection of all the vertices in this map
+     */
+    public Collection<MultiDeBruijnVertex> values() {
+        final List<MultiDeBruijnVertex> values = new ArrayList<>(size());
+        for (final MultiDeBruijnVertex vertex : vertices) {
+            if (vertex != null) {
+                values.add(vertex);
+            }
+        }
+        values.addAll(otherKmers.values());
+        return values;
+    }
+
+    private void allocateTable(final int capacity) {
+        final long[] oldKeys = keys;
+        final MultiDeBruijnVertex[] oldVertices = vertices;
+        keys = new long[capacity];
+        vertices = new MultiDeBruijnVertex[capacity];
+        shift = Long.numberOfLeadingZeros(capacity) + 1;
+        if (oldVertices != null) {
+            for (int i = 0; i < oldVertices.length; i++) {
+                if (oldVertices[i] != null) {
+                    final int slot = findSlot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    vertices[slot] = oldVertices[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the slot of packed in the table, or the empty slot where it should be added
+     */
+    private int findSlot(final long packed) {
+        final int mask = keys.length - 1;
+        int slot = homeSlot(packed);
+        while (vertices[slot] != null && keys[slot] != packed) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int homeSlot(final long packed) {
+        // Fibonacci hashing, using the high bits of the product
+        return (int) ((packed * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private long pack(final Kmer kmer) {
+        if (kmer.length() != kmerSize || kmerSize > MAX_PACKED_KMER_SIZE) {
+            return NOT_PACKED;
+        }
+        long packed = 0;
+        for (int i = 0; i < kmerSize; i++) {
+            final int code = baseCode(kmer.base(i));
+            if (code < 0) {
+                return NOT_PACKED;
+            }
+            packed = (packed << 2) | code;
+        }
+        return packed;
+    }
+
+    private long pack(final byte[] sequence, final int start) {
+        Objects.checkFromIndexSize(start, kmerSize, sequence.length);
+        if (kmerSize > MAX_PACKED_KMER_SIZE) {
+            return NOT_PACKED;
+        }
+        long packed = 0;
+        for (int i = start; i < start + kmerSize; i++) {
+            final int code = baseCode(sequence[i]);
+            if (code < 0) {
+                return NOT_PACKED;
+            }
+            packed = (packed << 2) | code;
+        }
+        return packed;
+    }
+
+    private static int baseCode(final byte base) {
+        switch (base) {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
@@ -29,15 +30,21 @@ import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.read.CigarUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedWorkerPool;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
-public final class ReadThreadingAssembler {
+public final class ReadThreadingAssembler implements AutoCloseable {
     private static final Logger logger = LogManager.getLogger(ReadThreadingAssembler.class);
 
     static final int DEFAULT_NUM_PATHS_PER_GRAPH = 128;
@@ -75,6 +82,9 @@ public final class ReadThreadingAssembler {
     private final ChainPruner<MultiDeBruijnVertex, MultiSampleEdge> chainPruner;
     private int minMatchingBasesToDanglingEndRecovery;
 
+    private int numKmerThreads = 0;
+    private ForkJoinPool kmerPool = null; // null if graphs are built on the calling thread
+
     private File debugGraphOutputPath = null;  //Where to write debug graphs, if unset it defaults to the current working dir
     private File graphOutputPath = null;
     private File graphHaplotypeHistogramPath = null;
@@ -552,28 +562,88 @@ public final class ReadThreadingAssembler {
     @VisibleForTesting
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final SAMFileHeader header, final SmithWatermanAligner aligner, final SWParameters danglingEndSWParameters) {
         final List<AssemblyResult> results = new LinkedList<>();
+        if ( kmerPool != null ) {
+            prepareReadsForConcurrentAssembly(reads, header);
+        }
 
         // first, try using the requested kmer sizes
-        for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner, danglingEndSWParameters));
+        final List<AssemblyResult> requestedKmerResults = createGraphs(kmerSizes, kmerSize ->
+                createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner, danglingEndSWParameters));
+        for ( final AssemblyResult result : requestedKmerResults ) {
+            addResult(results, result);
         }
 
         // if none of those worked, iterate over larger sizes if allowed to do so
         if ( results.isEmpty() && !dontIncreaseKmerSizesForCycles ) {
-            int kmerSize = arrayMaxInt(kmerSizes) + KMER_SIZE_ITERATION_INCREASE;
-            int numIterations = 1;
-            while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
-                // on the last attempt we will allow low complexity graphs
-                final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, lastAttempt, lastAttempt, header, aligner, danglingEndSWParameters));
-                kmerSize += KMER_SIZE_ITERATION_INCREASE;
-                numIterations++;
+            final List<Integer> expandedKmerList = getExpandedKmerList();
+            final List<Integer> largerKmerSizes = expandedKmerList.subList(kmerSizes.size(), expandedKmerList.size());
+            final int lastKmerSize = largerKmerSizes.get(largerKmerSizes.size() - 1);
+
+            // attempt as many larger sizes at once as we have threads, keeping only the result of the smallest size
+            // that worked, so that the results are the same as when attempting them one after another
+            final int batchSize = Math.max(numKmerThreads, 1);
+            for ( int from = 0; results.isEmpty() && from < largerKmerSizes.size(); from += batchSize ) {
+                final List<Integer> batch = largerKmerSizes.subList(from, Math.min(from + batchSize, largerKmerSizes.size()));
+                final List<AssemblyResult> batchResults = createGraphs(batch, kmerSize -> {
+                    // on the last attempt we will allow low complexity graphs
+                    final boolean lastAttempt = kmerSize == lastKmerSize;
+                    return createGraph(reads, refHaplotype, kmerSize, lastAttempt, lastAttempt, header, aligner, danglingEndSWParameters);
+                });
+                batchResults.stream().filter(Objects::nonNull).findFirst().ifPresent(results::add);
             }
         }
 
         return results;
     }
 
+    /**
+     * Create the graphs of several kmer sizes, concurrently if we have threads to do so
+     *
+     * @return the (maybe null) results of createGraph for each kmer size, in the same order as the kmer sizes
+     */
+    private List<AssemblyResult> createGraphs(final List<Integer> kmerSizesToTry, final IntFunction<AssemblyResult> createGraph) {
+        final List<AssemblyResult> results = new ArrayList<>(kmerSizesToTry.size());
+        if ( kmerPool == null || kmerSizesToTry.size() == 1 ) {
+            for ( final int kmerSize : kmerSizesToTry ) {
+                results.add(createGraph.apply(kmerSize));
+            }
+            return results;
+        }
+
+        final List<Future<AssemblyResult>> futures = new ArrayList<>(kmerSizesToTry.size());
+        for ( final int kmerSize : kmerSizesToTry ) {
+            futures.add(kmerPool.submit(() -> createGraph.apply(kmerSize)));
+        }
+        for ( final Future<AssemblyResult> future : futures ) {
+            try {
+                results.add(future.get());
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while building assembly graphs", e);
+            } catch ( final ExecutionException e ) {
+                if ( e.getCause() instanceof RuntimeException ) {
+                    throw (RuntimeException) e.getCause();
+                } else if ( e.getCause() instanceof Error ) {
+                    throw (Error) e.getCause();
+                }
+                throw new GATKException("Error while building assembly graphs", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reads decode their bases, qualities and tags lazily, which isn't thread-safe: decode everything that graphs
+     * use on the calling thread, before they are built concurrently.
+     */
+    private static void prepareReadsForConcurrentAssembly(final List<GATKRead> reads, final SAMFileHeader header) {
+        for ( final GATKRead read : reads ) {
+            read.getBasesNoCopy();
+            read.getBaseQualitiesNoCopy();
+            ReadUtils.getSampleName(read, header);
+        }
+    }
+
     /**
      * Method for getting a list of all the specified kmer sizes to test for the graph including kmer expansions
      */
@@ -795,6 +865,36 @@ public final class ReadThreadingAssembler {
         this.graphOutputPath = graphOutputPath;
     }
 
+    /**
+     * Build the graphs of the different kmer sizes of a region concurrently, using up to numThreads threads.
+     *
+     * The results are the same as when building them one after another, but larger kmer sizes are attempted (in
+     * batches of numThreads) before knowing whether a smaller one works, so some of them may be built in vain.
+     * Only used when building sequence graphs (not with linked de Bruijn graphs, which are built one after another).
+     *
+     * The threads are stopped by {@link #close()}. Debug graphs can't be written when building graphs concurrently.
+     *
+     * @param numThreads number of threads, 0 or 1 to build the graphs on the calling thread
+     */
+    public void setNumKmerThreads(final int numThreads) {
+        ParamUtils.isPositiveOrZero(numThreads, "Number of kmer threads cannot be negative");
+        Utils.validateArg(numThreads <= 1 || !debugGraphTransformations, "Debug graphs can't be written when building graphs with several threads");
+        close();
+        numKmerThreads = numThreads;
+        kmerPool = numThreads > 1 ? new ForkJoinPool(numThreads) : null;
+    }
+
+    /**
+     * Stop the threads building the graphs of different kmer sizes, if any
+     */
+    @Override
+    public void close() {
+        if ( kmerPool != null ) {
+            OrderedWorkerPool.shutdownAndAwaitTermination(kmerPool, false, "the assembly kmer threads");
+            kmerPool = null;
+        }
+    }
+
     public byte getMinBaseQualityToUseInAssembly() {
         return minBaseQualityToUseInAssembly;
     }
@@ -836,6 +936,7 @@ public final class ReadThreadingAssembler {
     }
 
     public void setDebugGraphTransformations(final boolean debugHaplotypeFinding) {
+        Utils.validateArg(!debugHaplotypeFinding || kmerPool == null, "Debug graphs can't be written when building graphs with several threads");
         this.debugGraphTransformations = debugHaplotypeFinding;
     }
 
@@ -56,7 +56,9 @@ import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.CachingSmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignmentCache;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
@@ -117,6 +119,8 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
     private Optional<PriorityQueue<VariantContext>> assembledEventMapVariants;
     private VariantAnnotatorEngine annotationEngine;
     private final SmithWatermanAligner aligner;
+    private final SmithWatermanAlignmentCache smithWatermanCache;
+    private final SmithWatermanAligner haplotypeToReferenceAligner;
     private final AssemblyRegionTrimmer trimmer;
     private SomaticReferenceConfidenceModel referenceConfidenceModel = null;
 
@@ -147,6 +151,8 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
         minCallableDepth = MTAC.callableDepth;
         referenceReader = ReferenceUtils.createReferenceReader(Utils.nonNull(referenceSpec));
         aligner = SmithWatermanAligner.getAligner(MTAC.smithWatermanImplementation);
+        smithWatermanCache = MTAC.makeSmithWatermanCache();
+        haplotypeToReferenceAligner = smithWatermanCache == null ? aligner : new CachingSmithWatermanAligner(aligner, smithWatermanCache);
         samplesList = new IndexedSampleList(new ArrayList<>(ReadUtils.getSamplesFromHeader(header)));
 
         tumorPileupQualBuffer = new PileupQualBuffer(MTAC.activeRegionMultipleSubstitutionBaseQualCorrection);
@@ -266,7 +272,7 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
                 .flatMap(vc -> GATKVariantContextUtils.splitVariantContextToEvents(vc, false, GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL, false).stream())
                 .collect(Collectors.toList());
 
-        final AssemblyResultSet untrimmedAssemblyResult = AssemblyBasedCallerUtils.assembleReads(originalAssemblyRegion, MTAC, header, samplesList, logger, referenceReader, assemblyEngine, aligner, false, MTAC.fbargs, false);
+        final AssemblyResultSet untrimmedAssemblyResult = AssemblyBasedCallerUtils.assembleReads(originalAssemblyRegion, MTAC, header, samplesList, logger, referenceReader, assemblyEngine, haplotypeToReferenceAligner, false, MTAC.fbargs, false);
         ReadThreadingAssembler.addAssembledVariantsToEventMapOutput(untrimmedAssemblyResult, assembledEventMapVariants, MTAC.maxMnpDistance, assembledEventMapVcfOutputWriter);
         final LongHomopolymerHaplotypeCollapsingEngine haplotypeCollapsing = untrimmedAssemblyResult.getHaplotypeCollapsingEngine();
 
@@ -287,8 +293,8 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
 
         AssemblyResultSet assemblyResult = untrimmedAssemblyResult.trimTo(trimmingResult.getVariantRegion());
         assemblyResult.removeHaplotypesWithBadAlleles(MTAC, badPileupEvents);
-        assemblyResult.addGivenAlleles(givenAlleles, MTAC.maxMnpDistance, aligner, MTAC.getHaplotypeToReferenceSWParameters());
-        assemblyResult.injectPileupEvents(originalAssemblyRegion, MTAC, aligner, goodPileupEvents);
+        assemblyResult.addGivenAlleles(givenAlleles, MTAC.maxMnpDistance, haplotypeToReferenceAligner, MTAC.getHaplotypeToReferenceSWParameters());
+        assemblyResult.injectPileupEvents(originalAssemblyRegion, MTAC, haplotypeToReferenceAligner, goodPileupEvents);
 
         // we might find out after assembly that the "active" region actually has no variants
         if( ! assemblyResult.isVariationPresent() ) {
@@ -453,10 +459,14 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
     public void close() {
         likelihoodCalculationEngine.close();
         aligner.close();
+        if (smithWatermanCache != null) {
+            smithWatermanCache.close();
+        }
         haplotypeBAMWriter.ifPresent(HaplotypeBAMWriter::close);
         assembledEventMapVcfOutputWriter.ifPresent(writer -> {assembledEventMapVariants.get().forEach(writer::add); writer.close();});
         referenceReader.close();
         genotypingEngine.close();
+        assemblyEngine.close();
     }
 
     @Override
@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 
@@ -162,6 +163,39 @@ public final class Pileup extends LocusWalker {
         out.print(s.toString());
     }
 
+    @Override
+    public boolean usesPileupColumns() {
+        return true;
+    }
+
+    /**
+     * Writes the same line as {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}, directly from the
+     * bases and qualities of the column unless the insert lengths or verbose output are requested.
+     */
+    @Override
+    public void apply(PileupColumn column, ReferenceContext referenceContext, FeatureContext featureContext) {
+        if (outputInsertLength || showVerbose) {
+            apply(column.toAlignmentContext(), referenceContext, featureContext);
+            return;
+        }
+        final byte[] bases = new byte[column.size()];
+        final byte[] quals = new byte[column.size()];
+        int numBases = 0;
+        for (int i = 0; i < column.size(); i++) {
+            if (!column.isDeletion(i)) {
+                bases[numBases] = column.getBase(i);
+                quals[numBases] = (byte) (33 + column.getQual(i));  //as per SAM spec
+                numBases++;
+            }
+        }
+        out.print(String.format("%s %s %c %s %s %s\n",
+                column.getContig(), column.getStart(),
+                (hasReference()) ? (char) referenceContext.getBase() : 'N',
+                new String(bases, 0, numBases),
+                new String(quals, 0, numBases),
+                getFeaturesString(featureContext)));
+    }
+
     /**
      * Get a string representation for the metadata
      *
@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.engine.LocusWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.tools.walkers.mutect.Mutect2Engine;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.io.File;
@@ -66,6 +67,16 @@ public class CollectF1R2Counts extends LocusWalker {
         f1R2CountsCollector.process(alignmentContext.getBasePileup(), referenceContext);
     }
 
+    @Override
+    public boolean usesPileupColumns() {
+        return true;
+    }
+
+    @Override
+    public void apply(final PileupColumn column, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        f1R2CountsCollector.process(column, referenceContext);
+    }
+
     @Override
     public Object onTraversalSuccess() {
         f1R2CountsCollector.writeHistograms();
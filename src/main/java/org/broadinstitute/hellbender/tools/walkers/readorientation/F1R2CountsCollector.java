@@ -14,6 +14,8 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Nucleotide;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
@@ -83,28 +85,62 @@ public class F1R2CountsCollector {
     }
 
     public void process(final ReadPileup pileup, final ReferenceContext referenceContext) {
-        final int position = referenceContext.getInterval().getStart();
-        final String refContext = referenceContext.getKmerAround(position, F1R2FilterConstants.REF_CONTEXT_PADDING);
+        final String refContext = getRefContext(referenceContext);
         if (refContext == null) {
             return;
         }
-        final Nucleotide refBase = F1R2FilterUtils.getMiddleBase(refContext);
-
-        if (refContext.contains("N") || refContext.length() != F1R2FilterConstants.REFERENCE_CONTEXT_SIZE) {
-            return;
-        }
-
-        if (refContext == null) {
-            logger.warn(String.format("Skipped a site with null reference at interval %s, k-mer = %s",
-                    referenceContext.getInterval().toString(), refContext));
-            return;
-        }
 
         // optimize the common case of a single tumor sample
         final String onlySample = samples.size() == 1 ? samples.iterator().next() : null;
         final Map<String, ReadPileup> splitPileup = samples.size() == 1 ? Collections.singletonMap(onlySample,
                         pileup.makeFilteredPileup(pe -> Objects.equals(ReadUtils.getSampleName(pe.getRead(), header), onlySample) && pe.getQual() > CF1R2Args.minBaseQuality))
                 : pileup.splitBySample(header, null);
+        process(splitPileup, refContext);
+    }
+
+    /**
+     * Same as {@link #process(ReadPileup, ReferenceContext)}, but only creates the pileup elements of a column at sites
+     * with a usable reference context and, for a single sample, only those that pass the base quality filter.
+     */
+    public void process(final PileupColumn column, final ReferenceContext referenceContext) {
+        final String refContext = getRefContext(referenceContext);
+        if (refContext == null) {
+            return;
+        }
+
+        final Map<String, ReadPileup> splitPileup;
+        if (samples.size() == 1) {
+            final String onlySample = samples.iterator().next();
+            final List<PileupElement> elements = new ArrayList<>(column.size());
+            for (int i = 0; i < column.size(); i++) {
+                if (column.getQual(i) > CF1R2Args.minBaseQuality && Objects.equals(ReadUtils.getSampleName(column.getRead(i), header), onlySample)) {
+                    elements.add(column.makePileupElement(i));
+                }
+            }
+            splitPileup = Collections.singletonMap(onlySample, new ReadPileup(column.getLocation(), elements));
+        } else {
+            splitPileup = column.toReadPileup().splitBySample(header, null);
+        }
+        process(splitPileup, refContext);
+    }
+
+    /**
+     * @return the reference k-mer centered on the locus, or null if the site should be skipped
+     */
+    private static String getRefContext(final ReferenceContext referenceContext) {
+        final int position = referenceContext.getInterval().getStart();
+        final String refContext = referenceContext.getKmerAround(position, F1R2FilterConstants.REF_CONTEXT_PADDING);
+        if (refContext == null || refContext.contains("N") || refContext.length() != F1R2FilterConstants.REFERENCE_CONTEXT_SIZE) {
+            return null;
+        }
+        return refContext;
+    }
+
+    /**
+     * @param splitPileup the pileup of each sample, already filtered by base quality if there is a single sample
+     */
+    private void process(final Map<String, ReadPileup> splitPileup, final String refContext) {
+        final Nucleotide refBase = F1R2FilterUtils.getMiddleBase(refContext);
 
         for (final Map.Entry<String, ReadPileup> entry : splitPileup.entrySet()) {
             final String sample = entry.getKey();
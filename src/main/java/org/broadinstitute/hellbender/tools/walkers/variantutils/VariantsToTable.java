@@ -14,6 +14,7 @@ import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.VariantColumnSelection;
 import org.broadinstitute.hellbender.engine.VariantWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -211,6 +212,31 @@ public final class VariantsToTable extends VariantWalker {
     private PrintStream outputStream = null;
     private VCFHeader inputHeader;
 
+    /**
+     * Only the requested INFO and FORMAT fields are decoded, and the genotypes are only decoded if some of the requested
+     * fields are taken from them.
+     */
+    @Override
+    protected VariantColumnSelection getDrivingVariantsColumnSelection() {
+        if ( fieldsToTake.isEmpty() && genotypeFieldsToTake.isEmpty() && asFieldsToTake.isEmpty() && asGenotypeFieldsToTake.isEmpty() ) {
+            // all the fields declared in the header will be included
+            return VariantColumnSelection.ALL;
+        }
+
+        final Set<String> infoFields = new LinkedHashSet<>(fieldsToTake);
+        infoFields.addAll(asFieldsToTake);
+        final Set<String> formatFields = new LinkedHashSet<>(genotypeFieldsToTake);
+        formatFields.addAll(asGenotypeFieldsToTake);
+        final boolean needsGenotypeCounts = fieldsToTake.stream().anyMatch(GENOTYPE_GETTERS::contains);
+        if ( needsGenotypeCounts ) {
+            formatFields.add(VCFConstants.GENOTYPE_KEY);
+        }
+        return new VariantColumnSelection(
+                fieldsToTake.stream().anyMatch(VariantsToTable::isWildCard) ? null : infoFields,
+                formatFields,
+                formatFields.isEmpty() ? Collections.emptySet() : null);
+    }
+
     @Override
     public void onTraversalStart() {
         inputHeader = getHeaderForVariants();
@@ -523,6 +549,12 @@ public final class VariantsToTable extends VariantWalker {
     //
     // ----------------------------------------------------------------------------------------------------
 
+    /**
+     * Getters that look at the genotypes of the samples
+     */
+    private static final Set<String> GENOTYPE_GETTERS = new HashSet<>(Arrays.asList(
+            "HET", "HOM-REF", "HOM-VAR", "NO-CALL", "VAR", "NSAMPLES", "NCALLED", "SAMPLE_NAME"));
+
     private final Map<String, Function<VariantContext, String>> getters = new LinkedHashMap<>();
     {
         // #CHROM  POS     ID      REF     ALT     QUAL    FILTER  INFO    FORMAT
@@ -3,6 +3,8 @@ package org.broadinstitute.hellbender.transformers;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SAMUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.UserException.MalformedRead;
 import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
 import org.broadinstitute.hellbender.utils.QualityUtils;
@@ -27,6 +29,8 @@ import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_R
 public final class BQSRReadTransformer implements ReadTransformer {
     private static final long serialVersionUID = 1L;
 
+    private static final Logger logger = LogManager.getLogger(BQSRReadTransformer.class);
+
     private final QuantizationInfo quantizationInfo; // histogram containing the map for qual quantization (calculated after recalibration is done)
     private final RecalibrationTables recalibrationTables;
     private final StandardCovariateList covariates; // list of all covariates to be used in this calculation
@@ -49,6 +53,9 @@ public final class BQSRReadTransformer implements ReadTransformer {
     private byte[] staticQuantizedMapping;
     private final CovariateKeyCache keyCache;
 
+    // null unless the recalibrated qualities are precomputed
+    private final RecalibrationLookupTable lookupTable;
+
     /**
      * Constructor using a GATK Report file
      *
@@ -98,6 +105,15 @@ public final class BQSRReadTransformer implements ReadTransformer {
         //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
         empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
         keyCache = new CovariateKeyCache();//one cache per transformer
+
+        if (args.precomputeRecalibratedQualities && !RecalibrationLookupTable.isSmallEnough(recalibrationTables)) {
+            logger.warn("The recalibration tables are too large for the recalibrated qualities to be precomputed, they will be computed for each base instead");
+            lookupTable = null;
+        } else if (args.precomputeRecalibratedQualities) {
+            lookupTable = new RecalibrationLookupTable(recalibrationTables, globalQScorePrior, quantizationInfo.getQuantizedQuals(), staticQuantizedMapping);
+        } else {
+            lookupTable = null;
+        }
     }
 
     /**
@@ -164,6 +180,16 @@ public final class BQSRReadTransformer implements ReadTransformer {
         final int readLength = quals.length;
         final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
 
+        if (lookupTable != null) {
+            for (int offset = 0; offset < readLength; offset++) {
+                if (quals[offset] >= preserveQLessThan) {
+                    quals[offset] = lookupTable.getRecalibratedQual(fullReadKeySet[offset]);
+                }
+            }
+            read.setBaseQualities(quals);
+            return read;
+        }
+
         final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
         final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
 
@@ -0,0 +1,305 @@
+package org.broadinstitute.hellbender.utils.codecs;
+
+import htsjdk.tribble.AsciiFeatureCodec;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.AbstractVCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.engine.VariantColumnSelection;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A VCF codec that only decodes some of the columns of each record: the INFO fields, FORMAT fields and samples
+ * of a {@link VariantColumnSelection}.
+ *
+ * The codec delegates to a regular VCF codec, but removes the unselected fields and sample columns from each line of
+ * text before the delegate parses it, and removes the unselected samples from the header. The cost of the selection is
+ * a scan of the line up to the last selected sample column, which is much cheaper than parsing the fields of every
+ * sample, and the variants it produces only hold the selected data.
+ *
+ * The END INFO field is always kept, whatever the selection, since it determines the end of the variant: without it,
+ * gVCF blocks and symbolic alleles would end at their start, and interval queries, which filter on the decoded end,
+ * would drop the records that start before an interval and only reach into it through their END.
+ */
+public final class VCFColumnSelectingCodec extends AsciiFeatureCodec<VariantContext> {
+    private static final int INFO_COLUMN = 7;
+    private static final int FORMAT_COLUMN = 8;
+    private static final int FIRST_SAMPLE_COLUMN = 9;
+    private static final String MISSING_VALUE = ".";
+
+    private final AbstractVCFCodec delegatee;
+
+    private final Set<String> infoFields;
+
+    private final Set<String> formatFields;
+
+    private final Set<String> samples;
+
+    /**
+     * For each sample column of the input, whether it is selected. Set when the header is read.
+     */
+    private boolean[] selectedSampleColumns;
+
+    /**
+     * Index of the last selected sample column, -1 if no sample is selected. Set when the header is read.
+     */
+    private int lastSelectedSampleColumn = -1;
+
+    /**
+     * The most recent FORMAT column and the indices of its selected fields, which rarely change from one record to the next
+     */
+    private String lastFormat;
+    private String lastSelectedFormat;
+    private int[] lastSelectedFormatFields;
+
+    //Note: this default constructor is needed for the FeatureManager when it loads codecs.
+    @SuppressWarnings("unused")
+    public VCFColumnSelectingCodec() {
+        super(VariantContext.class);
+        delegatee = null;
+        infoFields = null;
+        formatFields = null;
+        samples = null;
+    }
+
+    /**
+     * @param delegatee codec that parses the selected columns
+     * @param selection the columns to decode
+     */
+    public VCFColumnSelectingCodec(final AbstractVCFCodec delegatee, final VariantColumnSelection selection) {
+        super(VariantContext.class);
+        this.delegatee = Utils.nonNull(delegatee);
+        Utils.nonNull(selection);
+        this.infoFields = selection.getInfoFields();
+        this.formatFields = selection.getFormatFields();
+        this.samples = selection.getSamples();
+    }
+
+    @Override
+    public Object readActualHeader(final LineIterator reader) {
+        checkDelegatee();
+        return delegatee.readActualHeader(new LineIterator() {
+            @Override
+            public String peek() {
+                return selectHeaderColumns(reader.peek());
+            }
+
+            @Override
+            public boolean hasNext() {
+                return reader.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return selectHeaderColumns(reader.next());
+            }
+        });
+    }
+
+    @Override
+    public VariantContext decode(final String line) {
+        checkDelegatee();
+        return delegatee.decode(selectColumns(line));
+    }
+
+    @Override
+    public boolean canDecode(final String path) {
+        //If there's no delegatee then we're going to say no to all questions here
+        return delegatee != null && delegatee.canDecode(path);
+    }
+
+    @Override
+    public TabixFormat getTabixFormat() {
+        checkDelegatee();
+        return delegatee.getTabixFormat();
+    }
+
+    public AbstractVCFCodec getDelegatee() {
+        return delegatee;
+    }
+
+    private void checkDelegatee() {
+        if (delegatee == null) {
+            throw new IllegalStateException("this codec cannot be used without a delegatee.");
+        }
+    }
+
+    /**
+     * Remove the unselected samples from the column header line, and record which sample columns are selected
+     */
+    private String selectHeaderColumns(final String line) {
+        if ( line == null || !line.startsWith(VCFHeader.HEADER_INDICATOR) || line.startsWith(VCFHeader.METADATA_INDICATOR) ) {
+            return line;
+        }
+
+        final String[] columns = line.split("\t");
+        final int numSampleColumns = Math.max(0, columns.length - FIRST_SAMPLE_COLUMN);
+        selectedSampleColumns = new boolean[numSampleColumns];
+        lastSelectedSampleColumn = -1;
+        final List<String> selectedColumns = new ArrayList<>(columns.length);
+        for ( int i = 0; i < Math.min(columns.length, FIRST_SAMPLE_COLUMN); i++ ) {
+            selectedColumns.add(columns[i]);
+        }
+        for ( int i = 0; i < numSampleColumns; i++ ) {
+            if ( samples == null || samples.contains(columns[FIRST_SAMPLE_COLUMN + i]) ) {
+                selectedSampleColumns[i] = true;
+                lastSelectedSampleColumn = i;
+                selectedColumns.add(columns[FIRST_SAMPLE_COLUMN + i]);
+            }
+        }
+        if ( numSampleColumns > 0 && lastSelectedSampleColumn < 0 ) {
+            // no sample is selected: this is now a sites-only VCF, without a FORMAT column
+            selectedColumns.remove(FORMAT_COLUMN);
+        }
+        return String.join("\t", selectedColumns);
+    }
+
+    /**
+     * @return the line of a record without the unselected fields and sample columns. Other lines are returned as is.
+     *         The columns after the last selected sample are not even scanned.
+     */
+    String selectColumns(final String line) {
+        if ( line.isEmpty() || line.startsWith(VCFHeader.HEADER_INDICATOR) ) {
+            return line;
+        }
+
+        final boolean sitesOnly = selectedSampleColumns != null && selectedSampleColumns.length > 0 && lastSelectedSampleColumn < 0;
+        final StringBuilder selected = new StringBuilder(line.length());
+        int[] selectedFormatFields = null;
+        int columnStart = 0;
+        for ( int column = 0; columnStart <= line.length(); column++ ) {
+            int columnEnd = line.indexOf('\t', columnStart);
+            if ( columnEnd < 0 ) {
+                columnEnd = line.length();
+            }
+
+            if ( column < INFO_COLUMN ) {
+                if ( column > 0 ) {
+                    selected.append('\t');
+                }
+                selected.append(line, columnStart, columnEnd);
+            } else if ( column == INFO_COLUMN ) {
+                selected.append('\t');
+                appendInfo(selected, line, columnStart, columnEnd);
+            } else if ( column == FORMAT_COLUMN ) {
+                if ( sitesOnly ) {
+                    break;
+                }
+                selected.append('\t');
+                selectedFormatFields = appendFormat(selected, line.substring(columnStart, columnEnd));
+            } else {
+                final int sampleColumn = column - FIRST_SAMPLE_COLUMN;
+                if ( selectedSampleColumns == null || sampleColumn >= selectedSampleColumns.length || selectedSampleColumns[sampleColumn] ) {
+                    // columns beyond those of the header are kept, so that the delegatee reports the malformed line
+                    selected.append('\t');
+                    appendSample(selected, line, columnStart, columnEnd, selectedFormatFields);
+                } else if ( sampleColumn > lastSelectedSampleColumn ) {
+                    break;
+                }
+            }
+            columnStart = columnEnd + 1;
+        }
+        return selected.toString();
+    }
+
+    private void appendInfo(final StringBuilder selected, final String line, final int start, final int end) {
+        if ( infoFields == null ) {
+            selected.append(line, start, end);
+            return;
+        }
+        final int initialLength = selected.length();
+        int fieldStart = start;
+        while ( fieldStart < end ) {
+            int fieldEnd = line.indexOf(';', fieldStart);
+            if ( fieldEnd < 0 || fieldEnd > end ) {
+                fieldEnd = end;
+            }
+            int keyEnd = line.indexOf('=', fieldStart);
+            if ( keyEnd < 0 || keyEnd > fieldEnd ) {
+                keyEnd = fieldEnd;
+            }
+            final String key = line.substring(fieldStart, keyEnd);
+            if ( infoFields.contains(key) || key.equals(VCFConstants.END_KEY) ) {
+                if ( selected.length() > initialLength ) {
+                    selected.append(';');
+                }
+                selected.append(line, fieldStart, fieldEnd);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        if ( selected.length() == initialLength ) {
+            selected.append(MISSING_VALUE);
+        }
+    }
+
+    /**
+     * Append the selected keys of the FORMAT column
+     *
+     * @return indices of the selected keys, or null if all of them are selected
+     */
+    private int[] appendFormat(final StringBuilder selected, final String format) {
+        if ( formatFields == null ) {
+            selected.append(format);
+            return null;
+        }
+        if ( !format.equals(lastFormat) ) {
+            final String[] keys = format.split(":");
+            final List<Integer> selectedKeys = new ArrayList<>(keys.length);
+            for ( int i = 0; i < keys.length; i++ ) {
+                if ( formatFields.contains(keys[i]) ) {
+                    selectedKeys.add(i);
+                }
+            }
+            if ( selectedKeys.isEmpty() ) {
+                // a record with samples must have at least one FORMAT field
+                selectedKeys.add(0);
+            }
+            lastFormat = format;
+            lastSelectedFormatFields = selectedKeys.stream().mapToInt(Integer::intValue).toArray();
+            lastSelectedFormat = selectedKeys.stream().map(i -> keys[i]).collect(Collectors.joining(":"));
+        }
+        selected.append(lastSelectedFormat);
+        return lastSelectedFormatFields;
+    }
+
+    private static void appendSample(final StringBuilder selected, final String line, final int start, final int end, final int[] selectedFormatFields) {
+        if ( selectedFormatFields == null ) {
+            selected.append(line, start, end);
+            return;
+        }
+        final int initialLength = selected.length();
+        int field = 0;
+        int fieldStart = start;
+        for ( final int selectedField : selectedFormatFields ) {
+            // skip to the selected field; trailing fields may be omitted
+            while ( field < selectedField && fieldStart <= end ) {
+                final int nextSeparator = line.indexOf(':', fieldStart);
+                fieldStart = nextSeparator < 0 || nextSeparator > end ? end + 1 : nextSeparator + 1;
+                field++;
+            }
+            if ( fieldStart > end ) {
+                break;
+            }
+            int fieldEnd = line.indexOf(':', fieldStart);
+            if ( fieldEnd < 0 || fieldEnd > end ) {
+                fieldEnd = end;
+            }
+            if ( selected.length() > initialLength ) {
+                selected.append(':');
+            }
+            selected.append(line, fieldStart, fieldEnd);
+            fieldStart = fieldEnd + 1;
+            field++;
+        }
+        if ( selected.length() == initialLength ) {
+            selected.append(MISSING_VALUE);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.broadinstitute.hellbender.utils.codecs;
+
+import htsjdk.tribble.AsciiFeatureCodec;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.AbstractVCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.variant.OriginalLineVariantContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A VCF codec that keeps the line of text of each record in the variants it decodes, as
+ * {@link OriginalLineVariantContext}s, so that records that are written out unmodified can be copied as is
+ * (see {@link org.broadinstitute.hellbender.utils.variant.writers.PassThroughVCFWriter}).
+ *
+ * Lines are only kept for the VCF versions that our writers output (4.0 to 4.2), since records of other versions
+ * must be encoded again. The lines are those that the reader already produced, so keeping them only costs memory
+ * for as long as the variants are alive.
+ */
+public final class VCFLineRetainingCodec extends AsciiFeatureCodec<VariantContext> {
+    private static final Set<VCFHeaderVersion> PASS_THROUGH_VERSIONS = EnumSet.of(VCFHeaderVersion.VCF4_0, VCFHeaderVersion.VCF4_1, VCFHeaderVersion.VCF4_2);
+
+    private final AbstractVCFCodec delegatee;
+
+    /**
+     * Samples of the header, or null if the lines of the records are not kept. Set when the header is read.
+     */
+    private List<String> samples;
+
+    //Note: this default constructor is needed for the FeatureManager when it loads codecs.
+    @SuppressWarnings("unused")
+    public VCFLineRetainingCodec() {
+        super(VariantContext.class);
+        delegatee = null;
+    }
+
+    /**
+     * @param delegatee codec that parses the lines
+     */
+    public VCFLineRetainingCodec(final AbstractVCFCodec delegatee) {
+        super(VariantContext.class);
+        this.delegatee = Utils.nonNull(delegatee);
+    }
+
+    @Override
+    public Object readActualHeader(final LineIterator reader) {
+        checkDelegatee();
+        final Object header = delegatee.readActualHeader(reader);
+        if (header instanceof VCFHeader && PASS_THROUGH_VERSIONS.contains(((VCFHeader) header).getVCFHeaderVersion())) {
+            samples = Collections.unmodifiableList(new ArrayList<>(((VCFHeader) header).getGenotypeSamples()));
+        } else {
+            samples = null;
+        }
+        return header;
+    }
+
+    @Override
+    public VariantContext decode(final String line) {
+        checkDelegatee();
+        final VariantContext vc = delegatee.decode(line);
+        return vc == null || samples == null ? vc : new OriginalLineVariantContext(vc, line, samples);
+    }
+
+    @Override
+    public boolean canDecode(final String path) {
+        //If there's no delegatee then we're going to say no to all questions here
+        return delegatee != null && delegatee.canDecode(path);
+    }
+
+    @Override
+    public TabixFormat getTabixFormat() {
+        checkDelegatee();
+        return delegatee.getTabixFormat();
+    }
+
+    public AbstractVCFCodec getDelegatee() {
+        return delegatee;
+    }
+
+    private void checkDelegatee() {
+        if (delegatee == null) {
+            throw new IllegalStateException("this codec cannot be used without a delegatee.");
+        }
+    }
+}
@@ -66,19 +66,31 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     protected final List<List<EVIDENCE>> filteredEvidenceBySampleIndex;
 
     /**
-     * Indexed per sample, allele and finally evidence (within sample).
+     * Indexed per sample, then a single array per sample holding the likelihoods of all alleles one after the other,
+     * each taking as many entries as the evidence capacity of the sample (see
+     * {@link #likelihoodsMatrixEvidenceCapacityBySampleIndex}):
      * <p>
-     *     valuesBySampleIndex[s][a][r] == lnLk(R_r | A_a) where R_r comes from Sample s.
+     *     valuesBySampleIndex[s][a * capacity(s) + r] == lnLk(R_r | A_a) where R_r comes from Sample s.
+     * </p>
+     * <p>
+     *     Compared to one array per sample and allele this saves an array (and its header) per allele, and lets whole
+     *     sample tables be allocated, grown and copied at once.
      * </p>
      */
-    private final double[][][] valuesBySampleIndex;
+    private final double[][] valuesBySampleIndex;
 
     /**
      * Keeps track of the maximum number of evidences and likelihood values that can be stored
-     * stored across all alleles.
+     * stored across all alleles; that is the stride between the likelihoods of consecutive alleles in
+     * {@link #valuesBySampleIndex}.
      */
     private final int[] likelihoodsMatrixEvidenceCapacityBySampleIndex;
 
+    /**
+     * Estimated size of an array header in bytes, for {@link #likelihoodsFootprintInBytes()}.
+     */
+    private static final int ARRAY_HEADER_BYTES = 16;
+
     /**
      * Holds the number of evidence per sample.
      */
@@ -145,7 +157,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         final int alleleCount = alleles.numberOfAlleles();
 
         evidenceBySampleIndex = new ArrayList<>(sampleCount);
-        valuesBySampleIndex = new double[sampleCount][][];
+        valuesBySampleIndex = new double[sampleCount][];
         likelihoodsMatrixEvidenceCapacityBySampleIndex = new int[sampleCount]; // set to 0s; what we need.
         referenceAlleleIndex = findReferenceAllele(alleles);
         numberOfEvidences = new int[sampleCount];
@@ -160,13 +172,26 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     }
 
 
-    // Internally used constructor.
+    // Internally used constructor, taking the likelihoods per sample, allele and evidence.
     @SuppressWarnings({"unchecked", "rawtypes"})
     private AlleleLikelihoods(final AlleleList alleles,
                       final SampleList samples,
                       final List<List<EVIDENCE>> evidenceBySampleIndex,
                       final List<List<EVIDENCE>> filteredEvidenceBySampleIndex,
                       final double[][][] values) {
+        this(alleles, samples, evidenceBySampleIndex, filteredEvidenceBySampleIndex, packValues(values, evidenceBySampleIndex),
+                evidenceBySampleIndex.stream().mapToInt(List::size).toArray());
+    }
+
+    // Internally used constructor, taking the likelihoods of each sample packed with the given evidence capacities
+    // as in {@link #valuesBySampleIndex}.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private AlleleLikelihoods(final AlleleList alleles,
+                      final SampleList samples,
+                      final List<List<EVIDENCE>> evidenceBySampleIndex,
+                      final List<List<EVIDENCE>> filteredEvidenceBySampleIndex,
+                      final double[][] values,
+                      final int[] evidenceCapacities) {
         this.samples = samples;
         this.alleles = alleles;
         this.evidenceBySampleIndex = evidenceBySampleIndex;
@@ -188,13 +213,22 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
           .map(i -> evidenceBySampleIndex.get(i).size())
           .toArray();
 
-        // We take the shortest allele's values array as the maximum evidence capacity for
-        // each sample.
-        likelihoodsMatrixEvidenceCapacityBySampleIndex = Arrays.stream(values)
-                .mapToInt(sampleValues -> Arrays.stream(sampleValues)
-                        .mapToInt(v -> v.length)
-                        .min().orElse(0))
-                .toArray();
+        likelihoodsMatrixEvidenceCapacityBySampleIndex = evidenceCapacities;
+    }
+
+    // Packs likelihoods per sample, allele and evidence into one array per sample, with no spare evidence capacity.
+    private static double[][] packValues(final double[][][] values, final List<? extends List<?>> evidenceBySampleIndex) {
+        final double[][] result = new double[values.length][];
+        for (int s = 0; s < values.length; s++) {
+            final int evidenceCount = evidenceBySampleIndex.get(s).size();
+            final double[][] sampleValues = values[s];
+            result[s] = new double[sampleValues.length * evidenceCount];
+            for (int a = 0; a < sampleValues.length; a++) {
+                Utils.validateArg(sampleValues[a].length >= evidenceCount, "there must be a likelihood for each unit of evidence");
+                System.arraycopy(sampleValues[a], 0, result[s], a * evidenceCount, evidenceCount);
+            }
+        }
+        return result;
     }
 
     /*
@@ -238,9 +272,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
             evidenceBySampleIndex.add(sampleEvidences == null ? new ArrayList<>() : new ArrayList<>(sampleEvidences));
             final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
 
-            final double[][] sampleValues = new double[alleleCount][sampleEvidenceCount];
             likelihoodsMatrixEvidenceCapacityBySampleIndex[s] = sampleEvidenceCount;
-            valuesBySampleIndex[s] = sampleValues;
+            valuesBySampleIndex[s] = new double[alleleCount * sampleEvidenceCount];
         }
     }
 
@@ -371,9 +404,11 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
         for (int s = 0; s < sampleCount; s++) {
             final int evidenceCount = sampleEvidenceCount(s);
+            final double[] sampleValues = valuesBySampleIndex[s];
+            final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[s];
             for (int a = 0; a < alleleCount; a++) {
-                for (int e = 0; e < evidenceCount; e++) {
-                    valuesBySampleIndex[s][a][e] = MathUtils.log10ToLog(valuesBySampleIndex[s][a][e]);
+                for (int e = a * capacity; e < a * capacity + evidenceCount; e++) {
+                    sampleValues[e] = MathUtils.log10ToLog(sampleValues[e]);
                 }
             }
         }
@@ -429,7 +464,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         }
 
         for (int s = 0; s < valuesBySampleIndex.length; s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
+            final double[] sampleValues = valuesBySampleIndex[s];
             final int evidenceCount = evidenceBySampleIndex.get(s).size();
             for (int r = 0; r < evidenceCount; r++) {
                 normalizeLikelihoodsPerEvidence(maximumLikelihoodDifferenceCap, sampleValues, s, r, symmetricallyNormalizeAllelesToReference);
@@ -439,7 +474,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
     // Does the normalizeLikelihoods job for each piece of evidence.
     private void normalizeLikelihoodsPerEvidence(final double maximumBestAltLikelihoodDifference,
-                                                 final double[][] sampleValues, final int sampleIndex, final int evidenceIndex, final boolean symmetricallyNormalizeAllelesToReference) {
+                                                 final double[] sampleValues, final int sampleIndex, final int evidenceIndex, final boolean symmetricallyNormalizeAllelesToReference) {
 
         //allow the best allele to be the reference because asymmetry leads to strange artifacts like het calls with >90% alt reads
         final BestAllele bestAllele = searchBestAllele(sampleIndex,evidenceIndex,symmetricallyNormalizeAllelesToReference);
@@ -447,11 +482,12 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         final double worstLikelihoodCap = bestAllele.likelihood + maximumBestAltLikelihoodDifference;
 
         final int alleleCount = alleles.numberOfAlleles();
+        final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
 
         // Guarantee to be the case by enclosing code.
-        for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][evidenceIndex] < worstLikelihoodCap) {
-                sampleValues[a][evidenceIndex] = worstLikelihoodCap;
+        for (int a = 0, i = evidenceIndex; a < alleleCount; a++, i += capacity) {
+            if (sampleValues[i] < worstLikelihoodCap) {
+                sampleValues[i] = worstLikelihoodCap;
             }
         }
 
@@ -509,18 +545,19 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                     Double.NEGATIVE_INFINITY, MISSING_INDEX, Double.NEGATIVE_INFINITY);
         }
 
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
         int bestAlleleIndex = canBeReference || referenceAlleleIndex != 0 ? 0 : 1;
 
         int secondBestIndex = 0;
-        double bestLikelihood = sampleValues[bestAlleleIndex][evidenceIndex];
+        double bestLikelihood = sampleValues[bestAlleleIndex * capacity + evidenceIndex];
         double secondBestLikelihood = Double.NEGATIVE_INFINITY;
 
         for (int a = bestAlleleIndex + 1; a < alleleCount; a++) {
             if (!canBeReference && referenceAlleleIndex == a) {
                 continue;
             }
-            final double candidateLikelihood = sampleValues[a][evidenceIndex];
+            final double candidateLikelihood = sampleValues[a * capacity + evidenceIndex];
             if (candidateLikelihood > bestLikelihood) {
                 secondBestIndex = bestAlleleIndex;
                 bestAlleleIndex = a;
@@ -536,7 +573,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
             double bestPriority = priorities[bestAlleleIndex];
             double secondBestPriority = priorities[secondBestIndex];
             for (int a = 0; a < alleleCount; a++) {
-                final double candidateLikelihood = sampleValues[a][evidenceIndex];
+                final double candidateLikelihood = sampleValues[a * capacity + evidenceIndex];
                 if (a == bestAlleleIndex || (!canBeReference && a == referenceAlleleIndex) || bestLikelihood - candidateLikelihood > getInformativeThreshold()) {
                     continue;
                 }
@@ -554,8 +591,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
             }
         }
 
-        bestLikelihood = sampleValues[bestAlleleIndex][evidenceIndex];
-        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues[secondBestIndex][evidenceIndex] : Double.NEGATIVE_INFINITY;
+        bestLikelihood = sampleValues[bestAlleleIndex * capacity + evidenceIndex];
+        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues[secondBestIndex * capacity + evidenceIndex] : Double.NEGATIVE_INFINITY;
 
         return new BestAllele(sampleIndex, evidenceIndex, bestAlleleIndex, bestLikelihood, secondBestIndex, secondBestLikelihood);
     }
@@ -632,16 +669,16 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         //copy old allele likelihoods and set new allele likelihoods to the default value
         for (int s = 0; s < samples.numberOfSamples(); s++) {
             final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
-            final double[][] newValuesBySampleIndex = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount);
+            final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[s];
+            final double[] newSampleValues = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount * capacity);
             for (int a = oldAlleleCount; a < newAlleleCount; a++) {
-                newValuesBySampleIndex[a] = new double[likelihoodsMatrixEvidenceCapacityBySampleIndex[s]];
                 if (defaultLikelihood != 0.0) {
-                    Arrays.fill(newValuesBySampleIndex[a], 0, sampleEvidenceCount, defaultLikelihood);
+                    Arrays.fill(newSampleValues, a * capacity, a * capacity + sampleEvidenceCount, defaultLikelihood);
                 }
                 // Fill the rest with NaNs
-                Arrays.fill(newValuesBySampleIndex[a], sampleEvidenceCount, newValuesBySampleIndex[a].length, Double.NaN);
+                Arrays.fill(newSampleValues, a * capacity + sampleEvidenceCount, (a + 1) * capacity, Double.NaN);
             }
-            valuesBySampleIndex[s] = newValuesBySampleIndex;
+            valuesBySampleIndex[s] = newSampleValues;
         }
         return true;
     }
@@ -661,7 +698,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
      */
     public <U, NEW_EVIDENCE_TYPE extends Locatable> AlleleLikelihoods<NEW_EVIDENCE_TYPE, A> groupEvidence(final Function<EVIDENCE, U> groupingFunction, final Function<List<EVIDENCE>, NEW_EVIDENCE_TYPE> gather) {
         final int sampleCount = samples.numberOfSamples();
-        final double[][][] newLikelihoodValues = new double[sampleCount][][];
+        final double[][] newLikelihoodValues = new double[sampleCount][];
+        final int[] newCapacities = new int[sampleCount];
         final int alleleCount = alleles.numberOfAlleles();
 
         final List<List<NEW_EVIDENCE_TYPE>> newEvidenceBySampleIndex = new ArrayList<>(sampleCount);
@@ -675,15 +713,17 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
             final int newEvidenceCount = evidenceGroups.size();
 
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
-            newLikelihoodValues[s] = new double[alleleCount][newEvidenceCount];
+            final double[] oldSampleValues = valuesBySampleIndex[s];
+            final int oldCapacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[s];
+            final double[] newSampleValues = newLikelihoodValues[s] = new double[alleleCount * newEvidenceCount];
+            newCapacities[s] = newEvidenceCount;
 
             // For each old allele and read we update the new table keeping the maximum likelihood.
             for (int newEvidenceIndex = 0; newEvidenceIndex < newEvidenceCount; newEvidenceIndex++) {
                 for (int a = 0; a < alleleCount; a++) {
                     for (final EVIDENCE evidence : evidenceGroups.get(newEvidenceIndex)) {
                         final int oldEvidenceIndex = evidenceIndex(s, evidence);
-                        newLikelihoodValues[s][a][newEvidenceIndex] += oldSampleValues[a][oldEvidenceIndex];
+                        newSampleValues[a * newEvidenceCount + newEvidenceIndex] += oldSampleValues[a * oldCapacity + oldEvidenceIndex];
                     }
                 }
             }
@@ -696,7 +736,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                 samples,
                 newEvidenceBySampleIndex,
                 null, //TODO this is only currently used for Somatic and i'm alright with removing this for now but this is NOT robust and 3 of these methods is too many
-                newLikelihoodValues);
+                newLikelihoodValues,
+                newCapacities);
         result.isNaturalLog = this.isNaturalLog;
         return result;
     }
@@ -727,7 +768,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         final List<BitSet> newToOldAlleleIndex = this.newToOldAlleleIndexMap(newToOldAlleleMap, oldAlleleCount, newAlleles);
 
         // We calculate the marginal likelihoods.
-        final double[][][] newLikelihoodValues = marginalLikelihoodsDirect( newAlleleCount, newToOldAlleleIndex);
+        final double[][] newLikelihoodValues = marginalLikelihoodsDirect( newAlleleCount, newToOldAlleleIndex);
 
         final int sampleCount = samples.numberOfSamples();
 
@@ -743,25 +784,25 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                 samples,
                 newEvidenceBySampleIndex,
                 filteredEvidenceBySampleIndex,
-                newLikelihoodValues);
+                newLikelihoodValues,
+                newEvidenceBySampleIndex.stream().mapToInt(List::size).toArray());
         result.isNaturalLog = isNaturalLog;
         return result;
     }
 
     // Calculate the marginal likelihoods considering the old -> new allele index mapping.
-    private double[][][] marginalLikelihoods(final int oldAlleleCount, final int newAlleleCount,
-                                             final int[] oldToNewAlleleIndexMap) {
+    private double[][] marginalLikelihoods(final int oldAlleleCount, final int newAlleleCount,
+                                           final int[] oldToNewAlleleIndexMap) {
         final int sampleCount = samples.numberOfSamples();
-        final double[][][] result = new double[sampleCount][][];
+        final double[][] result = new double[sampleCount][];
 
         for (int s = 0; s < sampleCount; s++) {
             final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
-            final double[][] newSampleValues = result[s] = new double[newAlleleCount][sampleEvidenceCount];
+            final double[] oldSampleValues = valuesBySampleIndex[s];
+            final int oldCapacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[s];
+            final double[] newSampleValues = result[s] = new double[newAlleleCount * sampleEvidenceCount];
             // We initiate all likelihoods to -Inf.
-            for (int a = 0; a < newAlleleCount; a++) {
-                Arrays.fill(newSampleValues[a], Double.NEGATIVE_INFINITY);
-            }
+            Arrays.fill(newSampleValues, Double.NEGATIVE_INFINITY);
             // For each old allele and read we update the new table keeping the maximum likelihood.
             for (int r = 0; r < sampleEvidenceCount; r++) {
                 for (int a = 0; a < oldAlleleCount; a++) {
@@ -769,9 +810,9 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                     if (newAlleleIndex == MISSING_INDEX) {
                         continue;
                     }
-                    final double likelihood = oldSampleValues[a][r];
-                    if (likelihood > newSampleValues[newAlleleIndex][r]) {
-                        newSampleValues[newAlleleIndex][r] = likelihood;
+                    final double likelihood = oldSampleValues[a * oldCapacity + r];
+                    if (likelihood > newSampleValues[newAlleleIndex * sampleEvidenceCount + r]) {
+                        newSampleValues[newAlleleIndex * sampleEvidenceCount + r] = likelihood;
                     }
                 }
             }
@@ -780,25 +821,34 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     }
 
     // Calculate the marginal likelihoods considering the old -> new allele index mapping.
-    private double[][][] marginalLikelihoodsDirect(final int newAlleleCount, final List<BitSet> newToOldAlleleIndexMap) {
+    // The likelihoods of each new allele start as a copy of those of its first old allele, then take the maximum
+    // with those of its other old alleles one allele at a time, which walks the packed arrays sequentially.
+    private double[][] marginalLikelihoodsDirect(final int newAlleleCount, final List<BitSet> newToOldAlleleIndexMap) {
 
         final int sampleCount = samples.numberOfSamples();
-        final double[][][] result = new double[sampleCount][][];
+        final double[][] result = new double[sampleCount][];
 
         for (int s = 0; s < sampleCount; s++) {
             final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
-            final double[][] newSampleValues = result[s] = new double[newAlleleCount][sampleEvidenceCount];
+            final double[] oldSampleValues = valuesBySampleIndex[s];
+            final int oldCapacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[s];
+            final double[] newSampleValues = result[s] = new double[newAlleleCount * sampleEvidenceCount];
 
             // For each old allele and unit of evidence we update the new table keeping the maximum likelihood.
             for (int newAllele = 0; newAllele < newAlleleCount; newAllele++) {
                 final BitSet oldAlleleSet = newToOldAlleleIndexMap.get(newAllele);
-                for (int r = 0; r < sampleEvidenceCount; r++) {
-                    final int finalR = r;
-                    newSampleValues[newAllele][finalR] = oldAlleleSet.stream()
-                            .mapToDouble(oldA -> oldSampleValues[oldA][finalR])
-                            .max()
-                            .orElse(Double.NEGATIVE_INFINITY);
+                final int newOffset = newAllele * sampleEvidenceCount;
+                int oldAllele = oldAlleleSet.nextSetBit(0);
+                if (oldAllele < 0) {
+                    Arrays.fill(newSampleValues, newOffset, newOffset + sampleEvidenceCount, Double.NEGATIVE_INFINITY);
+                    continue;
+                }
+                System.arraycopy(oldSampleValues, oldAllele * oldCapacity, newSampleValues, newOffset, sampleEvidenceCount);
+                for (oldAllele = oldAlleleSet.nextSetBit(oldAllele + 1); oldAllele >= 0; oldAllele = oldAlleleSet.nextSetBit(oldAllele + 1)) {
+                    final int oldOffset = oldAllele * oldCapacity;
+                    for (int r = 0; r < sampleEvidenceCount; r++) {
+                        newSampleValues[newOffset + r] = Math.max(newSampleValues[newOffset + r], oldSampleValues[oldOffset + r]);
+                    }
                 }
             }
         }
@@ -890,27 +940,30 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
     // Extends the likelihood arrays-matrices.
     private void extendsLikelihoodArrays(final double initialLikelihood, final int sampleIndex, final int oldEvidenceCount, final int newEvidenceCount) {
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
         final int numberOfAlleles = alleles.numberOfAlleles();
-        ensureLikelihoodsMatrixEvidenceCapacity(sampleIndex, newEvidenceCount, sampleValues, numberOfAlleles);
+        ensureLikelihoodsMatrixEvidenceCapacity(sampleIndex, newEvidenceCount, numberOfAlleles);
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
         for (int a = 0; a < numberOfAlleles; a++) {
-            Arrays.fill(sampleValues[a], oldEvidenceCount, newEvidenceCount, initialLikelihood);
+            Arrays.fill(sampleValues, a * capacity + oldEvidenceCount, a * capacity + newEvidenceCount, initialLikelihood);
         }
     }
 
-    // Resizes the lk value holding arrays to be able to handle at least "x" amount of evidence.
-    private void ensureLikelihoodsMatrixEvidenceCapacity(final int sampleIndex, final int x,
-                                                         final double[][] sampleValues, final int numberOfAlleles) {
+    // Resizes the lk value holding array to be able to handle at least "x" amount of evidence.
+    private void ensureLikelihoodsMatrixEvidenceCapacity(final int sampleIndex, final int x, final int numberOfAlleles) {
         final int currentCapacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
         if (currentCapacity < x) {
             final int newCapacity = Math.max(currentCapacity, x) << 1; // we double it to avoid repetitive 1-element extensions resizing.
+            final double[] oldSampleValues = valuesBySampleIndex[sampleIndex];
+            final double[] newSampleValues = new double[numberOfAlleles * newCapacity];
+            // We don't need the NaN fill for this to work as intended but
+            // with NaN we ensure some clear failure output in case there is a bug that
+            // uses "zombie" likelihoods (e.g. github issue {@link https://github.com/broadinstitute/gatk/pull/7153 #7153).
+            Arrays.fill(newSampleValues, Double.NaN);
             for (int a  = 0; a < numberOfAlleles; a++) {
-                sampleValues[a] = Arrays.copyOf(sampleValues[a], newCapacity);
-                // We don't need the following fill for this to work as intended but
-                // with NaN we ensure some clear failure output in case there is a bug that
-                // uses "zombie" likelihoods (e.g. github issue {@link https://github.com/broadinstitute/gatk/pull/7153 #7153).
-                Arrays.fill(sampleValues[a], currentCapacity, newCapacity, Double.NaN);
+                System.arraycopy(oldSampleValues, a * currentCapacity, newSampleValues, a * newCapacity, currentCapacity);
             }
+            valuesBySampleIndex[sampleIndex] = newSampleValues;
             likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex] = newCapacity;
         }
     }
@@ -985,13 +1038,14 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         final double[] qualifiedAlleleLikelihoods = new double[nonSymbolicAlleleCount];
         final Median medianCalculator = new Median();
         for (int s = 0; s < samples.numberOfSamples(); s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
+            final double[] sampleValues = valuesBySampleIndex[s];
+            final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[s];
             final int evidenceCount = evidenceBySampleIndex.get(s).size();
             for (int r = 0; r < evidenceCount; r++) {
                 final BestAllele bestAllele = searchBestAllele(s, r, true);
                 int numberOfQualifiedAlleleLikelihoods = 0;
                 for (int i = 0; i < alleleCount; i++) {
-                    final double alleleLikelihood = sampleValues[i][r];
+                    final double alleleLikelihood = sampleValues[i * capacity + r];
                     if (i != nonRefAlleleIndex && alleleLikelihood < bestAllele.likelihood
                             && !Double.isNaN(alleleLikelihood) && allelesToConsider.indexOfAllele(alleles.getAllele(i)) != MISSING_INDEX) {
                         qualifiedAlleleLikelihoods[numberOfQualifiedAlleleLikelihoods++] = alleleLikelihood;
@@ -1002,7 +1056,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                 // so the evidence is not informative at all given the existing alleles. Unless there is only one (or zero) concrete
                 // alleles with give the same (the best) likelihood to the NON-REF. When there is only one (or zero) concrete
                 // alleles we set the NON-REF likelihood to NaN.
-                sampleValues[nonRefAlleleIndex][r] = !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
+                sampleValues[nonRefAlleleIndex * capacity + r] = !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
                         : nonSymbolicAlleleCount <= 1 ? Double.NaN : bestAllele.likelihood;
             }
         }
@@ -1198,10 +1252,11 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     protected double maximumLikelihoodOverAllAlleles(final int sampleIndex, final int evidenceIndex) {
         double result = Double.NEGATIVE_INFINITY;
         final int alleleCount = alleles.numberOfAlleles();
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
-        for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][evidenceIndex] > result) {
-                result = sampleValues[a][evidenceIndex];
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
+        for (int a = 0, i = evidenceIndex; a < alleleCount; a++, i += capacity) {
+            if (sampleValues[i] > result) {
+                result = sampleValues[i];
             }
         }
         return result;
@@ -1308,21 +1363,24 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         // update the list of evidence and evidence count
         final List<EVIDENCE> oldEvidence = evidenceBySampleIndex.get(sampleIndex);
         final List<EVIDENCE> newEvidence = new ArrayList<>(newEvidenceCount);
+        final double[] sampleValues = valuesBySampleIndex[sampleIndex];
+        final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
+        final int alleleCount = storedAlleleCount(sampleIndex);
         for (int n = 0, numRemoved = 0; n < oldEvidenceCount; n++) {
             if (numRemoved < numToRemove && n == evidencesToRemove[numRemoved]) {
                 numRemoved++;
             } else {
                 newEvidence.add(oldEvidence.get(n));
 
-                // update the likelihoods arrays in place
-                for (final double[] alleleValues : valuesBySampleIndex[sampleIndex]) {
-                    alleleValues[n - numRemoved] = alleleValues[n];
+                // update the likelihoods array in place
+                for (int offset = 0; offset < alleleCount * capacity; offset += capacity) {
+                    sampleValues[offset + n - numRemoved] = sampleValues[offset + n];
                 }
             }
         }
         // set to NaN lks of the deleted positions in lk value arrays.
-        for (final double[] alleleValues : valuesBySampleIndex[sampleIndex]) {
-            Arrays.fill(alleleValues, newEvidenceCount, alleleValues.length, Double.NaN);
+        for (int offset = 0; offset < alleleCount * capacity; offset += capacity) {
+            Arrays.fill(sampleValues, offset + newEvidenceCount, offset + capacity, Double.NaN);
         }
         evidenceBySampleIndex.set(sampleIndex, newEvidence);
         numberOfEvidences[sampleIndex] = newEvidenceCount;
@@ -1377,6 +1435,26 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
 
 
+    // Number of alleles whose likelihoods are stored for a sample; this is normally the number of alleles, but
+    // {@link #changeAlleles} doesn't check that.
+    private int storedAlleleCount(final int sampleIndex) {
+        final int capacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
+        return capacity == 0 ? alleles.numberOfAlleles() : valuesBySampleIndex[sampleIndex].length / capacity;
+    }
+
+    /**
+     * Returns an estimate of the heap used by the likelihood values of this collection, in bytes: the packed array of
+     * each sample, including its spare evidence capacity, and the array holding them. The previous layout, with one
+     * array per sample and allele, used an additional array header and reference per sample and allele on top of this.
+     */
+    public long likelihoodsFootprintInBytes() {
+        long result = ARRAY_HEADER_BYTES + (long) Long.BYTES * valuesBySampleIndex.length;
+        for (final double[] sampleValues : valuesBySampleIndex) {
+            result += ARRAY_HEADER_BYTES + (long) Double.BYTES * sampleValues.length;
+        }
+        return result;
+    }
+
     private Object2IntMap<EVIDENCE> evidenceIndexBySampleIndex(final int sampleIndex) {
         final Object2IntMap<EVIDENCE> cached = evidenceIndexBySampleIndex.get(sampleIndex);
         return cached == null ? fillEvidenceToIndexCache(sampleIndex) : cached;
@@ -1416,16 +1494,16 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
         @Override
         public void set(final int alleleIndex, final int evidenceIndex, final double value) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
+            Utils.validIndex(alleleIndex, storedAlleleCount(sampleIndex));
             Utils.validIndex(evidenceIndex,  numberOfEvidences[sampleIndex]);
-            valuesBySampleIndex[sampleIndex][alleleIndex][evidenceIndex] = value;
+            valuesBySampleIndex[sampleIndex][alleleIndex * likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex] + evidenceIndex] = value;
         }
 
         @Override
         public double get(final int alleleIndex, final int evidenceIndex) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
+            Utils.validIndex(alleleIndex, storedAlleleCount(sampleIndex));
             Utils.validIndex(evidenceIndex, numberOfEvidences[sampleIndex]);
-            return valuesBySampleIndex[sampleIndex][alleleIndex][evidenceIndex];
+            return valuesBySampleIndex[sampleIndex][alleleIndex * likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex] + evidenceIndex];
         }
 
         @Override
@@ -1465,8 +1543,9 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         @Override
         public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
             Utils.nonNull(dest);
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            System.arraycopy(valuesBySampleIndex[sampleIndex][alleleIndex], 0, dest, offset, numberOfEvidences[sampleIndex]);
+            Utils.validIndex(alleleIndex, storedAlleleCount(sampleIndex));
+            System.arraycopy(valuesBySampleIndex[sampleIndex], alleleIndex * likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex],
+                    dest, offset, numberOfEvidences[sampleIndex]);
         }
     }
 }
@@ -100,7 +100,8 @@ public class BlockCompressedIntervalStream {
         final SVFeaturesHeader header;
         final WriteFunc<F> writeFunc;
         final OutputStream os;
-        final BlockCompressedOutputStream bcos;
+        final BlockCompressedOutputStream bcos; // null if blocks are compressed in parallel
+        final ParallelBlockCompressedOutputStream parallelBcos; // null otherwise
         final DataOutputStream dos;
         Feature lastInterval;
         final List<IndexEntry> indexEntries;
@@ -126,8 +127,16 @@ public class BlockCompressedIntervalStream {
             this.header = header;
             this.writeFunc = writeFunc;
             this.os = path.getOutputStream();
-            this.bcos = new BlockCompressedOutputStream(os, (Path)null, compressionLevel);
-            this.dos = new DataOutputStream(bcos);
+            final int compressionThreads = ParallelBlockCompressedOutputStream.getDefaultCompressionThreads();
+            if ( compressionThreads > 0 ) {
+                this.bcos = null;
+                this.parallelBcos = new ParallelBlockCompressedOutputStream(os, this.path, compressionLevel, compressionThreads);
+                this.dos = new DataOutputStream(parallelBcos);
+            } else {
+                this.bcos = new BlockCompressedOutputStream(os, (Path)null, compressionLevel);
+                this.parallelBcos = null;
+                this.dos = new DataOutputStream(bcos);
+            }
             this.lastInterval = null;
             this.indexEntries = new ArrayList<>();
             this.firstBlockMember = true;
@@ -144,6 +153,7 @@ public class BlockCompressedIntervalStream {
             this.writeFunc = writeFunc;
             this.os = os;
             this.bcos = new BlockCompressedOutputStream(os, (Path)null, DEFAULT_COMPRESSION_LEVEL);
+            this.parallelBcos = null;
             this.dos = new DataOutputStream(bcos);
             this.lastInterval = null;
             this.indexEntries = new ArrayList<>();
@@ -210,7 +220,7 @@ public class BlockCompressedIntervalStream {
 
         @Override
         public void write( final F feature ) {
-            final long prevFilePosition = bcos.getPosition();
+            final long prevFilePosition = getPosition();
             // write the object
             try {
                 writeFunc.write(feature, this);
@@ -237,7 +247,7 @@ public class BlockCompressedIntervalStream {
             lastInterval = feature;
 
             // if writing this element caused a new block to be compressed and added to the file
-            if ( isNewBlock(prevFilePosition, bcos.getPosition()) ) {
+            if ( isNewBlock(prevFilePosition, getPosition()) ) {
                 addIndexEntry();
                 firstBlockMember = true;
             }
@@ -253,7 +263,14 @@ public class BlockCompressedIntervalStream {
             try {
                 dos.flush(); // complete the data block
 
-                long indexPosition = bcos.getPosition(); // current position is the start of the index
+                if ( parallelBcos != null ) {
+                    // all blocks have been written, so the index positions can be resolved
+                    for ( final IndexEntry indexEntry : indexEntries ) {
+                        indexEntry.filePosition = parallelBcos.resolvePosition(indexEntry.filePosition);
+                    }
+                }
+                long indexPosition = parallelBcos != null ? // current position is the start of the index
+                        parallelBcos.resolvePosition(parallelBcos.getPosition()) : bcos.getPosition();
 
                 // write the index entries
                 dos.writeInt(indexEntries.size());
@@ -272,12 +289,21 @@ public class BlockCompressedIntervalStream {
                 }
                 os.write(emptyBlockWithIndexPointer);
 
-                bcos.close(false); // we've already handled the terminator block
+                if ( parallelBcos != null ) {
+                    parallelBcos.close(false); // we've already handled the terminator block
+                } else {
+                    bcos.close(false); // we've already handled the terminator block
+                }
             } catch ( final IOException ioe ) {
                 throw new UserException("unable to add index and close " + path, ioe);
             }
         }
 
+        // the virtual file pointer of the current position, or its pending position if blocks are compressed in parallel
+        private long getPosition() {
+            return parallelBcos != null ? parallelBcos.getPosition() : bcos.getPosition();
+        }
+
         private void startBlock( final long filePosition, final Feature interval ) {
             blockFilePosition = filePosition;
             lastInterval = interval;
@@ -22,7 +22,8 @@ import java.util.function.Function;
 
 /**
  * Class for output streams that encode Tribble {@link Feature}s. Supports block-compressed output, which is
- * detected by the output file path extension, in which case a Tabix index is also generated.
+ * detected by the output file path extension, in which case a Tabix index is also generated. Blocks are compressed
+ * in parallel if {@link ParallelBlockCompressedOutputStream#getDefaultCompressionThreads} is positive.
  */
 public class FeatureOutputStream <F extends Feature> implements FeatureSink<F> {
 
@@ -40,6 +41,10 @@ public class FeatureOutputStream <F extends Feature> implements FeatureSink<F> {
     private final IndexCreator indexCreator;
     private final Path featurePath;
 
+    // set instead of indexCreator when blocks are compressed in parallel (see ParallelBlockCompressedOutputStream)
+    private final ParallelBlockCompressedOutputStream parallelOutputStream;
+    private final PendingPositionIndexCreator pendingPositionIndexCreator;
+
     /**
      * @param file file to write to
      * @param tabixFormat column descriptions for the tabix index
@@ -55,17 +60,28 @@ public class FeatureOutputStream <F extends Feature> implements FeatureSink<F> {
         Utils.nonNull(encoder);
         Utils.nonNull(dict);
         this.encoder = encoder;
-        if (IOUtil.hasBlockCompressedExtension(file.toPath())) {
+        final int compressionThreads = ParallelBlockCompressedOutputStream.getDefaultCompressionThreads();
+        if (IOUtil.hasBlockCompressedExtension(file.toPath()) && compressionThreads > 0) {
+            parallelOutputStream = new ParallelBlockCompressedOutputStream(file.getOutputStream(), file.toString(), compressionLevel, compressionThreads);
+            pendingPositionIndexCreator = new PendingPositionIndexCreator(new TabixIndexCreator(dict, tabixFormat), parallelOutputStream);
+            outputStream = parallelOutputStream;
+            locationAware = null;
+            indexCreator = null;
+        } else if (IOUtil.hasBlockCompressedExtension(file.toPath())) {
             final BlockCompressedOutputStream bcos =
                     new BlockCompressedOutputStream(file.toString(), compressionLevel);
             outputStream = bcos;
             locationAware = bcos;
             indexCreator = new TabixIndexCreator(dict, tabixFormat);
+            parallelOutputStream = null;
+            pendingPositionIndexCreator = null;
         } else {
             final PositionalOutputStream pos = new PositionalOutputStream(file.getOutputStream());
             outputStream = pos;
             locationAware = pos;
             indexCreator = null;
+            parallelOutputStream = null;
+            pendingPositionIndexCreator = null;
         }
         featurePath = file.toPath();
     }
@@ -96,6 +112,9 @@ public class FeatureOutputStream <F extends Feature> implements FeatureSink<F> {
             indexCreator.addFeature(feature, locationAware.getPosition());
         }
         try {
+            if (pendingPositionIndexCreator != null) {
+                pendingPositionIndexCreator.addFeature(feature);
+            }
             outputStream.write((encoder.apply(feature) + NEWLINE_CHARACTER).getBytes());
         } catch (final IOException e) {
             throw new GATKException("Error writing record", e);
@@ -108,6 +127,12 @@ public class FeatureOutputStream <F extends Feature> implements FeatureSink<F> {
     @Override
     public void close() {
         try {
+            if (parallelOutputStream != null) {
+                final long finalPosition = parallelOutputStream.getPosition();
+                parallelOutputStream.close(); // do this first so that the timestamp on the index will be later
+                pendingPositionIndexCreator.finalizeIndex(finalPosition).writeBasedOnFeaturePath(featurePath);
+                return;
+            }
             outputStream.close(); // do this first so that the timestamp on the index will be later
             if (indexCreator != null) {
                 final Index index = indexCreator.finalizeIndex(locationAware.getPosition());
@@ -0,0 +1,405 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.BlockGunzipper;
+import htsjdk.samtools.util.zip.InflaterFactory;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A BGZF input stream that reads blocks ahead of the caller on a background thread, and inflates them on a pool of
+ * threads (with the default htsjdk {@link InflaterFactory}, ie. the Intel inflater unless disabled), for sequential
+ * reads of whole block-compressed files (see {@link #getDefaultDecompressionThreads}). Unlike
+ * {@link BlockCompressedInputStream}, this doesn't support seeking or virtual file pointers.
+ *
+ * In stored-blocks mode, instead of the decompressed data, the stream returns the data of each block as one or two
+ * uncompressed (stored) BGZF blocks. This is meant for htsjdk readers, which always wrap their input in their own
+ * {@link BlockCompressedInputStream}: inflating stored blocks is a plain copy, so the actual inflation still happens
+ * in parallel.
+ *
+ * Like any input stream, this is not thread-safe: a single thread must read from it.
+ */
+public final class ParallelBlockCompressedInputStream extends InputStream {
+    /**
+     * Maximum uncompressed size of the stored blocks of the stored-blocks mode (as in {@link ParallelBlockCompressedOutputStream})
+     */
+    private static final int MAX_STORED_BLOCK_SIZE = ParallelBlockCompressedOutputStream.UNCOMPRESSED_BLOCK_SIZE;
+
+    /**
+     * Size of the header of a deflate stored block (final block flag and type, length and its complement)
+     */
+    private static final int STORED_BLOCK_HEADER_LENGTH = 5;
+
+    /**
+     * Number of blocks that are read ahead of the caller, per decompression thread
+     */
+    private static final int PENDING_BLOCKS_PER_THREAD = 8;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Marks the end of the input in the queue of pending blocks, by identity
+     */
+    private static final CompletableFuture<byte[]> END_OF_INPUT = CompletableFuture.completedFuture(new byte[0]);
+
+    private static int defaultDecompressionThreads = 0;
+
+    private final InputStream in;
+    private final String inputName;
+    private final boolean storedBlocks;
+    private final InflaterFactory inflaterFactory;
+    private final ThreadLocal<Inflater> inflaters;
+
+    /**
+     * The inflaters of all the decompression threads, which are ended once the threads have terminated
+     */
+    private final Queue<Inflater> allInflaters = new ConcurrentLinkedQueue<>();
+    private final ExecutorService decompressionService;
+    private final ExecutorService readAheadService;
+    private final Future<?> readAheadTask;
+
+    /**
+     * Blocks that were read and submitted for decompression, in order, followed by {@link #END_OF_INPUT} once the
+     * whole input was read, or by a failed future if it could not be read
+     */
+    private final BlockingQueue<CompletableFuture<byte[]>> pendingBlocks;
+
+    private byte[] currentBlock = EMPTY;
+    private int currentOffset = 0;
+    private boolean endOfInput = false;
+    private boolean closed = false;
+
+    /**
+     * @param in the BGZF stream to read the blocks from, closed by {@link #close}
+     * @param inputName name of the input, for error messages
+     * @param numThreads number of decompression threads
+     * @param storedBlocks if true, return the data as stored BGZF blocks rather than as decompressed data
+     */
+    public ParallelBlockCompressedInputStream(final InputStream in, final String inputName, final int numThreads, final boolean storedBlocks) {
+        Utils.validateArg(numThreads > 0, "The number of decompression threads must be > 0");
+        this.in = Utils.nonNull(in);
+        this.inputName = inputName;
+        this.storedBlocks = storedBlocks;
+        this.inflaterFactory = BlockGunzipper.getDefaultInflaterFactory();
+        this.inflaters = ThreadLocal.withInitial(this::makeInflater);
+        this.decompressionService = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat("bgzf-decompression-thread-%d").setDaemon(true).build());
+        this.readAheadService = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("bgzf-read-ahead-thread-%d").setDaemon(true).build());
+        this.pendingBlocks = new ArrayBlockingQueue<>(numThreads * PENDING_BLOCKS_PER_THREAD);
+        this.readAheadTask = readAheadService.submit(this::readAhead);
+    }
+
+    private Inflater makeInflater() {
+        final Inflater inflater = inflaterFactory.makeInflater(true);
+        allInflaters.add(inflater);
+        return inflater;
+    }
+
+    /**
+     * @return the number of threads that decompress the blocks of whole-file traversals of block-compressed inputs,
+     *         0 if they are decompressed by the htsjdk readers on the reading thread
+     */
+    public static synchronized int getDefaultDecompressionThreads() {
+        return defaultDecompressionThreads;
+    }
+
+    /**
+     * Set the number of threads that decompress the blocks of whole-file traversals of block-compressed inputs (0 to
+     * let the htsjdk readers decompress them on the reading thread). Set from the command line by
+     * {@link org.broadinstitute.hellbender.cmdline.CommandLineProgram}.
+     */
+    public static synchronized void setDefaultDecompressionThreads(final int numThreads) {
+        Utils.validateArg(numThreads >= 0, "The number of decompression threads must be >= 0");
+        defaultDecompressionThreads = numThreads;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillCurrentBlock()) {
+            return -1;
+        }
+        return currentBlock[currentOffset++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, Utils.nonNull(bytes).length);
+        if (length == 0) {
+            return 0;
+        }
+        if (!fillCurrentBlock()) {
+            return -1;
+        }
+        final int numBytes = Math.min(length, currentBlock.length - currentOffset);
+        System.arraycopy(currentBlock, currentOffset, bytes, offset, numBytes);
+        currentOffset += numBytes;
+        return numBytes;
+    }
+
+    @Override
+    public int available() {
+        return currentBlock.length - currentOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readAheadTask.cancel(true);
+        readAheadService.shutdownNow();
+        decompressionService.shutdownNow();
+        try {
+            in.close();
+        } finally {
+            try {
+                readAheadService.awaitTermination(60, TimeUnit.SECONDS);
+                decompressionService.awaitTermination(60, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pendingBlocks.clear();
+            if (decompressionService.isTerminated()) {
+                // the threads are done with their inflaters
+                allInflaters.forEach(Inflater::end);
+                allInflaters.clear();
+            }
+        }
+    }
+
+    /**
+     * Make sure that the current block has data left, moving on to the next blocks if necessary
+     *
+     * @return false at the end of the input
+     */
+    private boolean fillCurrentBlock() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed: " + inputName);
+        }
+        while (currentOffset == currentBlock.length) {
+            if (endOfInput) {
+                return false;
+            }
+            final CompletableFuture<byte[]> nextBlock = takeNextBlock();
+            if (nextBlock == END_OF_INPUT) {
+                endOfInput = true;
+                currentBlock = EMPTY;
+            } else {
+                currentBlock = getBlock(nextBlock);
+            }
+            currentOffset = 0;
+        }
+        return true;
+    }
+
+    private CompletableFuture<byte[]> takeNextBlock() {
+        try {
+            return pendingBlocks.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while decompressing " + inputName, e);
+        }
+    }
+
+    private byte[] getBlock(final CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while decompressing " + inputName, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Error decompressing " + inputName, e.getCause());
+        }
+    }
+
+    /**
+     * Read the blocks of the input and submit them for decompression, until the end of the input or until the queue
+     * of pending blocks is full, in which case this waits for the caller. Runs on the read-ahead thread.
+     */
+    private void readAhead() {
+        try {
+            byte[] block;
+            while ((block = readBlock()) != null) {
+                final byte[] compressedBlock = block;
+                pendingBlocks.put(CompletableFuture.supplyAsync(() -> decompressBlock(compressedBlock), decompressionService));
+            }
+            pendingBlocks.put(END_OF_INPUT);
+        } catch (final InterruptedException e) {
+            // the stream was closed
+            Thread.currentThread().interrupt();
+        } catch (final IOException | RuntimeException e) {
+            final CompletableFuture<byte[]> failure = new CompletableFuture<>();
+            failure.completeExceptionally(e);
+            try {
+                pendingBlocks.put(failure);
+            } catch (final InterruptedException e2) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return the next whole BGZF block of the input, or null at the end of the input
+     */
+    private byte[] readBlock() throws IOException {
+        final byte[] header = new byte[BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH];
+        final int headerLength = readFully(header, 0, header.length);
+        if (headerLength == 0) {
+            return null;
+        }
+        if (headerLength < header.length || !isValidBlockHeader(header)) {
+            throw new UserException.MalformedFile("Invalid BGZF block header in " + inputName);
+        }
+        final int blockSize = ((header[16] & 0xff) | ((header[17] & 0xff) << 8)) + 1;
+        if (blockSize < BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH) {
+            throw new UserException.MalformedFile("Invalid BGZF block size " + blockSize + " in " + inputName);
+        }
+        final byte[] block = new byte[blockSize];
+        System.arraycopy(header, 0, block, 0, header.length);
+        if (readFully(block, header.length, blockSize - header.length) < blockSize - header.length) {
+            throw new UserException.MalformedFile("Truncated BGZF block in " + inputName);
+        }
+        return block;
+    }
+
+    private int readFully(final byte[] buffer, final int offset, final int length) throws IOException {
+        int numRead = 0;
+        while (numRead < length) {
+            final int count = in.read(buffer, offset + numRead, length - numRead);
+            if (count < 0) {
+                break;
+            }
+            numRead += count;
+        }
+        return numRead;
+    }
+
+    private static boolean isValidBlockHeader(final byte[] header) {
+        return header[0] == BlockCompressedStreamConstants.GZIP_ID1 &&
+                header[1] == (byte) BlockCompressedStreamConstants.GZIP_ID2 &&
+                (header[3] & BlockCompressedStreamConstants.GZIP_FLG) != 0 &&
+                header[10] == BlockCompressedStreamConstants.GZIP_XLEN &&
+                header[12] == BlockCompressedStreamConstants.BGZF_ID1 &&
+                header[13] == BlockCompressedStreamConstants.BGZF_ID2;
+    }
+
+    /**
+     * Decompress a BGZF block, or turn it into stored blocks in stored-blocks mode. Runs on the decompression threads.
+     */
+    private byte[] decompressBlock(final byte[] block) {
+        final int uncompressedSize = readInt(block, block.length - 4);
+        if (uncompressedSize == 0) {
+            // empty blocks (eg. the terminator block) have no data, but are kept as is in stored-blocks mode
+            return storedBlocks ? block : EMPTY;
+        }
+        final byte[] uncompressed = new byte[uncompressedSize];
+        final Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(block, BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH,
+                block.length - BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH);
+        try {
+            final int inflatedSize = inflater.inflate(uncompressed, 0, uncompressedSize);
+            if (inflatedSize != uncompressedSize) {
+                throw new UserException.MalformedFile("Did not inflate expected amount of data (" + inflatedSize + " instead of " + uncompressedSize + ") in " + inputName);
+            }
+        } catch (final DataFormatException e) {
+            throw new UserException.MalformedFile("Invalid BGZF block in " + inputName + ": " + e.getMessage());
+        }
+        if (!storedBlocks) {
+            return uncompressed;
+        }
+        final int crc = readInt(block, block.length - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH);
+        return toStoredBlocks(uncompressed, crc);
+    }
+
+    /**
+     * @param crc CRC of the data, reused if the data fits in a single stored block
+     * @return the data as consecutive stored BGZF blocks
+     */
+    private static byte[] toStoredBlocks(final byte[] data, final int crc) {
+        final int numBlocks = (data.length + MAX_STORED_BLOCK_SIZE - 1) / MAX_STORED_BLOCK_SIZE;
+        final int overhead = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + STORED_BLOCK_HEADER_LENGTH + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+        final byte[] stored = new byte[data.length + numBlocks * overhead];
+        int position = 0;
+        for (int start = 0; start < data.length; start += MAX_STORED_BLOCK_SIZE) {
+            final int size = Math.min(MAX_STORED_BLOCK_SIZE, data.length - start);
+            final int blockSize = size + overhead;
+            final int blockCrc;
+            if (numBlocks == 1) {
+                blockCrc = crc;
+            } else {
+                final CRC32 blockCrc32 = new CRC32();
+                blockCrc32.update(data, start, size);
+                blockCrc = (int) blockCrc32.getValue();
+            }
+            writeStoredBlockHeader(stored, position, blockSize, size);
+            System.arraycopy(data, start, stored, position + BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + STORED_BLOCK_HEADER_LENGTH, size);
+            writeInt(stored, position + blockSize - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH, blockCrc);
+            writeInt(stored, position + blockSize - 4, size);
+            position += blockSize;
+        }
+        return stored;
+    }
+
+    private static void writeStoredBlockHeader(final byte[] stored, final int position, final int blockSize, final int size) {
+        stored[position] = BlockCompressedStreamConstants.GZIP_ID1;
+        stored[position + 1] = (byte) BlockCompressedStreamConstants.GZIP_ID2;
+        stored[position + 2] = BlockCompressedStreamConstants.GZIP_CM_DEFLATE;
+        stored[position + 3] = BlockCompressedStreamConstants.GZIP_FLG;
+        // modification time (bytes 4-7) is 0
+        stored[position + 8] = BlockCompressedStreamConstants.GZIP_XFL;
+        stored[position + 9] = (byte) BlockCompressedStreamConstants.GZIP_OS_UNKNOWN;
+        stored[position + 10] = BlockCompressedStreamConstants.GZIP_XLEN;
+        stored[position + 12] = BlockCompressedStreamConstants.BGZF_ID1;
+        stored[position + 13] = BlockCompressedStreamConstants.BGZF_ID2;
+        stored[position + 14] = BlockCompressedStreamConstants.BGZF_LEN;
+        stored[position + 16] = (byte) (blockSize - 1); // total block size - 1 as little-endian short
+        stored[position + 17] = (byte) ((blockSize - 1) >>> 8);
+
+        // a single, final, deflate stored block: its length as little-endian short, then its one's complement
+        final int deflateHeader = position + BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+        stored[deflateHeader] = 1;
+        stored[deflateHeader + 1] = (byte) size;
+        stored[deflateHeader + 2] = (byte) (size >>> 8);
+        stored[deflateHeader + 3] = (byte) ~size;
+        stored[deflateHeader + 4] = (byte) (~size >>> 8);
+    }
+
+    private static int readInt(final byte[] block, final int offset) {
+        return (block[offset] & 0xff) | ((block[offset + 1] & 0xff) << 8) | ((block[offset + 2] & 0xff) << 16) | ((block[offset + 3] & 0xff) << 24);
+    }
+
+    private static void writeInt(final byte[] block, final int offset, final int value) {
+        block[offset] = (byte) value;
+        block[offset + 1] = (byte) (value >>> 8);
+        block[offset + 2] = (byte) (value >>> 16);
+        block[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,367 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.zip.DeflaterFactory;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.OrderedWorkerPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A BGZF output stream that compresses its blocks on a pool of threads, and writes them in order to the underlying
+ * stream, as a drop-in replacement of {@link BlockCompressedOutputStream} for the block-compressed outputs written by
+ * GATK (see {@link #getDefaultCompressionThreads}).
+ *
+ * Since the compressed size of a block is only known once it has been compressed, the virtual file pointer of the
+ * current position isn't known when data is written. Instead, {@link #getPosition} returns a pending position (the
+ * number of the block and the offset in that block), which {@link #resolvePosition} later turns into a virtual file
+ * pointer, once the preceding blocks have been written. Pending positions must be resolved in increasing order, and
+ * only the positions of the blocks that were observed with {@link #getPosition} are kept until they are resolved.
+ * {@link PendingPositionIndexCreator} uses this to build the indices of outputs.
+ *
+ * Blocks hold at most {@link #UNCOMPRESSED_BLOCK_SIZE} bytes, so that any block can be stored uncompressed within
+ * the size limit of BGZF blocks. Like any output stream, this is not thread-safe: a single thread must write to it.
+ */
+public final class ParallelBlockCompressedOutputStream extends OutputStream {
+    /**
+     * Uncompressed size of blocks (as in htslib)
+     */
+    public static final int UNCOMPRESSED_BLOCK_SIZE = 0xff00;
+
+    private static final int BLOCK_OFFSET_BITS = 16;
+    private static final int BLOCK_OFFSET_MASK = 0xffff;
+
+    /**
+     * Number of blocks that are compressed or waiting for a compression thread, per compression thread
+     */
+    private static final int PENDING_BLOCKS_PER_THREAD = 4;
+
+    private static int defaultCompressionThreads = 0;
+
+    private final OutputStream out;
+    private final String outputName;
+    private final int compressionLevel;
+    private final DeflaterFactory deflaterFactory;
+    private final ExecutorService compressionService;
+    private final ThreadLocal<Deflater> deflaters;
+    private final ThreadLocal<Deflater> noCompressionDeflaters;
+    private final int maxPendingBlocks;
+
+    /**
+     * All the deflaters created by the compression threads, which hold native memory until they are ended by {@link #close}
+     */
+    private final Queue<Deflater> allDeflaters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Blocks that were submitted for compression and not written yet, in order
+     */
+    private final ArrayDeque<CompletableFuture<CompressedBlock>> pendingBlocks = new ArrayDeque<>();
+
+    /**
+     * Buffers of blocks that were written, to be reused
+     */
+    private final ArrayDeque<byte[]> freeBuffers = new ArrayDeque<>();
+
+    /**
+     * Numbers of the blocks observed by {@link #getPosition} that were not written yet, in increasing order
+     */
+    private final ArrayDeque<Long> observedBlocks = new ArrayDeque<>();
+
+    /**
+     * Numbers and addresses of the blocks observed by {@link #getPosition} that were written and not resolved yet, in increasing order
+     */
+    private final ArrayDeque<long[]> observedBlockAddresses = new ArrayDeque<>();
+
+    private byte[] buffer = new byte[UNCOMPRESSED_BLOCK_SIZE];
+    private int bufferSize = 0;
+    private long numSubmittedBlocks = 0;
+    private long numWrittenBlocks = 0;
+    private long numWrittenBytes = 0;
+    private boolean closed = false;
+
+    /**
+     * @param out the stream to write the compressed blocks to, closed by {@link #close}
+     * @param outputName name of the output, for error messages
+     * @param compressionLevel deflater compression level (0-9)
+     * @param numThreads number of compression threads
+     */
+    public ParallelBlockCompressedOutputStream(final OutputStream out, final String outputName, final int compressionLevel, final int numThreads) {
+        Utils.validateArg(compressionLevel >= Deflater.NO_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION, "Invalid compression level " + compressionLevel);
+        Utils.validateArg(numThreads > 0, "The number of compression threads must be > 0");
+        this.out = Utils.nonNull(out);
+        this.outputName = outputName;
+        this.compressionLevel = compressionLevel;
+        this.deflaterFactory = BlockCompressedOutputStream.getDefaultDeflaterFactory();
+        this.compressionService = OrderedWorkerPool.newDaemonThreadPool(numThreads, "bgzf-compression-thread-%d");
+        this.deflaters = ThreadLocal.withInitial(() -> makeDeflater(this.compressionLevel));
+        this.noCompressionDeflaters = ThreadLocal.withInitial(() -> makeDeflater(Deflater.NO_COMPRESSION));
+        this.maxPendingBlocks = numThreads * PENDING_BLOCKS_PER_THREAD;
+    }
+
+    private Deflater makeDeflater(final int level) {
+        final Deflater deflater = deflaterFactory.makeDeflater(level, true);
+        allDeflaters.add(deflater);
+        return deflater;
+    }
+
+    /**
+     * @return the number of compression threads of the block-compressed outputs written by GATK, 0 if they are
+     *         compressed on the writing thread (with a {@link BlockCompressedOutputStream})
+     */
+    public static synchronized int getDefaultCompressionThreads() {
+        return defaultCompressionThreads;
+    }
+
+    /**
+     * Set the number of compression threads of the block-compressed outputs written by GATK (0 to compress them on
+     * the writing thread). Set from the command line by {@link org.broadinstitute.hellbender.cmdline.CommandLineProgram}.
+     */
+    public static synchronized void setDefaultCompressionThreads(final int numThreads) {
+        Utils.validateArg(numThreads >= 0, "The number of compression threads must be >= 0");
+        defaultCompressionThreads = numThreads;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        buffer[bufferSize++] = (byte) b;
+        if (bufferSize == UNCOMPRESSED_BLOCK_SIZE) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        Utils.nonNull(bytes);
+        while (length > 0) {
+            final int numBytes = Math.min(length, UNCOMPRESSED_BLOCK_SIZE - bufferSize);
+            System.arraycopy(bytes, offset, buffer, bufferSize, numBytes);
+            bufferSize += numBytes;
+            offset += numBytes;
+            length -= numBytes;
+            if (bufferSize == UNCOMPRESSED_BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * @return the pending position of the next byte to be written, to be resolved by {@link #resolvePosition}
+     */
+    public long getPosition() {
+        if (observedBlocks.isEmpty() || observedBlocks.peekLast() != numSubmittedBlocks) {
+            observedBlocks.addLast(numSubmittedBlocks);
+        }
+        return (numSubmittedBlocks << BLOCK_OFFSET_BITS) | bufferSize;
+    }
+
+    /**
+     * @return true if the pending position can be resolved without waiting for the compression of blocks
+     */
+    public boolean isResolvable(final long pendingPosition) {
+        return (pendingPosition >>> BLOCK_OFFSET_BITS) < numWrittenBlocks;
+    }
+
+    /**
+     * Turn a pending position into a virtual file pointer, waiting for the preceding blocks to be written if necessary.
+     * Positions must be resolved in increasing order.
+     *
+     * @param pendingPosition a position returned by {@link #getPosition}
+     * @return the virtual file pointer of the position
+     */
+    public long resolvePosition(final long pendingPosition) throws IOException {
+        final long block = pendingPosition >>> BLOCK_OFFSET_BITS;
+        final int offset = (int) (pendingPosition & BLOCK_OFFSET_MASK);
+        Utils.validateArg(block <= numSubmittedBlocks, () -> "Not a position of this stream: " + pendingPosition);
+        if (block == numSubmittedBlocks) {
+            // the block that is being filled will start where the blocks before it end
+            writePendingBlocks(0);
+            return BlockCompressedFilePointerUtil.makeFilePointer(numWrittenBytes, offset);
+        }
+        while (numWrittenBlocks <= block) {
+            writeNextBlock();
+        }
+        while (!observedBlockAddresses.isEmpty() && observedBlockAddresses.peekFirst()[0] < block) {
+            observedBlockAddresses.removeFirst();
+        }
+        if (observedBlockAddresses.isEmpty() || observedBlockAddresses.peekFirst()[0] != block) {
+            throw new IllegalArgumentException("Position " + pendingPosition + " was not observed, or positions were not resolved in increasing order");
+        }
+        return BlockCompressedFilePointerUtil.makeFilePointer(observedBlockAddresses.peekFirst()[1], offset);
+    }
+
+    /**
+     * Compress the data written so far (as a possibly partial block), and write all blocks to the underlying stream
+     */
+    @Override
+    public void flush() throws IOException {
+        if (bufferSize > 0) {
+            submitBlock();
+        }
+        writePendingBlocks(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(true);
+    }
+
+    /**
+     * @param writeTerminatorBlock if true, write the empty block that marks the end of BGZF files
+     */
+    public void close(final boolean writeTerminatorBlock) throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            if (writeTerminatorBlock) {
+                out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+            }
+            out.close();
+        } finally {
+            OrderedWorkerPool.shutdownAndAwaitTermination(compressionService, true, "the compression threads of " + outputName);
+            if (compressionService.isTerminated()) {
+                // the threads are done with their deflaters
+                allDeflaters.forEach(Deflater::end);
+                allDeflaters.clear();
+            }
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = buffer;
+        final int size = bufferSize;
+        pendingBlocks.addLast(CompletableFuture.supplyAsync(() -> compressBlock(data, size), compressionService));
+        numSubmittedBlocks++;
+        buffer = freeBuffers.isEmpty() ? new byte[UNCOMPRESSED_BLOCK_SIZE] : freeBuffers.removeFirst();
+        bufferSize = 0;
+
+        // write the blocks that are ready, and wait for the oldest ones if too many are pending
+        while (!pendingBlocks.isEmpty() && pendingBlocks.peekFirst().isDone()) {
+            writeNextBlock();
+        }
+        writePendingBlocks(maxPendingBlocks);
+    }
+
+    /**
+     * Write blocks, in order, until at most maxPending blocks are pending
+     */
+    private void writePendingBlocks(final int maxPending) throws IOException {
+        while (pendingBlocks.size() > maxPending) {
+            writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        final CompressedBlock block = getCompressedBlock(pendingBlocks.removeFirst());
+        if (!observedBlocks.isEmpty() && observedBlocks.peekFirst() == numWrittenBlocks) {
+            observedBlocks.removeFirst();
+            observedBlockAddresses.addLast(new long[]{numWrittenBlocks, numWrittenBytes});
+        }
+        out.write(block.compressed);
+        numWrittenBlocks++;
+        numWrittenBytes += block.compressed.length;
+        freeBuffers.addLast(block.uncompressed);
+    }
+
+    private CompressedBlock getCompressedBlock(final CompletableFuture<CompressedBlock> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while compressing " + outputName, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Error compressing " + outputName, e.getCause());
+        }
+    }
+
+    /**
+     * Compress a block of data into a BGZF block. Runs on the compression threads.
+     */
+    private CompressedBlock compressBlock(final byte[] data, final int size) {
+        final byte[] compressed = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE];
+        final int maxCompressedSize = compressed.length - BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+        int compressedSize = deflate(deflaters.get(), data, size, compressed, maxCompressedSize);
+        if (compressedSize < 0) {
+            // incompressible data: store it as is, which always fits given the size of the blocks
+            compressedSize = deflate(noCompressionDeflaters.get(), data, size, compressed, maxCompressedSize);
+            if (compressedSize < 0) {
+                throw new GATKException("Block of " + size + " bytes does not fit in a BGZF block");
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(data, 0, size);
+        final int blockSize = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + compressedSize + BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+        writeHeader(compressed, blockSize);
+        int footer = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH + compressedSize;
+        footer = writeInt(compressed, footer, (int) crc.getValue());
+        writeInt(compressed, footer, size);
+        return new CompressedBlock(data, Arrays.copyOf(compressed, blockSize));
+    }
+
+    /**
+     * @return the size of the compressed data, written after the header of the block, or -1 if it doesn't fit
+     */
+    private static int deflate(final Deflater deflater, final byte[] data, final int size, final byte[] compressed, final int maxCompressedSize) {
+        deflater.reset();
+        deflater.setInput(data, 0, size);
+        deflater.finish();
+        final int compressedSize = deflater.deflate(compressed, BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH, maxCompressedSize);
+        return deflater.finished() ? compressedSize : -1;
+    }
+
+    private static void writeHeader(final byte[] block, final int blockSize) {
+        block[0] = BlockCompressedStreamConstants.GZIP_ID1;
+        block[1] = (byte) BlockCompressedStreamConstants.GZIP_ID2;
+        block[2] = BlockCompressedStreamConstants.GZIP_CM_DEFLATE;
+        block[3] = BlockCompressedStreamConstants.GZIP_FLG;
+        block[4] = block[5] = block[6] = block[7] = 0; // modification time
+        block[8] = BlockCompressedStreamConstants.GZIP_XFL;
+        block[9] = (byte) BlockCompressedStreamConstants.GZIP_OS_UNKNOWN;
+        block[10] = BlockCompressedStreamConstants.GZIP_XLEN;
+        block[11] = 0;
+        block[12] = BlockCompressedStreamConstants.BGZF_ID1;
+        block[13] = BlockCompressedStreamConstants.BGZF_ID2;
+        block[14] = BlockCompressedStreamConstants.BGZF_LEN;
+        block[15] = 0;
+        block[16] = (byte) (blockSize - 1); // total block size - 1 as little-endian short
+        block[17] = (byte) ((blockSize - 1) >>> 8);
+    }
+
+    private static int writeInt(final byte[] block, int offset, final int value) {
+        block[offset++] = (byte) value;
+        block[offset++] = (byte) (value >>> 8);
+        block[offset++] = (byte) (value >>> 16);
+        block[offset++] = (byte) (value >>> 24);
+        return offset;
+    }
+
+    private static final class CompressedBlock {
+        final byte[] uncompressed;
+        final byte[] compressed;
+
+        CompressedBlock(final byte[] uncompressed, final byte[] compressed) {
+            this.uncompressed = uncompressed;
+            this.compressed = compressed;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexCreator;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Builds the index of an output written to a {@link ParallelBlockCompressedOutputStream}, whose positions are only
+ * known once the blocks before them have been compressed. The features are queued with their pending positions, and
+ * passed on to the underlying {@link IndexCreator} (eg., a {@link htsjdk.tribble.index.tabix.TabixIndexCreator}) as
+ * soon as their positions are resolved, so that writing never waits for the compression threads.
+ *
+ * Only the locations of the queued features are kept, and the queue only holds the features of the blocks that are
+ * being compressed.
+ */
+public final class PendingPositionIndexCreator {
+    private final IndexCreator indexCreator;
+    private final ParallelBlockCompressedOutputStream outputStream;
+    private final ArrayDeque<Feature> pendingFeatures = new ArrayDeque<>();
+    private final ArrayDeque<Long> pendingPositions = new ArrayDeque<>();
+
+    /**
+     * @param indexCreator the index creator to pass the features and their resolved positions on to
+     * @param outputStream the stream the features are written to
+     */
+    public PendingPositionIndexCreator(final IndexCreator indexCreator, final ParallelBlockCompressedOutputStream outputStream) {
+        this.indexCreator = Utils.nonNull(indexCreator);
+        this.outputStream = Utils.nonNull(outputStream);
+    }
+
+    /**
+     * Add a feature that is about to be written to the output stream, at its current position
+     */
+    public void addFeature(final Feature feature) throws IOException {
+        Utils.nonNull(feature);
+        pendingFeatures.addLast(new SimpleFeature(feature.getContig(), feature.getStart(), feature.getEnd()));
+        pendingPositions.addLast(outputStream.getPosition());
+        while (!pendingPositions.isEmpty() && outputStream.isResolvable(pendingPositions.peekFirst())) {
+            indexCreator.addFeature(pendingFeatures.removeFirst(), outputStream.resolvePosition(pendingPositions.removeFirst()));
+        }
+    }
+
+    /**
+     * @param finalPendingPosition the position of the end of the output, observed before the output stream was
+     *                             closed, which must be called before this
+     * @return the index of the output
+     */
+    public Index finalizeIndex(final long finalPendingPosition) throws IOException {
+        while (!pendingPositions.isEmpty()) {
+            indexCreator.addFeature(pendingFeatures.removeFirst(), outputStream.resolvePosition(pendingPositions.removeFirst()));
+        }
+        return indexCreator.finalizeIndex(outputStream.resolvePosition(finalPendingPosition));
+    }
+}
@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.engine.AlignmentContext;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -37,6 +38,11 @@ import java.util.*;
  *   -- A read that could be aligned to a position will actually occur in the pileup (downsampled away)
  *   -- A read that appears in a previous pileup that could align to a future position will actually occur
  *      in that pileup.  That is, a read might show up at position i but be downsampled away in the pileup at j
+ *
+ * Callers that can process a pileup before moving to the next locus can instead get it with {@link #nextColumn()}, as
+ * a {@link PileupColumn} that is reused across loci, which avoids allocating the PileupElements, ReadPileup and
+ * AlignmentContext of every locus that {@link #next()} returns. Once nextColumn() has been called, the following
+ * pileups are built in the column, so callers should use one method or the other.
  */
 public final class LocusIteratorByState implements Iterator<AlignmentContext> {
     /** Indicates that we shouldn't do any downsampling */
@@ -76,6 +82,19 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
      */
     private AlignmentContext nextAlignmentContext;
 
+    /**
+     * The pileup of the next locus, reused across loci. Null until {@link #nextColumn()} is first called: until then,
+     * pileups are built as PileupElements for {@link #next()}.
+     */
+    private PileupColumn column;
+
+    /**
+     * True means that the column holds a pileup waiting from hasNext() for sending off to the
+     * next next() or nextColumn() call.  False means that either hasNext() has not been called at all,
+     * that the pileup was already returned or that the underlying iterator is exhausted
+     */
+    private boolean columnIsReady;
+
     // -----------------------------------------------------------------------------------------------------------------
     //
     // constructors and other basic operations
@@ -222,7 +241,7 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
     @Override
     public boolean hasNext() {
         lazyLoadNextAlignmentContext();
-        return nextAlignmentContext != null;
+        return nextAlignmentContext != null || columnIsReady;
     }
 
     /**
@@ -237,11 +256,43 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
         if (!hasNext()) {
             throw new NoSuchElementException("LocusIteratorByState: out of elements.");
         }
+        if (columnIsReady) {
+            columnIsReady = false;
+            return column.toAlignmentContext();
+        }
         AlignmentContext currentAlignmentContext = nextAlignmentContext;
         nextAlignmentContext = null;
         return currentAlignmentContext;
     }
 
+    /**
+     * Get the pileup of the next genomic position covered by at least one read, without making an AlignmentContext.
+     *
+     * The returned column is reused by this iterator: it is only valid until the next call to hasNext(), next()
+     * or nextColumn(), and must not be kept (use {@link PileupColumn#toAlignmentContext()} to keep a pileup).
+     *
+     * @return a non-null, non-empty column of the pileup after to the next genomic position covered by
+     * at least one read.
+     */
+    public PileupColumn nextColumn() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("LocusIteratorByState: out of elements.");
+        }
+        if (column == null) {
+            column = new PileupColumn();
+        }
+        if (nextAlignmentContext != null) {
+            // loaded by hasNext() before the first call to this method
+            column.reset(nextAlignmentContext.getLocation());
+            for (final PileupElement pe : nextAlignmentContext.getBasePileup()) {
+                column.add(pe.getRead(), pe.getOffset(), pe.getCurrentCigarElement(), pe.getCurrentCigarOffset(), pe.getOffsetInCurrentCigar());
+            }
+            nextAlignmentContext = null;
+        }
+        columnIsReady = false;
+        return column;
+    }
+
     /**
      * Move this LIBS until we are over position
      *
@@ -278,12 +329,13 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
     }
 
     /**
-     * Creates the next alignment context from the given state.  Note that this is implemented as a
-     * lazy load method. nextAlignmentContext MUST BE null in order for this method to advance to the
+     * Creates the next alignment context from the given state, or fills the column with it once
+     * {@link #nextColumn()} has been called.  Note that this is implemented as a lazy load method.
+     * nextAlignmentContext MUST BE null and columnIsReady false in order for this method to advance to the
      * next entry.
      */
     private void lazyLoadNextAlignmentContext() {
-        while (nextAlignmentContext == null && readStates.hasNext()) {
+        while (nextAlignmentContext == null && !columnIsReady && readStates.hasNext()) {
             readStates.collectPendingReads();
 
             final Locatable location = getLocation();
@@ -292,7 +344,10 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
             // since they are just going to get combined into one monolithic pileup anyway
             // when we construct the final ReadPileup below. This optimization speeds up the
             // HaplotypeCaller by quite a bit!
-            final List<PileupElement> allPileupElements = new ArrayList<>(100);
+            final List<PileupElement> allPileupElements = column == null ? new ArrayList<>(100) : null;
+            if (column != null) {
+                column.reset(location);
+            }
 
             for (final Map.Entry<String, PerSampleReadStateManager> sampleStatePair : readStates) {
                 final PerSampleReadStateManager readState = sampleStatePair.getValue();
@@ -313,13 +368,21 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
                             continue;
                         }
 
-                        allPileupElements.add(state.makePileupElement());
+                        if (column == null) {
+                            allPileupElements.add(state.makePileupElement());
+                        } else {
+                            column.add(read, state.getReadOffset(), state.getCurrentCigarElement(),
+                                    state.getCurrentCigarElementOffset(), state.getOffsetIntoCurrentCigarElement());
+                        }
                     }
                 }
             }
 
             readStates.updateReadStates(); // critical - must be called after we get the current state offsets and location
-            if (!allPileupElements.isEmpty()) { // if we got reads with non-D/N over the current position, we are done
+            // if we got reads with non-D/N over the current position, we are done
+            if (column != null) {
+                columnIsReady = !column.isEmpty();
+            } else if (!allPileupElements.isEmpty()) {
                 nextAlignmentContext = new AlignmentContext(location, new ReadPileup(location, allPileupElements));
             }
         }
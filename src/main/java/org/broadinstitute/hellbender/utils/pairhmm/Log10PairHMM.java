@@ -3,7 +3,6 @@ package org.broadinstitute.hellbender.utils.pairhmm;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 
-import java.util.Arrays;
 
 import static org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel.*;
 
@@ -41,14 +40,8 @@ public final class Log10PairHMM extends N2MemoryPairHMM {
      * {@inheritDoc}
      */
     @Override
-    public void initialize(final int readMaxLength, final int haplotypeMaxLength ) {
-        super.initialize(readMaxLength, haplotypeMaxLength);
-
-        for( int i=0; i < paddedMaxReadLength; i++ ) {
-            Arrays.fill(matchMatrix[i], Double.NEGATIVE_INFINITY);
-            Arrays.fill(insertionMatrix[i], Double.NEGATIVE_INFINITY);
-            Arrays.fill(deletionMatrix[i], Double.NEGATIVE_INFINITY);
-        }
+    protected double matrixBoundaryValue() {
+        return Double.NEGATIVE_INFINITY;
     }
 
     /**
@@ -66,10 +59,13 @@ public final class Log10PairHMM extends N2MemoryPairHMM {
                                                                final int nextHapStartIndex) {
 
 
+        // if another HMM used this thread's matrices since our last call, nothing computed before can be reused
+        final int startIndex = acquireMatrices() ? 0 : hapStartIndex;
+
         if ( ! constantsAreInitialized || recacheReadValues ) {
             initializeLog10Probabilities(insertionGOP, deletionGOP, overallGCP);
         }
-        initializeLog10Priors(haplotypeBases, readBases, readQuals, hapStartIndex);
+        initializeLog10Priors(haplotypeBases, readBases, readQuals, startIndex);
         if (previousHaplotypeBases == null || previousHaplotypeBases.length != haplotypeBases.length) {
             // set the initial value (free deletions in the beginning) for the first row in the deletion matrix
             initializeMatrixValues(haplotypeBases);
@@ -77,8 +73,8 @@ public final class Log10PairHMM extends N2MemoryPairHMM {
 
         for (int i = 1; i < paddedReadLength; i++) {
             // +1 here is because hapStartIndex is 0-based, but our matrices are 1 based
-            for (int j = hapStartIndex+1; j < paddedHaplotypeLength; j++) {
-                updateCell(i, j, prior[i][j], transition[i]);
+            for (int j = startIndex+1; j < paddedHaplotypeLength; j++) {
+                updateCell(i, j, prior[i * matrixStride + j], i * TRANS_PROB_ARRAY_LENGTH);
             }
         }
 
@@ -91,15 +87,15 @@ public final class Log10PairHMM extends N2MemoryPairHMM {
     private void initializeMatrixValues(final byte[] haplotypeBases) {
         final double initialValue = Math.log10(1.0 / haplotypeBases.length);
         for( int j = 0; j < paddedHaplotypeLength; j++ ) {
-            deletionMatrix[0][j] = initialValue;
+            deletionMatrix[j] = initialValue;
         }
     }
 
     private double finalLog10LikelihoodCalculation() {
-        final int endI = paddedReadLength - 1;
-        double finalLog10SumProbabilities = myLog10SumLog10(new double[]{matchMatrix[endI][1], insertionMatrix[endI][1]});
+        final int endRow = (paddedReadLength - 1) * matrixStride;
+        double finalLog10SumProbabilities = myLog10SumLog10(new double[]{matchMatrix[endRow + 1], insertionMatrix[endRow + 1]});
         for (int j = 2; j < paddedHaplotypeLength; j++) {
-            finalLog10SumProbabilities = myLog10SumLog10(new double[]{finalLog10SumProbabilities, matchMatrix[endI][j], insertionMatrix[endI][j]});
+            finalLog10SumProbabilities = myLog10SumLog10(new double[]{finalLog10SumProbabilities, matchMatrix[endRow + j], insertionMatrix[endRow + j]});
         }
         return finalLog10SumProbabilities;
     }
@@ -117,14 +113,15 @@ public final class Log10PairHMM extends N2MemoryPairHMM {
     public void initializeLog10Priors(final byte[] haplotypeBases, final byte[] readBases, final byte[] readQuals, final int startIndex) {
 
         // initialize the log prior matrix for all combinations of read x haplotype bases
-        // Java initializes arrays with 0.0, so no need to fill in rows and columns below 2.
+        // the first row and column are never read, so there is no need to fill them in
 
         for (int i = 0; i < readBases.length; i++) {
             final byte x = readBases[i];
             final byte qual = readQuals[i];
+            final int row = (i + 1) * matrixStride + 1;
             for (int j = startIndex; j < haplotypeBases.length; j++) {
                 final byte y = haplotypeBases[j];
-                prior[i+1][j+1] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ?
+                prior[row + j] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ?
                         QualityUtils.qualToProbLog10(qual) : (QualityUtils.qualToErrorProbLog10(qual) - (doNotUseTristateCorrection ? 0.0 : log10_3)) );
             }
         }
@@ -170,15 +167,19 @@ public final class Log10PairHMM extends N2MemoryPairHMM {
      * @param indI             row index in the matrices to update
      * @param indJ             column index in the matrices to update
      * @param prior            the likelihood editing distance matrix for the read x haplotype
-     * @param transition        an array with the six transition relevant to this location
+     * @param transitionOffset index of the six transitions relevant to this location in the transition matrix
      */
-    private void updateCell( final int indI, final int indJ, final double prior, final double[] transition) {
-
-        matchMatrix[indI][indJ] = prior +
-                myLog10SumLog10(new double[]{matchMatrix[indI - 1][indJ - 1] + transition[matchToMatch],
-                        insertionMatrix[indI - 1][indJ - 1] + transition[indelToMatch],
-                        deletionMatrix[indI - 1][indJ - 1] + transition[indelToMatch]});
-        insertionMatrix[indI][indJ] = myLog10SumLog10(new double[]{matchMatrix[indI - 1][indJ] + transition[matchToInsertion], insertionMatrix[indI - 1][indJ] + transition[insertionToInsertion]});
-        deletionMatrix[indI][indJ]  = myLog10SumLog10(new double[]{matchMatrix[indI][indJ - 1] + transition[matchToDeletion], deletionMatrix[indI][indJ - 1] + transition[deletionToDeletion]});
+    private void updateCell( final int indI, final int indJ, final double prior, final int transitionOffset) {
+        final int cell = indI * matrixStride + indJ;
+        final int diagonal = cell - matrixStride - 1;
+        final int up = cell - matrixStride;
+        final int left = cell - 1;
+
+        matchMatrix[cell] = prior +
+                myLog10SumLog10(new double[]{matchMatrix[diagonal] + transition[transitionOffset + matchToMatch],
+                        insertionMatrix[diagonal] + transition[transitionOffset + indelToMatch],
+                        deletionMatrix[diagonal] + transition[transitionOffset + indelToMatch]});
+        insertionMatrix[cell] = myLog10SumLog10(new double[]{matchMatrix[up] + transition[transitionOffset + matchToInsertion], insertionMatrix[up] + transition[transitionOffset + insertionToInsertion]});
+        deletionMatrix[cell]  = myLog10SumLog10(new double[]{matchMatrix[left] + transition[transitionOffset + matchToDeletion], deletionMatrix[left] + transition[transitionOffset + deletionToDeletion]});
     }
 }
@@ -13,6 +13,14 @@ public class LoglessPairHMM extends N2MemoryPairHMM {
 
 
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected double matrixBoundaryValue() {
+        return 0.0;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -27,11 +35,15 @@ public class LoglessPairHMM extends N2MemoryPairHMM {
                                                                final boolean recacheReadValues,
                                                                final int nextHapStartIndex) {
 
+        // if another HMM used this thread's matrices since our last call, nothing computed before can be reused
+        final int startIndex = acquireMatrices() ? 0 : hapStartIndex;
+        final int stride = matrixStride;
+
         if (previousHaplotypeBases == null || previousHaplotypeBases.length != haplotypeBases.length) {
             final double initialValue = INITIAL_CONDITION / haplotypeBases.length;
             // set the initial value (free deletions in the beginning) for the first row in the deletion matrix
             for( int j = 0; j < paddedHaplotypeLength; j++ ) {
-                deletionMatrix[0][j] = initialValue;
+                deletionMatrix[j] = initialValue;
             }
         }
 
@@ -42,27 +54,36 @@ public class LoglessPairHMM extends N2MemoryPairHMM {
             constantsAreInitialized = true;
         }
 
-        initializePriors(haplotypeBases, readBases, readQuals, hapStartIndex);
+        initializePriors(haplotypeBases, readBases, readQuals, startIndex);
 
         for (int i = 1; i < paddedReadLength; i++) {
+            final int row = i * stride;
+            final int previousRow = row - stride;
+            final int t = i * TRANS_PROB_ARRAY_LENGTH;
+            final double matchToMatchProb = transition[t + matchToMatch];
+            final double indelToMatchProb = transition[t + indelToMatch];
+            final double matchToInsertionProb = transition[t + matchToInsertion];
+            final double insertionToInsertionProb = transition[t + insertionToInsertion];
+            final double matchToDeletionProb = transition[t + matchToDeletion];
+            final double deletionToDeletionProb = transition[t + deletionToDeletion];
             // +1 here is because hapStartIndex is 0-based, but our matrices are 1 based
-            for (int j = hapStartIndex+1; j < paddedHaplotypeLength; j++) {
+            for (int j = startIndex+1; j < paddedHaplotypeLength; j++) {
                 //Inlined the code from updateCell - helps JIT to detect hotspots and produce good native code
-                matchMatrix[i][j] = prior[i][j] * ( matchMatrix[i - 1][j - 1] * transition[i][matchToMatch] +
-                        insertionMatrix[i - 1][j - 1] * transition[i][indelToMatch] +
-                        deletionMatrix[i - 1][j - 1] * transition[i][indelToMatch] );
-                insertionMatrix[i][j] = matchMatrix[i - 1][j] * transition[i][matchToInsertion] + insertionMatrix[i - 1][j] * transition[i][insertionToInsertion];
-                deletionMatrix[i][j] = matchMatrix[i][j - 1] * transition[i][matchToDeletion] + deletionMatrix[i][j - 1] * transition[i][deletionToDeletion];
+                matchMatrix[row + j] = prior[row + j] * ( matchMatrix[previousRow + j - 1] * matchToMatchProb +
+                        insertionMatrix[previousRow + j - 1] * indelToMatchProb +
+                        deletionMatrix[previousRow + j - 1] * indelToMatchProb );
+                insertionMatrix[row + j] = matchMatrix[previousRow + j] * matchToInsertionProb + insertionMatrix[previousRow + j] * insertionToInsertionProb;
+                deletionMatrix[row + j] = matchMatrix[row + j - 1] * matchToDeletionProb + deletionMatrix[row + j - 1] * deletionToDeletionProb;
             }
         }
 
         // final log probability is the log10 sum of the last element in the Match and Insertion state arrays
         // this way we ignore all paths that ended in deletions! (huge)
         // but we have to sum all the paths ending in the M and I matrices, because they're no longer extended.
-        final int endI = paddedReadLength - 1;
+        final int endRow = (paddedReadLength - 1) * stride;
         double finalSumProbabilities = 0.0;
         for (int j = 1; j < paddedHaplotypeLength; j++) {
-            finalSumProbabilities += matchMatrix[endI][j] + insertionMatrix[endI][j];
+            finalSumProbabilities += matchMatrix[endRow + j] + insertionMatrix[endRow + j];
         }
         return Math.log10(finalSumProbabilities) - INITIAL_CONDITION_LOG10;
     }
@@ -79,14 +100,15 @@ public class LoglessPairHMM extends N2MemoryPairHMM {
     void initializePriors(final byte[] haplotypeBases, final byte[] readBases, final byte[] readQuals, final int startIndex) {
 
         // initialize the prior matrix for all combinations of read x haplotype bases
-        // Abusing the fact that java initializes arrays with 0.0, so no need to fill in rows and columns below 2.
+        // the first row and column are never read, so there is no need to fill them in
 
         for (int i = 0; i < readBases.length; i++) {
             final byte x = readBases[i];
             final byte qual = readQuals[i];
+            final int row = (i + 1) * matrixStride + 1;
             for (int j = startIndex; j < haplotypeBases.length; j++) {
                 final byte y = haplotypeBases[j];
-                prior[i+1][j+1] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ?
+                prior[row + j] = ( x == y || x == (byte) 'N' || y == (byte) 'N' ?
                         QualityUtils.qualToProb(qual) : (QualityUtils.qualToErrorProb(qual) / (doNotUseTristateCorrection ? 1.0 : TRISTATE_CORRECTION)) );
             }
         }
@@ -95,11 +117,12 @@ public class LoglessPairHMM extends N2MemoryPairHMM {
     /**
      * Initializes the matrix that holds all the constants related to quality scores.
      *
+     * @param transition     flat transition matrix to fill in, see {@link PairHMMModel#qualToTransProbs(double[], byte[], byte[], byte[])}
      * @param insertionGOP   insertion quality scores of the read
      * @param deletionGOP    deletion quality scores of the read
      * @param overallGCP     overall gap continuation penalty
      */
-    static void initializeProbabilities(final double[][] transition, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+    static void initializeProbabilities(final double[] transition, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
         PairHMMModel.qualToTransProbs(transition,insertionGOP,deletionGOP,overallGCP);
     }
 }
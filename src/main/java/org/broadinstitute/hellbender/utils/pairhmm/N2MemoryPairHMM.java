@@ -1,14 +1,31 @@
 package org.broadinstitute.hellbender.utils.pairhmm;
 
+import java.util.Arrays;
+
 /**
  * Superclass for PairHMM that want to use a full read x haplotype matrix for their match, insertion, and deletion matrix
+ *
+ * The matrices are borrowed from the {@link PairHMMMatrixArena} of the calling thread and stored as flat row-major
+ * arrays, so cell {@code (i, j)} is at index {@code i * matrixStride + j} and the transition probabilities of read
+ * position {@code i} start at index {@code i * TRANS_PROB_ARRAY_LENGTH}. Subclasses must call {@link #acquireMatrices()}
+ * before touching the matrices in {@link #subComputeReadLikelihoodGivenHaplotypeLog10}.
  */
 abstract class N2MemoryPairHMM extends PairHMM {
-    protected double[][] transition = null; // The transition probabilities cache
-    protected double[][] prior = null;      // The prior probabilities cache
-    protected double[][] matchMatrix = null;
-    protected double[][] insertionMatrix = null;
-    protected double[][] deletionMatrix = null;
+    protected double[] transition = null; // The transition probabilities cache
+    protected double[] prior = null;      // The prior probabilities cache
+    protected double[] matchMatrix = null;
+    protected double[] insertionMatrix = null;
+    protected double[] deletionMatrix = null;
+
+    /**
+     * Distance between the starts of two consecutive rows of the matrices
+     */
+    protected int matrixStride;
+
+    /**
+     * Whether the matrices currently bound to this HMM are laid out for the current dimensions
+     */
+    private boolean matricesAreLaidOut = false;
 
     @Override
     public void doNotUseTristateCorrection() {
@@ -27,12 +44,51 @@ abstract class N2MemoryPairHMM extends PairHMM {
     public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
         super.initialize(readMaxLength, haplotypeMaxLength);
 
-        matchMatrix = new double[paddedMaxReadLength][paddedMaxHaplotypeLength];
-        insertionMatrix = new double[paddedMaxReadLength][paddedMaxHaplotypeLength];
-        deletionMatrix = new double[paddedMaxReadLength][paddedMaxHaplotypeLength];
+        // matrices are (re)claimed lazily from the thread's arena, which only allocates if they need to grow
+        matrixStride = paddedMaxHaplotypeLength;
+        matricesAreLaidOut = false;
+    }
+
+    /**
+     * The value of the cells in the first row and column of the matrices, before any initial condition is applied.
+     */
+    protected abstract double matrixBoundaryValue();
+
+    /**
+     * Bind the matrices of the calling thread's arena to this HMM.
+     *
+     * If another HMM has used the arena since our last call (or this HMM was re-initialized), the matrices are laid out
+     * again and all cached values are invalidated, in which case the caller must recompute everything from the first
+     * haplotype position.
+     *
+     * @return true if cached values were lost
+     */
+    protected final boolean acquireMatrices() {
+        final PairHMMMatrixArena arena = PairHMMMatrixArena.forCurrentThread();
+        final boolean cacheLost = !matricesAreLaidOut || !arena.isOwnedBy(this);
+        if ( cacheLost ) {
+            arena.claim(this, paddedMaxReadLength, paddedMaxHaplotypeLength);
+            initializeMatrixBoundaries(arena);
+            previousHaplotypeBases = null;
+            constantsAreInitialized = false;
+            matricesAreLaidOut = true;
+        }
+        matchMatrix = arena.getMatchMatrix();
+        insertionMatrix = arena.getInsertionMatrix();
+        deletionMatrix = arena.getDeletionMatrix();
+        prior = arena.getPriorMatrix();
+        transition = arena.getTransitionMatrix();
+        return cacheLost;
+    }
 
-        transition = PairHMMModel.createTransitionMatrix(maxReadLength);
-        prior = new double[paddedMaxReadLength][paddedMaxHaplotypeLength];
+    private void initializeMatrixBoundaries(final PairHMMMatrixArena arena) {
+        final double boundaryValue = matrixBoundaryValue();
+        for (final double[] matrix : new double[][] {arena.getMatchMatrix(), arena.getInsertionMatrix(), arena.getDeletionMatrix(), arena.getPriorMatrix()}) {
+            Arrays.fill(matrix, 0, matrixStride, boundaryValue);
+            for ( int i = 1; i < paddedMaxReadLength; i++ ) {
+                matrix[i * matrixStride] = boundaryValue;
+            }
+        }
     }
 
     /**
@@ -49,15 +105,16 @@ abstract class N2MemoryPairHMM extends PairHMM {
      * @param name the name of this matrix
      * @param matrix the matrix of values
      */
-    private void dumpMatrix(final String name, final double[][] matrix) {
+    private void dumpMatrix(final String name, final double[] matrix) {
         System.out.printf("%s%n", name);
-        for ( int i = 0; i < matrix.length; i++) {
+        for ( int i = 0; i < paddedMaxReadLength; i++) {
             System.out.printf("\t%s[%d]", name, i);
-            for ( int j = 0; j < matrix[i].length; j++ ) {
-                if ( Double.isInfinite(matrix[i][j]) )
-                    System.out.printf(" %15s", String.format("%f", matrix[i][j]));
+            for ( int j = 0; j < paddedMaxHaplotypeLength; j++ ) {
+                final double value = matrix[i * matrixStride + j];
+                if ( Double.isInfinite(value) )
+                    System.out.printf(" %15s", String.format("%f", value));
                 else
-                    System.out.printf(" % 15.5e", matrix[i][j]);
+                    System.out.printf(" % 15.5e", value);
             }
             System.out.println();
         }
@@ -17,6 +17,7 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -70,11 +71,20 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the OpenMP multi-threaded AVX-accelerated native PairHMM implementation");
             return hmm;
         }),
+        /* Portable SIMD implementation of LOGLESS_CACHING using the Java Vector API, computing in single precision with a
+           double precision rescue pass. Requires the JVM to be started with --add-modules jdk.incubator.vector. Throws if the
+           Vector API is not available */
+        VECTOR_API_LOGLESS_CACHING(args -> {
+            final PairHMM hmm = newVectorApiLoglessPairHMM(args);
+            logger.info("Using the Java Vector API accelerated PairHMM implementation");
+            return hmm;
+        }),
         /* Uses the fastest available PairHMM implementation supported on the platform.
            Order of precedence:
             1. AVX_LOGLESS_CACHING_OMP
             2. AVX_LOGLESS_CACHING
-            3. LOGLESS_CACHING
+            3. VECTOR_API_LOGLESS_CACHING
+            4. LOGLESS_CACHING
          */
         FASTEST_AVAILABLE(args -> {
             try {
@@ -91,7 +101,16 @@ public abstract class PairHMM implements Closeable{
                 return hmm;
             }
             catch ( UserException.HardwareFeatureException e ) {
-                logger.warn("***WARNING: Machine does not have the AVX instruction set support needed for the accelerated AVX PairHmm. " +
+                logger.info("AVX-accelerated native PairHMM implementation is not supported");
+            }
+            try {
+                final PairHMM hmm = newVectorApiLoglessPairHMM(args);
+                logger.info("Using the Java Vector API accelerated PairHMM implementation");
+                return hmm;
+            }
+            catch ( UserException.HardwareFeatureException e ) {
+                logger.warn("***WARNING: Machine does not have the AVX instruction set support needed for the accelerated AVX PairHmm, " +
+                            "and the Java Vector API is not available (" + e.getMessage() + "). " +
                             "Falling back to the MUCH slower LOGLESS_CACHING implementation!");
                 return new LoglessPairHMM();
             }
@@ -108,6 +127,39 @@ public abstract class PairHMM implements Closeable{
         }
     }
 
+    /**
+     * Fully qualified name of the Java Vector API implementation. It is compiled separately from the rest of the code
+     * because of its dependency on an incubator module, so it can only be loaded reflectively.
+     */
+    @VisibleForTesting
+    static final String VECTOR_API_PAIRHMM_CLASS_NAME = "org.broadinstitute.hellbender.utils.pairhmm.VectorApiLoglessPairHMM";
+
+    /**
+     * Create a new Java Vector API PairHMM
+     *
+     * @param args arguments to the native implementations, only {@code useDoublePrecision} is honored. May be {@code null}.
+     * @throws UserException.HardwareFeatureException if the implementation is missing, if the jdk.incubator.vector module
+     *                                                has not been added to the JVM, or if the platform lacks SIMD support
+     */
+    private static PairHMM newVectorApiLoglessPairHMM(final PairHMMNativeArguments args) {
+        final Throwable cause;
+        try {
+            return (PairHMM) Class.forName(VECTOR_API_PAIRHMM_CLASS_NAME)
+                    .getConstructor(PairHMMNativeArguments.class)
+                    .newInstance(args);
+        } catch ( final InvocationTargetException e ) {
+            if ( e.getCause() instanceof UserException.HardwareFeatureException ) {
+                throw (UserException.HardwareFeatureException) e.getCause();
+            }
+            cause = e.getCause();
+        } catch ( final ReflectiveOperationException | LinkageError e ) {
+            // LinkageError happens when the class is there but jdk.incubator.vector is not
+            cause = e;
+        }
+        throw new UserException.HardwareFeatureException("the Java Vector API PairHMM could not be loaded, make sure that " +
+                "the JVM is started with --add-modules jdk.incubator.vector (" + cause + ")");
+    }
+
     protected int maxHaplotypeLength, maxReadLength;
     protected int paddedMaxReadLength, paddedMaxHaplotypeLength;
     protected int paddedReadLength, paddedHaplotypeLength;
@@ -225,11 +277,13 @@ public abstract class PairHMM implements Closeable{
             final byte[] overallGCP = inputScoreImputation.gapContinuationPenalties();
 
             // peek at the next haplotype in the list (necessary to get nextHaplotypeBases, which is required for caching in the array implementation)
-            final boolean isFirstHaplotype = true;
+            // read values only need to be recomputed for the first haplotype; for the following ones, the matrix columns
+            // covering the prefix shared with the previous haplotype are reused
             for (int a = 0; a < alleleCount; a++) {
                 final Allele allele = alleles.get(a);
                 final byte[] alleleBases = allele.getBases();
                 final byte[] nextAlleleBases = a == alleles.size() - 1 ? null : alleles.get(a + 1).getBases();
+                final boolean isFirstHaplotype = a == 0;
                 final double lk = computeReadLikelihoodGivenHaplotypeLog10(alleleBases,
                         readBases, readQuals, readInsQuals, readDelQuals, overallGCP, isFirstHaplotype, nextAlleleBases);
                 logLikelihoods.set(a, readIndex, lk);
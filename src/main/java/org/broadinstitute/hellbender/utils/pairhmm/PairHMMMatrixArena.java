@@ -0,0 +1,133 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-thread pool of the dynamic programming matrices used by the Java {@link N2MemoryPairHMM} implementations.
+ *
+ * <p>Each matrix is stored as a single flat row-major {@code double[]} whose row stride is the padded maximum haplotype
+ * length of the HMM that currently owns the arena, so that cell {@code (i, j)} lives at index {@code i * stride + j}.
+ * The transition matrix is stored the same way with a stride of {@link PairHMMModel#TRANS_PROB_ARRAY_LENGTH}.</p>
+ *
+ * <p>Arrays only ever grow: asking for a layout that fits in the current capacity re-uses the existing arrays, so once
+ * the largest read and haplotype of a run have been seen no more matrices are allocated, no matter how many times the
+ * HMMs are re-initialized (eg. once per assembly region).</p>
+ *
+ * <p>Several HMMs may be used from the same thread (for instance the likelihood engine and the filtering step engine
+ * of the HaplotypeCaller), so the arena keeps track of which HMM last laid out the matrices. An HMM that finds it is no
+ * longer the owner must consider every cached value in the matrices (transitions, priors and the haplotype prefix
+ * columns) as lost; see {@link N2MemoryPairHMM}.</p>
+ *
+ * <p>Allocation counters are kept both per arena and globally so that tests and benchmarks can verify that the
+ * steady state of {@link PairHMM#computeLog10Likelihoods} does not allocate matrices.</p>
+ */
+public final class PairHMMMatrixArena {
+
+    private static final ThreadLocal<PairHMMMatrixArena> ARENAS = ThreadLocal.withInitial(PairHMMMatrixArena::new);
+
+    private static final AtomicLong TOTAL_ALLOCATION_COUNT = new AtomicLong();
+    private static final AtomicLong TOTAL_ALLOCATED_BYTES = new AtomicLong();
+
+    private double[] matchMatrix = new double[0];
+    private double[] insertionMatrix = new double[0];
+    private double[] deletionMatrix = new double[0];
+    private double[] priorMatrix = new double[0];
+    private double[] transitionMatrix = new double[0];
+
+    private Object owner = null;
+
+    private long allocationCount = 0;
+    private long allocatedBytes = 0;
+
+    @VisibleForTesting
+    PairHMMMatrixArena() { }
+
+    /**
+     * @return the arena of the calling thread, never {@code null}
+     */
+    public static PairHMMMatrixArena forCurrentThread() {
+        return ARENAS.get();
+    }
+
+    /**
+     * Lay out the matrices of this arena for {@code newOwner}, growing them if needed.
+     *
+     * @param newOwner the object that will use the matrices until somebody else claims them
+     * @param rows number of rows (padded read length) required
+     * @param columns number of columns (padded haplotype length) required, which becomes the row stride
+     */
+    void claim(final Object newOwner, final int rows, final int columns) {
+        Utils.nonNull(newOwner);
+        Utils.validateArg(rows > 0 && columns > 0, () -> "invalid matrix dimensions " + rows + " x " + columns);
+        final long cells = (long) rows * columns;
+        Utils.validateArg(cells <= Integer.MAX_VALUE, () -> "matrix too large: " + rows + " x " + columns);
+
+        if ( matchMatrix.length < cells ) {
+            matchMatrix = allocate((int) cells);
+            insertionMatrix = allocate((int) cells);
+            deletionMatrix = allocate((int) cells);
+            priorMatrix = allocate((int) cells);
+        }
+        final int transitionCells = rows * PairHMMModel.TRANS_PROB_ARRAY_LENGTH;
+        if ( transitionMatrix.length < transitionCells ) {
+            transitionMatrix = allocate(transitionCells);
+        }
+        owner = newOwner;
+    }
+
+    private double[] allocate(final int length) {
+        allocationCount++;
+        allocatedBytes += (long) length * Double.BYTES;
+        TOTAL_ALLOCATION_COUNT.incrementAndGet();
+        TOTAL_ALLOCATED_BYTES.addAndGet((long) length * Double.BYTES);
+        return new double[length];
+    }
+
+    /**
+     * @return true if {@code candidate} laid out the matrices last, so their content is still the one it left there
+     */
+    boolean isOwnedBy(final Object candidate) {
+        return owner == candidate;
+    }
+
+    double[] getMatchMatrix() { return matchMatrix; }
+
+    double[] getInsertionMatrix() { return insertionMatrix; }
+
+    double[] getDeletionMatrix() { return deletionMatrix; }
+
+    double[] getPriorMatrix() { return priorMatrix; }
+
+    double[] getTransitionMatrix() { return transitionMatrix; }
+
+    /**
+     * @return number of arrays allocated by this arena since it was created
+     */
+    public long getAllocationCount() {
+        return allocationCount;
+    }
+
+    /**
+     * @return number of bytes of matrix storage allocated by this arena since it was created
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return number of arrays allocated by all arenas, on all threads, since the JVM started
+     */
+    public static long getTotalAllocationCount() {
+        return TOTAL_ALLOCATION_COUNT.get();
+    }
+
+    /**
+     * @return number of bytes of matrix storage allocated by all arenas, on all threads, since the JVM started
+     */
+    public static long getTotalAllocatedBytes() {
+        return TOTAL_ALLOCATED_BYTES.get();
+    }
+}
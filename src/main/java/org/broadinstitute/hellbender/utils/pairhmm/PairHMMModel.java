@@ -105,15 +105,32 @@ public final class PairHMMModel {
      * @throws IllegalArgumentException if {@code insQual}, {@code delQual} or {@code gcp} is less than negative.
      */
     public static void qualToTransProbs(final double[] dest, final byte insQual, final byte delQual, final byte gcp) {
+        qualToTransProbs(dest, 0, insQual, delQual, gcp);
+    }
+
+    /**
+     * Fills the transition probabilities of a read site into an array, starting at the given offset
+     *
+     * @param dest the array to update.
+     * @param offset index of the first of the {@link #TRANS_PROB_ARRAY_LENGTH} entries to fill in.
+     * @param insQual the insertion quality score as a byte.
+     * @param delQual the deletion quality score as a byte.
+     * @param gcp the gap-continuation-penalty score as a byte.
+     *
+     * @throws NullPointerException if {@code dest} is {@code null}.
+     * @throws ArrayIndexOutOfBoundsException if {@code dest} is not large enough.
+     * @throws IllegalArgumentException if {@code insQual}, {@code delQual} or {@code gcp} is less than negative.
+     */
+    private static void qualToTransProbs(final double[] dest, final int offset, final byte insQual, final byte delQual, final byte gcp) {
         Utils.nonNull(dest, "dest array null");
         if (insQual < 0) throw new IllegalArgumentException("insert quality cannot less than 0: " + insQual);
         if (delQual < 0) throw new IllegalArgumentException("deletion quality cannot be less than 0: " + delQual);
         if (gcp < 0) throw new IllegalArgumentException("gcp cannot be less than 0: " + gcp);
-        dest[matchToMatch] = matchToMatchProb(insQual, delQual);
-        dest[matchToInsertion] = QualityUtils.qualToErrorProb(insQual);
-        dest[matchToDeletion] = QualityUtils.qualToErrorProb(delQual);
-        dest[indelToMatch] = QualityUtils.qualToProb(gcp);
-        dest[insertionToInsertion] = dest[deletionToDeletion] = QualityUtils.qualToErrorProb(gcp);
+        dest[offset + matchToMatch] = matchToMatchProb(insQual, delQual);
+        dest[offset + matchToInsertion] = QualityUtils.qualToErrorProb(insQual);
+        dest[offset + matchToDeletion] = QualityUtils.qualToErrorProb(delQual);
+        dest[offset + indelToMatch] = QualityUtils.qualToProb(gcp);
+        dest[offset + insertionToInsertion] = dest[offset + deletionToDeletion] = QualityUtils.qualToErrorProb(gcp);
     }
 
     /**
@@ -212,16 +229,33 @@ public final class PairHMMModel {
      * @throws IllegalArgumentException if {@code insQual}, {@code delQual} or {@code gcp} is less than negative.
      */
     public static void qualToTransProbsLog10(final double[] dest, final byte insQual, final byte delQual, final byte gcp) {
+        qualToTransProbsLog10(dest, 0, insQual, delQual, gcp);
+    }
+
+    /**
+     * Fills the transition log10-probabilities of a read site into an array, starting at the given offset
+     *
+     * @param dest the array to update.
+     * @param offset index of the first of the {@link #TRANS_PROB_ARRAY_LENGTH} entries to fill in.
+     * @param insQual the insertion quality score as a byte.
+     * @param delQual the deletion quality score as a byte.
+     * @param gcp the gap-continuation-penalty score as a byte.
+     *
+     * @throws NullPointerException if {@code dest} is {@code null}.
+     * @throws ArrayIndexOutOfBoundsException if {@code dest} is not large enough.
+     * @throws IllegalArgumentException if {@code insQual}, {@code delQual} or {@code gcp} is less than negative.
+     */
+    private static void qualToTransProbsLog10(final double[] dest, final int offset, final byte insQual, final byte delQual, final byte gcp) {
         Utils.nonNull(dest, "dest array null");
         if (insQual < 0) throw new IllegalArgumentException("insert quality cannot less than 0: " + insQual);
         if (delQual < 0) throw new IllegalArgumentException("deletion quality cannot be less than 0: " + delQual);
         if (gcp < 0) throw new IllegalArgumentException("gcp cannot be less than 0: " + gcp);
-        dest[matchToMatch] = matchToMatchProbLog10(insQual, delQual);
-        dest[matchToInsertion] = QualityUtils.qualToErrorProbLog10(insQual);
-        dest[matchToDeletion] = QualityUtils.qualToErrorProbLog10(delQual);
-        dest[indelToMatch] = QualityUtils.qualToProbLog10(gcp);
-        dest[insertionToInsertion] = QualityUtils.qualToErrorProbLog10(gcp);
-        dest[deletionToDeletion] = QualityUtils.qualToErrorProbLog10(gcp);
+        dest[offset + matchToMatch] = matchToMatchProbLog10(insQual, delQual);
+        dest[offset + matchToInsertion] = QualityUtils.qualToErrorProbLog10(insQual);
+        dest[offset + matchToDeletion] = QualityUtils.qualToErrorProbLog10(delQual);
+        dest[offset + indelToMatch] = QualityUtils.qualToProbLog10(gcp);
+        dest[offset + insertionToInsertion] = QualityUtils.qualToErrorProbLog10(gcp);
+        dest[offset + deletionToDeletion] = QualityUtils.qualToErrorProbLog10(gcp);
     }
 
     /**
@@ -307,6 +341,63 @@ public final class PairHMMModel {
         return dest;
     }
 
+    /**
+     * Fills a flat, row-major transition matrix with the transition probabilities for a number of bases.
+     *
+     * <p/>
+     * This is the flat counterpart of {@link #qualToTransProbs(double[][], byte[], byte[], byte[])}: the transitions of
+     * the {@code i}-th base are stored at {@code dest[(i + 1) * TRANS_PROB_ARRAY_LENGTH]} onwards, leaving the first
+     * {@link #TRANS_PROB_ARRAY_LENGTH} entries empty.
+     *
+     * @param dest the flat matrix to update
+     * @param insQuals insertion qualities.
+     * @param delQuals deletion qualities.
+     * @param gcps gap-continuation penalty qualities.
+     *
+     * @throws NullPointerException if any of the input arrays is {@code null}.
+     * @throws IllegalArgumentException if the input arrays don't have the same length or {@code dest} is too short.
+     */
+    public static void qualToTransProbs(final double[] dest, final byte[] insQuals, final byte[] delQuals, final byte[] gcps) {
+        validateFlatTransitionMatrixArgs(dest, insQuals, delQuals, gcps);
+        for (int i = 0; i < insQuals.length; i++) {
+            qualToTransProbs(dest, (i + 1) * TRANS_PROB_ARRAY_LENGTH, insQuals[i], delQuals[i], gcps[i]);
+        }
+    }
+
+    /**
+     * Fills a flat, row-major transition matrix with the log10 transition probabilities for a number of bases.
+     *
+     * <p/>
+     * This is the flat counterpart of {@link #qualToTransProbsLog10(double[][], byte[], byte[], byte[])}, with the same
+     * layout as {@link #qualToTransProbs(double[], byte[], byte[], byte[])}.
+     *
+     * @param dest the flat matrix to update
+     * @param insQuals insertion qualities.
+     * @param delQuals deletion qualities.
+     * @param gcps gap-continuation penalty qualities.
+     *
+     * @throws NullPointerException if any of the input arrays is {@code null}.
+     * @throws IllegalArgumentException if the input arrays don't have the same length or {@code dest} is too short.
+     */
+    public static void qualToTransProbsLog10(final double[] dest, final byte[] insQuals, final byte[] delQuals, final byte[] gcps) {
+        validateFlatTransitionMatrixArgs(dest, insQuals, delQuals, gcps);
+        for (int i = 0; i < insQuals.length; i++) {
+            qualToTransProbsLog10(dest, (i + 1) * TRANS_PROB_ARRAY_LENGTH, insQuals[i], delQuals[i], gcps[i]);
+        }
+    }
+
+    private static void validateFlatTransitionMatrixArgs(final double[] dest, final byte[] insQuals, final byte[] delQuals, final byte[] gcps) {
+        Utils.nonNull(dest,     "dest array null");
+        Utils.nonNull(insQuals, "insQuals array null");
+        Utils.nonNull(delQuals, "delQuals array null");
+        Utils.nonNull(gcps,     "gcps array null");
+
+        final int readLength = insQuals.length;
+        if (delQuals.length != readLength) throw new IllegalArgumentException("deletion quality array length does not match insert quality array length: " + readLength + " != " + delQuals.length);
+        if (gcps.length != readLength) throw new IllegalArgumentException("deletion quality array length does not match insert quality array length: " + readLength + " != " + gcps.length);
+        if (dest.length < (readLength + 1) * TRANS_PROB_ARRAY_LENGTH) throw new IllegalArgumentException("destination length is not enough for the read length: " + dest.length + " < (" + readLength + " + 1) * " + TRANS_PROB_ARRAY_LENGTH);
+    }
+
     /**
      * Creates a transition probability matrix large enough to work with sequences of a particular length.
      *
@@ -0,0 +1,228 @@
+package org.broadinstitute.hellbender.utils.pileup;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A pileup of reads at a single locus, stored as parallel arrays (reads, offsets, bases, qualities and alignment
+ * state) rather than as one {@link PileupElement} per read.
+ *
+ * A column is meant to be reused across loci: {@link #reset} empties it for the next locus while keeping its arrays,
+ * so that filling it doesn't allocate anything once the arrays are large enough for the deepest pileup. Callers must
+ * therefore not keep a column, or anything they read from it, beyond the locus at which they got it; a column can be
+ * turned into a regular {@link ReadPileup} or {@link AlignmentContext}, which don't depend on the column, when needed.
+ *
+ * Bases and qualities are read from the reads when they are added to the column. As in {@link PileupElement}, reads
+ * with a deletion at the locus have a {@link PileupElement#DELETION_BASE} base and a {@link PileupElement#DELETION_QUAL}
+ * quality; reads without bases or qualities (which are normally filtered out) have N bases and 0 qualities.
+ */
+public final class PileupColumn implements Locatable {
+    private static final int INITIAL_CAPACITY = 100;
+
+    private Locatable location;
+    private int size;
+
+    private GATKRead[] reads = new GATKRead[INITIAL_CAPACITY];
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    private byte[] bases = new byte[INITIAL_CAPACITY];
+    private byte[] quals = new byte[INITIAL_CAPACITY];
+    private CigarElement[] cigarElements = new CigarElement[INITIAL_CAPACITY];
+    private int[] cigarElementIndices = new int[INITIAL_CAPACITY];
+    private int[] offsetsInCigarElements = new int[INITIAL_CAPACITY];
+
+    /**
+     * Empties this column and moves it to a new locus
+     *
+     * @param location the locus of the pileup, of length 1
+     */
+    public void reset(final Locatable location) {
+        Utils.nonNull(location);
+        // don't hold on to the reads of the previous locus
+        Arrays.fill(reads, 0, size, null);
+        Arrays.fill(cigarElements, 0, size, null);
+        this.location = location;
+        size = 0;
+    }
+
+    /**
+     * Adds a read to this column. The arguments have the same meaning as those of the {@link PileupElement}
+     * constructor, and are not validated for the same (performance) reasons.
+     *
+     * @param read a non-null read aligned to the locus of this column
+     * @param offset the offset into the read's bases aligned to the locus (the offset of the last M/=/X position
+     *               for deletions)
+     * @param cigarElement the cigar element aligning the read to the locus
+     * @param cigarElementIndex the index of cigarElement in the cigar of the read
+     * @param offsetInCigarElement how far into cigarElement the locus is
+     */
+    public void add(final GATKRead read, final int offset, final CigarElement cigarElement,
+                    final int cigarElementIndex, final int offsetInCigarElement) {
+        if (size == reads.length) {
+            grow();
+        }
+        reads[size] = read;
+        offsets[size] = offset;
+        cigarElements[size] = cigarElement;
+        cigarElementIndices[size] = cigarElementIndex;
+        offsetsInCigarElements[size] = offsetInCigarElement;
+        if (cigarElement.getOperator() == CigarOperator.D) {
+            bases[size] = PileupElement.DELETION_BASE;
+            quals[size] = PileupElement.DELETION_QUAL;
+        } else {
+            bases[size] = offset < read.getLength() ? read.getBase(offset) : (byte) 'N';
+            quals[size] = offset < read.getBaseQualityCount() ? read.getBaseQuality(offset) : 0;
+        }
+        size++;
+    }
+
+    private void grow() {
+        final int capacity = reads.length * 2;
+        reads = Arrays.copyOf(reads, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        bases = Arrays.copyOf(bases, capacity);
+        quals = Arrays.copyOf(quals, capacity);
+        cigarElements = Arrays.copyOf(cigarElements, capacity);
+        cigarElementIndices = Arrays.copyOf(cigarElementIndices, capacity);
+        offsetsInCigarElements = Arrays.copyOf(offsetsInCigarElements, capacity);
+    }
+
+    /**
+     * @return the locus of this column
+     */
+    public Locatable getLocation() {
+        return location;
+    }
+
+    @Override
+    public String getContig() {
+        return location.getContig();
+    }
+
+    @Override
+    public int getStart() {
+        return location.getStart();
+    }
+
+    @Override
+    public int getEnd() {
+        return location.getEnd();
+    }
+
+    /**
+     * @return the number of reads in this column
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the i-th read of this column
+     */
+    public GATKRead getRead(final int i) {
+        Objects.checkIndex(i, size);
+        return reads[i];
+    }
+
+    /**
+     * @return the offset into the bases of the i-th read aligned to the locus
+     */
+    public int getOffset(final int i) {
+        Objects.checkIndex(i, size);
+        return offsets[i];
+    }
+
+    /**
+     * @return the base of the i-th read at the locus, {@link PileupElement#DELETION_BASE} for deletions
+     */
+    public byte getBase(final int i) {
+        Objects.checkIndex(i, size);
+        return bases[i];
+    }
+
+    /**
+     * @return the base quality of the i-th read at the locus, {@link PileupElement#DELETION_QUAL} for deletions
+     */
+    public byte getQual(final int i) {
+        Objects.checkIndex(i, size);
+        return quals[i];
+    }
+
+    /**
+     * @return true if the i-th read has a deletion at the locus
+     */
+    public boolean isDeletion(final int i) {
+        Objects.checkIndex(i, size);
+        return cigarElements[i].getOperator() == CigarOperator.D;
+    }
+
+    /**
+     * @return the cigar element aligning the i-th read to the locus
+     */
+    public CigarElement getCigarElement(final int i) {
+        Objects.checkIndex(i, size);
+        return cigarElements[i];
+    }
+
+    /**
+     * Get counts of A, C, G, T in order, which returns a int[4] vector with counts according
+     * to BaseUtils.simpleBaseToBaseIndex for each base, as {@link ReadPileup#getBaseCounts()}.
+     * Deletions and bases other than A, C, G and T are not counted.
+     */
+    public int[] getBaseCounts() {
+        final int[] counts = new int[4];
+        for (int i = 0; i < size; i++) {
+            if (cigarElements[i].getOperator() != CigarOperator.D) {
+                final int index = BaseUtils.simpleBaseToBaseIndex(bases[i]);
+                if (index != -1) {
+                    counts[index]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return a new PileupElement for the i-th read of this column
+     */
+    public PileupElement makePileupElement(final int i) {
+        Objects.checkIndex(i, size);
+        return new PileupElement(reads[i], offsets[i], cigarElements[i], cigarElementIndices[i], offsetsInCigarElements[i]);
+    }
+
+    /**
+     * @return a new ReadPileup with the contents of this column, which remains valid after the column is reset
+     */
+    public ReadPileup toReadPileup() {
+        final List<PileupElement> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(new PileupElement(reads[i], offsets[i], cigarElements[i], cigarElementIndices[i], offsetsInCigarElements[i]));
+        }
+        return new ReadPileup(location, elements);
+    }
+
+    /**
+     * @return a new AlignmentContext with the contents of this column, which remains valid after the column is reset
+     */
+    public AlignmentContext toAlignmentContext() {
+        return new AlignmentContext(location, toReadPileup());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d (%d reads)", getContig(), getStart(), size);
+    }
+}
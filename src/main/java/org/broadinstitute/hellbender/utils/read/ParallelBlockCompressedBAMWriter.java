@@ -0,0 +1,161 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndexer;
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileSource;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SAMSortOrderChecker;
+import htsjdk.samtools.SAMTextHeaderCodec;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.FileExtensions;
+import htsjdk.samtools.util.ProgressLoggerInterface;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+
+/**
+ * Writer of BAM files whose blocks are compressed in parallel, by a {@link ParallelBlockCompressedOutputStream}.
+ * The records are encoded by the htsjdk {@link BAMRecordCodec} as they are added, and must already be in the order of
+ * the header, which is checked as for the htsjdk presorted writers. The BAM index is built from the pending positions of the records: each record is queued until the
+ * blocks that hold it have been written, and then passed on to a {@link BAMIndexer}.
+ */
+public final class ParallelBlockCompressedBAMWriter implements SAMFileWriter {
+    private final Path outPath;
+    private final SAMFileHeader header;
+    private final ParallelBlockCompressedOutputStream outputStream;
+    private final BAMRecordCodec recordCodec;
+    private final BAMIndexer indexer;
+    private final SAMSortOrderChecker sortOrderChecker;
+    private final ArrayDeque<SAMRecord> pendingRecords = new ArrayDeque<>();
+    private final ArrayDeque<long[]> pendingRecordPositions = new ArrayDeque<>();
+    private ProgressLoggerInterface progressLogger = null;
+
+    /**
+     * @param outPath output path of a BAM file
+     * @param header header of the output, whose sort order the records must already be in
+     * @param createIndex whether to create a BAM index of the output, in which case the header must be coordinate sorted
+     * @param numThreads number of compression threads
+     */
+    public ParallelBlockCompressedBAMWriter(final Path outPath, final SAMFileHeader header, final boolean createIndex, final int numThreads) {
+        this.outPath = Utils.nonNull(outPath);
+        this.header = Utils.nonNull(header);
+        Utils.validateArg(!createIndex || header.getSortOrder() == SAMFileHeader.SortOrder.coordinate,
+                "Index file creation requires reads in coordinate sorted order");
+        try {
+            this.outputStream = new ParallelBlockCompressedOutputStream(Files.newOutputStream(outPath), outPath.toUri().toString(),
+                    BlockCompressedOutputStream.getDefaultCompressionLevel(), numThreads);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outPath.toUri().toString(), "Error creating BAM output", e);
+        }
+        this.indexer = createIndex ? new BAMIndexer(getIndexPath(outPath), header) : null;
+        this.sortOrderChecker = new SAMSortOrderChecker(header.getSortOrder());
+        writeHeader();
+        this.recordCodec = new BAMRecordCodec(header);
+        recordCodec.setOutputStream(outputStream);
+    }
+
+    /**
+     * @return the path of the index of a BAM file, which replaces its extension (as for the htsjdk BAM writer)
+     */
+    private static Path getIndexPath(final Path bamPath) {
+        return bamPath.resolveSibling(IOUtils.replaceExtension(bamPath.getFileName().toString(), FileExtensions.BAI_INDEX));
+    }
+
+    private void writeHeader() {
+        final BinaryCodec binaryCodec = new BinaryCodec(outputStream);
+        final StringWriter headerText = new StringWriter();
+        new SAMTextHeaderCodec().encode(headerText, header, true);
+
+        binaryCodec.writeBytes(ReadUtils.BAM_MAGIC);
+        binaryCodec.writeString(headerText.toString(), true, false);
+        // the sequences are also written in binary, redundantly with the text header
+        binaryCodec.writeInt(header.getSequenceDictionary().size());
+        for (final SAMSequenceRecord sequenceRecord : header.getSequenceDictionary().getSequences()) {
+            binaryCodec.writeString(sequenceRecord.getSequenceName(), true, true);
+            binaryCodec.writeInt(sequenceRecord.getSequenceLength());
+        }
+    }
+
+    @Override
+    public void addAlignment(final SAMRecord alignment) {
+        Utils.nonNull(alignment);
+        alignment.setHeaderStrict(header);
+        if (!sortOrderChecker.isSorted(alignment)) {
+            final SAMRecord previous = sortOrderChecker.getPreviousRecord();
+            throw new IllegalArgumentException("Alignments added out of order in " + getClass().getSimpleName() + ".addAlignment for " +
+                    outPath.toUri() + ". Sort order is " + header.getSortOrder() + ". Offending records are at [" +
+                    previous.getReferenceName() + ":" + previous.getAlignmentStart() + "] and [" +
+                    alignment.getReferenceName() + ":" + alignment.getAlignmentStart() + "]");
+        }
+        if (indexer == null) {
+            recordCodec.encode(alignment);
+        } else {
+            final long start = outputStream.getPosition();
+            recordCodec.encode(alignment);
+            pendingRecords.addLast(alignment);
+            pendingRecordPositions.addLast(new long[]{start, outputStream.getPosition()});
+            try {
+                while (!pendingRecords.isEmpty() && outputStream.isResolvable(pendingRecordPositions.peekFirst()[1])) {
+                    indexNextRecord();
+                }
+            } catch (final IOException e) {
+                throw new GATKException("Error writing to " + outPath.toUri(), e);
+            }
+        }
+        if (progressLogger != null) {
+            progressLogger.record(alignment);
+        }
+    }
+
+    private void indexNextRecord() throws IOException {
+        final SAMRecord record = pendingRecords.removeFirst();
+        final long[] positions = pendingRecordPositions.removeFirst();
+        final long start = outputStream.resolvePosition(positions[0]);
+        final long end = outputStream.resolvePosition(positions[1]);
+        record.setFileSource(new SAMFileSource(null, new BAMFileSpan(new Chunk(start, end))));
+        indexer.processAlignment(record);
+    }
+
+    @Override
+    public SAMFileHeader getFileHeader() {
+        return header;
+    }
+
+    @Override
+    public void setProgressLogger(final ProgressLoggerInterface progress) {
+        this.progressLogger = progress;
+    }
+
+    @Override
+    public void close() {
+        try {
+            // writes the remaining blocks, so that all the pending positions can be resolved
+            outputStream.flush();
+            if (indexer != null) {
+                while (!pendingRecords.isEmpty()) {
+                    indexNextRecord();
+                }
+            }
+            outputStream.close();
+            if (indexer != null) {
+                indexer.finish();
+            }
+        } catch (final IOException e) {
+            throw new GATKException("Error closing " + outPath.toUri(), e);
+        }
+    }
+}
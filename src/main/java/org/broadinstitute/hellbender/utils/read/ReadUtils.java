@@ -15,6 +15,7 @@ import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
 import org.broadinstitute.hellbender.utils.recalibration.EventType;
 
 import java.io.BufferedInputStream;
@@ -934,6 +935,9 @@ public final class ReadUtils {
     /**
      * Create a common SAMFileWriter for use with GATK tools.
      *
+     * BAM outputs that are already sorted (or unsorted) and don't need an MD5 file have their blocks compressed in
+     * parallel if {@link ParallelBlockCompressedOutputStream#getDefaultCompressionThreads} is positive.
+     *
      * @param outputPath - if this file has a .cram extension then a reference is required. Can not be null.
      * @param referenceFile - the reference source to use. Can not be null if a output file has a .cram extension.
      * @param header - header to be used for the output writer
@@ -960,6 +964,12 @@ public final class ReadUtils {
             createOutputBamIndex = false;
         }
 
+        final int compressionThreads = ParallelBlockCompressedOutputStream.getDefaultCompressionThreads();
+        if (compressionThreads > 0 && !createMD5 && outputPath.toString().endsWith(FileExtensions.BAM) &&
+                (preSorted || header.getSortOrder() == SAMFileHeader.SortOrder.unsorted)) {
+            return new ParallelBlockCompressedBAMWriter(outputPath, header.clone(), createOutputBamIndex, compressionThreads);
+        }
+
         final SAMFileWriterFactory factory = new SAMFileWriterFactory().setCreateIndex(createOutputBamIndex).setCreateMd5File(createMD5);
         return ReadUtils.createCommonSAMWriterFromFactory(factory, outputPath, referenceFile, header, preSorted);
     }
@@ -17,6 +17,12 @@ import java.util.*;
  * This adapter wraps a {@link SAMRecord} without making a copy, so construction is cheap,
  * but care must be exercised if the underlying read has been exposed somewhere before
  * wrapping.
+ *
+ * Records read from BAM files ({@link BAMRecord}s) keep their raw data and decode their fields lazily, and are
+ * written out without being encoded again as long as they are not modified. To preserve this, the read group and
+ * other tag lookups, and the numbers of base qualities and CIGAR elements, are answered from the raw data of
+ * unmodified BAM records (see {@link BAMRecordRawData}), so that reads that only go through filters on these
+ * fields are never fully decoded.
  */
 public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
     private static final long serialVersionUID = 1L;
@@ -271,8 +277,8 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
 
     @Override
     public int getLength() {
-        final byte[] bases = samRecord.getReadBases();
-        return bases == null ? 0 : bases.length;
+        // same as the length of the bases, without decoding them for BAM records
+        return samRecord.getReadLength();
     }
 
     @Override
@@ -297,6 +303,12 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
 
     @Override
     public int getBaseQualityCount(){
+        if ( samRecord instanceof BAMRecord ) {
+            final int rawCount = BAMRecordRawData.getBaseQualityCount((BAMRecord) samRecord);
+            if ( rawCount >= 0 ) {
+                return rawCount;
+            }
+        }
         final byte[] baseQualities = samRecord.getBaseQualities();
         return baseQualities == null ? 0 : baseQualities.length;
     }
@@ -361,7 +373,8 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
         // It's surprising and bizarre, but profiling reveals that caching the cigar length
         // actually helps performance in some cases (eg., the HaplotypeCaller)
         if ( cachedCigarLength == null ) {
-            cachedCigarLength = samRecord.getCigar() == null ? 0 : samRecord.getCigarLength();
+            final int rawCigarLength = samRecord instanceof BAMRecord ? BAMRecordRawData.getCigarLength((BAMRecord) samRecord) : -1;
+            cachedCigarLength = rawCigarLength >= 0 ? rawCigarLength : samRecord.getCigar() == null ? 0 : samRecord.getCigarLength();
         }
         return cachedCigarLength;
     }
@@ -380,6 +393,12 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
 
     @Override
     public String getReadGroup() {
+        if ( samRecord instanceof BAMRecord ) {
+            final Object rawReadGroup = BAMRecordRawData.getStringTag((BAMRecord) samRecord, SAMTag.RG.getBinaryTag());
+            if ( rawReadGroup != BAMRecordRawData.UNKNOWN ) {
+                return (String)rawReadGroup;
+            }
+        }
         // May return null
         return (String)samRecord.getAttribute(SAMTag.RG.getBinaryTag());
     }
@@ -604,6 +623,12 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
     @Override
     public boolean hasAttribute( final String attributeName ) {
         ReadUtils.assertAttributeNameIsLegal(attributeName);
+        if ( samRecord instanceof BAMRecord ) {
+            final Boolean rawHasAttribute = BAMRecordRawData.hasTag((BAMRecord) samRecord, SAMTag.makeBinaryTag(attributeName));
+            if ( rawHasAttribute != null ) {
+                return rawHasAttribute;
+            }
+        }
         return samRecord.getAttribute(attributeName) != null;
     }
 
@@ -652,6 +677,12 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
     @Override
     public String getAttributeAsString( final String attributeName ) {
         ReadUtils.assertAttributeNameIsLegal(attributeName);
+        if ( samRecord instanceof BAMRecord ) {
+            final Object rawValue = BAMRecordRawData.getStringTag((BAMRecord) samRecord, SAMTag.makeBinaryTag(attributeName));
+            if ( rawValue != BAMRecordRawData.UNKNOWN ) {
+                return (String)rawValue;
+            }
+        }
         final Object attributeValue = samRecord.getAttribute(attributeName);
         if ( attributeValue instanceof byte[]) {
             // in case that the attribute is a byte[] array, the toString method will format it as name@hashCode
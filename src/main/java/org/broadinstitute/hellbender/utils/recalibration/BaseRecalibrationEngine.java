@@ -246,10 +246,16 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         final GATKRead read = recalInfo.getRead();
         final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
-
         final int nCovariates = covariates.size();
         final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
+
+        // the counts go to primitive tables, which are only turned into RecalDatums when the tables are read.
+        // The quality score key is the reported quality of the event, which is all a RecalDatum needs to be created.
+        final FlatRecalibrationTable[] tables = new FlatRecalibrationTable[nCovariates];
+        for (int i = 1; i < nCovariates; i++) {
+            tables[i] = recalTables.getPendingCounts(i);
+        }
+        final FlatRecalibrationTable qualityScoreTable = tables[1];
         final int readLength = read.getLength();
         for( int offset = 0; offset < readLength; offset++ ) {
             if( ! recalInfo.skip(offset) ) {
@@ -257,18 +263,17 @@ public final class BaseRecalibrationEngine implements Serializable {
                     final EventType eventType = cachedEventTypes[idx];
                     final int[] keys = readCovariates.getKeySet(offset, eventType);
                     final int eventIndex = eventType.ordinal();
-                    final byte qual = recalInfo.getQual(eventType, offset);
                     final double isError = recalInfo.getErrorFraction(eventType, offset);
 
                     final int key0 = keys[0];
                     final int key1 = keys[1];
 
-                    RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
+                    qualityScoreTable.increment(isError, key0, key1, eventIndex);
 
                     for (int i = nSpecialCovariates; i < nCovariates; i++) {
                         final int keyi = keys[i];
                         if (keyi >= 0) {
-                            RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, key0, key1, keyi, eventIndex);
+                            tables[i].increment(isError, key0, key1, keyi, eventIndex);
                         }
                     }
                 }
@@ -0,0 +1,276 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Primitive-backed accumulator of recalibration counts, used in place of a {@link NestedIntegerArray} of
+ * {@link RecalDatum}s while reads are being processed.
+ *
+ * Each combination of keys (read group, quality score, [covariate value,] event type) is mapped to a single computed
+ * offset, and the number of observations and the (scaled) number of mismatches of every cell are kept in parallel
+ * {@code long[]} and {@code double[]} arrays. Incrementing a cell therefore costs one array lookup instead of one pointer
+ * dereference per dimension plus a {@link RecalDatum} object per cell.
+ *
+ * Tables with few enough cells (eg. the quality score table) are stored densely and indexed by the offset directly.
+ * Larger key spaces, such as the one of the context covariate, are much too large to be allocated up front but are
+ * very sparsely populated in practice, so they are stored in an open addressing hash table keyed by the offset.
+ *
+ * The second dimension must be the quality score: as in the tables read from a {@link RecalibrationReport}, the
+ * estimated reported quality of every non read group datum is its quality score key.
+ *
+ * The counts are converted to the standard representation with {@link #addTo}. Mismatches are summed exactly as {@link RecalDatum#increment(long, double)} does, so the
+ * resulting datums are identical to those obtained by incrementing a {@link NestedIntegerArray} directly.
+ */
+public final class FlatRecalibrationTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Tables with at most this many cells are allocated densely (16 bytes per cell)
+     */
+    @VisibleForTesting
+    static final long MAX_DENSE_CELLS = 1 << 20;
+
+    private static final int INITIAL_SPARSE_CAPACITY = 1 << 12;
+
+    private static final long EMPTY_SLOT = -1L;
+
+    private final int[] dimensions;
+
+    private final long numCells;
+
+    private final boolean dense;
+
+    /**
+     * offset of each slot in sparse mode, {@link #EMPTY_SLOT} if the slot is free; null in dense mode
+     */
+    private long[] offsets;
+
+    private long[] numObservations;
+
+    /**
+     * sum of the error fractions multiplied by {@link RecalDatum#MULTIPLIER}, as stored in {@link RecalDatum}
+     */
+    private double[] scaledNumMismatches;
+
+    /**
+     * number of non-empty cells
+     */
+    private int size;
+
+    /**
+     * @param dimensions the dimensions of the equivalent {@link NestedIntegerArray}: 3 or 4 of them, the second one being the quality score
+     */
+    public FlatRecalibrationTable(final int... dimensions) {
+        this(MAX_DENSE_CELLS, dimensions);
+    }
+
+    @VisibleForTesting
+    FlatRecalibrationTable(final long maxDenseCells, final int... dimensions) {
+        Utils.nonNull(dimensions);
+        Utils.validateArg(dimensions.length == 3 || dimensions.length == 4, () -> "a recalibration table must have 3 or 4 dimensions but has " + dimensions.length);
+        long cells = 1;
+        for ( final int dimension : dimensions ) {
+            Utils.validateArg(dimension > 0, () -> "dimensions must be positive: " + Arrays.toString(dimensions));
+            cells *= dimension;
+        }
+        this.dimensions = dimensions.clone();
+        this.numCells = cells;
+        this.dense = cells <= maxDenseCells;
+        allocate(dense ? (int) cells : INITIAL_SPARSE_CAPACITY);
+    }
+
+    private void allocate(final int capacity) {
+        numObservations = new long[capacity];
+        scaledNumMismatches = new double[capacity];
+        if ( !dense ) {
+            offsets = new long[capacity];
+            Arrays.fill(offsets, EMPTY_SLOT);
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the dimensions of this table. DO NOT MODIFY
+     */
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return true if no observation has been added to this table
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Add one observation to a cell of a table with 3 dimensions.
+     *
+     * @param isError error fraction of the observation
+     */
+    public void increment(final double isError, final int key0, final int key1, final int key2) {
+        Utils.validateArg(dimensions.length == 3, "this table requires 4 keys");
+        checkKey(key0, 0);
+        checkKey(key1, 1);
+        checkKey(key2, 2);
+        increment(((long) key0 * dimensions[1] + key1) * dimensions[2] + key2, isError);
+    }
+
+    /**
+     * Add one observation to a cell of a table with 4 dimensions.
+     *
+     * @param isError error fraction of the observation
+     */
+    public void increment(final double isError, final int key0, final int key1, final int key2, final int key3) {
+        Utils.validateArg(dimensions.length == 4, "this table requires 3 keys");
+        checkKey(key0, 0);
+        checkKey(key1, 1);
+        checkKey(key2, 2);
+        checkKey(key3, 3);
+        increment((((long) key0 * dimensions[1] + key1) * dimensions[2] + key2) * dimensions[3] + key3, isError);
+    }
+
+    private void checkKey(final int key, final int dimension) {
+        if ( key < 0 || key >= dimensions[dimension] ) {
+            throw new IllegalArgumentException("Key " + key + " is out of range for dimension " + dimension + " (max is " + (dimensions[dimension] - 1) + ")");
+        }
+    }
+
+    private void increment(final long offset, final double isError) {
+        final int slot = dense ? (int) offset : findOrInsertSlot(offset);
+        if ( numObservations[slot] == 0 && dense ) {
+            size++;
+        }
+        numObservations[slot]++;
+        scaledNumMismatches[slot] += isError * RecalDatum.MULTIPLIER;
+    }
+
+    /**
+     * @return the slot holding the given offset, claiming a free one if the offset is not in the table yet
+     */
+    private int findOrInsertSlot(final long offset) {
+        int slot = findSlot(offset);
+        if ( offsets[slot] == EMPTY_SLOT ) {
+            // keep the load factor under 1/2 so that probe sequences stay short
+            if ( 2 * (size + 1) > offsets.length ) {
+                grow();
+                slot = findSlot(offset);
+            }
+            offsets[slot] = offset;
+            size++;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the slot holding the given offset, or the free slot where it should be inserted
+     */
+    private int findSlot(final long offset) {
+        final int mask = offsets.length - 1;
+        int slot = hash(offset) & mask;
+        while ( offsets[slot] != EMPTY_SLOT && offsets[slot] != offset ) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(final long offset) {
+        // Fibonacci hashing: consecutive offsets (eg. the event types of a cell) end up far apart
+        return (int) ((offset * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    private void grow() {
+        final long[] oldOffsets = offsets;
+        final long[] oldObservations = numObservations;
+        final double[] oldMismatches = scaledNumMismatches;
+        final int oldSize = size;
+        allocate(oldOffsets.length * 2);
+        for ( int i = 0; i < oldOffsets.length; i++ ) {
+            if ( oldOffsets[i] != EMPTY_SLOT ) {
+                final int slot = findSlot(oldOffsets[i]);
+                offsets[slot] = oldOffsets[i];
+                numObservations[slot] = oldObservations[i];
+                scaledNumMismatches[slot] = oldMismatches[i];
+            }
+        }
+        size = oldSize;
+    }
+
+    /**
+     * @return the number of observations in the cell with the given keys, 0 if there are none
+     */
+    public long getNumObservations(final int... keys) {
+        final int slot = slotOf(keys);
+        return slot < 0 ? 0 : numObservations[slot];
+    }
+
+    /**
+     * @return the number of mismatches in the cell with the given keys, 0 if there are none
+     */
+    public double getNumMismatches(final int... keys) {
+        final int slot = slotOf(keys);
+        return slot < 0 ? 0.0 : scaledNumMismatches[slot] / RecalDatum.MULTIPLIER;
+    }
+
+    private int slotOf(final int... keys) {
+        Utils.validateArg(keys.length == dimensions.length, () -> "Exactly " + dimensions.length + " keys should be passed to this table but " + keys.length + " were provided");
+        long offset = 0;
+        for ( int i = 0; i < keys.length; i++ ) {
+            if ( keys[i] < 0 || keys[i] >= dimensions[i] ) {
+                return -1;
+            }
+            offset = offset * dimensions[i] + keys[i];
+        }
+        if ( dense ) {
+            return numObservations[(int) offset] == 0 ? -1 : (int) offset;
+        }
+        final int slot = findSlot(offset);
+        return offsets[slot] == EMPTY_SLOT ? -1 : slot;
+    }
+
+    /**
+     * Add the counts of this table to a {@link NestedIntegerArray} with the same dimensions, creating the datums that
+     * don't exist yet, with the quality score key as their reported quality.
+     */
+    public void addTo(final NestedIntegerArray<RecalDatum> table) {
+        Utils.nonNull(table);
+        Utils.validateArg(Arrays.equals(dimensions, table.getDimensions()),
+                () -> "Table dimensions " + Arrays.toString(table.getDimensions()) + " are not equal to " + Arrays.toString(dimensions));
+        final int[] keys = new int[dimensions.length];
+        final int slots = dense ? (int) numCells : offsets.length;
+        for ( int slot = 0; slot < slots; slot++ ) {
+            if ( numObservations[slot] == 0 ) {
+                continue;
+            }
+            long offset = dense ? slot : offsets[slot];
+            for ( int i = dimensions.length - 1; i >= 0; i-- ) {
+                keys[i] = (int) (offset % dimensions[i]);
+                offset /= dimensions[i];
+            }
+            final RecalDatum datum = table.get(keys);
+            if ( datum == null ) {
+                table.put(RecalDatum.fromScaledCounts(numObservations[slot], scaledNumMismatches[slot], (byte) keys[1]), keys);
+            } else {
+                datum.incrementScaled(numObservations[slot], scaledNumMismatches[slot]);
+            }
+        }
+    }
+
+    /**
+     * Remove all counts from this table, releasing the memory used by sparse tables.
+     */
+    public void clear() {
+        if ( dense ) {
+            Arrays.fill(numObservations, 0L);
+            Arrays.fill(scaledNumMismatches, 0.0);
+            size = 0;
+        } else {
+            allocate(INITIAL_SPARSE_CAPACITY);
+        }
+    }
+}
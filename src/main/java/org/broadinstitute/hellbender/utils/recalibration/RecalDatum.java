@@ -17,7 +17,7 @@ public final class RecalDatum implements Serializable {
     public static final byte MAX_RECALIBRATED_Q_SCORE = SAMUtils.MAX_PHRED_SCORE;
     private static final double UNINITIALIZED = -1.0;
     private static final long serialVersionUID = 1L;
-    private static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
+    static final double MULTIPLIER = 100000.0;  //See discussion in numMismatches about what the multiplier is.
 
     /**
      * estimated reported quality score based on combined data's individual q-reporteds and number of observations
@@ -75,6 +75,19 @@ public final class RecalDatum implements Serializable {
         empiricalQuality = UNINITIALIZED;
     }
 
+    /**
+     * Create a new RecalDatum from counts accumulated elsewhere, see {@link FlatRecalibrationTable}
+     *
+     * @param numObservations     observations
+     * @param scaledNumMismatches mismatches, already multiplied by {@link #MULTIPLIER}
+     * @param reportedQuality     Qreported
+     */
+    static RecalDatum fromScaledCounts(final long numObservations, final double scaledNumMismatches, final byte reportedQuality) {
+        final RecalDatum datum = new RecalDatum(numObservations, 0.0, reportedQuality);
+        datum.incrementScaled(0L, scaledNumMismatches);
+        return datum;
+    }
+
     /**
      * Copy copy into this recal datum, overwriting all of this objects data
      * @param copy  RecalDatum to copy
@@ -217,6 +230,15 @@ public final class RecalDatum implements Serializable {
         empiricalQuality = UNINITIALIZED;
     }
 
+    /**
+     * Same as {@link #increment(long, double)}, for mismatches already multiplied by {@link #MULTIPLIER}
+     */
+    final void incrementScaled(final long incObservations, final double incScaledMismatches) {
+        numObservations += incObservations;
+        numMismatches += incScaledMismatches;
+        empiricalQuality = UNINITIALIZED;
+    }
+
     public final void increment(final boolean isError) {
         increment(1, isError ? 1.0 : 0.0);
     }
@@ -0,0 +1,202 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.broadinstitute.hellbender.utils.MathUtils.fastRound;
+import static org.broadinstitute.hellbender.utils.QualityUtils.boundQual;
+import static org.broadinstitute.hellbender.utils.recalibration.RecalDatum.MAX_RECALIBRATED_Q_SCORE;
+
+/**
+ * Recalibrated base substitution qualities, precomputed from a set of {@link RecalibrationTables} so that recalibrating
+ * a base only takes a few array lookups.
+ *
+ * The recalibrated quality computed by
+ * {@link org.broadinstitute.hellbender.transformers.BQSRReadTransformer#hierarchicalBayesianQualityEstimate} is the sum
+ * of a conditional prior, which only depends on the read group and the reported quality of the base, and of one delta
+ * per additional covariate, which only depends on the read group, the reported quality and the value of that covariate.
+ * All of these are computed once, from the same {@link RecalDatum}s and in the same order as the per-base computation, so
+ * the recalibrated qualities are identical.
+ *
+ * The (read group, reported quality) pairs present in the tables are given consecutive row numbers, and the deltas of
+ * each covariate are stored densely by row and covariate key. Quantization and static quantization are folded into a
+ * single mapping from the rounded recalibrated quality to the final quality.
+ */
+public final class RecalibrationLookupTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Upper bound on the total number of deltas stored, to keep the table under 512MB
+     */
+    public static final long MAX_CELLS = 1L << 26;
+
+    private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
+
+    private final int qualDimension;
+
+    /**
+     * row of each (read group, reported quality) pair, indexed by read group * qualDimension + quality; -1 if there is no data for the pair
+     */
+    private final int[] rows;
+
+    /**
+     * conditional prior of each row
+     */
+    private final double[] conditionalPriors;
+
+    /**
+     * conditional prior of the pairs without a row, for each read group
+     */
+    private final double[] readGroupPriors;
+
+    private final int[] covariateDimensions;
+
+    /**
+     * delta of each additional covariate, indexed by row * covariate dimension + covariate key; 0 where there is no data
+     */
+    private final double[][] covariateDeltas;
+
+    /**
+     * final quality of each rounded recalibrated quality
+     */
+    private final byte[] finalQuals;
+
+    /**
+     * @param recalibrationTables tables read from a recalibration report
+     * @param globalQScorePrior global prior to use instead of the reported quality of each read group, if positive
+     * @param quantizedQuals quantized quality of each recalibrated quality
+     * @param staticQuantizedMapping static quantized quality of each quantized quality, or null if static quantization is not used
+     */
+    public RecalibrationLookupTable(final RecalibrationTables recalibrationTables, final double globalQScorePrior,
+                                   final List<Byte> quantizedQuals, final byte[] staticQuantizedMapping) {
+        Utils.nonNull(recalibrationTables);
+        Utils.nonNull(quantizedQuals);
+        Utils.validateArg(isSmallEnough(recalibrationTables), "the recalibration tables are too large to be precomputed");
+
+        final NestedIntegerArray<RecalDatum> readGroupTable = recalibrationTables.getReadGroupTable();
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
+        final List<NestedIntegerArray<RecalDatum>> additionalTables = recalibrationTables.getAdditionalTables();
+        final int numReadGroups = readGroupTable.getDimensions()[0];
+        qualDimension = qualityScoreTable.getDimensions()[1];
+
+        rows = findRows(recalibrationTables);
+        final int numRows = (int) Arrays.stream(rows).filter(row -> row >= 0).count();
+
+        conditionalPriors = new double[numRows];
+        readGroupPriors = new double[numReadGroups];
+        covariateDimensions = additionalTables.stream().mapToInt(table -> table.getDimensions()[2]).toArray();
+        covariateDeltas = new double[additionalTables.size()][];
+        for ( int i = 0; i < additionalTables.size(); i++ ) {
+            covariateDeltas[i] = new double[numRows * covariateDimensions[i]];
+        }
+
+        for ( int rg = 0; rg < numReadGroups; rg++ ) {
+            final RecalDatum empiricalQualRG = readGroupTable.get2Keys(rg, BASE_SUBSTITUTION_INDEX);
+            if ( empiricalQualRG == null ) {
+                // reads of this read group are not recalibrated
+                continue;
+            }
+            // same computation as in BQSRReadTransformer.hierarchicalBayesianQualityEstimate
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            final double globalDeltaQ = empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+            readGroupPriors[rg] = 0.0 + globalDeltaQ + epsilon;
+
+            for ( int qual = 0; qual < qualDimension; qual++ ) {
+                final int row = rows[rg * qualDimension + qual];
+                if ( row < 0 ) {
+                    continue;
+                }
+                final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(rg, qual, BASE_SUBSTITUTION_INDEX);
+                final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+                final double conditionalPrior2 = deltaQReported + globalDeltaQ + epsilon;
+                conditionalPriors[row] = conditionalPrior2;
+
+                for ( int i = 0; i < additionalTables.size(); i++ ) {
+                    for ( int key = 0; key < covariateDimensions[i]; key++ ) {
+                        final RecalDatum empiricalQualCov = additionalTables.get(i).get4Keys(rg, qual, key, BASE_SUBSTITUTION_INDEX);
+                        if ( empiricalQualCov != null ) {
+                            covariateDeltas[i][row * covariateDimensions[i] + key] = empiricalQualCov.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
+                        }
+                    }
+                }
+            }
+        }
+
+        finalQuals = new byte[MAX_RECALIBRATED_Q_SCORE + 1];
+        for ( int qual = 0; qual < finalQuals.length; qual++ ) {
+            final byte quantizedQual = quantizedQuals.get(qual);
+            finalQuals[qual] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+        }
+    }
+
+    /**
+     * Number the (read group, reported quality) pairs that have base substitution data in any of the tables
+     */
+    private static int[] findRows(final RecalibrationTables recalibrationTables) {
+        final int numReadGroups = recalibrationTables.getReadGroupTable().getDimensions()[0];
+        final int qualDimension = recalibrationTables.getQualityScoreTable().getDimensions()[1];
+        final boolean[] hasData = new boolean[numReadGroups * qualDimension];
+        for ( final NestedIntegerArray<RecalDatum> table : recalibrationTables ) {
+            if ( recalibrationTables.isReadGroupTable(table) ) {
+                continue;
+            }
+            final int eventDimension = table.getDimensions().length - 1;
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : table.getAllLeaves() ) {
+                if ( leaf.keys[eventDimension] == BASE_SUBSTITUTION_INDEX ) {
+                    hasData[leaf.keys[0] * qualDimension + leaf.keys[1]] = true;
+                }
+            }
+        }
+
+        final int[] rows = new int[hasData.length];
+        int numRows = 0;
+        for ( int i = 0; i < hasData.length; i++ ) {
+            rows[i] = hasData[i] ? numRows++ : -1;
+        }
+        return rows;
+    }
+
+    /**
+     * @return true if the deltas of these tables fit in {@link #MAX_CELLS}. This is always the case with the default
+     *         covariates, but a large context size can make the context covariate too large.
+     */
+    public static boolean isSmallEnough(final RecalibrationTables recalibrationTables) {
+        Utils.nonNull(recalibrationTables);
+        final int[] rows = findRows(recalibrationTables);
+        final long numRows = Arrays.stream(rows).filter(row -> row >= 0).count();
+        long cells = 0;
+        for ( final NestedIntegerArray<RecalDatum> table : recalibrationTables.getAdditionalTables() ) {
+            cells += numRows * table.getDimensions()[2];
+        }
+        return cells <= MAX_CELLS;
+    }
+
+    /**
+     * Recalibrate a base, exactly like {@link org.broadinstitute.hellbender.transformers.BQSRReadTransformer} does
+     * from the recalibration tables.
+     *
+     * @param keySet covariate keys of the base substitution event of the base, as computed by {@link RecalUtils#computeCovariates}
+     * @return final (recalibrated and quantized) quality of the base. The read group of the base must have data in the read group table.
+     */
+    public byte getRecalibratedQual(final int[] keySet) {
+        final int rg = keySet[0];
+        final int row = rows[rg * qualDimension + keySet[1]];
+        if ( row < 0 ) {
+            return finalQuals[boundQual(fastRound(readGroupPriors[rg]), MAX_RECALIBRATED_Q_SCORE)];
+        }
+
+        double deltaQCovariates = 0.0;
+        for ( int i = 0; i < covariateDeltas.length; i++ ) {
+            // the first two keys are the special covariates
+            final int key = keySet[i + 2];
+            if ( key >= 0 ) {
+                deltaQCovariates += covariateDeltas[i][row * covariateDimensions[i] + key];
+            }
+        }
+        return finalQuals[boundQual(fastRound(conditionalPriors[row] + deltaQCovariates), MAX_RECALIBRATED_Q_SCORE)];
+    }
+}
@@ -34,7 +34,14 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
     private final Map<Covariate, NestedIntegerArray<RecalDatum>> covariateToTable;
     private final Map<NestedIntegerArray<RecalDatum>, Covariate> tableToCovariate;
 
+    /**
+     * Counts collected by {@link BaseRecalibrationEngine} that have not been added to the tables yet, indexed like
+     * {@link #allTables}. Created on first use; the read group table is derived from the quality score table, so it
+     * never has one.
+     */
+    private final FlatRecalibrationTable[] pendingCounts;
 
+    private boolean hasPendingCounts = false;
 
     public RecalibrationTables(final StandardCovariateList covariates) {
         this(covariates, covariates.getReadGroupCovariate().maximumKeyValue() + 1);
@@ -69,9 +76,41 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
             covariateToTable.put(cov, table);
             tableToCovariate.put(table, cov);
         }
+
+        pendingCounts = new FlatRecalibrationTable[allTables.size()];
+    }
+
+    /**
+     * Get the primitive table in which the data of the quality score or additional covariate table at this index
+     * should be accumulated. Its counts are added to the table itself as soon as any of the tables is accessed.
+     */
+    FlatRecalibrationTable getPendingCounts(final int index) {
+        Utils.validateArg(index > 0 && index < allTables.size(), () -> "there are no pending counts for table " + index);
+        if ( pendingCounts[index] == null ) {
+            pendingCounts[index] = new FlatRecalibrationTable(allTables.get(index).getDimensions());
+        }
+        hasPendingCounts = true;
+        return pendingCounts[index];
+    }
+
+    /**
+     * Add all pending counts to the tables, so that they can be read
+     */
+    private void addPendingCounts() {
+        if ( !hasPendingCounts ) {
+            return;
+        }
+        for ( int i = 0; i < pendingCounts.length; i++ ) {
+            if ( pendingCounts[i] != null && !pendingCounts[i].isEmpty() ) {
+                pendingCounts[i].addTo(allTables.get(i));
+                pendingCounts[i].clear();
+            }
+        }
+        hasPendingCounts = false;
     }
 
     public NestedIntegerArray<RecalDatum> getTableForCovariate(Covariate cov) {
+        addPendingCounts();
         return covariateToTable.get(cov);
     }
 
@@ -96,10 +135,12 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
     }
 
     public NestedIntegerArray<RecalDatum> getReadGroupTable() {
+        addPendingCounts();
         return readGroupTable;
     }
 
     public NestedIntegerArray<RecalDatum> getQualityScoreTable() {
+        addPendingCounts();
         return qualityScoreTable;
     }
 
@@ -109,6 +150,7 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
     @Override
     public Iterator<NestedIntegerArray<RecalDatum>> iterator() {
+        addPendingCounts();
         return allTables.iterator();
     }
 
@@ -116,6 +158,7 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
      * @return true if all the tables contain no RecalDatums
      */
     public boolean isEmpty() {
+        addPendingCounts();
         for( final NestedIntegerArray<RecalDatum> table : allTables ) {
             if( !table.getAllValues().isEmpty() ) { return false; }
         }
@@ -138,6 +181,9 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
         if ( numTables() != toMerge.numTables() )
             throw new IllegalArgumentException("Attempting to merge RecalibrationTables with different sizes");
 
+        addPendingCounts();
+        toMerge.addPendingCounts();
+
         for ( int i = 0; i < numTables(); i++ ) {
             final NestedIntegerArray<RecalDatum> myTable = this.allTables.get(i);
             final NestedIntegerArray<RecalDatum> otherTable = toMerge.allTables.get(i);
@@ -180,10 +226,12 @@ public final class RecalibrationTables implements Serializable, Iterable<NestedI
 
     //XXX this should not be accessible by index
     public NestedIntegerArray<RecalDatum> getTable(int index) {
+        addPendingCounts();
         return allTables.get(index);
     }
 
     public List<NestedIntegerArray<RecalDatum>> getAdditionalTables() {
+        addPendingCounts();
         return additionalTables;
     }
 }
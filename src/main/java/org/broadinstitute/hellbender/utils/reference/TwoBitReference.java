@@ -4,7 +4,6 @@ import com.google.common.io.ByteStreams;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.ReferenceSequence;
-import htsjdk.samtools.util.PeekableIterator;
 import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IntervalMergingRule;
@@ -17,7 +16,11 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -25,8 +28,10 @@ import java.util.*;
  *
  *     http://genome.ucsc.edu/FAQ/FAQformat.html#format7
  *
- * Note that this class stores the entire .2bit reference in memory (in packed form) to facilitate
- * Spark broadcasts.
+ * By default this class stores the entire .2bit reference in memory (in packed form) to facilitate
+ * Spark broadcasts. Alternatively, a local .2bit file can be memory-mapped: queries then read the packed
+ * bases directly from the page cache, which is shared by all the threads and processes using the same file,
+ * and only the sequence metadata is kept on the heap.
  *
  * Supported public operations are:
  * {@link #getSequenceDictionary}
@@ -51,12 +56,26 @@ public class TwoBitReference implements Serializable, AutoCloseable {
     // Size of the 2bit header in bytes
     public static final int HEADER_LENGTH_IN_BYTES = 16;
 
+    // A packed byte used as an index into this array will produce the four corresponding bases. The DNA is packed to
+    // two bits per base, represented as so: T - 00, C - 01, A - 10, G - 11. The first base is in the most significant
+    // 2 bits; the last base is in the least significant 2 bits.
+    private static final byte[][] PACKED_BYTE_TO_BASES = new byte[256][4];
+    static {
+        final byte[] twoBitEncodingToBase = { 'T', 'C', 'A', 'G' };
+        for ( int packedByte = 0; packedByte < 256; packedByte++ ) {
+            for ( int i = 0; i < 4; i++ ) {
+                PACKED_BYTE_TO_BASES[packedByte][i] = twoBitEncodingToBase[(packedByte >> (6 - 2 * i)) & 3];
+            }
+        }
+    }
+
     private final GATKPath referencePath;
 
     // If true, preserve lowercase (masked) bases, otherwise uppercase all bases
     private final boolean preserveCase;
 
-    // The complete in-memory contents of the 2bit file. Initialized as read-only in the constructor
+    // The complete contents of the 2bit file, either in memory or memory-mapped. Initialized as read-only in the constructor.
+    // Queries only use absolute reads, so they never modify the state of this buffer and can run concurrently.
     private final ByteBuffer rawBytes;
 
     // Byte order to use, as defined in the 2bit header
@@ -86,6 +105,18 @@ public class TwoBitReference implements Serializable, AutoCloseable {
      * @param preserveCase if true, preserve lowercase (masked) bases, otherwise uppercase all bases
      */
     public TwoBitReference( final GATKPath referencePath, final boolean preserveCase ) {
+        this(referencePath, preserveCase, false);
+    }
+
+    /**
+     * Creates a TwoBitReference, and specifies whether bases should be uppercased and whether the file should be memory-mapped
+     *
+     * @param referencePath path to the 2bit reference
+     * @param preserveCase if true, preserve lowercase (masked) bases, otherwise uppercase all bases
+     * @param memoryMap if true, memory-map the reference instead of loading it into memory. Only files on the default
+     *                  file system can be memory-mapped: other files (eg., on GCS) are always loaded into memory.
+     */
+    public TwoBitReference( final GATKPath referencePath, final boolean preserveCase, final boolean memoryMap ) {
         Utils.nonNull(referencePath);
         Utils.validateArg(referencePath.getURI().getPath().endsWith(TWO_BIT_EXTENSION), "Twobit reference must end with a " + TWO_BIT_EXTENSION + " extension");
 
@@ -107,12 +138,7 @@ public class TwoBitReference implements Serializable, AutoCloseable {
         this.referencePath = referencePath;
         this.preserveCase = preserveCase;
 
-        try {
-            // Load the raw contents of the 2bit file into a read-only in-memory ByteBuffer
-            rawBytes = ByteBuffer.wrap(ByteStreams.toByteArray(referencePath.getInputStream())).asReadOnlyBuffer();
-        } catch ( IOException e ) {
-            throw new UserException.CouldNotReadInputFile(referencePath, "Unable to load bytes from 2bit input file", e);
-        }
+        rawBytes = memoryMap && canMemoryMap(referencePath) ? mapBytes(referencePath) : loadBytes(referencePath);
 
         sequenceRecords = new LinkedHashMap<>();
 
@@ -125,6 +151,34 @@ public class TwoBitReference implements Serializable, AutoCloseable {
         }
     }
 
+    private static boolean canMemoryMap( final GATKPath referencePath ) {
+        return referencePath.toPath().getFileSystem() == FileSystems.getDefault();
+    }
+
+    /**
+     * Load the raw contents of the 2bit file into a read-only in-memory ByteBuffer
+     */
+    private static ByteBuffer loadBytes( final GATKPath referencePath ) {
+        try {
+            return ByteBuffer.wrap(ByteStreams.toByteArray(referencePath.getInputStream())).asReadOnlyBuffer();
+        } catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(referencePath, "Unable to load bytes from 2bit input file", e);
+        }
+    }
+
+    /**
+     * Map the raw contents of the 2bit file into a read-only ByteBuffer. The mapping stays valid after the
+     * channel is closed, and is released when the buffer is garbage collected.
+     */
+    private static ByteBuffer mapBytes( final GATKPath referencePath ) {
+        final Path path = referencePath.toPath();
+        try ( final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch ( IOException e ) {
+            throw new UserException.CouldNotReadInputFile(referencePath, "Unable to memory-map 2bit input file", e);
+        }
+    }
+
     /**
      * Reads the 2bit file header, and sets byte order for the rest of the file
      *
@@ -278,189 +332,93 @@ public class TwoBitReference implements Serializable, AutoCloseable {
                     sequenceRecord.getSequenceName() + " (length " + sequenceRecord.getDNASize() + ")");
         }
 
-        final byte[] sequenceBases = new byte[interval.getLengthOnReference()];
-        final TwoBitBaseDecoder decoder = new TwoBitBaseDecoder(independentBufferView(), sequenceRecord, interval, preserveCase);
-        int baseOffset = 0;
+        final byte[] sequenceBases = decodeBases(sequenceRecord.getSequenceBasesStartOffset(), interval.getStart() - 1, interval.getLengthOnReference());
 
-        while ( decoder.hasNext() ) {
-            if ( baseOffset >= sequenceBases.length ) {
-                throw new IllegalStateException("2bit base decoder returned an unexpected number of bases");
-            }
-
-            sequenceBases[baseOffset] = decoder.next();
-            baseOffset++;
+        // Masked 'N' is not supported, so N blocks are applied last
+        if ( preserveCase ) {
+            forEachOverlap(sequenceRecord.getMaskedBlocks(), interval, (from, to) -> {
+                for ( int i = from; i < to; i++ ) {
+                    sequenceBases[i] = (byte) Character.toLowerCase(sequenceBases[i]);
+                }
+            });
         }
+        forEachOverlap(sequenceRecord.getNBlocks(), interval, (from, to) -> Arrays.fill(sequenceBases, from, to, (byte) 'N'));
 
         return new ReferenceSequence(sequenceRecord.getSequenceName(), sequenceRecord.getSequenceIndex(), sequenceBases);
     }
 
     /**
-     * @return An independent view of the ByteBuffer containing the 2bit file contents, with its own
-     * position, limit, and mark values. The actual bytes in the buffer are not copied.
+     * Decodes packed bases, one packed byte (four bases) at a time
+     *
+     * @param sequenceBasesStartOffset offset of the packed bases of the sequence in the file
+     * @param zeroBasedStart 0-based position of the first base to decode in the sequence
+     * @param length number of bases to decode
+     * @return the decoded (uppercase) bases
      */
-    private ByteBuffer independentBufferView() {
-        final ByteBuffer newView = rawBytes.asReadOnlyBuffer(); // does not duplicate the content, just creates a new view of it
-        newView.order(byteOrder);   // byte order is not preserved by asReadOnlyBuffer()
-        newView.clear();  // resets the position/limit/mark, does not erase the buffer contents
-        return newView;
+    private byte[] decodeBases( final int sequenceBasesStartOffset, final int zeroBasedStart, final int length ) {
+        final byte[] bases = new byte[length];
+        int position = zeroBasedStart;
+        int baseOffset = 0;
+        while ( baseOffset < length ) {
+            final byte[] unpackedBases = PACKED_BYTE_TO_BASES[rawBytes.get(sequenceBasesStartOffset + (position >>> 2)) & 0xFF];
+            for ( int i = position & 3; i < 4 && baseOffset < length; i++ ) {
+                bases[baseOffset++] = unpackedBases[i];
+                position++;
+            }
+        }
+        return bases;
     }
 
-    @Override
-    public void close() {
-        // No-op for now, just here to allow seamless use in Autocloseable contexts.
-        // In a future version that does not store the entire reference in memory, we will need this.
+    @FunctionalInterface
+    private interface BlockOverlapConsumer {
+        /**
+         * @param from 0-based inclusive offset of the overlap in the query
+         * @param to 0-based exclusive end offset of the overlap in the query
+         */
+        void accept( final int from, final int to );
     }
 
     /**
-     * An Iterator that decodes the raw TwoBit reference for a specified interval.
-     * Each interval requires a new Iterator instance.
+     * Calls the consumer with the part of the query covered by each block that overlaps it
+     *
+     * @param blocks sorted, merged blocks on the contig of the query
+     * @param query query interval
      */
-    private static class TwoBitBaseDecoder implements Iterator<Byte>, Iterable<Byte>, Serializable {
-        private static final long serialVersionUID = 1L;
-
-        // A two-bit base encoding used as an index into this array will produce the corresponding base
-        private static final Byte[] twoBitEncodingToBase = { 'T', 'C', 'A', 'G' };
-
-        private final TwoBitSequenceRecord sequenceRecord;
-
-        private final ByteBuffer rawBytes;
-
-        private final SimpleInterval intervalToDecode;
-
-        private final boolean preserveCase;
-
-        // 1-based inclusive genomic position within our sequence's contig
-        private int currentOneBasedGenomicPosition;
-
-        // Raw value of the current packed byte we're positioned on
-        private byte currentByte;
-
-        // 0-based bit offset from the most significant bit in the current byte, marking the start of the next 2bit encoding
-        // Can be 0, 2, 4, or 6
-        private int currentBitOffset;
-
-        // The base that will be returned by the next call to next(), or null if the iteration is complete
-        private Byte nextBase;
-
-        private PeekableIterator<SimpleInterval> nBlockIterator;
-        private PeekableIterator<SimpleInterval> maskedBlockIterator;
-
-        /**
-         * @param rawBytes Raw byte buffer containing the complete TwoBit data. Should be an independent view of the
-         *                 buffer not shared with any other concurrent code.
-         * @param sequenceRecord TwoBitSequenceRecord for the contig we're accessing
-         * @param intervalToDecode Query interval to decode. Must match the TwoBitSequenceRecord's contig.
-         * @param preserveCase If true, preserve lowercase (masked) bases, otherwise convert all bases to uppercase.
-         */
-        public TwoBitBaseDecoder( final ByteBuffer rawBytes, final TwoBitSequenceRecord sequenceRecord, final SimpleInterval intervalToDecode, final boolean preserveCase ) {
-            Utils.validate(intervalToDecode.getEnd() <= sequenceRecord.getDNASize(), "Interval " + intervalToDecode + " ends past the end of contig " + sequenceRecord.getSequenceName());
-            Utils.validate(intervalToDecode.getContig().equals(sequenceRecord.getSequenceName()), "Interval " + intervalToDecode + " is on the wrong contig for sequence " + sequenceRecord.getSequenceName());
-
-            this.sequenceRecord = sequenceRecord;
-            this.intervalToDecode = intervalToDecode;
-            this.preserveCase = preserveCase;
-
-            this.currentOneBasedGenomicPosition = intervalToDecode.getStart();
-            this.rawBytes = rawBytes;
-            rawBytes.position(sequenceRecord.getSequenceBasesStartOffset() + ((currentOneBasedGenomicPosition - 1) / 4));
-            this.currentByte = rawBytes.get();
-            this.currentBitOffset = ((currentOneBasedGenomicPosition - 1) % 4) * 2;
-
-            nBlockIterator = new PeekableIterator<>(sequenceRecord.getNBlocks().iterator());
-            maskedBlockIterator = new PeekableIterator<>(sequenceRecord.getMaskedBlocks().iterator());
-            advanceBlockIterators();
-
-            loadNextBase();
-        }
-
-        @Override
-        public Iterator<Byte> iterator() {
-            return this;
-        }
-
-        @Override
-        public boolean hasNext() {
-            return nextBase != null;
-        }
-
-        @Override
-        public Byte next() {
-            if ( ! hasNext() ) {
-                throw new NoSuchElementException("next() called when iterator exhausted");
-            }
-
-            Byte toReturn = nextBase;
-            loadNextBase();
-            return toReturn;
-        }
-
-        private void loadNextBase() {
-            if ( iterationComplete() ) {
-                nextBase = null;
-                return;
-            }
-
-            nextBase = decodeBaseAtCurrentPosition();
-            if ( isPositionedAtNBase() ) {
-                nextBase = 'N';
-            } else if ( isPositionedAtMaskedBase() && preserveCase ) {   // Masked 'N' is not supported
-                nextBase = (byte) Character.toLowerCase(nextBase);
+    private static void forEachOverlap( final List<SimpleInterval> blocks, final SimpleInterval query, final BlockOverlapConsumer consumer ) {
+        // Merged blocks don't overlap, so their ends are sorted as well: find the first one that does not end before the query
+        int low = 0;
+        int high = blocks.size();
+        while ( low < high ) {
+            final int mid = (low + high) >>> 1;
+            if ( blocks.get(mid).getEnd() < query.getStart() ) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
-
-            advancePosition();
         }
 
-        private Byte decodeBaseAtCurrentPosition() {
-            // The DNA is packed to two bits per base, represented as so: T - 00, C - 01, A - 10, G - 11.
-            // The first base is in the most significant 2-bit byte; the last base is in the least significant 2 bits.
-            return twoBitEncodingToBase[(currentByte >> (6 - currentBitOffset)) & 3];
-        }
-
-        private boolean iterationComplete() {
-            return currentOneBasedGenomicPosition > intervalToDecode.getEnd();
-        }
-
-        private void advancePosition() {
-            currentOneBasedGenomicPosition++;
-            if ( iterationComplete() ) {
-                return;
-            }
-
-            // Bit offsets can be 0, 2, 4, or 6, corresponding to the start bit for each of the four bases encoded in a byte
-            if ( currentBitOffset <= 4 ) {
-                currentBitOffset += 2;
-            } else {    // Advance to the next full byte
-                currentByte = rawBytes.get();
-                currentBitOffset = 0;
-            }
-
-            advanceBlockIterators();
-        }
-
-        private void advanceBlockIterators() {
-            advanceBlockIterator(nBlockIterator);
-            advanceBlockIterator(maskedBlockIterator);
-        }
-
-        private void advanceBlockIterator( final PeekableIterator<SimpleInterval> iterator ) {
-            while ( iterator.hasNext() && iterator.peek().getEnd() < currentOneBasedGenomicPosition ) {
-                iterator.next(); // we've passed this interval on the genome, so discard it
-            }
-        }
-
-        private boolean isPositionedAtNBase() {
-            final SimpleInterval currentNBlock = nBlockIterator.peek();
-
-            return currentNBlock != null && currentNBlock.getStart() <= currentOneBasedGenomicPosition &&
-                    currentNBlock.getEnd() >= currentOneBasedGenomicPosition;
+        for ( int i = low; i < blocks.size() && blocks.get(i).getStart() <= query.getEnd(); i++ ) {
+            final SimpleInterval block = blocks.get(i);
+            consumer.accept(Math.max(block.getStart(), query.getStart()) - query.getStart(),
+                    Math.min(block.getEnd(), query.getEnd()) - query.getStart() + 1);
         }
+    }
 
-        private boolean isPositionedAtMaskedBase() {
-            final SimpleInterval currentMaskedBlock = maskedBlockIterator.peek();
+    /**
+     * @return An independent view of the ByteBuffer containing the 2bit file contents, with its own
+     * position, limit, and mark values. The actual bytes in the buffer are not copied.
+     */
+    private ByteBuffer independentBufferView() {
+        final ByteBuffer newView = rawBytes.asReadOnlyBuffer(); // does not duplicate the content, just creates a new view of it
+        newView.order(byteOrder);   // byte order is not preserved by asReadOnlyBuffer()
+        newView.clear();  // resets the position/limit/mark, does not erase the buffer contents
+        return newView;
+    }
 
-            return currentMaskedBlock != null && currentMaskedBlock.getStart() <= currentOneBasedGenomicPosition &&
-                    currentMaskedBlock.getEnd() >= currentOneBasedGenomicPosition;
-        }
+    @Override
+    public void close() {
+        // No-op, just here to allow seamless use in Autocloseable contexts.
+        // A memory-mapped reference can't be unmapped explicitly, and is unmapped when it is garbage collected.
     }
 
     /**
@@ -0,0 +1,192 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on a fixed pool of daemon threads, each task using whichever of a set of workers is idle, and returns
+ * their results in submission order.
+ *
+ * A worker is an object that must not be used by more than one thread at a time (eg. an engine with its own caches and
+ * readers): there is one thread per worker, and a task has exclusive use of its worker while it runs. The number of
+ * pending tasks (submitted, and whose results have not been taken yet) is bounded, so that memory usage stays
+ * proportional to the number of workers: {@link #submit} blocks while the pool {@link #isFull}.
+ *
+ * Tasks may be submitted and results taken from the same thread, as long as that thread takes a result whenever the
+ * pool is full, or from one producer and one consumer thread.
+ *
+ * @param <W> type of the workers
+ * @param <T> type of the results of the tasks
+ */
+public final class OrderedWorkerPool<W, T> implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(OrderedWorkerPool.class);
+
+    /**
+     * How long closing a pool waits for its threads to terminate
+     */
+    public static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    /**
+     * A task run with exclusive use of a worker
+     */
+    @FunctionalInterface
+    public interface Task<W, T> {
+        T run(W worker) throws Exception;
+    }
+
+    private final String description;
+
+    private final ExecutorService executorService;
+
+    private final BlockingQueue<W> idleWorkers;
+
+    private final BlockingQueue<Future<T>> pendingTasks;
+
+    /**
+     * @param threadNameFormat format of the names of the threads, eg. "my-thread-%d"
+     * @param description what the tasks do, used in log and error messages, eg. "calling assembly regions"
+     * @param workers the workers, one per thread
+     * @param maxPendingTasks maximum number of pending tasks, must be positive
+     */
+    public OrderedWorkerPool(final String threadNameFormat, final String description, final List<? extends W> workers, final int maxPendingTasks) {
+        Utils.nonNull(threadNameFormat);
+        this.description = Utils.nonNull(description);
+        Utils.nonEmpty(workers, "at least one worker is required");
+        Utils.validateArg(maxPendingTasks > 0, () -> "the maximum number of pending tasks must be positive but was " + maxPendingTasks);
+        idleWorkers = new ArrayBlockingQueue<>(workers.size(), false, workers);
+        pendingTasks = new ArrayBlockingQueue<>(maxPendingTasks);
+        executorService = newDaemonThreadPool(workers.size(), threadNameFormat);
+    }
+
+    /**
+     * @return a fixed thread pool of daemon threads, named with threadNameFormat
+     */
+    public static ExecutorService newDaemonThreadPool(final int numThreads, final String threadNameFormat) {
+        return Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build());
+    }
+
+    /**
+     * Shut down an executor and wait up to {@link #SHUTDOWN_TIMEOUT_SECONDS} for its threads to terminate, logging a
+     * warning if they don't.
+     *
+     * @param interrupt whether to interrupt the running tasks. Tasks blocked reading a file should not be interrupted,
+     *                  since that closes the underlying channel.
+     * @param threadsDescription description of the threads for the warning, eg. "the read prefetching thread"
+     */
+    public static void shutdownAndAwaitTermination(final ExecutorService executorService, final boolean interrupt, final String threadsDescription) {
+        if ( interrupt ) {
+            executorService.shutdownNow();
+        } else {
+            executorService.shutdown();
+        }
+        try {
+            if ( !executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS) ) {
+                logger.warn("Timed out waiting for " + threadsDescription + " to terminate");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Run a task on the pool, once there is room for it.
+     *
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public void submit(final Task<W, T> task) throws InterruptedException {
+        Utils.nonNull(task);
+        pendingTasks.put(executorService.submit(() -> {
+            final W worker = idleWorkers.take();
+            try {
+                return task.run(worker);
+            } finally {
+                idleWorkers.put(worker);
+            }
+        }));
+    }
+
+    /**
+     * Add a result in submission order without running a task, eg. to mark the end of a stream of results
+     *
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public void addResult(final T result) throws InterruptedException {
+        pendingTasks.put(CompletableFuture.completedFuture(result));
+    }
+
+    /**
+     * Add a failure in submission order without running a task: {@link #takeResult} will throw it instead of returning
+     * a result
+     *
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public void addFailure(final Throwable error) throws InterruptedException {
+        final CompletableFuture<T> failure = new CompletableFuture<>();
+        failure.completeExceptionally(Utils.nonNull(error));
+        pendingTasks.put(failure);
+    }
+
+    /**
+     * @return true if a task can't be submitted until a result has been taken
+     */
+    public boolean isFull() {
+        return pendingTasks.remainingCapacity() == 0;
+    }
+
+    /**
+     * @return true if there is a pending task
+     */
+    public boolean hasPendingTasks() {
+        return !pendingTasks.isEmpty();
+    }
+
+    /**
+     * @return true if the result of the oldest pending task is available without waiting
+     */
+    public boolean isNextResultReady() {
+        final Future<T> next = pendingTasks.peek();
+        return next != null && next.isDone();
+    }
+
+    /**
+     * Wait for the oldest pending task, or for a task to be submitted if there is none, and return its result.
+     * Runtime exceptions thrown by the task are rethrown as is.
+     */
+    public T takeResult() {
+        try {
+            return pendingTasks.take().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while " + description, e);
+        } catch (final ExecutionException e) {
+            if ( e.getCause() instanceof RuntimeException ) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Error " + description, e.getCause());
+        }
+    }
+
+    /**
+     * Cancel the pending tasks and stop the threads, interrupting the running tasks. Results that have not been taken
+     * are discarded.
+     */
+    @Override
+    public void close() {
+        pendingTasks.forEach(task -> task.cancel(true));
+        shutdownAndAwaitTermination(executorService, true, "the threads " + description);
+        pendingTasks.clear();
+    }
+}
@@ -0,0 +1,46 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.utils.Utils;
+
+/**
+ * A {@link SmithWatermanAligner} that looks alignments up in a {@link SmithWatermanAlignmentCache} before delegating
+ * to another aligner, such as a {@link SmithWatermanJavaAligner} or a {@link SmithWatermanIntelAligner}.
+ *
+ * This only pays off for alignments that are repeated, such as those of assembled haplotypes against the reference of
+ * an active region. Reads are essentially never realigned to the same haplotype twice and should not go through a cache.
+ */
+public final class CachingSmithWatermanAligner implements SmithWatermanAligner {
+    private final SmithWatermanAligner aligner;
+    private final SmithWatermanAlignmentCache cache;
+
+    /**
+     * @param aligner aligner used to compute the alignments that are not in the cache
+     * @param cache cache to use, which may be shared with other aligners
+     */
+    public CachingSmithWatermanAligner(final SmithWatermanAligner aligner, final SmithWatermanAlignmentCache cache) {
+        this.aligner = Utils.nonNull(aligner);
+        this.cache = Utils.nonNull(cache);
+    }
+
+    @Override
+    public SmithWatermanAlignment align(final byte[] ref, final byte[] alt, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final SmithWatermanAlignmentCache.Key key = SmithWatermanAlignmentCache.makeKey(ref, alt, parameters, overhangStrategy);
+        final SmithWatermanAlignment cached = cache.get(key);
+        if ( cached != null ) {
+            return cached;
+        }
+        final SmithWatermanAlignment alignment = aligner.align(ref, alt, parameters, overhangStrategy);
+        cache.put(key, alignment);
+        return alignment;
+    }
+
+    /**
+     * Close the underlying aligner. The cache is left open, since it may be shared.
+     */
+    @Override
+    public void close() {
+        aligner.close();
+    }
+}
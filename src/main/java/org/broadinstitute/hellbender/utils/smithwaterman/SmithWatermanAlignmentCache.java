@@ -0,0 +1,325 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bounded, content-addressed cache of Smith-Waterman alignments, shared by any number of {@link CachingSmithWatermanAligner}s.
+ *
+ * Alignments are keyed by a SHA-256 digest of the reference bases, the alternate bases, the alignment parameters and the
+ * overhang strategy, so they do not depend on the aligner implementation that computed them (all implementations return
+ * the same alignments). When the cache is full the least recently used alignment is evicted.
+ *
+ * The cache can optionally be backed by a file: the alignments it contains are loaded when the cache is created and
+ * written back, most recently used last, by {@link #close}. This lets runs over the same loci (eg. the samples of a
+ * cohort, which mostly assemble the same haplotypes) reuse each other's alignments.
+ *
+ * All methods are thread-safe.
+ */
+public final class SmithWatermanAlignmentCache implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SmithWatermanAlignmentCache.class);
+
+    private static final String FILE_MAGIC = "GATKSWC1";
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final int DIGEST_LENGTH = 32;
+
+    private static final SWOverhangStrategy[] OVERHANG_STRATEGIES = SWOverhangStrategy.values();
+
+    /**
+     * Key of an alignment. The reference is only stored as a digest since it is usually much longer than the alternate.
+     */
+    static final class Key {
+        private final byte[] referenceDigest;
+        private final byte[] alternate;
+        private final int[] parameters;
+        private final int hashCode;
+
+        private Key(final byte[] referenceDigest, final byte[] alternate, final int[] parameters) {
+            this.referenceDigest = referenceDigest;
+            this.alternate = alternate;
+            this.parameters = parameters;
+            this.hashCode = 31 * (31 * Arrays.hashCode(referenceDigest) + Arrays.hashCode(alternate)) + Arrays.hashCode(parameters);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !(o instanceof Key) ) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hashCode == other.hashCode && Arrays.equals(referenceDigest, other.referenceDigest) &&
+                    Arrays.equals(alternate, other.alternate) && Arrays.equals(parameters, other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Immutable alignment stored in the cache. A new {@link Cigar} is returned each time, since Cigars are mutable.
+     */
+    private static final class CachedAlignment implements SmithWatermanAlignment {
+        private final List<CigarElement> cigarElements;
+        private final int alignmentOffset;
+
+        private CachedAlignment(final List<CigarElement> cigarElements, final int alignmentOffset) {
+            this.cigarElements = Collections.unmodifiableList(cigarElements);
+            this.alignmentOffset = alignmentOffset;
+        }
+
+        @Override
+        public Cigar getCigar() {
+            return new Cigar(cigarElements);
+        }
+
+        @Override
+        public int getAlignmentOffset() {
+            return alignmentOffset;
+        }
+    }
+
+    private final int maxEntries;
+
+    private final Path cacheFile;
+
+    private final LinkedHashMap<Key, CachedAlignment> alignments;
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private long evictions = 0;
+
+    private boolean closed = false;
+
+    /**
+     * @param maxEntries maximum number of alignments to keep, must be positive
+     * @param cacheFile file to load the cache from if it exists, and to save it to when the cache is closed; may be null
+     */
+    public SmithWatermanAlignmentCache(final int maxEntries, final Path cacheFile) {
+        Utils.validateArg(maxEntries > 0, () -> "the size of the Smith-Waterman cache must be positive but was " + maxEntries);
+        this.maxEntries = maxEntries;
+        this.cacheFile = cacheFile;
+        // access-ordered, so that iteration goes from the least to the most recently used alignment
+        this.alignments = new LinkedHashMap<Key, CachedAlignment>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, CachedAlignment> eldest) {
+                if ( size() > SmithWatermanAlignmentCache.this.maxEntries ) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        if ( cacheFile != null && Files.exists(cacheFile) ) {
+            load(cacheFile);
+        }
+    }
+
+    /**
+     * Compute the key of an alignment. Keys are computed outside of the cache lock since hashing the reference is the
+     * most expensive part of a lookup.
+     */
+    static Key makeKey(final byte[] reference, final byte[] alternate, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        Utils.nonNull(reference);
+        Utils.nonNull(alternate);
+        Utils.nonNull(parameters);
+        Utils.nonNull(overhangStrategy);
+        final int[] keyParameters = {parameters.getMatchValue(), parameters.getMismatchPenalty(),
+                parameters.getGapOpenPenalty(), parameters.getGapExtendPenalty(), overhangStrategy.ordinal()};
+        return new Key(newDigest().digest(reference), alternate.clone(), keyParameters);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new GATKException(DIGEST_ALGORITHM + " is not supported by this JVM", e);
+        }
+    }
+
+    /**
+     * @return the cached alignment for this key, or null if there is none
+     */
+    synchronized SmithWatermanAlignment get(final Key key) {
+        final CachedAlignment alignment = alignments.get(key);
+        if ( alignment == null ) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return alignment;
+    }
+
+    /**
+     * Add an alignment to the cache, evicting the least recently used one if the cache is full
+     */
+    synchronized void put(final Key key, final SmithWatermanAlignment alignment) {
+        Utils.nonNull(alignment);
+        alignments.put(key, new CachedAlignment(new ArrayList<>(alignment.getCigar().getCigarElements()), alignment.getAlignmentOffset()));
+    }
+
+    public synchronized int size() {
+        return alignments.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return fraction of the lookups that found an alignment in the cache, 0 if there was no lookup
+     */
+    public synchronized double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private void load(final Path file) {
+        try ( final DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file)))) ) {
+            final byte[] magic = new byte[FILE_MAGIC.length()];
+            in.readFully(magic);
+            if ( !FILE_MAGIC.equals(new String(magic, StandardCharsets.US_ASCII)) ) {
+                throw new UserException.MalformedFile(file, "not a Smith-Waterman cache file");
+            }
+            final int numEntries = in.readInt();
+            for ( int i = 0; i < numEntries; i++ ) {
+                final byte[] referenceDigest = new byte[DIGEST_LENGTH];
+                in.readFully(referenceDigest);
+                final byte[] alternate = new byte[in.readInt()];
+                in.readFully(alternate);
+                final int[] parameters = new int[5];
+                for ( int j = 0; j < parameters.length; j++ ) {
+                    parameters[j] = in.readInt();
+                }
+                if ( parameters[4] < 0 || parameters[4] >= OVERHANG_STRATEGIES.length ) {
+                    throw new UserException.MalformedFile(file, "invalid overhang strategy " + parameters[4]);
+                }
+                final int alignmentOffset = in.readInt();
+                final int numElements = in.readInt();
+                final List<CigarElement> elements = new ArrayList<>(numElements);
+                for ( int j = 0; j < numElements; j++ ) {
+                    final int length = in.readInt();
+                    elements.add(new CigarElement(length, CigarOperator.characterToEnum(in.readByte())));
+                }
+                // entries are stored least recently used first, so they keep their order
+                alignments.put(new Key(referenceDigest, alternate, parameters), new CachedAlignment(elements, alignmentOffset));
+            }
+        } catch (final IOException | IllegalArgumentException e) {
+            throw new UserException.CouldNotReadInputFile(file, "could not load the Smith-Waterman cache", e);
+        }
+        evictions = 0;
+        logger.info("Loaded " + alignments.size() + " Smith-Waterman alignments from " + file.toUri());
+    }
+
+    /**
+     * Write the cache to a temporary file next to the cache file, then move it into place, so that a failed or
+     * concurrent run never leaves a truncated cache behind. Each run writes its own temporary file, and the last one
+     * to finish replaces the cache.
+     */
+    private void save(final Path file) {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try ( final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile)))) ) {
+                out.write(FILE_MAGIC.getBytes(StandardCharsets.US_ASCII));
+                out.writeInt(alignments.size());
+                for ( final Map.Entry<Key, CachedAlignment> entry : alignments.entrySet() ) {
+                    final Key key = entry.getKey();
+                    out.write(key.referenceDigest);
+                    out.writeInt(key.alternate.length);
+                    out.write(key.alternate);
+                    for ( final int parameter : key.parameters ) {
+                        out.writeInt(parameter);
+                    }
+                    out.writeInt(entry.getValue().alignmentOffset);
+                    out.writeInt(entry.getValue().cigarElements.size());
+                    for ( final CigarElement element : entry.getValue().cigarElements ) {
+                        out.writeInt(element.getLength());
+                        out.writeByte(CigarOperator.enumToCharacter(element.getOperator()));
+                    }
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(file.toUri().toString(), "could not save the Smith-Waterman cache", e);
+        } finally {
+            deleteIfExists(tempFile);
+        }
+        logger.info("Saved " + alignments.size() + " Smith-Waterman alignments to " + file.toUri());
+    }
+
+    /**
+     * Delete a temporary file left behind by a failed save, if any
+     */
+    private static void deleteIfExists(final Path tempFile) {
+        if ( tempFile != null ) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (final IOException e) {
+                logger.warn("Could not delete the temporary Smith-Waterman cache file " + tempFile.toUri(), e);
+            }
+        }
+    }
+
+    /**
+     * Log the hit rate of the cache and save it to its file, if it has one. Further calls have no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if ( closed ) {
+            return;
+        }
+        closed = true;
+        logger.info(String.format("Smith-Waterman cache: %d hits, %d misses (%.2f%% hit rate), %d evictions, %d alignments cached",
+                hits, misses, 100.0 * getHitRate(), evictions, alignments.size()));
+        if ( cacheFile != null ) {
+            save(cacheFile);
+        }
+    }
+}
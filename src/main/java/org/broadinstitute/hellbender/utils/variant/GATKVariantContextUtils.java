@@ -26,9 +26,11 @@ import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypesCache;
 import org.broadinstitute.hellbender.utils.*;
 import org.broadinstitute.hellbender.utils.genotyper.GenotypePriorCalculator;
 import org.broadinstitute.hellbender.utils.haplotype.Event;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.ParallelBlockCompressedVCFWriter;
 
 import java.io.Serializable;
 import java.nio.file.Path;
@@ -97,6 +99,13 @@ public final class GATKVariantContextUtils {
     {
         Utils.nonNull(outPath);
 
+        final int compressionThreads = ParallelBlockCompressedOutputStream.getDefaultCompressionThreads();
+        if (compressionThreads > 0 && !createMD5 &&
+                VariantContextWriterBuilder.determineOutputTypeFromFile(outPath) == VariantContextWriterBuilder.OutputType.BLOCK_COMPRESSED_VCF) {
+            final boolean createIndex = Arrays.asList(options).contains(Options.INDEX_ON_THE_FLY);
+            return new ParallelBlockCompressedVCFWriter(outPath, createIndex ? referenceDictionary : null, compressionThreads, options);
+        }
+
         VariantContextWriterBuilder vcWriterBuilder =
                 new VariantContextWriterBuilder().clearOptions().setOutputPath(outPath);
 
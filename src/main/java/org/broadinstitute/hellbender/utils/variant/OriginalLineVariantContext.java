@@ -0,0 +1,48 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.List;
+
+/**
+ * A {@link VariantContext} decoded from a line of a VCF file, which keeps that line so that writers can re-emit the
+ * record as is instead of encoding it again (see {@link org.broadinstitute.hellbender.utils.variant.writers.PassThroughVCFWriter}).
+ *
+ * Since VariantContexts are immutable, and any modification of a record (through a
+ * {@link htsjdk.variant.variantcontext.VariantContextBuilder}) produces a plain VariantContext, an instance of this
+ * class always holds the data of its original line.
+ */
+public final class OriginalLineVariantContext extends VariantContext {
+    private static final long serialVersionUID = 1L;
+
+    private final String originalLine;
+
+    private final List<String> originalSamples;
+
+    /**
+     * @param decoded the variant decoded from originalLine
+     * @param originalLine the line of text of the record, without the line terminator
+     * @param originalSamples the samples of the header of the source of the line, in the order of its columns
+     */
+    public OriginalLineVariantContext(final VariantContext decoded, final String originalLine, final List<String> originalSamples) {
+        super(Utils.nonNull(decoded));
+        this.originalLine = Utils.nonNull(originalLine);
+        this.originalSamples = Utils.nonNull(originalSamples);
+    }
+
+    /**
+     * @return the line of text this record was decoded from, without the line terminator
+     */
+    public String getOriginalLine() {
+        return originalLine;
+    }
+
+    /**
+     * @return the samples of the sample columns of the original line. Writers can only re-emit the line as is
+     *         if their header has the same samples, in the same order.
+     */
+    public List<String> getOriginalSamples() {
+        return originalSamples;
+    }
+}
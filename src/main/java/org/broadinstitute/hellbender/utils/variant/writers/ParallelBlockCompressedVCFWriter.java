@@ -0,0 +1,101 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
+import org.broadinstitute.hellbender.utils.io.PendingPositionIndexCreator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writer of block-compressed VCF files whose blocks are compressed in parallel, by a
+ * {@link ParallelBlockCompressedOutputStream}. The records are formatted by the htsjdk VCF writer, which writes each
+ * record to the stream as it is added, and the tabix index is built from the pending positions of the records.
+ */
+public final class ParallelBlockCompressedVCFWriter implements VariantContextWriter {
+    private final Path outPath;
+    private final ParallelBlockCompressedOutputStream outputStream;
+    private final PendingPositionIndexCreator indexCreator;
+    private final VariantContextWriter writer;
+
+    /**
+     * @param outPath output path of a block-compressed VCF
+     * @param indexDictionary sequence dictionary used to create a tabix index of the output, or null to not create an index
+     * @param numThreads number of compression threads
+     * @param options options of the htsjdk VCF writer. {@link Options#INDEX_ON_THE_FLY} is ignored, use indexDictionary instead.
+     */
+    public ParallelBlockCompressedVCFWriter(final Path outPath, final SAMSequenceDictionary indexDictionary, final int numThreads, final Options... options) {
+        this.outPath = Utils.nonNull(outPath);
+        try {
+            this.outputStream = new ParallelBlockCompressedOutputStream(Files.newOutputStream(outPath), outPath.toUri().toString(),
+                    BlockCompressedOutputStream.getDefaultCompressionLevel(), numThreads);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outPath.toUri().toString(), "Error creating VCF output", e);
+        }
+        this.indexCreator = indexDictionary == null ? null :
+                new PendingPositionIndexCreator(new TabixIndexCreator(indexDictionary, TabixFormat.VCF), outputStream);
+
+        final VariantContextWriterBuilder builder = new VariantContextWriterBuilder().clearOptions().setOutputVCFStream(outputStream);
+        for (final Options option : options) {
+            if (option != Options.INDEX_ON_THE_FLY) {
+                builder.setOption(option);
+            }
+        }
+        this.writer = builder.build();
+    }
+
+    @Override
+    public void writeHeader(final VCFHeader header) {
+        writer.writeHeader(header);
+    }
+
+    @Override
+    public void setHeader(final VCFHeader header) {
+        writer.setHeader(header);
+    }
+
+    @Override
+    public void add(final VariantContext vc) {
+        if (indexCreator != null) {
+            try {
+                indexCreator.addFeature(vc);
+            } catch (final IOException e) {
+                throw new GATKException("Error writing to " + outPath.toUri(), e);
+            }
+        }
+        writer.add(vc);
+    }
+
+    @Override
+    public boolean checkError() {
+        return writer.checkError();
+    }
+
+    @Override
+    public void close() {
+        final long finalPendingPosition = outputStream.getPosition();
+        writer.close();
+        try {
+            outputStream.close(); // writes the remaining blocks and the terminator block, if the writer didn't
+            if (indexCreator != null) {
+                final Index index = indexCreator.finalizeIndex(finalPendingPosition);
+                index.writeBasedOnFeaturePath(outPath);
+            }
+        } catch (final IOException e) {
+            throw new GATKException("Error closing " + outPath.toUri(), e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.FileExtensions;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexCreator;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VCFEncoder;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
+import org.broadinstitute.hellbender.utils.io.PendingPositionIndexCreator;
+import org.broadinstitute.hellbender.utils.variant.OriginalLineVariantContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writer of block-compressed VCF files that copies the records that were read from a VCF and not modified as is,
+ * instead of encoding them again, which is most of the cost of writing records with many samples.
+ *
+ * Records are copied when they are {@link OriginalLineVariantContext}s (see
+ * {@link org.broadinstitute.hellbender.utils.codecs.VCFLineRetainingCodec}), and the header of this writer has the
+ * same samples as the header of their source. Any other record is encoded as usual. The header is written by the
+ * htsjdk VCF writer, so the output only differs from that of the usual writer in the formatting of the copied
+ * records (eg. the order of their INFO fields, or the precision of their QUAL).
+ */
+public final class PassThroughVCFWriter implements VariantContextWriter {
+    private static final Logger logger = LogManager.getLogger(PassThroughVCFWriter.class);
+
+    private static final byte NEWLINE = '\n';
+
+    private final Path outPath;
+    private final OutputStream outputStream;
+    private final BlockCompressedOutputStream bcos; // same object as outputStream, null if blocks are compressed in parallel
+    private final IndexCreator indexCreator;
+    private final ParallelBlockCompressedOutputStream parallelBcos; // same object as outputStream, null otherwise
+    private final PendingPositionIndexCreator pendingPositionIndexCreator;
+    private final boolean allowMissingFieldsInHeader;
+
+    private VCFHeader header;
+    private VCFEncoder encoder;
+
+    /**
+     * The samples of the source of the most recent record that was copied, which (by identity) are known to match
+     * those of our header
+     */
+    private List<String> lastMatchingSamples;
+
+    private long numCopiedRecords = 0;
+    private long numEncodedRecords = 0;
+
+    /**
+     * @param outPath output path, must be a block-compressed VCF (see {@link #canWrite})
+     * @param indexDictionary sequence dictionary used to create a tabix index of the output, or null to not create an index
+     * @param allowMissingFieldsInHeader if true, records with fields that are not defined in the header can be encoded
+     */
+    public PassThroughVCFWriter(final Path outPath, final SAMSequenceDictionary indexDictionary, final boolean allowMissingFieldsInHeader) {
+        Utils.nonNull(outPath);
+        Utils.validateArg(canWrite(outPath), () -> "Not a block-compressed VCF output: " + outPath.toUri());
+        this.outPath = outPath;
+        this.allowMissingFieldsInHeader = allowMissingFieldsInHeader;
+        final OutputStream fileStream;
+        try {
+            fileStream = Files.newOutputStream(outPath);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outPath.toUri().toString(), "Error creating VCF output", e);
+        }
+        final int compressionThreads = ParallelBlockCompressedOutputStream.getDefaultCompressionThreads();
+        if (compressionThreads > 0) {
+            this.bcos = null;
+            this.indexCreator = null;
+            this.parallelBcos = new ParallelBlockCompressedOutputStream(fileStream, outPath.toUri().toString(),
+                    BlockCompressedOutputStream.getDefaultCompressionLevel(), compressionThreads);
+            this.pendingPositionIndexCreator = indexDictionary == null ? null :
+                    new PendingPositionIndexCreator(new TabixIndexCreator(indexDictionary, TabixFormat.VCF), parallelBcos);
+            this.outputStream = parallelBcos;
+        } else {
+            this.bcos = new BlockCompressedOutputStream(fileStream, outPath);
+            this.indexCreator = indexDictionary == null ? null : new TabixIndexCreator(indexDictionary, TabixFormat.VCF);
+            this.parallelBcos = null;
+            this.pendingPositionIndexCreator = null;
+            this.outputStream = bcos;
+        }
+    }
+
+    /**
+     * @return true if this writer can write to outPath, ie. if it has a block-compressed VCF extension
+     */
+    public static boolean canWrite(final Path outPath) {
+        return outPath.getFileName().toString().endsWith(FileExtensions.COMPRESSED_VCF);
+    }
+
+    @Override
+    public void writeHeader(final VCFHeader header) {
+        setHeader(header);
+        // let htsjdk format the header, so that it is the same as that of the usual writer
+        final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        final VariantContextWriterBuilder headerWriterBuilder = new VariantContextWriterBuilder().clearOptions().setOutputVCFStream(headerBytes);
+        if (allowMissingFieldsInHeader) {
+            headerWriterBuilder.setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+        }
+        try (final VariantContextWriter headerWriter = headerWriterBuilder.build()) {
+            headerWriter.writeHeader(header);
+        }
+        write(headerBytes.toByteArray());
+    }
+
+    @Override
+    public void setHeader(final VCFHeader header) {
+        Utils.validate(this.header == null, "Cannot redefine header");
+        this.header = Utils.nonNull(header);
+        this.encoder = new VCFEncoder(header, allowMissingFieldsInHeader, false);
+    }
+
+    @Override
+    public void add(final VariantContext vc) {
+        Utils.nonNull(vc);
+        Utils.validate(header != null, "The header must be set before adding variants");
+        if (indexCreator != null) {
+            indexCreator.addFeature(vc, bcos.getPosition());
+        } else if (pendingPositionIndexCreator != null) {
+            try {
+                pendingPositionIndexCreator.addFeature(vc);
+            } catch (final IOException e) {
+                throw new GATKException("Error writing to " + outPath.toUri(), e);
+            }
+        }
+        final String line;
+        if (canCopy(vc)) {
+            line = ((OriginalLineVariantContext) vc).getOriginalLine();
+            numCopiedRecords++;
+        } else {
+            line = encoder.encode(vc);
+            numEncodedRecords++;
+        }
+        write(line.getBytes(StandardCharsets.UTF_8));
+        write(NEWLINE);
+    }
+
+    private boolean canCopy(final VariantContext vc) {
+        if (!(vc instanceof OriginalLineVariantContext)) {
+            return false;
+        }
+        final List<String> samples = ((OriginalLineVariantContext) vc).getOriginalSamples();
+        if (samples != lastMatchingSamples) {
+            if (!samples.equals(header.getGenotypeSamples())) {
+                return false;
+            }
+            lastMatchingSamples = samples;
+        }
+        return true;
+    }
+
+    private void write(final byte[] bytes) {
+        try {
+            outputStream.write(bytes);
+        } catch (final IOException e) {
+            throw new GATKException("Error writing to " + outPath.toUri(), e);
+        }
+    }
+
+    private void write(final byte b) {
+        try {
+            outputStream.write(b);
+        } catch (final IOException e) {
+            throw new GATKException("Error writing to " + outPath.toUri(), e);
+        }
+    }
+
+    /**
+     * @return the number of records that were copied from their original line so far
+     */
+    public long getNumCopiedRecords() {
+        return numCopiedRecords;
+    }
+
+    /**
+     * @return the number of records that had to be encoded so far
+     */
+    public long getNumEncodedRecords() {
+        return numEncodedRecords;
+    }
+
+    @Override
+    public boolean checkError() {
+        // errors are thrown as soon as they occur
+        return false;
+    }
+
+    @Override
+    public void close() {
+        try {
+            final long finalPendingPosition = parallelBcos != null ? parallelBcos.getPosition() : 0;
+            outputStream.close(); // do this first so that the timestamp on the index will be later
+            if (indexCreator != null) {
+                final Index index = indexCreator.finalizeIndex(bcos.getPosition());
+                index.writeBasedOnFeaturePath(outPath);
+            } else if (pendingPositionIndexCreator != null) {
+                final Index index = pendingPositionIndexCreator.finalizeIndex(finalPendingPosition);
+                index.writeBasedOnFeaturePath(outPath);
+            }
+        } catch (final IOException e) {
+            throw new GATKException("Error closing " + outPath.toUri(), e);
+        }
+        logger.info(String.format("Copied %d unmodified records as is, encoded %d records", numCopiedRecords, numEncodedRecords));
+    }
+}
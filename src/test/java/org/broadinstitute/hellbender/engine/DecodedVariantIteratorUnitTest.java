@@ -0,0 +1,108 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class DecodedVariantIteratorUnitTest extends GATKBaseTest {
+    // fewer threads than sources
+    private final ExecutorService decoderService = Executors.newFixedThreadPool(2);
+
+    @AfterClass
+    public void shutdown() {
+        decoderService.shutdownNow();
+    }
+
+    private static List<VariantContext> makeVariants( final String contig, final int numVariants ) {
+        final List<VariantContext> variants = new ArrayList<>(numVariants);
+        for ( int i = 0; i < numVariants; i++ ) {
+            variants.add(new VariantContextBuilder("test", contig, 1 + i, 1 + i, Arrays.asList(Allele.REF_A, Allele.ALT_C)).make());
+        }
+        return variants;
+    }
+
+    private static List<VariantContext> drain( final Iterator<VariantContext> variants ) {
+        final List<VariantContext> result = new ArrayList<>();
+        variants.forEachRemaining(result::add);
+        return result;
+    }
+
+    @Test
+    public void testVariantsAreReturnedInOrder() {
+        for ( final int numVariants : new int[]{0, 1, DecodedVariantIterator.VARIANTS_PER_BATCH, 10 * DecodedVariantIterator.VARIANTS_PER_BATCH + 7} ) {
+            final List<VariantContext> variants = makeVariants("1", numVariants);
+            try ( final DecodedVariantIterator decoded = new DecodedVariantIterator(variants.iterator(), decoderService, "test") ) {
+                Assert.assertEquals(drain(decoded), variants);
+            }
+        }
+    }
+
+    @Test
+    public void testMoreSourcesThanThreads() {
+        final List<List<VariantContext>> sources = new ArrayList<>();
+        final List<DecodedVariantIterator> decoded = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ ) {
+            sources.add(makeVariants(Integer.toString(i), 5 * DecodedVariantIterator.VARIANTS_PER_BATCH));
+            decoded.add(new DecodedVariantIterator(sources.get(i).iterator(), decoderService, "source" + i));
+        }
+
+        // consume the sources round-robin, one variant at a time, as a merge would
+        final List<List<VariantContext>> results = new ArrayList<>();
+        sources.forEach(source -> results.add(new ArrayList<>()));
+        boolean anyLeft = true;
+        while ( anyLeft ) {
+            anyLeft = false;
+            for ( int i = 0; i < decoded.size(); i++ ) {
+                if ( decoded.get(i).hasNext() ) {
+                    results.get(i).add(decoded.get(i).next());
+                    anyLeft = true;
+                }
+            }
+        }
+        Assert.assertEquals(results, sources);
+        decoded.forEach(DecodedVariantIterator::close);
+    }
+
+    @Test
+    public void testDecodingIsBoundedAndStopsOnClose() {
+        final List<VariantContext> variants = makeVariants("1", 100 * DecodedVariantIterator.VARIANTS_PER_BATCH);
+        final AtomicInteger numDecoded = new AtomicInteger();
+        final Iterator<VariantContext> source = variants.stream().peek(vc -> numDecoded.incrementAndGet()).iterator();
+
+        final DecodedVariantIterator decoded = new DecodedVariantIterator(source, decoderService, "test");
+        Assert.assertEquals(decoded.next(), variants.get(0));
+        decoded.close();
+
+        // once closed, no worker uses the source any more
+        final int numDecodedWhenClosed = numDecoded.get();
+        Assert.assertTrue(numDecodedWhenClosed <= (DecodedVariantIterator.MAX_PENDING_BATCHES + 1) * DecodedVariantIterator.VARIANTS_PER_BATCH);
+        Assert.assertFalse(decoded.hasNext());
+        Assert.assertEquals(numDecoded.get(), numDecodedWhenClosed);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testErrorsArePassedToTheConsumer() {
+        final List<VariantContext> variants = makeVariants("1", 3 * DecodedVariantIterator.VARIANTS_PER_BATCH);
+        final Iterator<VariantContext> source = variants.stream().peek(vc -> {
+            if ( vc.getStart() == 2 * DecodedVariantIterator.VARIANTS_PER_BATCH ) {
+                throw new IllegalStateException("can't decode this variant");
+            }
+        }).iterator();
+
+        try ( final DecodedVariantIterator decoded = new DecodedVariantIterator(source, decoderService, "test") ) {
+            drain(decoded);
+        }
+    }
+}
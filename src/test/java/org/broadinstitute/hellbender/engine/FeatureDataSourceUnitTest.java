@@ -6,10 +6,12 @@ import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 import htsjdk.variant.vcf.VCFHeader;
 import org.apache.commons.lang3.tuple.Pair;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -146,6 +148,32 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         };
     }
 
+    @Test
+    public void testParallelDecompressionMatchesSerialIteration() {
+        // a bgzipped VCF spanning many BGZF blocks
+        final File vcfFile = new File(publicTestDir + "org/broadinstitute/hellbender/tools/walkers/sv/SVConcordance/ref_panel_1kg.raw_calls.chr22_chrY.sites_only.vcf.gz");
+        final List<String> expected = readAllVariants(vcfFile, 0);
+        final List<String> actual = readAllVariants(vcfFile, 3);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(actual, expected);
+    }
+
+    private static List<String> readAllVariants( final File vcfFile, final int decompressionThreads ) {
+        final int previousThreads = ParallelBlockCompressedInputStream.getDefaultDecompressionThreads();
+        ParallelBlockCompressedInputStream.setDefaultDecompressionThreads(decompressionThreads);
+        try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(vcfFile) ) {
+            final List<String> variants = new ArrayList<>();
+            // iterate twice, since each iteration opens a new stream and re-reads the header with a new codec
+            for ( int i = 0; i < 2; i++ ) {
+                variants.clear();
+                featureSource.iterator().forEachRemaining(vc -> variants.add(vc.toStringDecodeGenotypes()));
+            }
+            return variants;
+        } finally {
+            ParallelBlockCompressedInputStream.setDefaultDecompressionThreads(previousThreads);
+        }
+    }
+
     @Test(dataProvider = "TraversalByIntervalsTestData")
     public void testTraversalByIntervals( final List<SimpleInterval> intervalsForTraversal, final List<String> expectedVariantIDs ) {
         try ( FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF) ) {
@@ -385,6 +413,89 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "SingleDataSourceMultipleQueriesTestData")
+    public void testSingleDataSourceMultipleQueriesWithIntervalTreeCache( final List<Pair<SimpleInterval, List<String>>> testQueries ) {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setQueryCacheBlocks(3);
+
+            for ( Pair<SimpleInterval, List<String>> testQuery : testQueries ) {
+                final List<VariantContext> queryResults = featureSource.queryAndPrefetch(testQuery.getLeft());
+                checkVariantQueryResults(queryResults, testQuery.getRight(), testQuery.getLeft());
+            }
+        }
+    }
+
+    @Test
+    public void testIntervalTreeCacheAvoidsRequeries() {
+        // queries going back and forth between two contigs, and backing up within a contig
+        final List<Pair<SimpleInterval, List<String>>> testQueries = Arrays.asList(
+                Pair.of(new SimpleInterval("1", 200, 300), Arrays.asList("b", "c", "d", "e", "f", "g", "h")),
+                Pair.of(new SimpleInterval("2", 200, 600), Arrays.asList("o", "p", "q")),
+                Pair.of(new SimpleInterval("1", 205, 285), Arrays.asList("d", "e", "f", "g")),
+                Pair.of(new SimpleInterval("2", 550, 650), Arrays.asList("q", "r")),
+                Pair.of(new SimpleInterval("1", 200, 300), Arrays.asList("b", "c", "d", "e", "f", "g", "h")),
+                Pair.of(new SimpleInterval("2", 200, 600), Arrays.asList("o", "p", "q")));
+
+        try (final FeatureDataSource<VariantContext> defaultCacheSource = new FeatureDataSource<>(QUERY_TEST_VCF);
+             final FeatureDataSource<VariantContext> intervalTreeCacheSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            intervalTreeCacheSource.setQueryCacheBlocks(2);
+
+            for ( Pair<SimpleInterval, List<String>> testQuery : testQueries ) {
+                checkVariantQueryResults(defaultCacheSource.queryAndPrefetch(testQuery.getLeft()), testQuery.getRight(), testQuery.getLeft());
+                checkVariantQueryResults(intervalTreeCacheSource.queryAndPrefetch(testQuery.getLeft()), testQuery.getRight(), testQuery.getLeft());
+            }
+
+            Assert.assertEquals(defaultCacheSource.getNumCacheMisses(), testQueries.size());
+            Assert.assertEquals(intervalTreeCacheSource.getNumCacheMisses(), 2);
+            Assert.assertEquals(intervalTreeCacheSource.getNumCacheHits(), testQueries.size() - 2);
+        }
+    }
+
+    @Test
+    public void testColumnSelection() {
+        final FeatureInput<VariantContext> input = new FeatureInput<>(FEATURE_DATA_SOURCE_TEST_DIRECTORY + "vcf_with_genotypes.vcf", "genotypes");
+        final List<VariantContext> fullVariants = new ArrayList<>();
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(input, 0, VariantContext.class, 0, 0)) {
+            featureSource.forEach(fullVariants::add);
+        }
+        Assert.assertFalse(fullVariants.isEmpty());
+
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(input, 0, VariantContext.class, 0, 0, null, false,
+                new VariantColumnSelection(Collections.emptySet(), Collections.singleton("DP"), null))) {
+            Assert.assertEquals(((VCFHeader) featureSource.getHeader()).getGenotypeSamples(), Collections.singletonList("NA1"));
+            final List<VariantContext> selectedVariants = new ArrayList<>();
+            featureSource.forEach(selectedVariants::add);
+            Assert.assertEquals(selectedVariants.size(), fullVariants.size());
+            for ( int i = 0; i < selectedVariants.size(); i++ ) {
+                final VariantContext selected = selectedVariants.get(i);
+                final VariantContext full = fullVariants.get(i);
+                Assert.assertEquals(selected.getStart(), full.getStart());
+                Assert.assertEquals(selected.getAlleles(), full.getAlleles());
+                Assert.assertTrue(selected.getAttributes().isEmpty());
+                Assert.assertEquals(selected.getGenotype("NA1").getDP(), full.getGenotype("NA1").getDP());
+                Assert.assertFalse(selected.getGenotype("NA1").hasPL());
+            }
+        }
+
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(input, 0, VariantContext.class, 0, 0, null, false,
+                VariantColumnSelection.SITES_ONLY)) {
+            Assert.assertTrue(((VCFHeader) featureSource.getHeader()).getGenotypeSamples().isEmpty());
+            int count = 0;
+            for ( final VariantContext vc : featureSource ) {
+                Assert.assertFalse(vc.hasGenotypes());
+                count++;
+            }
+            Assert.assertEquals(count, fullVariants.size());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidQueryCacheBlocks() {
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setQueryCacheBlocks(0);
+        }
+    }
+
     @DataProvider(name = "GVCFQueryTestData")
     public Object[][] getGVCFQueryTestData() {
 
@@ -677,4 +788,83 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
      * End of direct testing on the FeatureCache inner class
      *********************************************************/
 
+    /**************************************************
+     * Direct testing on IntervalTreeFeatureCache
+     **************************************************/
+
+    @Test
+    public void testIntervalTreeCacheRetrieval() {
+        final List<ArtificialTestFeature> features = Arrays.asList(
+                new ArtificialTestFeature("1", 1, 1000),   // Feature 0, overlaps everything
+                new ArtificialTestFeature("1", 10, 20),    // Feature 1
+                new ArtificialTestFeature("1", 15, 15),    // Feature 2
+                new ArtificialTestFeature("1", 30, 500),   // Feature 3
+                new ArtificialTestFeature("1", 40, 45),    // Feature 4
+                new ArtificialTestFeature("1", 100, 110),  // Feature 5
+                new ArtificialTestFeature("1", 100, 100)); // Feature 6
+        final IntervalTreeFeatureCache<ArtificialTestFeature> cache = new IntervalTreeFeatureCache<>(2);
+        cache.fill(features.iterator(), new SimpleInterval("1", 1, 200));
+
+        // queries in any order, returning the Features in their original order
+        for ( final SimpleInterval query : Arrays.asList(new SimpleInterval("1", 100, 150), new SimpleInterval("1", 16, 35),
+                new SimpleInterval("1", 1, 200), new SimpleInterval("1", 50, 60), new SimpleInterval("1", 15, 15),
+                new SimpleInterval("1", 150, 200)) ) {
+            Assert.assertTrue(cache.cacheHit(query), "Unexpected cache miss for " + query);
+            final List<ArtificialTestFeature> expected = features.stream()
+                    .filter(feature -> feature.getStart() <= query.getEnd() && feature.getEnd() >= query.getStart())
+                    .collect(Collectors.toList());
+            Assert.assertEquals(cache.getCachedFeatures(query), expected, "Wrong Features returned for " + query);
+        }
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("1", 150, 201)));
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("2", 1, 10)));
+        Assert.assertEquals(cache.getNumCacheHits(), 6);
+        Assert.assertEquals(cache.getNumCacheMisses(), 2);
+    }
+
+    @Test
+    public void testIntervalTreeCacheEvictsLeastRecentlyUsedBlock() {
+        final IntervalTreeFeatureCache<ArtificialTestFeature> cache = new IntervalTreeFeatureCache<>(2);
+        final SimpleInterval first = new SimpleInterval("1", 1, 100);
+        final SimpleInterval second = new SimpleInterval("1", 1000, 1100);
+        final SimpleInterval third = new SimpleInterval("2", 1, 100);
+
+        cache.fill(Collections.singletonList(new ArtificialTestFeature("1", 50, 60)).iterator(), first);
+        cache.fill(Collections.singletonList(new ArtificialTestFeature("1", 1050, 1060)).iterator(), second);
+        // use the first block, so that the second one is the least recently used
+        Assert.assertTrue(cache.cacheHit(first));
+        cache.fill(Collections.<ArtificialTestFeature>emptyList().iterator(), third);
+
+        Assert.assertEquals(cache.getNumBlocks(), 2);
+        Assert.assertEquals(cache.getNumEvictions(), 1);
+        Assert.assertTrue(cache.cacheHit(first));
+        Assert.assertEquals(cache.getCachedFeatures(first), Collections.singletonList(new ArtificialTestFeature("1", 50, 60)));
+        Assert.assertTrue(cache.cacheHit(third));
+        Assert.assertTrue(cache.getCachedFeatures(third).isEmpty());
+        Assert.assertFalse(cache.cacheHit(second));
+    }
+
+    @Test
+    public void testIntervalTreeCacheReplacesContainedBlocks() {
+        final IntervalTreeFeatureCache<ArtificialTestFeature> cache = new IntervalTreeFeatureCache<>(3);
+        cache.fill(Collections.<ArtificialTestFeature>emptyList().iterator(), new SimpleInterval("1", 100, 200));
+        cache.fill(Collections.<ArtificialTestFeature>emptyList().iterator(), new SimpleInterval("1", 150, 300));
+        cache.fill(Collections.singletonList(new ArtificialTestFeature("1", 120, 130)).iterator(), new SimpleInterval("1", 1, 300));
+
+        Assert.assertEquals(cache.getNumBlocks(), 1);
+        Assert.assertEquals(cache.getNumEvictions(), 0);
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 100, 200)));
+        Assert.assertEquals(cache.getCachedFeatures(new SimpleInterval("1", 100, 200)), Collections.singletonList(new ArtificialTestFeature("1", 120, 130)));
+    }
+
+    @Test(expectedExceptions = GATKException.class)
+    public void testIntervalTreeCacheRetrievalOutsideOfCurrentBlock() {
+        final IntervalTreeFeatureCache<ArtificialTestFeature> cache = new IntervalTreeFeatureCache<>(2);
+        cache.fill(Collections.<ArtificialTestFeature>emptyList().iterator(), new SimpleInterval("1", 100, 200));
+        cache.getCachedFeatures(new SimpleInterval("1", 150, 250));
+    }
+
+    /**************************************************
+     * End of direct testing on IntervalTreeFeatureCache
+     **************************************************/
+
 }
@@ -0,0 +1,90 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.IntervalMergingRule;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class LocalShardUnitTest extends GATKBaseTest {
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(2, 1, 1_000_000);
+
+    @DataProvider
+    public Object[][] intervalsToDivide() {
+        final List<SimpleInterval> intervals = Arrays.asList(
+                new SimpleInterval("1", 1, 100),
+                new SimpleInterval("1", 201, 250),
+                new SimpleInterval("2", 1, 1000),
+                new SimpleInterval("2", 1500, 1500));
+        return new Object[][]{
+                {intervals, 1, 1},
+                {intervals, 2, 2},
+                {intervals, 3, 3},
+                {intervals, 7, 7},
+                // no more shards than bases
+                {Arrays.asList(new SimpleInterval("1", 10, 12)), 5, 3},
+        };
+    }
+
+    @Test(dataProvider = "intervalsToDivide")
+    public void testDivideIntervals(final List<SimpleInterval> intervals, final int numShards, final int expectedNumShards) {
+        final List<LocalShard> shards = LocalShard.divideIntervals(intervals, numShards);
+        Assert.assertEquals(shards.size(), expectedNumShards);
+
+        // the shards cover the intervals, in order, without overlapping
+        final List<SimpleInterval> shardIntervals = new ArrayList<>();
+        for ( int i = 0; i < shards.size(); i++ ) {
+            Assert.assertEquals(shards.get(i).getIndex(), i);
+            Assert.assertEquals(shards.get(i).isLast(), i == shards.size() - 1);
+            shardIntervals.addAll(shards.get(i).getIntervals());
+        }
+        for ( final String contig : Arrays.asList("1", "2") ) {
+            Assert.assertEquals(IntervalUtils.sortAndMergeIntervalsFromSameContig(onContig(shardIntervals, contig), IntervalMergingRule.ALL),
+                    onContig(intervals, contig));
+        }
+        Assert.assertEquals(shardIntervals.stream().mapToLong(SimpleInterval::size).sum(), intervals.stream().mapToLong(SimpleInterval::size).sum());
+
+        // the shards have about the same size
+        final long shardSize = (intervals.stream().mapToLong(SimpleInterval::size).sum() + numShards - 1) / numShards;
+        for ( final LocalShard shard : shards.subList(0, shards.size() - 1) ) {
+            Assert.assertEquals(shard.getIntervals().stream().mapToLong(SimpleInterval::size).sum(), shardSize);
+        }
+    }
+
+    private static List<SimpleInterval> onContig(final List<SimpleInterval> intervals, final String contig) {
+        return intervals.stream().filter(interval -> interval.getContig().equals(contig)).collect(Collectors.toList());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDivideNoIntervals() {
+        LocalShard.divideIntervals(new ArrayList<>(), 2);
+    }
+
+    @Test
+    public void testEachReadIsOwnedByOneShard() {
+        final List<LocalShard> shards = LocalShard.divideIntervals(Arrays.asList(
+                new SimpleInterval("1", 1, 1000),
+                new SimpleInterval("1", 2001, 3000),
+                new SimpleInterval("2", 1, 2000)), 4);
+
+        for ( int start = 1; start <= 3000; start += 7 ) {
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read", 0, start, 101);
+            final List<LocalShard> owners = shards.stream()
+                    .filter(shard -> shard.getIntervals().stream().anyMatch(interval -> interval.overlaps(read)))
+                    .filter(shard -> shard.ownsRead(read))
+                    .collect(Collectors.toList());
+            final boolean overlapsAnyShard = shards.stream().anyMatch(shard -> shard.getIntervals().stream().anyMatch(interval -> interval.overlaps(read)));
+            Assert.assertEquals(owners.size(), overlapsAnyShard ? 1 : 0, "read at " + start);
+        }
+    }
+}
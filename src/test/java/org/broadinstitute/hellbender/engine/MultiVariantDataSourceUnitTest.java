@@ -161,6 +161,80 @@ public final class MultiVariantDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "DecodeThreads")
+    public Object[][] getDecodeThreads() {
+        return new Object[][] { { 1 }, { 2 } };
+    }
+
+    @Test(dataProvider = "DecodeThreads")
+    public void testParallelDecodingIteratorOverlapping( final int numThreads ) {
+        final List<FeatureInput<VariantContext>> featureInputs = Arrays.asList(
+                new FeatureInput<>(new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_1_WithOverlap.vcf").getAbsolutePath(),
+                        "interleavedVariants_1_WithOverlap"),
+                new FeatureInput<>(new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_2_WithOverlap.vcf").getAbsolutePath(),
+                        "interleavedVariants_2_WithOverlap"));
+
+        final List<String> expectedIDs = new ArrayList<>();
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            multiVariantSource.forEach(vc -> expectedIDs.add(vc.getID()));
+        }
+
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            multiVariantSource.enableParallelDecoding(numThreads);
+            final List<String> actualIDs = new ArrayList<>();
+            multiVariantSource.forEach(vc -> {
+                Assert.assertTrue(vc.getGenotypes().isEmpty() || !vc.getGenotypes().isLazyWithData());
+                actualIDs.add(vc.getID());
+            });
+            Assert.assertEquals(actualIDs, expectedIDs);
+            Assert.assertEquals(actualIDs.size(), 28);
+        }
+    }
+
+    @Test
+    public void testParallelDecodingInterleavedWithQueries() {
+        final List<FeatureInput<VariantContext>> featureInputs = Arrays.asList(
+                new FeatureInput<>(new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_1.vcf").getAbsolutePath(), "interleavedVariants_1"),
+                new FeatureInput<>(new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_2.vcf").getAbsolutePath(), "interleavedVariants_2"));
+
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            multiVariantSource.enableParallelDecoding(2);
+            multiVariantSource.setIntervalsForTraversal(
+                    Arrays.asList(new SimpleInterval("1", 1, 1200), new SimpleInterval("2", 200, 600)));
+
+            // abandon a traversal, query, then traverse again from the start
+            final Iterator<VariantContext> abandoned = multiVariantSource.iterator();
+            Assert.assertTrue(abandoned.hasNext());
+            abandoned.next();
+
+            int count = 0;
+            final Iterator<VariantContext> it = multiVariantSource.query(new SimpleInterval("1", 1, 1200));
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            Assert.assertEquals(count, 14);
+
+            count = 0;
+            for (final VariantContext vc : multiVariantSource) {
+                count++;
+            }
+            Assert.assertEquals(count, 17);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParallelDecodingRejectsNegativeThreads() {
+        try (final MultiVariantDataSource multiVariantSource = new MultiVariantDataSource(
+                Collections.singletonList(new FeatureInput<>(baseVariants.getAbsolutePath(), "baseVariants")),
+                FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            multiVariantSource.enableParallelDecoding(-1);
+        }
+    }
+
     @Test
     public void testSerialQueries() {
         List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
@@ -0,0 +1,131 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class PipelinedReadIteratorUnitTest extends GATKBaseTest {
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1_000_000);
+
+    private static List<GATKRead> makeReads(final int numReads) {
+        final List<GATKRead> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; i++ ) {
+            reads.add(ArtificialReadUtils.createArtificialRead(HEADER, "read" + i, 0, i + 1, 10));
+        }
+        return reads;
+    }
+
+    private static List<Function<GATKRead, GATKRead>> makeProcessors(final int numThreads, final Function<GATKRead, GATKRead> processor) {
+        return Collections.nCopies(numThreads, processor);
+    }
+
+    private static List<String> drain(final Iterator<GATKRead> iterator) {
+        final List<String> names = new ArrayList<>();
+        iterator.forEachRemaining(read -> names.add(read.getName()));
+        return names;
+    }
+
+    @DataProvider
+    public Object[][] pipelineSizes() {
+        return new Object[][]{
+                {0, 1},
+                {1, 1},
+                {PipelinedReadIterator.READS_PER_BATCH, 2},
+                {PipelinedReadIterator.READS_PER_BATCH * 7 + 13, 1},
+                {PipelinedReadIterator.READS_PER_BATCH * 7 + 13, 4},
+        };
+    }
+
+    @Test(dataProvider = "pipelineSizes")
+    public void testReadsAreReturnedInOrder(final int numReads, final int numThreads) {
+        final List<GATKRead> reads = makeReads(numReads);
+        // batches that are processed later finish first
+        final Function<GATKRead, GATKRead> processor = read -> {
+            if ( read.getStart() % PipelinedReadIterator.READS_PER_BATCH == 1 ) {
+                try {
+                    Thread.sleep(read.getStart() % 3);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            read.setAttribute("XP", "processed");
+            return read;
+        };
+
+        try ( final PipelinedReadIterator pipeline = new PipelinedReadIterator(reads.iterator(), makeProcessors(numThreads, processor)) ) {
+            Assert.assertEquals(drain(pipeline), reads.stream().map(GATKRead::getName).collect(Collectors.toList()));
+            Assert.assertFalse(pipeline.hasNext());
+        }
+        reads.forEach(read -> Assert.assertEquals(read.getAttributeAsString("XP"), "processed"));
+    }
+
+    @Test
+    public void testDroppedReads() {
+        final List<GATKRead> reads = makeReads(PipelinedReadIterator.READS_PER_BATCH * 3);
+        final Function<GATKRead, GATKRead> dropOdd = read -> read.getStart() % 2 == 0 ? read : null;
+
+        try ( final PipelinedReadIterator pipeline = new PipelinedReadIterator(reads.iterator(), makeProcessors(3, dropOdd)) ) {
+            Assert.assertEquals(drain(pipeline),
+                    reads.stream().filter(read -> read.getStart() % 2 == 0).map(GATKRead::getName).collect(Collectors.toList()));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testProcessorErrorIsRethrown() {
+        final List<GATKRead> reads = makeReads(PipelinedReadIterator.READS_PER_BATCH * 3);
+        final Function<GATKRead, GATKRead> failing = read -> {
+            if ( read.getStart() == PipelinedReadIterator.READS_PER_BATCH + 5 ) {
+                throw new IllegalStateException("bad read");
+            }
+            return read;
+        };
+
+        try ( final PipelinedReadIterator pipeline = new PipelinedReadIterator(reads.iterator(), makeProcessors(2, failing)) ) {
+            drain(pipeline);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSourceErrorIsRethrown() {
+        final Iterator<GATKRead> reads = makeReads(10).iterator();
+        final Iterator<GATKRead> failingSource = new Iterator<GATKRead>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public GATKRead next() {
+                if ( !reads.hasNext() ) {
+                    throw new IllegalStateException("truncated input");
+                }
+                return reads.next();
+            }
+        };
+
+        try ( final PipelinedReadIterator pipeline = new PipelinedReadIterator(failingSource, makeProcessors(2, Function.identity())) ) {
+            drain(pipeline);
+        }
+    }
+
+    @Test(timeOut = 60_000)
+    public void testCloseBeforeTheEnd() {
+        // many more reads than can be in flight, so that the reader thread is blocked when the pipeline is closed
+        final List<GATKRead> reads = makeReads(PipelinedReadIterator.READS_PER_BATCH * 20);
+        final PipelinedReadIterator pipeline = new PipelinedReadIterator(reads.iterator(), makeProcessors(1, Function.identity()));
+        Assert.assertEquals(pipeline.next().getName(), "read0");
+        pipeline.close();
+        Assert.assertFalse(pipeline.hasNext());
+    }
+}
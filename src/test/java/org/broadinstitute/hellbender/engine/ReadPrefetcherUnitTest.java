@@ -0,0 +1,151 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.collect.Iterators;
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public final class ReadPrefetcherUnitTest extends GATKBaseTest {
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(2, 1, 1_000_000);
+    private static final int READ_LENGTH = 100;
+
+    // one read starting at every 10th base of the first contig
+    private static final List<GATKRead> READS = makeReads(50_000);
+
+    private static List<GATKRead> makeReads( final int numReads ) {
+        final List<GATKRead> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; i++ ) {
+            reads.add(ArtificialReadUtils.createArtificialRead(HEADER, "read" + i, 0, 1 + 10 * i, READ_LENGTH));
+        }
+        return reads;
+    }
+
+    private static Iterator<GATKRead> query( final SimpleInterval interval ) {
+        return READS.stream().filter(read -> read.overlaps(interval)).iterator();
+    }
+
+    private static Iterator<GATKRead> query( final TraversalParameters traversal ) {
+        return READS.stream().filter(read -> traversal.getIntervalsForTraversal().stream().anyMatch(read::overlaps)).iterator();
+    }
+
+    private static List<GATKRead> drain( final Iterator<GATKRead> reads ) {
+        final List<GATKRead> result = new ArrayList<>();
+        reads.forEachRemaining(result::add);
+        return result;
+    }
+
+    private static ReadPrefetcher makePrefetcher( final List<TraversalParameters> traversals, final int numBuffers ) {
+        return new ReadPrefetcher(traversals, numBuffers, HEADER.getSequenceDictionary(),
+                ReadPrefetcherUnitTest::query);
+    }
+
+    @Test
+    public void testOverlappingIntervalsAreReturnedOnce() {
+        // unsorted, with reads overlapping several intervals
+        final List<SimpleInterval> intervals = Arrays.asList(
+                new SimpleInterval("1", 2000, 2500),
+                new SimpleInterval("1", 1, 1000),
+                new SimpleInterval("1", 1050, 1100),
+                new SimpleInterval("1", 900, 1020));
+        final List<GATKRead> expected = READS.stream()
+                .filter(read -> intervals.stream().anyMatch(read::overlaps))
+                .collect(Collectors.toList());
+
+        try ( final ReadPrefetcher prefetcher = makePrefetcher(Collections.singletonList(new TraversalParameters(intervals, false)), 1) ) {
+            Assert.assertEquals(drain(prefetcher.iterator(intervals, false)), expected);
+        }
+    }
+
+    @Test
+    public void testLargeIntervalsAreSplitIntoBuffers() {
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("1", 1, 400_000), new SimpleInterval("1", 450_000, 460_000));
+        final List<GATKRead> expected = READS.stream()
+                .filter(read -> intervals.stream().anyMatch(read::overlaps))
+                .collect(Collectors.toList());
+        Assert.assertTrue(expected.size() > 3 * ReadPrefetcher.MAX_READS_PER_BUFFER);
+
+        try ( final ReadPrefetcher prefetcher = makePrefetcher(Collections.singletonList(new TraversalParameters(intervals, false)), 2) ) {
+            Assert.assertEquals(drain(prefetcher.iterator(intervals, false)), expected);
+            // at least one buffer per MAX_READS_PER_BUFFER reads, plus the end of the traversal
+            Assert.assertTrue(prefetcher.getBuffersReady() + prefetcher.getStalls() > expected.size() / ReadPrefetcher.MAX_READS_PER_BUFFER);
+        }
+    }
+
+    @Test
+    public void testSkippedTraversals() {
+        final List<SimpleInterval> first = Collections.singletonList(new SimpleInterval("1", 1, 200_000));
+        final List<SimpleInterval> second = Collections.singletonList(new SimpleInterval("1", 300_000, 300_100));
+        final List<SimpleInterval> third = Collections.singletonList(new SimpleInterval("1", 400_000, 400_100));
+        final List<SimpleInterval> unknown = Collections.singletonList(new SimpleInterval("2", 1, 100));
+
+        try ( final ReadPrefetcher prefetcher = makePrefetcher(Arrays.asList(
+                new TraversalParameters(first, false),
+                new TraversalParameters(second, false),
+                new TraversalParameters(third, false)), 1) ) {
+            // abandon the first traversal after one read, and skip the second one
+            final Iterator<GATKRead> firstReads = prefetcher.iterator(first, false);
+            Assert.assertTrue(firstReads.hasNext());
+            firstReads.next();
+
+            Assert.assertNull(prefetcher.iterator(unknown, false));
+            Assert.assertNull(prefetcher.iterator(third, true));
+            Assert.assertEquals(drain(prefetcher.iterator(third, false)), drain(query(third.get(0))));
+            Assert.assertFalse(firstReads.hasNext());
+            Assert.assertNull(prefetcher.iterator(second, false));
+        }
+    }
+
+    @Test
+    public void testOneQueryPerTraversal() {
+        final List<SimpleInterval> intervals = Arrays.asList(
+                new SimpleInterval("1", 1, 1000),
+                new SimpleInterval("1", 5000, 6000),
+                new SimpleInterval("1", 9000, 9100));
+        final AtomicInteger numQueries = new AtomicInteger();
+        try ( final ReadPrefetcher prefetcher = new ReadPrefetcher(Collections.singletonList(new TraversalParameters(intervals, false)), 1,
+                HEADER.getSequenceDictionary(),
+                traversal -> {
+                    numQueries.incrementAndGet();
+                    return query(traversal);
+                }) ) {
+            final List<GATKRead> expected = new ArrayList<>();
+            intervals.forEach(interval -> expected.addAll(drain(query(interval))));
+            Assert.assertEquals(drain(prefetcher.iterator(intervals, false)), expected);
+            Assert.assertEquals(numQueries.get(), 1);
+            // one buffer per interval, plus the end of the traversal
+            Assert.assertEquals(prefetcher.getBuffersReady() + prefetcher.getStalls(), intervals.size() + 1);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testErrorsArePassedToTheConsumer() {
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("1", 1, 1000), new SimpleInterval("1", 5000, 6000));
+        try ( final ReadPrefetcher prefetcher = new ReadPrefetcher(Collections.singletonList(new TraversalParameters(intervals, false)), 1,
+                HEADER.getSequenceDictionary(),
+                traversal -> Iterators.concat(query(intervals.get(0)), new Iterator<GATKRead>() {
+                    @Override
+                    public boolean hasNext() {
+                        throw new IllegalStateException("can't read this interval");
+                    }
+
+                    @Override
+                    public GATKRead next() {
+                        throw new IllegalStateException("can't read this interval");
+                    }
+                })) ) {
+            drain(prefetcher.iterator(intervals, false));
+        }
+    }
+}
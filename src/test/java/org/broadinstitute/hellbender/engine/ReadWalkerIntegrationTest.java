@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine;
 
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.examples.ExampleReadWalkerWithReference;
@@ -47,4 +48,15 @@ public class ReadWalkerIntegrationTest extends CommandLineProgramTest {
         };
         runCommandLine(args);
     }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testLocalShardsNotSupported() {
+        final String BAM_PATH = publicTestDir + "org/broadinstitute/hellbender/engine/readIndexTest/";
+        final String[] args = new String[] {
+                "-I", BAM_PATH + "reads_data_source_test1.bam",
+                "-O", createTempFile("testLocalShardsNotSupported", ".txt").getAbsolutePath(),
+                "--" + GATKTool.LOCAL_SHARDS_LONG_NAME, "2"
+        };
+        runCommandLine(args);
+    }
 }
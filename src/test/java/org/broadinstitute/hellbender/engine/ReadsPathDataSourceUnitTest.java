@@ -6,6 +6,8 @@ import java.util.function.Function;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedInputStream;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.testutils.XorWrapper;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
@@ -713,6 +715,80 @@ public final class ReadsPathDataSourceUnitTest extends GATKBaseTest {
     }
 
 
+    @Test(dataProvider = "TraversalWithUnmappedReadsTestData")
+    public void testTraversalWithPrefetching( final Path samFile, final List<SimpleInterval> queryIntervals, final boolean queryUnmapped, final List<String> expectedReadNames ) {
+        for ( final int numBuffers : Arrays.asList(1, 3) ) {
+            try (ReadsPathDataSource readsSource = new ReadsPathDataSource(samFile)) {
+                readsSource.enablePrefetching(numBuffers);
+                readsSource.setTraversalBounds(queryIntervals, queryUnmapped);
+                Assert.assertEquals(readNames(readsSource.iterator()), expectedReadNames, "Wrong reads returned in prefetched traversal of " + samFile.toAbsolutePath());
+            }
+        }
+    }
+
+    @Test(dataProvider = "MultipleFilesTraversalWithIntervalsData")
+    public void testMultipleFilesTraversalWithPrefetching( final List<Path> samFiles, final List<SimpleInterval> intervals, final List<String> expectedReadNames ) {
+        try (ReadsPathDataSource readsSource = new ReadsPathDataSource(samFiles)) {
+            readsSource.enablePrefetching(2);
+            readsSource.setTraversalBounds(intervals);
+            Assert.assertEquals(readNames(readsSource.iterator()), expectedReadNames, "Wrong reads returned in prefetched traversal of " + samFiles);
+        }
+    }
+
+    @Test
+    public void testPrefetchingUpcomingTraversals() {
+        final List<SimpleInterval> firstTraversal = Arrays.asList(new SimpleInterval("1", 200, 210), new SimpleInterval("2", 550, 700));
+        final List<SimpleInterval> skippedTraversal = Arrays.asList(new SimpleInterval("3", 400, 410));
+        final List<SimpleInterval> lastTraversal = Arrays.asList(new SimpleInterval("1", 900, 1100), new SimpleInterval("1", 1000, 1200));
+        final SimpleInterval query = new SimpleInterval("1", 285, 1100);
+
+        try (ReadsPathDataSource readsSource = new ReadsPathDataSource(FIRST_TEST_BAM)) {
+            readsSource.enablePrefetching(2);
+            readsSource.setUpcomingTraversals(Arrays.asList(
+                    new TraversalParameters(firstTraversal, false),
+                    new TraversalParameters(skippedTraversal, false),
+                    new TraversalParameters(Collections.singletonList(query), false),
+                    new TraversalParameters(lastTraversal, false)));
+
+            readsSource.setTraversalBounds(firstTraversal);
+            Assert.assertEquals(readNames(readsSource.iterator()), Arrays.asList("a", "b", "c", "f", "g", "h"));
+            Assert.assertEquals(readNames(readsSource.query(query)), Arrays.asList("c", "d", "e"));
+            readsSource.setTraversalBounds(lastTraversal);
+            Assert.assertEquals(readNames(readsSource.iterator()), Arrays.asList("d", "e"));
+            Assert.assertTrue(readsSource.getPrefetchBuffersReady() + readsSource.getPrefetchStalls() > 0);
+
+            // traversals and queries that were not announced are still correct
+            Assert.assertEquals(readNames(readsSource.query(new SimpleInterval("2", 550, 649))), Arrays.asList("f", "g"));
+            readsSource.setTraversalBounds(skippedTraversal);
+            Assert.assertEquals(readNames(readsSource.iterator()), Arrays.asList("j"));
+            Assert.assertEquals(readNames(readsSource.query(new SimpleInterval("1", 200, 209))), Arrays.asList("a", "b"));
+        }
+    }
+
+    @Test
+    public void testPrefetchingIsOnlyUsedForBoundedTraversals() {
+        try (ReadsPathDataSource readsSource = new ReadsPathDataSource(FIRST_TEST_BAM)) {
+            readsSource.enablePrefetching(2);
+            Assert.assertEquals(readNames(readsSource.iterator()), Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k"));
+            Assert.assertEquals(readsSource.getPrefetchBuffersReady() + readsSource.getPrefetchStalls(), 0);
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testPrefetchingRequiresIndices() {
+        final Path unindexed = IOUtils.getPath(READS_DATA_SOURCE_TEST_DIRECTORY + "unindexed.bam");
+        try (ReadsPathDataSource readsSource = new ReadsPathDataSource(unindexed)) {
+            readsSource.enablePrefetching(2);
+            readsSource.setUpcomingTraversals(Arrays.asList(new TraversalParameters(Arrays.asList(new SimpleInterval("1", 1, 100)), false)));
+        }
+    }
+
+    private static List<String> readNames( final Iterator<GATKRead> reads ) {
+        final List<String> names = new ArrayList<>();
+        reads.forEachRemaining(read -> names.add(read.getName()));
+        return names;
+    }
+
     @DataProvider(name = "readHeaders")
     public Object[][] getHeadersForDetectOrder() {
         final SAMFileHeader unknown = new SAMFileHeader();
@@ -743,4 +819,64 @@ public final class ReadsPathDataSourceUnitTest extends GATKBaseTest {
     public void testIdentifySortOrder(final List<SAMFileHeader> headers, final SAMFileHeader.SortOrder expected) {
         Assert.assertEquals(ReadsPathDataSource.identifySortOrder(headers), expected);
     }
+
+    /**
+     * Write a coordinate-sorted BAM spanning many BGZF blocks, whose reads are all in the given read group
+     */
+    private Path makeMultiBlockBam(final String readGroupId, final int seed) {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(2, 1, 1_000_000);
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(readGroupId);
+        readGroup.setSample("sample_" + readGroupId);
+        header.addReadGroup(readGroup);
+
+        final Random random = new Random(seed);
+        final File bam = createTempFile("multiBlock_" + readGroupId, ".bam");
+        try ( final SAMFileWriter writer = new SAMFileWriterFactory().makeBAMWriter(header, true, bam) ) {
+            int readNumber = 0;
+            for ( int contig = 0; contig < header.getSequenceDictionary().size(); contig++ ) {
+                for ( int start = 1; start < 100_000; start += 1 + random.nextInt(20) ) {
+                    final byte[] bases = new byte[100];
+                    final byte[] quals = new byte[100];
+                    for ( int i = 0; i < bases.length; i++ ) {
+                        bases[i] = (byte) "ACGT".charAt(random.nextInt(4));
+                        quals[i] = (byte) (10 + random.nextInt(30));
+                    }
+                    final SAMRecord read = ArtificialReadUtils.createArtificialSAMRecord(header, readGroupId + "_" + readNumber++, contig, start, bases, quals);
+                    read.setAttribute(SAMTag.RG.name(), readGroupId);
+                    writer.addAlignment(read);
+                }
+            }
+        }
+        return bam.toPath();
+    }
+
+    private static List<GATKRead> readAll( final List<Path> samFiles, final int decompressionThreads ) {
+        final int previousThreads = ParallelBlockCompressedInputStream.getDefaultDecompressionThreads();
+        ParallelBlockCompressedInputStream.setDefaultDecompressionThreads(decompressionThreads);
+        try ( final ReadsDataSource readsSource = new ReadsPathDataSource(samFiles) ) {
+            final List<GATKRead> reads = new ArrayList<>();
+            readsSource.forEach(reads::add);
+            return reads;
+        } finally {
+            ParallelBlockCompressedInputStream.setDefaultDecompressionThreads(previousThreads);
+        }
+    }
+
+    @Test
+    public void testParallelDecompressionMatchesSerialTraversal() {
+        final Path first = makeMultiBlockBam("rg1", 1);
+        final Path second = makeMultiBlockBam("rg2", 2);
+        Assert.assertTrue(first.toFile().length() > 10 * 65536, "the test BAM should span many BGZF blocks");
+
+        // a single file, and merged files whose records must keep the header of their own reader
+        for ( final List<Path> samFiles : Arrays.asList(Collections.singletonList(first), Arrays.asList(first, second)) ) {
+            final List<GATKRead> expected = readAll(samFiles, 0);
+            final List<GATKRead> actual = readAll(samFiles, 3);
+            Assert.assertEquals(actual.size(), expected.size());
+            for ( int i = 0; i < expected.size(); i++ ) {
+                Assert.assertEquals(actual.get(i).getSAMString(), expected.get(i).getSAMString());
+                Assert.assertEquals(actual.get(i).getReadGroup(), expected.get(i).getReadGroup());
+            }
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ReferenceTwoBitSourceUnitTest extends GATKBaseTest {
+
+    private static final Path FASTA = IOUtils.getPath(b38_reference_20_21);
+    private static final Path TWO_BIT = IOUtils.getPath(b38_2bit_reference_20_21);
+
+    @Test
+    public void testOfChoosesTwoBitSource() {
+        try ( final ReferenceDataSource twoBitSource = ReferenceDataSource.of(TWO_BIT);
+              final ReferenceDataSource fastaSource = ReferenceDataSource.of(FASTA) ) {
+            Assert.assertTrue(twoBitSource instanceof ReferenceTwoBitSource);
+            Assert.assertTrue(fastaSource instanceof ReferenceFileSource);
+        }
+    }
+
+    @Test
+    public void testSequenceDictionary() {
+        try ( final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT);
+              final ReferenceDataSource fastaSource = ReferenceDataSource.of(FASTA) ) {
+            final SAMSequenceDictionary twoBitDictionary = twoBitSource.getSequenceDictionary();
+            final SAMSequenceDictionary fastaDictionary = fastaSource.getSequenceDictionary();
+            Assert.assertEquals(twoBitDictionary.size(), fastaDictionary.size());
+            for ( int i = 0; i < fastaDictionary.size(); i++ ) {
+                Assert.assertEquals(twoBitDictionary.getSequence(i).getSequenceName(), fastaDictionary.getSequence(i).getSequenceName());
+                Assert.assertEquals(twoBitDictionary.getSequence(i).getSequenceLength(), fastaDictionary.getSequence(i).getSequenceLength());
+            }
+        }
+    }
+
+    @DataProvider(name = "queryIntervals")
+    public Object[][] queryIntervals() {
+        return new Object[][] {
+                // Just ACGT bases
+                { new SimpleInterval("chr20", 60100, 60200) },
+                // A stretch of consecutive N's, and then ACGT bases
+                { new SimpleInterval("chr20", 59950, 60100) },
+                // Multiple nearby blocks of N's separated by ACGT bases
+                { new SimpleInterval("chr20", 28646100, 28648200) },
+                // Single bases at the very start and end of a contig
+                { new SimpleInterval("chr21", 1, 1) },
+                { new SimpleInterval("chr21", 46709983, 46709983) },
+                // An alt contig
+                { new SimpleInterval("chr21_KI270873v1_alt", 100000, 101000) }
+        };
+    }
+
+    @Test(dataProvider = "queryIntervals")
+    public void testQueryMatchesFasta(final SimpleInterval interval) {
+        try ( final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT);
+              final ReferenceDataSource fastaSource = ReferenceDataSource.of(FASTA) ) {
+            final ReferenceSequence twoBitSequence = twoBitSource.queryAndPrefetch(interval);
+            Assert.assertEquals(twoBitSequence.getName(), interval.getContig());
+            Assert.assertEquals(twoBitSequence.getBases(), fastaSource.queryAndPrefetch(interval).getBases());
+        }
+    }
+
+    @Test
+    public void testEmptyQuery() {
+        try ( final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT) ) {
+            Assert.assertEquals(twoBitSource.queryAndPrefetch("chr20", 100, 99).getBases().length, 0);
+        }
+    }
+
+    @DataProvider(name = "invalidQueries")
+    public Object[][] invalidQueries() {
+        return new Object[][] {
+                // Contig not in reference
+                { "chr1", 1, 100 },
+                // Query goes past the end of a contig
+                { "chr20", 64444100, 64444168 },
+                // Query starts before the start of a contig
+                { "chr20", 0, 100 },
+                // Query ends before it starts
+                { "chr20", 100, 98 }
+        };
+    }
+
+    @Test(dataProvider = "invalidQueries", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidQueries(final String contig, final long start, final long stop) {
+        try ( final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT) ) {
+            twoBitSource.queryAndPrefetch(contig, start, stop);
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() {
+        try ( final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT);
+              final ReferenceDataSource fastaSource = ReferenceDataSource.of(FASTA) ) {
+            final List<SimpleInterval> intervals = IntStream.range(0, 200)
+                    .mapToObj(i -> new SimpleInterval("chr20", 28_600_000 + i * 997, 28_600_000 + i * 997 + 500))
+                    .collect(Collectors.toList());
+            final List<byte[]> twoBitBases = intervals.parallelStream()
+                    .map(interval -> twoBitSource.queryAndPrefetch(interval).getBases())
+                    .collect(Collectors.toList());
+            for ( int i = 0; i < intervals.size(); i++ ) {
+                Assert.assertEquals(twoBitBases.get(i), fastaSource.queryAndPrefetch(intervals.get(i)).getBases());
+            }
+        }
+    }
+}
@@ -396,5 +396,25 @@ public final class CountingReadFilterUnitTest {
         Assert.assertEquals(filter.getSummaryLine(), output);
     }
 
-}
+    @Test
+    public void testAddFilteredCounts() {
+        final List<GATKRead> reads = Arrays.asList(goodRead, startBad, endBad, bothBad);
+        final CountingReadFilter expected = new CountingReadFilter(startOk).and(new CountingReadFilter(endOk).negate());
+        reads.forEach(expected::test);
+
+        // the same reads, split between two copies of the filter
+        final CountingReadFilter first = new CountingReadFilter(startOk).and(new CountingReadFilter(endOk).negate());
+        final CountingReadFilter second = new CountingReadFilter(startOk).and(new CountingReadFilter(endOk).negate());
+        reads.subList(0, 1).forEach(first::test);
+        reads.subList(1, reads.size()).forEach(second::test);
+        first.addFilteredCounts(second);
+
+        Assert.assertEquals(first.getFilteredCount(), expected.getFilteredCount());
+        Assert.assertEquals(first.getSummaryLine(), expected.getSummaryLine());
+    }
 
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddFilteredCountsOfDifferentFilter() {
+        new CountingReadFilter(startOk).and(new CountingReadFilter(endOk)).addFilteredCounts(new CountingReadFilter(startOk));
+    }
+}
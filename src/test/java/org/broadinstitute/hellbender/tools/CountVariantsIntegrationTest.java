@@ -49,6 +49,8 @@ public final class CountVariantsIntegrationTest extends CommandLineProgramTest {
                 {new File(getTestDataDir(), "count_variants_withSequenceDict.vcf"), "", 26L},
                 {new File(getTestDataDir(), "count_variants_withSequenceDict.vcf"), "-L 1", 14L},
                 {new File(dbsnp_138_b37_1_65M_vcf), "", 1375319L},
+                // the reference block 20:69549-69634 starts before the interval and only reaches into it through its END
+                {new File(publicTestDir, "org/broadinstitute/hellbender/engine/GenomicsDBIntegration/tiny.g.vcf"), "-L 20:69600-69640", 2L},
         };
     }
 }
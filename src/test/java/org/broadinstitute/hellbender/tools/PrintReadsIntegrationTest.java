@@ -4,6 +4,7 @@ import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.ValidationStringency;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.ReadsPathDataSource;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
@@ -27,6 +28,41 @@ public final class PrintReadsIntegrationTest extends AbstractPrintReadsIntegrati
         doFileToFile(fileIn, extOut, reference, true);
     }
 
+    @Test(dataProvider="testingData")
+    public void testFileToFilePipelined(String fileIn, String extOut, String reference) throws Exception {
+        final File inFile = new File(TEST_DATA_DIR, fileIn);
+        final File outFile = GATKBaseTest.createTempFile(fileIn + ".", extOut);
+        final File refFile = reference == null ? null : new File(TEST_DATA_DIR, reference);
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addInput(inFile)
+                .addOutput(outFile)
+                .add(ReadWalker.READ_PIPELINE_THREADS_LONG_NAME, 3);
+        if (refFile != null) {
+            args.addReference(refFile);
+        }
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, inFile, refFile);
+    }
+
+    @Test(dataProvider = "readFilterTestData")
+    public void testReadFiltersPipelined(final String input, final String reference, final String extOut, final List<String> inputArgs, final int expectedCount) throws IOException {
+        final File outFile = createTempFile("testReadFilterPipelined", extOut);
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addInput(new File(TEST_DATA_DIR, input))
+                .addOutput(outFile)
+                .add(ReadWalker.READ_PIPELINE_THREADS_LONG_NAME, 2);
+        if (reference != null) {
+            args.addReference(new File(TEST_DATA_DIR, reference));
+        }
+        inputArgs.forEach(args::addRaw);
+        runCommandLine(args);
+
+        try (final ReadsDataSource readsSource = new ReadsPathDataSource(outFile.toPath())) {
+            Assert.assertEquals(Utils.stream(readsSource).count(), expectedCount);
+        }
+    }
+
     @Test
     public void testNoConflictPG() throws IOException {
         final File inFile = new File(TEST_DATA_DIR, "print_reads_withPG.sam");
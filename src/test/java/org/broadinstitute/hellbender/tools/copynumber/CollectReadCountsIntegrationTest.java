@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.tools.copynumber;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.IntervalArgumentCollection;
+import org.broadinstitute.hellbender.engine.GATKTool;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.utils.IntervalMergingRule;
@@ -95,6 +96,22 @@ public final class CollectReadCountsIntegrationTest extends CommandLineProgramTe
         Assert.assertEquals(expectedCounts, resultCounts);
     }
 
+    @Test(dataProvider = "testData")
+    public void testTSVOutputWithLocalShards(final File inputBAMFile, final File expectedOutputFile) {
+        final File resultOutputFile = createTempFile("collect-read-counts-test", ".tsv");
+        final ArgumentsBuilder argsBuilder = new ArgumentsBuilder()
+                .addInput(inputBAMFile)
+                .add(StandardArgumentDefinitions.INTERVALS_LONG_NAME, INTERVALS_FILE.getAbsolutePath())
+                .add(IntervalArgumentCollection.INTERVAL_MERGING_RULE_LONG_NAME, IntervalMergingRule.OVERLAPPING_ONLY.toString())
+                .add(CollectReadCounts.FORMAT_LONG_NAME, CollectReadCounts.Format.TSV.toString())
+                .add(GATKTool.LOCAL_SHARDS_LONG_NAME, 3)
+                .addOutput(resultOutputFile);
+        runCommandLine(argsBuilder);
+        final SimpleCountCollection expectedCounts = SimpleCountCollection.read(expectedOutputFile);
+        final SimpleCountCollection resultCounts = SimpleCountCollection.read(resultOutputFile);
+        Assert.assertEquals(expectedCounts, resultCounts);
+    }
+
     @Test(dataProvider = "testData")
     public void testHDF5Output(final File inputBAMFile, final File expectedOutputFile) {
         final File resultOutputFile = createTempFile("collect-read-counts-test", ".hdf5");
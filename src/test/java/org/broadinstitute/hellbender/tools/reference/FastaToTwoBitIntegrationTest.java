@@ -0,0 +1,70 @@
+package org.broadinstitute.hellbender.tools.reference;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.GATKPath;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceTwoBitSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.reference.TwoBitReference;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class FastaToTwoBitIntegrationTest extends CommandLineProgramTest {
+
+    private File convert(final File fasta, final String outputName) {
+        final File output = new File(createTempDir("FastaToTwoBit"), outputName);
+        runCommandLine(new ArgumentsBuilder().addInput(fasta).addOutput(output));
+        return output;
+    }
+
+    @Test
+    public void testConvertedReferenceMatchesFasta() {
+        final File twoBit = convert(new File(hg19MiniReference), "hg19mini.2bit");
+
+        try ( final ReferenceDataSource fasta = ReferenceDataSource.of(new File(hg19MiniReference).toPath());
+              final ReferenceDataSource converted = ReferenceDataSource.of(twoBit.toPath()) ) {
+            Assert.assertTrue(converted instanceof ReferenceTwoBitSource);
+
+            final SAMSequenceDictionary dictionary = fasta.getSequenceDictionary();
+            Assert.assertEquals(converted.getSequenceDictionary().size(), dictionary.size());
+            for ( final SAMSequenceRecord record : dictionary.getSequences() ) {
+                Assert.assertEquals(converted.getSequenceDictionary().getSequence(record.getSequenceIndex()).getSequenceName(), record.getSequenceName());
+                final SimpleInterval contig = new SimpleInterval(record.getSequenceName(), 1, record.getSequenceLength());
+                Assert.assertEquals(converted.queryAndPrefetch(contig).getBases(), fasta.queryAndPrefetch(contig).getBases());
+            }
+        }
+    }
+
+    @Test
+    public void testMaskedBasesAndAmbiguityCodes() throws IOException {
+        final String sequence = "TTCCAttgTTGTGATTTTGTGctaTTAAAATGATCAAAACANNNCCCTTAAAAATCTTAT" +
+                "TCTAACCTCTCAANNNCTTTTAAAaatgaNNNATTTCAGTACAGTCGGATGCATCTGTAA" +
+                "AAGATAAAAAtaTaACATTGATTAGTTTgCAAAAATAATTGTTTGACCCCAGTTAAGNgaRYnnMa";
+        // ambiguity codes are stored as Ns, and masked Ns as uppercase Ns
+        final String expected = sequence.replaceAll("[RYM]", "N").replace('n', 'N');
+        final File fasta = createTempFile("testMaskedBasesAndAmbiguityCodes", ".fasta");
+        Files.write(fasta.toPath(), (">chrMaskTest some description\n" + sequence + "\n").getBytes(StandardCharsets.US_ASCII));
+
+        final File twoBit = convert(fasta, "masked.2bit");
+
+        try ( final TwoBitReference reference = new TwoBitReference(new GATKPath(twoBit.getAbsolutePath()), true) ) {
+            Assert.assertEquals(reference.getSequenceDictionary().size(), 1);
+            final byte[] bases = reference.getReferenceBases(new SimpleInterval("chrMaskTest", 1, sequence.length())).getBases();
+            Assert.assertEquals(new String(bases, StandardCharsets.US_ASCII), expected);
+        }
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testOutputMustBeTwoBit() {
+        convert(new File(hg19MiniReference), "hg19mini.fasta");
+    }
+}
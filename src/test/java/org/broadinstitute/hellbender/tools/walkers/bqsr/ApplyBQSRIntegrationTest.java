@@ -9,6 +9,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.ReadWalker;
+import org.broadinstitute.hellbender.tools.ApplyBQSRUniqueArgumentCollection;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
@@ -121,6 +123,67 @@ public final class ApplyBQSRIntegrationTest extends CommandLineProgramTest {
         }
     }
 
+    /*
+     * Precomputing the recalibrated qualities must not change the output
+     */
+    @Test(dataProvider = "ApplyBQSRTest")
+    public void testApplyBQSRWithPrecomputedQualities(ABQSRTest params) throws IOException {
+        final File outFile = GATKBaseTest.createTempFile("applyBQSRTestWithPrecomputedQualities", params.outputExtension);
+        final ArrayList<String> args = new ArrayList<>();
+        File refFile = null;
+
+        args.add("-I");
+        args.add(new File(params.bam).getAbsolutePath());
+        args.add("--" + StandardArgumentDefinitions.BQSR_TABLE_LONG_NAME);
+        args.add(new File(resourceDir + "HiSeq.20mb.1RG.table.gz").getAbsolutePath());
+        args.add("-O");
+        args.add(outFile.getAbsolutePath());
+        args.add("--" + ApplyBQSRUniqueArgumentCollection.PRECOMPUTE_RECALIBRATED_QUALITIES_LONG_NAME);
+        if (params.reference != null) {
+            refFile = new File(params.reference);
+            args.add("-R");
+            args.add(refFile.getAbsolutePath());
+        }
+        if (params.args != null) {
+            Stream.of(params.args).forEach(arg -> args.add(arg));
+        }
+
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, new File(params.expectedFile), refFile);
+    }
+
+    /**
+     * Recalibrating reads on several threads must not change the output, including the order of the reads
+     */
+    @Test(dataProvider = "ApplyBQSRTest")
+    public void testApplyBQSRPipelined(ABQSRTest params) throws IOException {
+        final File outFile = GATKBaseTest.createTempFile("applyBQSRTestPipelined", params.outputExtension);
+        final ArrayList<String> args = new ArrayList<>();
+        File refFile = null;
+
+        args.add("-I");
+        args.add(new File(params.bam).getAbsolutePath());
+        args.add("--" + StandardArgumentDefinitions.BQSR_TABLE_LONG_NAME);
+        args.add(new File(resourceDir + "HiSeq.20mb.1RG.table.gz").getAbsolutePath());
+        args.add("-O");
+        args.add(outFile.getAbsolutePath());
+        args.add("--" + ReadWalker.READ_PIPELINE_THREADS_LONG_NAME);
+        args.add("4");
+        if (params.reference != null) {
+            refFile = new File(params.reference);
+            args.add("-R");
+            args.add(refFile.getAbsolutePath());
+        }
+        if (params.args != null) {
+            Stream.of(params.args).forEach(arg -> args.add(arg));
+        }
+
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, new File(params.expectedFile), refFile);
+    }
+
     @Test(dataProvider = "MiniApplyBQSRTest")
     public void testApplyBQSRPath(ABQSRTest params) throws IOException {
         try (FileSystem jimfs = Jimfs.newFileSystem(Configuration.unix())) {
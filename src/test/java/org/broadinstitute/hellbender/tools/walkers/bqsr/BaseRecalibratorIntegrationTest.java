@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.bqsr;
 
+import com.google.common.primitives.Ints;
 import htsjdk.samtools.ValidationStringency;
 
 import org.broadinstitute.barclay.argparser.CommandLineException;
@@ -9,12 +10,21 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
 import org.broadinstitute.hellbender.testutils.SamAssertionUtils;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.RecalDatum;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationTables;
+import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 public final class BaseRecalibratorIntegrationTest extends CommandLineProgramTest{
 
@@ -106,6 +116,42 @@ public final class BaseRecalibratorIntegrationTest extends CommandLineProgramTes
         spec.executeTest("testBQSR-" + params.args, this);
     }
 
+    /*
+     * Collecting the recalibration data on several threads must produce the same report as a single-threaded run, up to
+     * the rounding of the fractional (BAQ) error counts, which are summed in a different order
+     */
+    @Test(dataProvider = "BQSRTest")
+    public void testBQSRWithRecalibrationThreads(BQSRTest params) throws IOException {
+        final File output = createTempFile("testBQSRWithRecalibrationThreads", ".table");
+        final String args = String.format(params.getCommandLine(), output.getAbsolutePath()) + " --" + BaseRecalibrator.RECALIBRATION_THREADS_LONG_NAME + " 4";
+        new BaseRecalibrator().instanceMain(Utils.escapeExpressions(args));
+
+        assertRecalibrationTablesMatch(new RecalibrationReport(output).getRecalibrationTables(),
+                new RecalibrationReport(new File(params.expectedFileName)).getRecalibrationTables());
+    }
+
+    private static void assertRecalibrationTablesMatch(final RecalibrationTables actual, final RecalibrationTables expected) {
+        Assert.assertEquals(actual.numTables(), expected.numTables());
+        final Iterator<NestedIntegerArray<RecalDatum>> expectedTables = expected.iterator();
+        for ( final NestedIntegerArray<RecalDatum> actualTable : actual ) {
+            final Map<List<Integer>, RecalDatum> expectedData = new HashMap<>();
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedTables.next().getAllLeaves() ) {
+                expectedData.put(Ints.asList(leaf.keys), leaf.value);
+            }
+            final List<NestedIntegerArray.Leaf<RecalDatum>> actualLeaves = actualTable.getAllLeaves();
+            Assert.assertEquals(actualLeaves.size(), expectedData.size());
+            for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : actualLeaves ) {
+                final RecalDatum expectedDatum = expectedData.get(Ints.asList(leaf.keys));
+                Assert.assertNotNull(expectedDatum, "unexpected entry " + Arrays.toString(leaf.keys));
+                Assert.assertEquals(leaf.value.getNumObservations(), expectedDatum.getNumObservations());
+                // the report has two decimals for error counts and four for qualities, so allow for one unit of the last one
+                Assert.assertEquals(leaf.value.getNumMismatches(), expectedDatum.getNumMismatches(), 0.01);
+                Assert.assertEquals(leaf.value.getEmpiricalQuality(), expectedDatum.getEmpiricalQuality(), 0.0001);
+                Assert.assertEquals(leaf.value.getEstimatedQReported(), expectedDatum.getEstimatedQReported(), 0.0001);
+            }
+        }
+    }
+
     @Test(description = "This is to test https://github.com/broadinstitute/hellbender/issues/322")
     public void testPlottingWorkflow() throws IOException {
         final String resourceDir = getTestDataDir() + "/" + "BQSR" + "/";
@@ -2,12 +2,16 @@ package org.broadinstitute.hellbender.tools.walkers.contamination;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.GATKTool;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -65,6 +69,27 @@ public class GetPileupSummariesIntegrationTest extends CommandLineProgramTest {
 
     }
 
+    @Test
+    public void testLocalShards() throws IOException {
+        final File output = createTempFile("output", ".table");
+        final File shardedOutput = createTempFile("sharded-output", ".table");
+
+        for ( final File out : Arrays.asList(output, shardedOutput) ) {
+            final ArgumentsBuilder args = new ArgumentsBuilder()
+                    .addInput(NA12878)
+                    .addVCF(new File(thousandGenomes))
+                    .addIntervals(new File(thousandGenomes))
+                    .addOutput(out)
+                    .add(GetPileupSummaries.MAX_SITE_AF_SHORT_NAME, 0.9);
+            if ( out == shardedOutput ) {
+                args.add(GATKTool.LOCAL_SHARDS_LONG_NAME, 4);
+            }
+            runCommandLine(args);
+        }
+
+        IntegrationTestSpec.assertEqualTextFiles(shardedOutput, output);
+    }
+
     @Test(expectedExceptions = UserException.BadInput.class)
     public void testNoAFFieldInHeader() {
         final File vcfWithoutAF = new File(publicTestDir, "empty.vcf");
@@ -49,6 +49,12 @@ public final class GenotypeLikelihoodCalculatorUnitTest {
     }
 
 
+    // multiallelic genotypes are computed over blocks of reads, so check read counts that span several blocks
+    @Test
+    public void testLikelihoodCalculationOverSeveralReadBlocks() {
+        testLikelihoodCalculation(4, 5, new int[] { 500, 129 });
+    }
+
     private static final int[] MAXIMUM_ALLELE = { 1, 2, 5, 6};
 
     private static final int[] PLOIDY = { 1, 2, 3, 20 };
@@ -5,7 +5,13 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class GenotypesCacheUnitTest extends GATKBaseTest {
 
@@ -52,4 +58,34 @@ public final class GenotypesCacheUnitTest extends GATKBaseTest {
         Assert.assertTrue(nextNext.equals(GenotypesCache.get(ploidy, genotypeIndex+2)));
     }
 
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        // an uncommon ploidy, so that the cache is likely to be extended while the threads read it
+        final int ploidy = 7;
+        final int genotypeCount = GenotypesCache.MAX_CACHE_SIZE + 100;
+        final List<GenotypeAlleleCounts> expected = new ArrayList<>(genotypeCount);
+        for (GenotypeAlleleCounts gac = GenotypeAlleleCounts.first(ploidy); expected.size() < genotypeCount; gac = gac.next()) {
+            expected.add(gac);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final long seed = t;
+                futures.add(executor.submit(() -> {
+                    final Random random = new Random(seed);
+                    for (int n = 0; n < 2000; n++) {
+                        final int genotypeIndex = random.nextInt(genotypeCount);
+                        Assert.assertEquals(GenotypesCache.get(ploidy, genotypeIndex), expected.get(genotypeIndex));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
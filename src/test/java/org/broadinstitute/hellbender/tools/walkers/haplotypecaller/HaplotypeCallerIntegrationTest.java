@@ -12,6 +12,7 @@ import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFHeader;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.IntervalArgumentCollection;
@@ -411,6 +412,77 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
     }
 
 
+    /*
+     * Test that calling regions on multiple threads produces exactly the same GVCF as the single-threaded traversal
+     */
+    @Test(dataProvider="HaplotypeCallerTestInputs")
+    public void testGVCFModeWithRegionThreadsIsConsistentWithPastResults(final String inputFileName, final String referenceFileName) throws Exception {
+        Utils.resetRandomGenerator();
+
+        final File output = createTempFile("testGVCFModeWithRegionThreadsIsConsistentWithPastResults", ".g.vcf");
+        final File expected = new File(TEST_FILES_DIR, "expected.testGVCFMode.gatk4.g.vcf");
+
+        final String[] args = {
+                "-I", inputFileName,
+                "-R", referenceFileName,
+                "-L", "20:10000000-10100000",
+                "-O", output.getAbsolutePath(),
+                "--" + AssemblyBasedCallerArgumentCollection.EMIT_REF_CONFIDENCE_LONG_NAME, ReferenceConfidenceMode.GVCF.toString(),
+                "-pairHMM", "AVX_LOGLESS_CACHING",
+                "--" + HaplotypeCaller.REGION_THREADS_LONG_NAME, "4",
+                "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+        };
+
+        runCommandLine(args);
+
+        IntegrationTestSpec.assertEqualTextFiles(output, expected);
+    }
+
+    /*
+     * Test that caching haplotype-to-reference alignments, including those loaded from a previous run, does not change the GVCF
+     */
+    @Test(dataProvider="HaplotypeCallerTestInputs")
+    public void testGVCFModeWithSmithWatermanCacheIsConsistentWithPastResults(final String inputFileName, final String referenceFileName) throws Exception {
+        final File expected = new File(TEST_FILES_DIR, "expected.testGVCFMode.gatk4.g.vcf");
+        final File cacheFile = createTempFile("testGVCFModeWithSmithWatermanCache", ".swcache");
+        Assert.assertTrue(cacheFile.delete());
+
+        // the first run fills the cache file, the second one starts from it
+        for ( int run = 0; run < 2; run++ ) {
+            Utils.resetRandomGenerator();
+            final File output = createTempFile("testGVCFModeWithSmithWatermanCacheIsConsistentWithPastResults", ".g.vcf");
+            final String[] args = {
+                    "-I", inputFileName,
+                    "-R", referenceFileName,
+                    "-L", "20:10000000-10100000",
+                    "-O", output.getAbsolutePath(),
+                    "--" + AssemblyBasedCallerArgumentCollection.EMIT_REF_CONFIDENCE_LONG_NAME, ReferenceConfidenceMode.GVCF.toString(),
+                    "-pairHMM", "AVX_LOGLESS_CACHING",
+                    "--" + AssemblyBasedCallerArgumentCollection.SMITH_WATERMAN_CACHE_SIZE_LONG_NAME, "100000",
+                    "--" + AssemblyBasedCallerArgumentCollection.SMITH_WATERMAN_CACHE_FILE_LONG_NAME, cacheFile.getAbsolutePath(),
+                    "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+            };
+
+            runCommandLine(args);
+
+            Assert.assertTrue(cacheFile.exists());
+            IntegrationTestSpec.assertEqualTextFiles(output, expected);
+        }
+    }
+
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testRegionThreadsIsIncompatibleWithBamout() {
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addReference(b37_reference_20_21)
+                .addInput(NA12878_20_21_WGS_bam)
+                .addInterval("20:10000000-10010000")
+                .addOutput(createTempFile("testRegionThreadsIsIncompatibleWithBamout", ".vcf"))
+                .add(AssemblyBasedCallerArgumentCollection.BAM_OUTPUT_LONG_NAME, createTempFile("testRegionThreadsIsIncompatibleWithBamout", ".bam"))
+                .add(HaplotypeCaller.REGION_THREADS_LONG_NAME, 2);
+
+        runCommandLine(args);
+    }
+
     /*
      * Minimal test that the non-seq graph haplotype detection code is equivalent using either seq graphs or kmer graphs
      *
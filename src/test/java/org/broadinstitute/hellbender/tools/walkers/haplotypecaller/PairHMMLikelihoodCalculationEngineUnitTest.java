@@ -1,12 +1,14 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import com.google.common.base.Strings;
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMUtils;
 import htsjdk.samtools.TextCigarCodec;
 import htsjdk.variant.variantcontext.Allele;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.genotyper.*;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
@@ -198,4 +200,101 @@ public final class PairHMMLikelihoodCalculationEngineUnitTest extends GATKBaseTe
         Assert.assertTrue(v1 > v2, "matching haplotype should have a higher likelihood");
         lce.close();
     }
+
+    @Test
+    public void testCachedLikelihoodsMatchComputedLikelihoods() {
+        final Random random = new Random(13);
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final byte[] reference = randomBases(random, 200);
+        final SimpleInterval location = new SimpleInterval(header.getSequence(0).getSequenceName(), 1, reference.length);
+
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final byte[] bases = reference.clone();
+            if (i > 0) {
+                bases[random.nextInt(bases.length)] = 'N';
+            }
+            final Haplotype haplotype = new Haplotype(bases, i == 0);
+            haplotype.setGenomeLocation(location);
+            haplotypes.add(haplotype);
+        }
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            final int start = random.nextInt(reference.length - 50);
+            final byte[] quals = new byte[50];
+            for (int j = 0; j < quals.length; j++) {
+                quals[j] = (byte) (10 + random.nextInt(30));
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, start + 1,
+                    Arrays.copyOfRange(reference, start, start + 50), quals, "50M");
+            read.setMappingQuality(60);
+            reads.add(read);
+        }
+
+        final SampleList samples = new IndexedSampleList("sample1");
+        final PairHMMLikelihoodCalculationEngine uncachedEngine = makeEngine(0);
+        final PairHMMLikelihoodCalculationEngine cachedEngine = makeEngine(100);
+        // a first region, then an overlapping one with the same reads and haplotypes and some new ones
+        final List<List<Haplotype>> regionHaplotypes = Arrays.asList(haplotypes.subList(0, 3), haplotypes, haplotypes);
+        final List<List<GATKRead>> regionReads = Arrays.asList(reads.subList(0, 20), reads, reads);
+        long hitsBeforeRegion = 0;
+        for (int region = 0; region < regionHaplotypes.size(); region++) {
+            hitsBeforeRegion = cachedEngine.getLikelihoodCache().getHits();
+            final Map<String, List<GATKRead>> perSampleReadList = Collections.singletonMap("sample1", regionReads.get(region));
+            final LikelihoodMatrix<GATKRead, Haplotype> expected = uncachedEngine.computeReadLikelihoods(regionHaplotypes.get(region), null, samples, perSampleReadList, false).sampleMatrix(0);
+            final LikelihoodMatrix<GATKRead, Haplotype> actual = cachedEngine.computeReadLikelihoods(regionHaplotypes.get(region), null, samples, perSampleReadList, false).sampleMatrix(0);
+            Assert.assertEquals(actual.evidenceCount(), expected.evidenceCount());
+            for (int h = 0; h < expected.numberOfAlleles(); h++) {
+                for (int r = 0; r < expected.evidenceCount(); r++) {
+                    Assert.assertEquals(actual.get(h, r), expected.get(h, r));
+                }
+            }
+        }
+        // the third region repeats the reads and haplotypes of the second one, so its likelihoods come from the cache
+        Assert.assertTrue(cachedEngine.getLikelihoodCache().getHits() > hitsBeforeRegion, "no cache hits in the third region");
+        uncachedEngine.close();
+        cachedEngine.close();
+    }
+
+    @Test
+    public void testReadLikelihoodCacheEviction() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read", 0, 100, Strings.repeat("A", 10).getBytes(), Strings.repeat("#", 10).getBytes(), "10M");
+        final Haplotype haplotype = new Haplotype(Strings.repeat("A", 20).getBytes(), true);
+        final ReadLikelihoodCache cache = new ReadLikelihoodCache(2);
+        final ReadLikelihoodCache.ReadKey key = ReadLikelihoodCache.makeReadKey(read, read);
+        final ReadLikelihoodCache.HaplotypeKey[] haplotypeKeys = ReadLikelihoodCache.makeHaplotypeKeys(Collections.singletonList(haplotype));
+        final double[] likelihoods = new double[1];
+
+        Assert.assertFalse(cache.get(key, haplotypeKeys, likelihoods));
+        cache.put(key, read, haplotypeKeys, new double[] {-3.0});
+        Assert.assertTrue(cache.get(key, haplotypeKeys, likelihoods));
+        Assert.assertEquals(likelihoods[0], -3.0);
+
+        // the read ends at 109
+        cache.evictReadsEndingBefore(read.getContig(), 109);
+        Assert.assertEquals(cache.size(), 1);
+        cache.evictReadsEndingBefore(read.getContig(), 110);
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertFalse(cache.get(key, haplotypeKeys, likelihoods));
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 2);
+        Assert.assertEquals(cache.getHitRate(), 1.0 / 3);
+    }
+
+    private static PairHMMLikelihoodCalculationEngine makeEngine(final int readLikelihoodCacheSize) {
+        return new PairHMMLikelihoodCalculationEngine((byte) 10, null, new PairHMMNativeArguments(), PairHMM.Implementation.LOGLESS_CACHING,
+                null, -4.5, PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE, PairHMM.BASE_QUALITY_SCORE_THRESHOLD,
+                false, PairHMMLikelihoodCalculationEngine.DEFAULT_DYNAMIC_DISQUALIFICATION_SCALE_FACTOR,
+                ReadLikelihoodCalculationEngine.DEFAULT_EXPECTED_ERROR_RATE_PER_BASE, true, false, true, readLikelihoodCacheSize);
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = (byte) "ACGT".charAt(random.nextInt(4));
+        }
+        return bases;
+    }
 }
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
@@ -103,6 +104,17 @@ public class RampedHaplotypeCallerIntegrationTest extends CommandLineProgramTest
         }
     }
 
+    @Test(expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testRegionThreadsAreRejected() {
+        final File input = new File(largeFileTestDir, "input_jukebox_for_test.bam");
+        final ArgumentsBuilder args = buildCommonArguments(input, createTempFile("output", ".vcf").getAbsolutePath());
+        args.add("off-ramp-type", "PRE_ASSEMBLER_OFF");
+        args.add("off-ramp-file", createTempFile("offramp", ".zip").getAbsolutePath());
+        args.add(HaplotypeCaller.REGION_THREADS_LONG_NAME, 2);
+
+        runCommandLine(args);
+    }
+
     private ArgumentsBuilder buildCommonArguments(File input, String outputPath) {
 
         final ArgumentsBuilder args = new ArgumentsBuilder()
@@ -0,0 +1,70 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+public final class KmerVertexMapUnitTest extends GATKBaseTest {
+
+    @DataProvider
+    public Object[][] kmerSizes() {
+        // small kmers to get many collisions, and kmers too long to be packed
+        return new Object[][] {{3}, {10}, {KmerVertexMap.MAX_PACKED_KMER_SIZE}, {KmerVertexMap.MAX_PACKED_KMER_SIZE + 4}};
+    }
+
+    @Test(dataProvider = "kmerSizes")
+    public void testMatchesHashMap(final int kmerSize) {
+        final Random random = new Random(17);
+        final byte[] sequence = new byte[5000];
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = random.nextInt(100) == 0 ? (byte) 'N' : (byte) "ACGT".charAt(random.nextInt(4));
+        }
+
+        final KmerVertexMap map = new KmerVertexMap(kmerSize);
+        final Map<Kmer, MultiDeBruijnVertex> expected = new HashMap<>();
+        for (int n = 0; n < 20_000; n++) {
+            final int start = random.nextInt(sequence.length - kmerSize);
+            final Kmer kmer = new Kmer(sequence, start, kmerSize);
+            switch (random.nextInt(4)) {
+                case 0:
+                    final MultiDeBruijnVertex vertex = new MultiDeBruijnVertex(kmer.bases());
+                    Assert.assertSame(map.put(kmer, vertex), expected.put(kmer, vertex));
+                    break;
+                case 1:
+                    Assert.assertSame(map.remove(kmer), expected.remove(kmer));
+                    break;
+                case 2:
+                    final MultiDeBruijnVertex newVertex = new MultiDeBruijnVertex(kmer.bases());
+                    Assert.assertSame(map.putIfAbsent(kmer, newVertex), expected.putIfAbsent(kmer, newVertex));
+                    break;
+                default:
+                    Assert.assertSame(map.get(sequence, start), expected.get(kmer));
+                    Assert.assertEquals(map.containsKey(kmer), expected.containsKey(kmer));
+            }
+            Assert.assertEquals(map.size(), expected.size());
+        }
+
+        for (final Map.Entry<Kmer, MultiDeBruijnVertex> entry : expected.entrySet()) {
+            Assert.assertSame(map.get(entry.getKey()), entry.getValue());
+        }
+        Assert.assertEquals(new HashSet<>(map.values()), new HashSet<>(expected.values()));
+    }
+
+    @Test
+    public void testKmersOfOtherSizes() {
+        final KmerVertexMap map = new KmerVertexMap(3);
+        final MultiDeBruijnVertex vertex = new MultiDeBruijnVertex("AAA".getBytes());
+        map.put(new Kmer("AAA"), vertex);
+        Assert.assertSame(map.get(new Kmer("AAA")), vertex);
+        // these would pack to the same value as AAA
+        Assert.assertNull(map.get(new Kmer("AA")));
+        Assert.assertNull(map.get(new Kmer("AAAA")));
+    }
+}
@@ -181,6 +181,49 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
     }
 
 
+    @Test
+    public void testConcurrentKmerSizesGiveSameHaplotypes() {
+        final SimpleInterval loc = new SimpleInterval("1", 100000, 100200);
+        final byte[] refBases = seq.getSubsequenceAt(loc.getContig(), loc.getStart(), loc.getEnd()).getBases();
+        final String ref = new String(refBases);
+        // the tandem repeat of the alt haplotype makes cycles in the graphs of small kmer sizes, so that larger ones are attempted
+        final byte[] altBases = (ref.substring(0, 80) + "ACGTTAGCACGTTAGCACGTTAGC" + ref.substring(80)).getBytes();
+
+        final List<GATKRead> reads = new LinkedList<>();
+        for ( int i = 0; i < 5; i++ ) {
+            for ( final byte[] bases : Arrays.asList(refBases, altBases) ) {
+                reads.add(ArtificialReadUtils.createArtificialRead(header, loc.getContig(), loc.getContig(), loc.getStart(),
+                        bases.clone(), Utils.dupBytes((byte) 30, bases.length), bases.length + "M"));
+            }
+        }
+
+        final List<List<Haplotype>> haplotypesByNumThreads = new ArrayList<>();
+        for ( final int numThreads : Arrays.asList(0, 2, 4) ) {
+            try ( final ReadThreadingAssembler assembler = new ReadThreadingAssembler(ReadThreadingAssembler.DEFAULT_NUM_PATHS_PER_GRAPH, Arrays.asList(6, 8),
+                    false, false, 1, 2, false, 0.001, 2, 2, Integer.MAX_VALUE, false, false, 3) ) {
+                assembler.setNumKmerThreads(numThreads);
+                haplotypesByNumThreads.add(assemble(assembler, refBases, loc, reads));
+            }
+        }
+        Assert.assertTrue(haplotypesByNumThreads.get(0).size() > 1);
+        Assert.assertEquals(haplotypesByNumThreads.get(1), haplotypesByNumThreads.get(0));
+        Assert.assertEquals(haplotypesByNumThreads.get(2), haplotypesByNumThreads.get(0));
+    }
+
+    @Test
+    public void testDebugGraphsRequireSingleKmerThread() {
+        try ( final ReadThreadingAssembler assembler = new ReadThreadingAssembler(ReadThreadingAssembler.DEFAULT_NUM_PATHS_PER_GRAPH, Arrays.asList(6, 8),
+                false, false, 1, 2, false, 0.001, 2, 2, Integer.MAX_VALUE, false, false, 3) ) {
+            assembler.setDebugGraphTransformations(true);
+            assembler.setNumKmerThreads(1);
+            Assert.assertThrows(IllegalArgumentException.class, () -> assembler.setNumKmerThreads(2));
+
+            assembler.setDebugGraphTransformations(false);
+            assembler.setNumKmerThreads(2);
+            Assert.assertThrows(IllegalArgumentException.class, () -> assembler.setDebugGraphTransformations(true));
+        }
+    }
+
     private List<Haplotype> assemble(final ReadThreadingAssembler assembler, final byte[] refBases, final SimpleInterval loc, final List<GATKRead> reads) {
         final Haplotype refHaplotype = new Haplotype(refBases, true);
         final Cigar c = new Cigar();
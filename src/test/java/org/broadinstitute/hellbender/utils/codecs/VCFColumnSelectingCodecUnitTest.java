@@ -0,0 +1,105 @@
+package org.broadinstitute.hellbender.utils.codecs;
+
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.VariantColumnSelection;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+public final class VCFColumnSelectingCodecUnitTest extends GATKBaseTest {
+    private static final String HEADER = String.join("\n",
+            "##fileformat=VCFv4.2",
+            "##INFO=<ID=AC,Number=A,Type=Integer,Description=\"Allele count\">",
+            "##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">",
+            "##INFO=<ID=DB,Number=0,Type=Flag,Description=\"dbSNP\">",
+            "##INFO=<ID=END,Number=1,Type=Integer,Description=\"End position\">",
+            "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">",
+            "##FORMAT=<ID=AD,Number=R,Type=Integer,Description=\"Allelic depths\">",
+            "##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">",
+            "##contig=<ID=1,length=1000>",
+            "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\ts1\ts2\ts3") + "\n";
+
+    private static final String RECORD = "1\t100\trs1\tA\tC\t50\tPASS\tAC=2;DP=30;DB\tGT:AD:DP\t0/1:10,5:15\t1/1:0,8:8\t0/0";
+
+    private static VCFHeader readHeader(final VCFColumnSelectingCodec codec) {
+        return (VCFHeader) codec.readActualHeader(new LineIteratorImpl(new SynchronousLineReader(new StringReader(HEADER))));
+    }
+
+    private static VCFColumnSelectingCodec makeCodec(final VariantColumnSelection selection) {
+        final VCFColumnSelectingCodec codec = new VCFColumnSelectingCodec(new VCFCodec(), selection);
+        readHeader(codec);
+        return codec;
+    }
+
+    @Test
+    public void testSelectAll() {
+        final VCFColumnSelectingCodec codec = new VCFColumnSelectingCodec(new VCFCodec(), VariantColumnSelection.ALL);
+        Assert.assertEquals(readHeader(codec).getGenotypeSamples(), Arrays.asList("s1", "s2", "s3"));
+        Assert.assertEquals(codec.selectColumns(RECORD), RECORD);
+    }
+
+    @Test
+    public void testSelectSamplesAndFields() {
+        final VCFColumnSelectingCodec codec = makeCodec(new VariantColumnSelection(
+                Collections.singleton("DP"), Collections.singleton("AD"), Arrays.asList("s2", "s3", "absent")));
+        // s3 has no AD value, since trailing fields may be omitted
+        Assert.assertEquals(codec.selectColumns(RECORD), "1\t100\trs1\tA\tC\t50\tPASS\tDP=30\tAD\t0,8\t.");
+
+        final VariantContext vc = codec.decode(RECORD);
+        Assert.assertEquals(vc.getID(), "rs1");
+        Assert.assertEquals(vc.getAttributes().keySet(), Collections.singleton("DP"));
+        Assert.assertEquals(vc.getSampleNamesOrderedByName(), Arrays.asList("s2", "s3"));
+        Assert.assertEquals(vc.getGenotype("s2").getAD(), new int[]{0, 8});
+        Assert.assertFalse(vc.getGenotype("s3").hasAD());
+    }
+
+    @Test
+    public void testSitesOnly() {
+        final VCFColumnSelectingCodec codec = new VCFColumnSelectingCodec(new VCFCodec(), VariantColumnSelection.SITES_ONLY);
+        Assert.assertTrue(readHeader(codec).getGenotypeSamples().isEmpty());
+        Assert.assertEquals(codec.selectColumns(RECORD), "1\t100\trs1\tA\tC\t50\tPASS\t.");
+
+        final VariantContext vc = codec.decode(RECORD);
+        Assert.assertEquals(vc.getStart(), 100);
+        Assert.assertTrue(vc.getAttributes().isEmpty());
+        Assert.assertFalse(vc.hasGenotypes());
+    }
+
+    @Test
+    public void testEndIsAlwaysKept() {
+        final String block = "1\t200\t.\tA\t<NON_REF>\t.\t.\tDP=12;END=250\tGT:DP\t0/0:12\t0/0:10\t0/0:9";
+        final VCFColumnSelectingCodec codec = makeCodec(VariantColumnSelection.SITES_ONLY);
+        Assert.assertEquals(codec.selectColumns(block), "1\t200\t.\tA\t<NON_REF>\t.\t.\tEND=250");
+
+        final VariantContext vc = codec.decode(block);
+        Assert.assertEquals(vc.getStart(), 200);
+        Assert.assertEquals(vc.getEnd(), 250);
+    }
+
+    @Test
+    public void testFlagsAndMissingFormatFields() {
+        final VCFColumnSelectingCodec codec = makeCodec(new VariantColumnSelection(
+                Arrays.asList("DB", "AC"), Collections.singleton("PL"), null));
+        // the first FORMAT field is kept when none of the selected ones are present
+        Assert.assertEquals(codec.selectColumns(RECORD), "1\t100\trs1\tA\tC\t50\tPASS\tAC=2;DB\tGT\t0/1\t1/1\t0/0");
+
+        final VariantContext vc = codec.decode(RECORD);
+        Assert.assertTrue(vc.hasAttribute("DB"));
+        Assert.assertEquals(vc.getHetCount(), 1);
+        Assert.assertEquals(vc.getHomVarCount(), 1);
+        Assert.assertEquals(vc.getHomRefCount(), 1);
+    }
+
+    @Test
+    public void testDefaultCodecCannotDecode() {
+        Assert.assertFalse(new VCFColumnSelectingCodec().canDecode("test.vcf"));
+    }
+}
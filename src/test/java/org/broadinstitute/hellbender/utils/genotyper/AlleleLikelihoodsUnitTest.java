@@ -804,6 +804,46 @@ public final class AlleleLikelihoodsUnitTest {
         Assert.assertEquals(newLk, 0.0, " reporting the zoombie lk of 99.0?");
     }
 
+    @Test
+    public void testGrowingEvidenceAndAllelesKeepsLikelihoods() {
+        final List<SimpleInterval> evidence = IntStream.range(0, 5).mapToObj(n -> new SimpleInterval("seq1", n + 1, n + 1)).collect(Collectors.toList());
+        final AlleleLikelihoods<SimpleInterval, Allele> lk = new AlleleLikelihoods<SimpleInterval, Allele>(
+                SampleList.singletonSampleList("sample"),
+                AlleleList.newList(Arrays.asList(Allele.REF_A, Allele.ALT_C)),
+                Collections.singletonMap("sample", evidence.subList(0, 2))
+        );
+        // two alleles and two units of evidence, with no spare capacity
+        Assert.assertEquals(lk.likelihoodsFootprintInBytes(), 16 + 8 + 16 + 4 * 8);
+        for (int a = 0; a < 2; a++) {
+            for (int r = 0; r < 2; r++) {
+                lk.sampleMatrix(0).set(a, r, -(10 * a + r));
+            }
+        }
+
+        lk.addEvidence(Collections.singletonMap("sample", evidence.subList(2, 5)), -100.0);
+        lk.addMissingAlleles(Collections.singletonList(Allele.ALT_G), -200.0);
+        final LikelihoodMatrix<SimpleInterval, Allele> matrix = lk.sampleMatrix(0);
+        for (int a = 0; a < 3; a++) {
+            for (int r = 0; r < 5; r++) {
+                final double expected = a == 2 ? -200.0 : r >= 2 ? -100.0 : -(10 * a + r);
+                Assert.assertEquals(matrix.get(a, r), expected);
+            }
+        }
+        // the evidence capacity is doubled when it grows
+        Assert.assertEquals(lk.likelihoodsFootprintInBytes(), 16 + 8 + 16 + 3 * 10 * 8);
+
+        lk.retainEvidence(e -> e.getStart() != 2);
+        Assert.assertEquals(matrix.get(1, 0), -10.0);
+        Assert.assertEquals(matrix.get(1, 1), -100.0);
+        Assert.assertEquals(matrix.get(2, 3), -200.0);
+
+        final AlleleLikelihoods<SimpleInterval, Allele> marginal = lk.marginalize(
+                Collections.singletonMap(Allele.ALT_C, Arrays.asList(Allele.REF_A, Allele.ALT_C)));
+        Assert.assertEquals(marginal.sampleMatrix(0).get(0, 0), 0.0);
+        Assert.assertEquals(marginal.sampleMatrix(0).get(0, 3), -100.0);
+        Assert.assertEquals(marginal.likelihoodsFootprintInBytes(), 16 + 8 + 16 + 4 * 8);
+    }
+
     @DataProvider(name="readCountsAndnumberOfAllelesData")
     public Object[][] readCountsAndnumberOfAllelesData() {
         final Object[][] result = new Object[READ_COUNTS.length * ALLELE_COUNTS.length * 2][];
@@ -94,6 +94,28 @@ public class FeatureOutputStreamUnitTest extends GATKBaseTest {
         testWithStream(streamGz, featureList, outFilePathGz, codec, expectedHeader, true);
     }
 
+    @Test(dataProvider = "featureOutputStreamData")
+    public <T extends Feature> void testParallelCompression(final ArrayList<T> featureList,
+                                                            final String extension,
+                                                            final FeatureCodec<T, LineIterator> codec,
+                                                            final String expectedHeader) throws IOException {
+        final File tempDir = IOUtils.createTempDir(FeatureOutputStream.class.getSimpleName());
+        final Path outFilePathGz = Paths.get(tempDir.toString(), getClass().getSimpleName() + extension + ".gz");
+        ParallelBlockCompressedOutputStream.setDefaultCompressionThreads(2);
+        try {
+            final FeatureOutputStream<T> streamGz = new FeatureOutputStream<>(
+                    new GATKPath(outFilePathGz.toString()),
+                    codec.getTabixFormat(),
+                    FeatureOutputStreamUnitTest::encodeSVEvidenceFeature,
+                    dictionary,
+                    4
+            );
+            testWithStream(streamGz, featureList, outFilePathGz, codec, expectedHeader, true);
+        } finally {
+            ParallelBlockCompressedOutputStream.setDefaultCompressionThreads(0);
+        }
+    }
+
     private <T extends Feature> void testWithStream(final FeatureOutputStream<T> stream, final ArrayList<T> featureList,
                                 final Path outFilePath, final FeatureCodec<T, LineIterator> codec,
                                 final String expectedHeader, final boolean indexed) throws IOException {
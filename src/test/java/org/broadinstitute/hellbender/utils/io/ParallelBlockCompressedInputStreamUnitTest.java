@@ -0,0 +1,125 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+public final class ParallelBlockCompressedInputStreamUnitTest extends GATKBaseTest {
+
+    @DataProvider
+    public Object[][] streamData() {
+        return new Object[][] {
+                // number of threads, compressible data, stored blocks
+                {1, true, false},
+                {3, true, false},
+                {3, false, false},
+                {3, true, true},
+                {3, false, true},
+        };
+    }
+
+    @Test(dataProvider = "streamData")
+    public void testReadWholeFile(final int numThreads, final boolean compressible, final boolean storedBlocks) throws IOException {
+        final byte[] expected = makeData(1_000_000, compressible);
+        final File input = writeBlockCompressed(expected);
+
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (final InputStream stream = openStream(input, numThreads, storedBlocks)) {
+            // alternate single bytes and buffers of various sizes
+            final Random random = new Random(42);
+            while (true) {
+                if (random.nextInt(10) == 0) {
+                    final int b = stream.read();
+                    if (b < 0) {
+                        break;
+                    }
+                    actual.write(b);
+                } else {
+                    final byte[] buffer = new byte[random.nextInt(100_000) + 1];
+                    final int numBytes = stream.read(buffer);
+                    if (numBytes < 0) {
+                        break;
+                    }
+                    actual.write(buffer, 0, numBytes);
+                }
+            }
+        }
+        Assert.assertEquals(actual.toByteArray(), expected);
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        final File input = writeBlockCompressed(new byte[0]);
+        try (final InputStream stream = openStream(input, 2, false)) {
+            Assert.assertEquals(stream.read(), -1);
+            Assert.assertEquals(stream.read(new byte[10]), -1);
+        }
+    }
+
+    @Test
+    public void testCloseBeforeEnd() throws IOException {
+        final File input = writeBlockCompressed(makeData(10_000_000, false));
+        final InputStream stream = openStream(input, 2, false);
+        Assert.assertNotEquals(stream.read(), -1);
+        stream.close();
+        stream.close();
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testTruncatedFile() throws IOException {
+        final byte[] data = makeData(1_000_000, false);
+        final File input = writeBlockCompressed(data);
+        final byte[] truncated = Arrays.copyOf(Files.readAllBytes(input.toPath()), 500_000);
+        try (final InputStream stream = new ParallelBlockCompressedInputStream(new ByteArrayInputStream(truncated), "test", 2, false)) {
+            stream.transferTo(new ByteArrayOutputStream());
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testNotBlockCompressed() throws IOException {
+        try (final InputStream stream = new ParallelBlockCompressedInputStream(new ByteArrayInputStream(makeData(1000, true)), "test", 2, false)) {
+            stream.read();
+        }
+    }
+
+    private static InputStream openStream(final File input, final int numThreads, final boolean storedBlocks) throws IOException {
+        final InputStream stream = new ParallelBlockCompressedInputStream(new FileInputStream(input), input.getName(), numThreads, storedBlocks);
+        // stored blocks are decompressed again by htsjdk
+        return storedBlocks ? new BlockCompressedInputStream(stream) : stream;
+    }
+
+    private static File writeBlockCompressed(final byte[] data) throws IOException {
+        final File output = createTempFile("parallelBlockCompressedInputStream", ".gz");
+        try (final BlockCompressedOutputStream stream = new BlockCompressedOutputStream(output)) {
+            stream.write(data);
+        }
+        return output;
+    }
+
+    private static byte[] makeData(final int size, final boolean compressible) {
+        final Random random = new Random(13);
+        final byte[] data = new byte[size];
+        if (compressible) {
+            for (int i = 0; i < size; i++) {
+                data[i] = (byte) ('A' + random.nextInt(4));
+            }
+        } else {
+            random.nextBytes(data);
+        }
+        return data;
+    }
+}
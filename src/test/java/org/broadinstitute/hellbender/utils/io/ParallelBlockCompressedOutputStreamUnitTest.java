@@ -0,0 +1,110 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class ParallelBlockCompressedOutputStreamUnitTest extends GATKBaseTest {
+
+    @DataProvider
+    public Object[][] streamData() {
+        return new Object[][] {
+                // number of threads, compressible data
+                {1, true},
+                {3, true},
+                {3, false},
+        };
+    }
+
+    @Test(dataProvider = "streamData")
+    public void testWriteAndResolvePositions(final int numThreads, final boolean compressible) throws IOException {
+        final Random random = new Random(42);
+        final File output = createTempFile("parallelBlockCompressedOutputStream", ".gz");
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        final List<Long> pendingPositions = new ArrayList<>();
+        final List<Integer> uncompressedOffsets = new ArrayList<>();
+        try (final ParallelBlockCompressedOutputStream stream =
+                     new ParallelBlockCompressedOutputStream(new FileOutputStream(output), output.getName(), 5, numThreads)) {
+            // records of various sizes, some of them larger than a block
+            for (int i = 0; i < 2000; i++) {
+                final byte[] record = new byte[random.nextInt(i % 100 == 0 ? 3 * ParallelBlockCompressedOutputStream.UNCOMPRESSED_BLOCK_SIZE : 500) + 1];
+                if (compressible) {
+                    for (int j = 0; j < record.length; j++) {
+                        record[j] = (byte) ('A' + random.nextInt(4));
+                    }
+                } else {
+                    random.nextBytes(record);
+                }
+                pendingPositions.add(stream.getPosition());
+                uncompressedOffsets.add(expected.size());
+                if (i % 2 == 0) {
+                    stream.write(record);
+                } else {
+                    for (final byte b : record) {
+                        stream.write(b);
+                    }
+                }
+                expected.write(record);
+            }
+            stream.flush();
+
+            // the positions must be virtual file pointers to the start of the records
+            final byte[] expectedBytes = expected.toByteArray();
+            try (final BlockCompressedInputStream input = new BlockCompressedInputStream(output)) {
+                for (int i = 0; i < pendingPositions.size(); i += 37) {
+                    input.seek(stream.resolvePosition(pendingPositions.get(i)));
+                    final int offset = uncompressedOffsets.get(i);
+                    Assert.assertEquals(input.read(), expectedBytes[offset] & 0xff, "Wrong position of record " + i);
+                }
+            }
+        }
+
+        try (final BlockCompressedInputStream input = new BlockCompressedInputStream(output)) {
+            final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[10000];
+            int numBytes;
+            while ((numBytes = input.read(buffer)) > 0) {
+                actual.write(buffer, 0, numBytes);
+            }
+            Assert.assertEquals(actual.toByteArray(), expected.toByteArray());
+        }
+        Assert.assertEquals(BlockCompressedInputStream.checkTermination(output), BlockCompressedInputStream.FileTermination.HAS_TERMINATOR_BLOCK);
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        final File output = createTempFile("parallelBlockCompressedOutputStream", ".gz");
+        final long position;
+        try (final ParallelBlockCompressedOutputStream stream =
+                     new ParallelBlockCompressedOutputStream(new FileOutputStream(output), output.getName(), BlockCompressedOutputStream.getDefaultCompressionLevel(), 2)) {
+            position = stream.getPosition();
+            Assert.assertEquals(stream.resolvePosition(position), 0L);
+        }
+        try (final BlockCompressedInputStream input = new BlockCompressedInputStream(output)) {
+            Assert.assertEquals(input.read(), -1);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPositionsMustBeResolvedInOrder() throws IOException {
+        try (final ParallelBlockCompressedOutputStream stream =
+                     new ParallelBlockCompressedOutputStream(new ByteArrayOutputStream(), "test", 5, 2)) {
+            final long first = stream.getPosition();
+            stream.write(new byte[3 * ParallelBlockCompressedOutputStream.UNCOMPRESSED_BLOCK_SIZE]);
+            final long second = stream.getPosition();
+            stream.resolvePosition(second);
+            stream.resolvePosition(first);
+        }
+    }
+}
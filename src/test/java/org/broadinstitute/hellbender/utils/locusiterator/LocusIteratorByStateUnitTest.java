@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.DownsampleType;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
@@ -187,6 +188,77 @@ public final class LocusIteratorByStateUnitTest extends LocusIteratorByStateBase
          Assert.assertTrue(foundIndel,"Indel in pileup not found");
     }
 
+    @Test
+    public void testPileupColumnsMatchAlignmentContexts() {
+        final GATKRead before = ArtificialReadUtils.createArtificialRead(header, "before", 0, 1, 10);
+        before.setBases(Utils.dupBytes((byte) 'A', 10));
+        before.setBaseQualities(Utils.dupBytes((byte) 20, 10));
+        before.setCigar("10M");
+
+        final GATKRead during = ArtificialReadUtils.createArtificialRead(header, "during", 0, 2, 8);
+        during.setBases("ACGTACGT".getBytes());
+        during.setBaseQualities(new byte[] {10, 11, 12, 13, 14, 15, 16, 17});
+        during.setCigar("4M2D4M");
+
+        final GATKRead after = ArtificialReadUtils.createArtificialRead(header, "after", 0, 3, 10);
+        after.setBases(Utils.dupBytes((byte) 'C', 10));
+        after.setBaseQualities(Utils.dupBytes((byte) 30, 10));
+        after.setCigar("10M");
+
+        final LocusIteratorByState contexts = makeLIBS(new ArrayList<>(Arrays.asList(before, during, after)), header);
+        final LocusIteratorByState columns = makeLIBS(new ArrayList<>(Arrays.asList(before, during, after)), header);
+
+        PileupColumn previousColumn = null;
+        int nLoci = 0;
+        while (contexts.hasNext()) {
+            Assert.assertTrue(columns.hasNext());
+            final ReadPileup pileup = contexts.next().getBasePileup();
+            final PileupColumn column = columns.nextColumn();
+            if (previousColumn != null) {
+                Assert.assertSame(column, previousColumn, "columns should be reused across loci");
+            }
+            previousColumn = column;
+
+            Assert.assertEquals(column.getStart(), pileup.getLocation().getStart());
+            Assert.assertEquals(column.size(), pileup.size());
+            final List<PileupElement> elements = new ArrayList<>();
+            pileup.forEach(elements::add);
+            for (int i = 0; i < column.size(); i++) {
+                final PileupElement element = elements.get(i);
+                Assert.assertSame(column.getRead(i), element.getRead());
+                Assert.assertEquals(column.getOffset(i), element.getOffset());
+                Assert.assertEquals(column.getBase(i), element.getBase());
+                Assert.assertEquals(column.getQual(i), element.getQual());
+                Assert.assertEquals(column.isDeletion(i), element.isDeletion());
+                Assert.assertEquals(column.makePileupElement(i).isBeforeDeletionStart(), element.isBeforeDeletionStart());
+            }
+            Assert.assertEquals(column.toReadPileup().getReads(), pileup.getReads());
+            Assert.assertEquals(column.getBaseCounts(), pileup.getBaseCounts());
+            nLoci++;
+        }
+        Assert.assertFalse(columns.hasNext());
+        Assert.assertEquals(nLoci, 12);
+    }
+
+    @Test
+    public void testSwitchingFromAlignmentContextsToPileupColumns() {
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read", 0, 1, 4);
+        read.setBases("ACGT".getBytes());
+        read.setBaseQualities(new byte[] {10, 20, 30, 40});
+        read.setCigar("4M");
+
+        final LocusIteratorByState libs = makeLIBS(new ArrayList<>(Collections.singletonList(read)), header);
+        Assert.assertEquals(libs.next().getBasePileup().getBases(), new byte[] {'A'});
+        // the second locus has already been loaded as an AlignmentContext by hasNext()
+        Assert.assertTrue(libs.hasNext());
+        for (final byte base : "CGT".getBytes()) {
+            final PileupColumn column = libs.nextColumn();
+            Assert.assertEquals(column.size(), 1);
+            Assert.assertEquals(column.getBase(0), base);
+        }
+        Assert.assertFalse(libs.hasNext());
+    }
+
     /**
      * Test to make sure that reads supporting only an indel (example cigar string: 76I) do
      * not negatively influence the ordering of the pileup.
@@ -749,6 +749,75 @@ public final class PairHMMUnitTest extends GATKBaseTest {
                 baseQuals, baseQuals, baseQuals, baseQuals, true, null);
     }
 
+    @DataProvider(name = "PrefixSharingHMMProvider")
+    public Object[][] makePrefixSharingHMMProvider() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final boolean interleave : Arrays.asList(false, true) ) {
+            tests.add(new Object[]{new Log10PairHMM(true), interleave});
+            tests.add(new Object[]{new Log10PairHMM(false), interleave});
+            tests.add(new Object[]{new LoglessPairHMM(), interleave});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    /**
+     * The likelihoods computed for a list of haplotypes sharing prefixes (which lets the HMM reuse matrix columns) must
+     * be identical to those computed one haplotype at a time, even if another HMM uses the thread's matrices in between.
+     */
+    @Test(dataProvider = "PrefixSharingHMMProvider")
+    public void testHaplotypePrefixReuseMatchesIndependentComputation(final N2MemoryPairHMM hmm, final boolean interleave) {
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTGTCAAACCGGGTTACGTA".getBytes(), true),
+                new Haplotype("ACGTGTCACACTGGGTTACGTA".getBytes(), false),
+                new Haplotype("ACGTGTCACTCCGCGTTACGTA".getBytes(), false),
+                new Haplotype("ACGTGTCACTCCGCGTTACG".getBytes(), false));
+        final List<GATKRead> reads = Arrays.asList(
+                ArtificialReadUtils.createArtificialRead("GTCACACTGGATTAC".getBytes(), Utils.dupBytes((byte) 30, 15), "15M"),
+                ArtificialReadUtils.createArtificialRead("ACGTGTCAAACCGGG".getBytes(), Utils.dupBytes((byte) 25, 15), "15M"),
+                ArtificialReadUtils.createArtificialRead("CACTCCGCGTTA".getBytes(), Utils.dupBytes((byte) 35, 12), "12M"));
+        final PairHMMInputScoreImputator imputator = StandardPairHMMInputScoreImputator.newInstance((byte) 40);
+        final N2MemoryPairHMM other = new LoglessPairHMM();
+
+        hmm.computeLog10Likelihoods(matrix(haplotypes), reads, imputator);
+        final double[] batched = hmm.getLogLikelihoodArray().clone();
+
+        for ( int r = 0; r < reads.size(); r++ ) {
+            for ( int h = 0; h < haplotypes.size(); h++ ) {
+                if ( interleave ) {
+                    other.computeLog10Likelihoods(matrix(haplotypes), reads, imputator);
+                }
+                hmm.computeLog10Likelihoods(matrix(Collections.singletonList(haplotypes.get(h))), Collections.singletonList(reads.get(r)), imputator);
+                Assert.assertEquals(batched[r * haplotypes.size() + h], hmm.getLogLikelihoodArray()[0], 0.0,
+                        "read " + r + " haplotype " + h);
+            }
+        }
+    }
+
+    @Test(dataProvider = "JustHMMProvider")
+    public void testMatricesAreNotReallocatedInSteadyState(final PairHMM hmm) {
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTGTCAAACCGGGTTACGTA".getBytes(), true),
+                new Haplotype("ACGTGTCACACTGGGTTACGTA".getBytes(), false));
+        final List<GATKRead> reads = Collections.singletonList(
+                ArtificialReadUtils.createArtificialRead("GTCACACTGGATTAC".getBytes(), Utils.dupBytes((byte) 30, 15), "15M"));
+        final PairHMMInputScoreImputator imputator = StandardPairHMMInputScoreImputator.newInstance((byte) 40);
+        final PairHMMMatrixArena arena = PairHMMMatrixArena.forCurrentThread();
+
+        // grow the arena well beyond what this test needs
+        hmm.initialize(200, 300);
+        hmm.computeLog10Likelihoods(matrix(haplotypes), reads, imputator);
+        final long allocationCount = arena.getAllocationCount();
+        final long allocatedBytes = arena.getAllocatedBytes();
+
+        for ( int i = 0; i < 10; i++ ) {
+            // re-initializing with smaller dimensions, as is done for every assembly region, must not allocate either
+            hmm.initialize(15, 22);
+            hmm.computeLog10Likelihoods(matrix(haplotypes), reads, imputator);
+        }
+        Assert.assertEquals(arena.getAllocationCount(), allocationCount);
+        Assert.assertEquals(arena.getAllocatedBytes(), allocatedBytes);
+    }
+
     @Test
     public void dumpMatrices(){
         //doesn't test anything other than not-blowing up
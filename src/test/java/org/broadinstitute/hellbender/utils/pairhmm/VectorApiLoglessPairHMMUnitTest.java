@@ -0,0 +1,140 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.StandardPairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public final class VectorApiLoglessPairHMMUnitTest extends GATKBaseTest {
+
+    private static final String SAMPLE = "sample";
+    private static final byte GCP = 10;
+
+    private static PairHMM makeVectorApiHMM(final boolean useDoublePrecision) {
+        final PairHMMNativeArguments args = new PairHMMNativeArguments();
+        args.useDoublePrecision = useDoublePrecision;
+        try {
+            return PairHMM.Implementation.VECTOR_API_LOGLESS_CACHING.makeNewHMM(args);
+        } catch (final UserException.HardwareFeatureException e) {
+            throw new SkipException("Java Vector API PairHMM not available: " + e.getMessage());
+        }
+    }
+
+    private static AlleleLikelihoods<GATKRead, Haplotype> computeLikelihoods(final PairHMM hmm, final List<Haplotype> haplotypes, final List<GATKRead> reads) {
+        final AlleleLikelihoods<GATKRead, Haplotype> likelihoods = new AlleleLikelihoods<>(new IndexedSampleList(SAMPLE),
+                new IndexedAlleleList<>(haplotypes), Collections.singletonMap(SAMPLE, reads));
+        hmm.computeLog10Likelihoods(likelihoods.sampleMatrix(0), reads, StandardPairHMMInputScoreImputator.newInstance(GCP));
+        return likelihoods;
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = "ACGT".getBytes()[random.nextInt(4)];
+        }
+        return bases;
+    }
+
+    @DataProvider(name = "randomInputs")
+    public Object[][] makeRandomInputs() {
+        final List<Object[]> tests = new ArrayList<>();
+        final Random random = new Random(7);
+        for (final int readLength : new int[]{1, 3, 17, 64, 151}) {
+            for (final int haplotypeLength : new int[]{readLength, readLength + 11, 2 * readLength + 100}) {
+                final byte[] refHaplotype = randomBases(random, haplotypeLength);
+                final List<Haplotype> haplotypes = new ArrayList<>();
+                haplotypes.add(new Haplotype(refHaplotype, true));
+                for (int h = 0; h < 3; h++) {
+                    // alternate haplotypes sharing a prefix with the reference, plus an occasional N
+                    final byte[] alt = refHaplotype.clone();
+                    alt[random.nextInt(haplotypeLength)] = random.nextInt(5) == 0 ? (byte) 'N' : randomBases(random, 1)[0];
+                    haplotypes.add(new Haplotype(alt, false));
+                }
+
+                final List<GATKRead> reads = new ArrayList<>();
+                for (int r = 0; r < 5; r++) {
+                    final int start = random.nextInt(haplotypeLength - readLength + 1);
+                    final byte[] bases = haplotypes.get(r % haplotypes.size()).getBases();
+                    final byte[] readBases = new byte[readLength];
+                    final byte[] readQuals = new byte[readLength];
+                    for (int i = 0; i < readLength; i++) {
+                        readBases[i] = random.nextInt(30) == 0 ? randomBases(random, 1)[0] : bases[start + i];
+                        readQuals[i] = (byte) (6 + random.nextInt(35));
+                    }
+                    reads.add(ArtificialReadUtils.createArtificialRead(readBases, readQuals, readLength + "M"));
+                }
+                tests.add(new Object[]{haplotypes, reads});
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "randomInputs")
+    public void testSinglePrecisionMatchesLoglessPairHMM(final List<Haplotype> haplotypes, final List<GATKRead> reads) {
+        final AlleleLikelihoods<GATKRead, Haplotype> expected = computeLikelihoods(new LoglessPairHMM(), haplotypes, reads);
+        final AlleleLikelihoods<GATKRead, Haplotype> actual = computeLikelihoods(makeVectorApiHMM(false), haplotypes, reads);
+
+        for (int h = 0; h < haplotypes.size(); h++) {
+            for (int r = 0; r < reads.size(); r++) {
+                Assert.assertEquals(actual.sampleMatrix(0).get(h, r), expected.sampleMatrix(0).get(h, r), 1e-4,
+                        "haplotype " + h + " read " + r);
+            }
+        }
+    }
+
+    @Test(dataProvider = "randomInputs")
+    public void testDoublePrecisionIsIdenticalToLoglessPairHMM(final List<Haplotype> haplotypes, final List<GATKRead> reads) {
+        final AlleleLikelihoods<GATKRead, Haplotype> expected = computeLikelihoods(new LoglessPairHMM(), haplotypes, reads);
+        final AlleleLikelihoods<GATKRead, Haplotype> actual = computeLikelihoods(makeVectorApiHMM(true), haplotypes, reads);
+
+        for (int h = 0; h < haplotypes.size(); h++) {
+            for (int r = 0; r < reads.size(); r++) {
+                Assert.assertEquals(actual.sampleMatrix(0).get(h, r), expected.sampleMatrix(0).get(h, r), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testUnderflowIsRescuedInDoublePrecision() {
+        // a long read that doesn't match the haplotype at all underflows in single precision
+        final int length = 300;
+        final byte[] haplotypeBases = new byte[length];
+        final byte[] readBases = new byte[length];
+        final byte[] quals = new byte[length];
+        for (int i = 0; i < length; i++) {
+            haplotypeBases[i] = 'A';
+            readBases[i] = 'C';
+            quals[i] = 40;
+        }
+        final List<Haplotype> haplotypes = Collections.singletonList(new Haplotype(haplotypeBases, true));
+        final List<GATKRead> reads = Collections.singletonList(ArtificialReadUtils.createArtificialRead(readBases, quals, length + "M"));
+
+        final double expected = computeLikelihoods(new LoglessPairHMM(), haplotypes, reads).sampleMatrix(0).get(0, 0);
+        final double actual = computeLikelihoods(makeVectorApiHMM(false), haplotypes, reads).sampleMatrix(0).get(0, 0);
+        // way below what the single precision computation can represent (about -64)
+        Assert.assertTrue(expected < -100, "expected likelihood is not small enough to test underflow: " + expected);
+        Assert.assertEquals(actual, expected, 0.0);
+    }
+
+    @Test
+    public void testFastestAvailableNeverFails() {
+        final PairHMM hmm = PairHMM.Implementation.FASTEST_AVAILABLE.makeNewHMM(new PairHMMNativeArguments());
+        Assert.assertNotNull(hmm);
+        hmm.close();
+    }
+}
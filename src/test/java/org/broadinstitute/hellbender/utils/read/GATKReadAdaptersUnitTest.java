@@ -9,6 +9,8 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -1525,4 +1527,58 @@ public class GATKReadAdaptersUnitTest extends GATKBaseTest {
 
     }
 
+    @Test
+    public void testFieldsOfRawBAMRecords() throws IOException {
+        final SAMFileHeader header = getSAMHeader();
+        final List<SAMRecord> records = new ArrayList<>();
+        records.add(basicSAMRecord());
+
+        final SAMRecord withTags = basicSAMRecord();
+        withTags.setReadName("with_tags");
+        withTags.setAttribute("XI", 42);
+        withTags.setAttribute("XB", new byte[]{1, 2, 3});
+        withTags.setAttribute("XF", new float[]{1.5f});
+        withTags.setAttribute("XS", "value");
+        records.add(withTags);
+
+        final SAMRecord noQualitiesOrReadGroup = basicSAMRecord();
+        noQualitiesOrReadGroup.setReadName("no_qualities");
+        noQualitiesOrReadGroup.setBaseQualities(SAMRecord.NULL_QUALS);
+        noQualitiesOrReadGroup.setAttribute(SAMTag.RG.name(), null);
+        records.add(noQualitiesOrReadGroup);
+
+        final File bam = createTempFile("rawBAMRecords", ".bam");
+        try ( final SAMFileWriter writer = new SAMFileWriterFactory().makeBAMWriter(header, true, bam) ) {
+            records.forEach(writer::addAlignment);
+        }
+
+        try ( final SamReader reader = SamReaderFactory.makeDefault().open(bam) ) {
+            int i = 0;
+            for ( final SAMRecord record : reader ) {
+                Assert.assertTrue(record instanceof BAMRecord);
+                final SAMRecord expected = records.get(i++);
+                final GATKRead read = new SAMRecordToGATKReadAdapter(record);
+
+                Assert.assertEquals(read.getReadGroup(), expected.getReadGroup() != null ? expected.getReadGroup().getId() : null);
+                Assert.assertEquals(read.hasAttribute("XI"), expected.hasAttribute("XI"));
+                Assert.assertFalse(read.hasAttribute("ZZ"));
+                Assert.assertEquals(read.getAttributeAsString("XS"), expected.getStringAttribute("XS"));
+                Assert.assertEquals(read.getLength(), expected.getReadLength());
+                Assert.assertEquals(read.getBaseQualityCount(), expected.getBaseQualities().length);
+                Assert.assertEquals(read.numCigarElements(), expected.getCigarLength());
+                // none of the above modified the record, so its raw data is still up to date
+                Assert.assertEquals(BAMRecordRawData.getCigarLength((BAMRecord) record), expected.getCigarLength());
+                Assert.assertEquals(BAMRecordRawData.getBaseQualityCount((BAMRecord) record), expected.getBaseQualities().length);
+
+                // after a modification, the decoded record is used
+                read.setReadGroup("Bar");
+                read.setAttribute("XI", (String) null);
+                Assert.assertEquals(read.getReadGroup(), "Bar");
+                Assert.assertFalse(read.hasAttribute("XI"));
+                Assert.assertEquals(read.getAttributeAsString("XS"), expected.getStringAttribute("XS"));
+                Assert.assertEquals(read.getBaseQualityCount(), expected.getBaseQualities().length);
+            }
+            Assert.assertEquals(i, records.size());
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class ParallelBlockCompressedBAMWriterUnitTest extends GATKBaseTest {
+    private static final int READ_LENGTH = 100;
+
+    private static List<SAMRecord> makeReads(final SAMFileHeader header) {
+        final Random random = new Random(42);
+        final List<SAMRecord> reads = new ArrayList<>();
+        for (int contig = 0; contig < header.getSequenceDictionary().size(); contig++) {
+            for (int start = 1; start < 200_000; start += 1 + random.nextInt(20)) {
+                final byte[] bases = new byte[READ_LENGTH];
+                final byte[] quals = new byte[READ_LENGTH];
+                for (int i = 0; i < READ_LENGTH; i++) {
+                    bases[i] = (byte) "ACGT".charAt(random.nextInt(4));
+                    quals[i] = (byte) (10 + random.nextInt(30));
+                }
+                reads.add(ArtificialReadUtils.createArtificialSAMRecord(header, "read" + reads.size(), contig, start, bases, quals));
+            }
+        }
+        return reads;
+    }
+
+    @Test
+    public void testWriteAndQueryIndexedBAM() throws IOException {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(2, 1, 1_000_000);
+        final List<SAMRecord> reads = makeReads(header);
+        final File output = createTempFile("parallelBlockCompressedBAMWriter", ".bam");
+
+        try (final SAMFileWriter writer = new ParallelBlockCompressedBAMWriter(output.toPath(), header, true, 3)) {
+            reads.forEach(writer::addAlignment);
+        }
+
+        final File index = new File(output.getParentFile(), output.getName().replaceAll("\\.bam$", ".bai"));
+        Assert.assertTrue(index.exists());
+        try (final SamReader reader = SamReaderFactory.makeDefault().open(output)) {
+            Assert.assertTrue(reader.hasIndex());
+
+            final List<SAMRecord> readBack = new ArrayList<>();
+            reader.forEach(readBack::add);
+            Assert.assertEquals(readBack.size(), reads.size());
+            for (int i = 0; i < reads.size(); i++) {
+                Assert.assertEquals(readBack.get(i).getSAMString(), reads.get(i).getSAMString());
+            }
+
+            // queries across many blocks, and of a single position
+            final int[][] queries = {{0, 1000, 150_000}, {1, 77_777, 77_777}, {1, 199_990, 300_000}};
+            for (final int[] query : queries) {
+                final String contig = header.getSequence(query[0]).getSequenceName();
+                final long expectedCount = reads.stream()
+                        .filter(read -> read.getReferenceIndex() == query[0] && read.getAlignmentStart() <= query[2] && read.getAlignmentEnd() >= query[1])
+                        .count();
+                long count = 0;
+                try (final SAMRecordIterator overlapping = reader.queryOverlapping(contig, query[1], query[2])) {
+                    while (overlapping.hasNext()) {
+                        overlapping.next();
+                        count++;
+                    }
+                }
+                Assert.assertTrue(expectedCount > 0);
+                Assert.assertEquals(count, expectedCount);
+            }
+        }
+    }
+
+    @Test
+    public void testUnindexedOutputIsNotIndexed() throws IOException {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1_000_000);
+        header.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+        final List<SAMRecord> reads = makeReads(header);
+        final File output = createTempFile("parallelBlockCompressedBAMWriter", ".bam");
+
+        try (final SAMFileWriter writer = new ParallelBlockCompressedBAMWriter(output.toPath(), header, false, 2)) {
+            reads.forEach(writer::addAlignment);
+        }
+
+        Assert.assertFalse(new File(output.getParentFile(), output.getName().replaceAll("\\.bam$", ".bai")).exists());
+        try (final SamReader reader = SamReaderFactory.makeDefault().open(output)) {
+            Assert.assertEquals(reader.getFileHeader().getSortOrder(), SAMFileHeader.SortOrder.unsorted);
+            int count = 0;
+            for (final SAMRecord read : reader) {
+                Assert.assertEquals(read.getSAMString(), reads.get(count++).getSAMString());
+            }
+            Assert.assertEquals(count, reads.size());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Alignments added out of order.*")
+    public void testRecordsOutOfOrder() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1_000_000);
+        final List<SAMRecord> reads = makeReads(header);
+        try (final SAMFileWriter writer = new ParallelBlockCompressedBAMWriter(createTempFile("parallelBlockCompressedBAMWriter", ".bam").toPath(), header, true, 2)) {
+            writer.addAlignment(reads.get(1));
+            writer.addAlignment(reads.get(0));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIndexRequiresCoordinateSortOrder() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1_000_000);
+        header.setSortOrder(SAMFileHeader.SortOrder.queryname);
+        new ParallelBlockCompressedBAMWriter(createTempFile("parallelBlockCompressedBAMWriter", ".bam").toPath(), header, true, 1);
+    }
+}
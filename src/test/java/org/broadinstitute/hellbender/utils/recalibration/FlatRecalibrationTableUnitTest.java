@@ -0,0 +1,143 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public final class FlatRecalibrationTableUnitTest extends GATKBaseTest {
+    private static final int NUM_READ_GROUPS = 3;
+    private static final int QUAL_DIMENSION = 50;
+    private static final int COVARIATE_DIMENSION = 1000;
+    private static final int NUM_EVENTS = EventType.values().length;
+
+    @DataProvider(name = "tableLayouts")
+    public Object[][] tableLayouts() {
+        return new Object[][]{
+                // dense and sparse versions of the quality score table and of a covariate table
+                {FlatRecalibrationTable.MAX_DENSE_CELLS, new int[]{NUM_READ_GROUPS, QUAL_DIMENSION, NUM_EVENTS}},
+                {0L, new int[]{NUM_READ_GROUPS, QUAL_DIMENSION, NUM_EVENTS}},
+                {FlatRecalibrationTable.MAX_DENSE_CELLS, new int[]{NUM_READ_GROUPS, QUAL_DIMENSION, COVARIATE_DIMENSION, NUM_EVENTS}},
+                {0L, new int[]{NUM_READ_GROUPS, QUAL_DIMENSION, COVARIATE_DIMENSION, NUM_EVENTS}},
+        };
+    }
+
+    /**
+     * Add the same random observations to a flat table and, the usual way, to a NestedIntegerArray
+     */
+    private static NestedIntegerArray<RecalDatum> fillTables(final FlatRecalibrationTable flatTable, final int[] dimensions, final int numObservations) {
+        final NestedIntegerArray<RecalDatum> expected = new NestedIntegerArray<>(dimensions);
+        final Random random = new Random(13);
+        for ( int n = 0; n < numObservations; n++ ) {
+            final int rg = random.nextInt(NUM_READ_GROUPS);
+            // concentrate the observations on a few cells so that most of them are incremented several times
+            final int qual = 20 + random.nextInt(5);
+            final int event = random.nextInt(NUM_EVENTS);
+            final double isError = random.nextInt(10) == 0 ? random.nextDouble() : 0.0;
+            if ( dimensions.length == 3 ) {
+                flatTable.increment(isError, rg, qual, event);
+                RecalUtils.incrementDatumOrPutIfNecessary3keys(expected, (byte) qual, isError, rg, qual, event);
+            } else {
+                final int covariate = random.nextInt(COVARIATE_DIMENSION);
+                flatTable.increment(isError, rg, qual, covariate, event);
+                RecalUtils.incrementDatumOrPutIfNecessary4keys(expected, (byte) qual, isError, rg, qual, covariate, event);
+            }
+        }
+        return expected;
+    }
+
+    private static void assertTablesEqual(final NestedIntegerArray<RecalDatum> actual, final NestedIntegerArray<RecalDatum> expected) {
+        final List<NestedIntegerArray.Leaf<RecalDatum>> expectedLeaves = expected.getAllLeaves();
+        Assert.assertEquals(actual.getAllLeaves().size(), expectedLeaves.size());
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedLeaves ) {
+            final RecalDatum datum = actual.get(leaf.keys);
+            Assert.assertNotNull(datum, "missing datum for " + Arrays.toString(leaf.keys));
+            Assert.assertEquals(datum.getNumObservations(), leaf.value.getNumObservations());
+            // the mismatches must be summed in the same way, not just approximately
+            Assert.assertEquals(datum.getNumMismatches(), leaf.value.getNumMismatches(), 0.0);
+            Assert.assertEquals(datum.getEstimatedQReported(), leaf.value.getEstimatedQReported(), 0.0);
+        }
+    }
+
+    @Test(dataProvider = "tableLayouts")
+    public void testAddToMatchesIncrementingDatums(final long maxDenseCells, final int[] dimensions) {
+        final FlatRecalibrationTable flatTable = new FlatRecalibrationTable(maxDenseCells, dimensions);
+        Assert.assertTrue(flatTable.isEmpty());
+        final NestedIntegerArray<RecalDatum> expected = fillTables(flatTable, dimensions, 20000);
+        Assert.assertFalse(flatTable.isEmpty());
+
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expected.getAllLeaves() ) {
+            Assert.assertEquals(flatTable.getNumObservations(leaf.keys), leaf.value.getNumObservations());
+            Assert.assertEquals(flatTable.getNumMismatches(leaf.keys), leaf.value.getNumMismatches(), 1e-10);
+        }
+
+        final NestedIntegerArray<RecalDatum> actual = new NestedIntegerArray<>(dimensions);
+        flatTable.addTo(actual);
+        assertTablesEqual(actual, expected);
+    }
+
+    @Test(dataProvider = "tableLayouts")
+    public void testAddToExistingDatums(final long maxDenseCells, final int[] dimensions) {
+        final FlatRecalibrationTable flatTable = new FlatRecalibrationTable(maxDenseCells, dimensions);
+        final NestedIntegerArray<RecalDatum> expected = fillTables(flatTable, dimensions, 5000);
+
+        final NestedIntegerArray<RecalDatum> actual = new NestedIntegerArray<>(dimensions);
+        flatTable.addTo(actual);
+        flatTable.addTo(actual);
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expected.getAllLeaves() ) {
+            final RecalDatum datum = actual.get(leaf.keys);
+            Assert.assertEquals(datum.getNumObservations(), 2 * leaf.value.getNumObservations());
+            Assert.assertEquals(datum.getNumMismatches(), 2 * leaf.value.getNumMismatches(), 1e-10);
+        }
+    }
+
+    @Test(dataProvider = "tableLayouts")
+    public void testClear(final long maxDenseCells, final int[] dimensions) {
+        final FlatRecalibrationTable flatTable = new FlatRecalibrationTable(maxDenseCells, dimensions);
+        final NestedIntegerArray<RecalDatum> expected = fillTables(flatTable, dimensions, 1000);
+        flatTable.clear();
+        Assert.assertTrue(flatTable.isEmpty());
+        Assert.assertEquals(flatTable.getNumObservations(expected.getAllLeaves().get(0).keys), 0L);
+
+        final NestedIntegerArray<RecalDatum> actual = new NestedIntegerArray<>(dimensions);
+        flatTable.addTo(actual);
+        Assert.assertTrue(actual.getAllLeaves().isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testKeyOutOfRange() {
+        new FlatRecalibrationTable(NUM_READ_GROUPS, QUAL_DIMENSION, NUM_EVENTS).increment(0.0, NUM_READ_GROUPS, 0, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWrongNumberOfKeys() {
+        new FlatRecalibrationTable(NUM_READ_GROUPS, QUAL_DIMENSION, NUM_EVENTS).increment(0.0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testPendingCountsAreAddedToRecalibrationTables() {
+        final StandardCovariateList covariates = new StandardCovariateList(new RecalibrationArgumentCollection(), Arrays.asList("rg0", "rg1"));
+        final RecalibrationTables tables = new RecalibrationTables(covariates, 2);
+        Assert.assertTrue(tables.isEmpty());
+
+        tables.getPendingCounts(1).increment(1.0, 1, 30, EventType.BASE_SUBSTITUTION.ordinal());
+        tables.getPendingCounts(2).increment(0.0, 1, 30, 7, EventType.BASE_SUBSTITUTION.ordinal());
+
+        final RecalDatum qualDatum = tables.getQualityScoreTable().get3Keys(1, 30, EventType.BASE_SUBSTITUTION.ordinal());
+        Assert.assertEquals(qualDatum.getNumObservations(), 1L);
+        Assert.assertEquals(qualDatum.getNumMismatches(), 1.0);
+        Assert.assertEquals(qualDatum.getEstimatedQReported(), 30.0);
+        Assert.assertEquals(tables.getTable(2).get4Keys(1, 30, 7, EventType.BASE_SUBSTITUTION.ordinal()).getNumObservations(), 1L);
+        Assert.assertFalse(tables.isEmpty());
+
+        // counts added after the tables have been read are not lost
+        tables.getPendingCounts(1).increment(0.0, 1, 30, EventType.BASE_SUBSTITUTION.ordinal());
+        Assert.assertEquals(tables.getQualityScoreTable().get3Keys(1, 30, EventType.BASE_SUBSTITUTION.ordinal()).getNumObservations(), 2L);
+    }
+}
@@ -98,6 +98,15 @@ public class TwoBitReferenceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "queryIntervals")
+    public void testQueryValidSubintervalMemoryMapped(final SimpleInterval queryInterval) {
+        try ( final ReferenceDataSource fastaReader = ReferenceDataSource.of(largeFasta.toPath(), false);
+              final TwoBitReference twoBitReader = new TwoBitReference(largeTwoBit, false, true) ) {
+
+            compareTwoBitAndFastaQueryResults(fastaReader, twoBitReader, queryInterval);
+        }
+    }
+
     private void compareTwoBitAndFastaQueryResults( final ReferenceDataSource fastaReader, final TwoBitReference twoBitReader, final SimpleInterval queryInterval ) {
         final ReferenceSequence fastaSequence = fastaReader.queryAndPrefetch(queryInterval);
         final ReferenceSequence twoBitSequence = twoBitReader.getReferenceBases(queryInterval);
@@ -171,6 +180,16 @@ public class TwoBitReferenceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "maskedTestIntervals")
+    public void testMaskedBasesMemoryMapped(final SimpleInterval testInterval, final String expectedBases) {
+        try ( final TwoBitReference twoBitReader = new TwoBitReference(maskedTwoBitTest, true, true) ) {
+            final byte[] twoBitBases = twoBitReader.getReferenceBases(testInterval).getBases();
+
+            Assert.assertEquals(twoBitBases, expectedBases.getBytes(StandardCharsets.US_ASCII),
+                    "Wrong bases returned from query on memory-mapped 2bit reference. Actual: " + new String(twoBitBases) + " Expected: " + expectedBases);
+        }
+    }
+
     @Test
     public void testMaskedReferenceWithUppercasing() {
         final SimpleInterval testInterval = new SimpleInterval("chrMaskTest", 1, 180);
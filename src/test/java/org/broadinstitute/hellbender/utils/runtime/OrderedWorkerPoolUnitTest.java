@@ -0,0 +1,73 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class OrderedWorkerPoolUnitTest extends GATKBaseTest {
+
+    /**
+     * A worker that fails the test if it is used by two threads at once
+     */
+    private static final class Worker {
+        private final AtomicInteger users = new AtomicInteger();
+
+        private int square(final int n) throws InterruptedException {
+            Assert.assertEquals(users.incrementAndGet(), 1, "worker used by more than one thread");
+            // later tasks tend to finish first
+            Thread.sleep(n % 3 == 0 ? 2 : 0);
+            users.decrementAndGet();
+            return n * n;
+        }
+    }
+
+    @Test
+    public void testResultsAreInSubmissionOrder() throws InterruptedException {
+        final List<Worker> workers = Arrays.asList(new Worker(), new Worker(), new Worker());
+        final List<Integer> results = new ArrayList<>();
+        try ( final OrderedWorkerPool<Worker, Integer> pool = new OrderedWorkerPool<>("test-thread-%d", "testing", workers, 5) ) {
+            for ( int n = 0; n < 200; n++ ) {
+                while ( pool.isFull() ) {
+                    results.add(pool.takeResult());
+                }
+                final int value = n;
+                pool.submit(worker -> worker.square(value));
+                while ( pool.isNextResultReady() ) {
+                    results.add(pool.takeResult());
+                }
+            }
+            while ( pool.hasPendingTasks() ) {
+                results.add(pool.takeResult());
+            }
+        }
+
+        Assert.assertEquals(results.size(), 200);
+        for ( int n = 0; n < results.size(); n++ ) {
+            Assert.assertEquals(results.get(n).intValue(), n * n);
+        }
+    }
+
+    @Test
+    public void testAddedResultsAndFailures() throws InterruptedException {
+        try ( final OrderedWorkerPool<Worker, Integer> pool = new OrderedWorkerPool<>("test-thread-%d", "testing", Arrays.asList(new Worker()), 4) ) {
+            pool.submit(worker -> worker.square(3));
+            pool.addResult(-1);
+            pool.addFailure(new IllegalStateException("expected"));
+            pool.submit(worker -> { throw new IOException("checked"); });
+
+            Assert.assertEquals(pool.takeResult().intValue(), 9);
+            Assert.assertEquals(pool.takeResult().intValue(), -1);
+            Assert.assertThrows(IllegalStateException.class, pool::takeResult);
+            // checked exceptions are wrapped
+            Assert.assertThrows(GATKException.class, pool::takeResult);
+            Assert.assertFalse(pool.hasPendingTasks());
+        }
+    }
+}
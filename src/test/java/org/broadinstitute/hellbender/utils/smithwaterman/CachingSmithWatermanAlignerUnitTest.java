@@ -0,0 +1,139 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Runs all the aligner tests through a cache, which must not change any alignment, and tests the cache itself
+ */
+public final class CachingSmithWatermanAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+    private static final SWParameters PARAMETERS = SmithWatermanAlignmentConstants.NEW_SW_PARAMETERS;
+
+    private static final byte[] REFERENCE = "AAAGGACTGACTGACTGACTGACTGACTGACTGACTGCCCCCTTTT".getBytes();
+    private static final byte[] HAPLOTYPE = "GACTGACTGACTGACTGAATGACTGACTGACTGCCCC".getBytes();
+
+    @Override
+    protected SmithWatermanAligner getAligner() {
+        return new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), new SmithWatermanAlignmentCache(1000, null));
+    }
+
+    private static void assertSameAlignment(final SmithWatermanAlignment actual, final SmithWatermanAlignment expected) {
+        Assert.assertEquals(actual.getCigar(), expected.getCigar());
+        Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset());
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        final SmithWatermanAlignmentCache cache = new SmithWatermanAlignmentCache(10, null);
+        final SmithWatermanAligner aligner = new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), cache);
+        final SmithWatermanAlignment expected = SmithWatermanJavaAligner.getInstance().align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+
+        assertSameAlignment(aligner.align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP), expected);
+        assertSameAlignment(aligner.align(REFERENCE.clone(), HAPLOTYPE.clone(), PARAMETERS, SWOverhangStrategy.SOFTCLIP), expected);
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getHitRate(), 0.5);
+
+        // any difference in the parameters or the overhang strategy is a different alignment
+        aligner.align(REFERENCE, HAPLOTYPE, SmithWatermanAlignmentConstants.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP);
+        aligner.align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.INDEL);
+        Assert.assertEquals(cache.getMisses(), 3);
+        Assert.assertEquals(cache.size(), 3);
+    }
+
+    @Test
+    public void testReturnedCigarCanBeModified() {
+        final SmithWatermanAlignmentCache cache = new SmithWatermanAlignmentCache(10, null);
+        final SmithWatermanAligner aligner = new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), cache);
+        final SmithWatermanAlignment expected = SmithWatermanJavaAligner.getInstance().align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+
+        aligner.align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        aligner.align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP).getCigar().add(new CigarElement(5, CigarOperator.S));
+        assertSameAlignment(aligner.align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP), expected);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAlignmentIsEvicted() {
+        final SmithWatermanAlignmentCache cache = new SmithWatermanAlignmentCache(2, null);
+        final SmithWatermanAligner aligner = new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), cache);
+        final byte[] first = "GACTGACTGACTGACTG".getBytes();
+        final byte[] second = "TGACTGACTGCCCC".getBytes();
+        final byte[] third = "GGACTGACTGA".getBytes();
+
+        aligner.align(REFERENCE, first, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        aligner.align(REFERENCE, second, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        // use the first alignment again, so that the second one is the least recently used
+        aligner.align(REFERENCE, first, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        aligner.align(REFERENCE, third, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.getEvictions(), 1);
+
+        final long hits = cache.getHits();
+        aligner.align(REFERENCE, first, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        Assert.assertEquals(cache.getHits(), hits + 1);
+        aligner.align(REFERENCE, second, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        Assert.assertEquals(cache.getHits(), hits + 1);
+    }
+
+    @Test
+    public void testCacheFileRoundTrip() throws IOException {
+        final File cacheFile = createTempFile("testCacheFileRoundTrip", ".swcache");
+        Assert.assertTrue(cacheFile.delete());
+
+        final SmithWatermanAlignment expected;
+        try ( final SmithWatermanAlignmentCache cache = new SmithWatermanAlignmentCache(10, cacheFile.toPath()) ) {
+            expected = new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), cache)
+                    .align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        }
+        Assert.assertTrue(cacheFile.exists());
+
+        try ( final SmithWatermanAlignmentCache cache = new SmithWatermanAlignmentCache(10, cacheFile.toPath()) ) {
+            Assert.assertEquals(cache.size(), 1);
+            assertSameAlignment(new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), cache)
+                    .align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP), expected);
+            Assert.assertEquals(cache.getHits(), 1);
+            Assert.assertEquals(cache.getMisses(), 0);
+        }
+    }
+
+    @Test
+    public void testRunsSharingACacheFile() throws IOException {
+        final File dir = createTempDir("testRunsSharingACacheFile");
+        final File cacheFile = new File(dir, "shared.swcache");
+
+        // both runs start before either has saved the cache
+        final SmithWatermanAlignmentCache first = new SmithWatermanAlignmentCache(10, cacheFile.toPath());
+        final SmithWatermanAlignmentCache second = new SmithWatermanAlignmentCache(10, cacheFile.toPath());
+        new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), first).align(REFERENCE, HAPLOTYPE, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        new CachingSmithWatermanAligner(SmithWatermanJavaAligner.getInstance(), second).align(HAPLOTYPE, REFERENCE, PARAMETERS, SWOverhangStrategy.SOFTCLIP);
+        first.close();
+        second.close();
+
+        // the last run to finish replaces the cache, and no temporary file is left behind
+        Assert.assertEquals(dir.list(), new String[] {cacheFile.getName()});
+        try ( final SmithWatermanAlignmentCache cache = new SmithWatermanAlignmentCache(10, cacheFile.toPath()) ) {
+            Assert.assertEquals(cache.size(), 1);
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testInvalidCacheFile() throws IOException {
+        final File cacheFile = createTempFile("testInvalidCacheFile", ".swcache");
+        Files.write(cacheFile.toPath(), "not a cache".getBytes());
+        new SmithWatermanAlignmentCache(10, cacheFile.toPath());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        new SmithWatermanAlignmentCache(0, null);
+    }
+}
@@ -0,0 +1,119 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.codecs.VCFLineRetainingCodec;
+import org.broadinstitute.hellbender.utils.variant.OriginalLineVariantContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class PassThroughVCFWriterUnitTest extends GATKBaseTest {
+    private static final String HEADER = String.join("\n",
+            "##fileformat=VCFv4.2",
+            "##INFO=<ID=AC,Number=A,Type=Integer,Description=\"Allele count\">",
+            "##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">",
+            "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">",
+            "##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">",
+            "##contig=<ID=1,length=1000>",
+            "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\ts1\ts2") + "\n";
+
+    // the QUAL and the order of the INFO fields differ from what the encoder would write
+    private static final String RECORD1 = "1\t100\trs1\tA\tC\t50.00\tPASS\tDP=30;AC=1\tGT:DP\t0/1:15\t0/0:15";
+    private static final String RECORD2 = "1\t200\t.\tG\tT\t20.00\tPASS\tDP=10;AC=2\tGT:DP\t1/1:4\t0/1:6";
+
+    private static VCFLineRetainingCodec makeCodec(final String header) {
+        final VCFLineRetainingCodec codec = new VCFLineRetainingCodec(new VCFCodec());
+        codec.readActualHeader(new LineIteratorImpl(new SynchronousLineReader(new StringReader(header))));
+        return codec;
+    }
+
+    private static VCFHeader readHeader(final String header) {
+        return (VCFHeader) new VCFCodec().readActualHeader(new LineIteratorImpl(new SynchronousLineReader(new StringReader(header))));
+    }
+
+    private Path write(final VCFHeader header, final VariantContext... variants) {
+        final Path output = Paths.get(createTempDir("passThroughVCFWriter").getAbsolutePath(), "output.vcf.gz");
+        try (final PassThroughVCFWriter writer = new PassThroughVCFWriter(output, header.getSequenceDictionary(), false)) {
+            writer.writeHeader(header);
+            for (final VariantContext vc : variants) {
+                writer.add(vc);
+            }
+        }
+        return output;
+    }
+
+    private static List<String> readRecords(final Path output) throws IOException {
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new BlockCompressedInputStream(output.toFile())))) {
+            return reader.lines().filter(line -> !line.startsWith("#")).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testCodecRetainsLines() {
+        final VariantContext vc = makeCodec(HEADER).decode(RECORD1);
+        Assert.assertTrue(vc instanceof OriginalLineVariantContext);
+        Assert.assertEquals(((OriginalLineVariantContext) vc).getOriginalLine(), RECORD1);
+        Assert.assertEquals(((OriginalLineVariantContext) vc).getOriginalSamples(), Arrays.asList("s1", "s2"));
+        Assert.assertEquals(vc.getID(), "rs1");
+        Assert.assertEquals(vc.getGenotype("s1").getDP(), 15);
+
+        // modified records are plain variants
+        Assert.assertFalse(new VariantContextBuilder(vc).make() instanceof OriginalLineVariantContext);
+    }
+
+    @Test
+    public void testCodecDoesNotRetainLinesOfOtherVersions() {
+        final VCFLineRetainingCodec codec = makeCodec(HEADER.replace("VCFv4.2", "VCFv4.3"));
+        Assert.assertFalse(codec.decode(RECORD1) instanceof OriginalLineVariantContext);
+        Assert.assertFalse(new VCFLineRetainingCodec().canDecode("test.vcf"));
+    }
+
+    @Test
+    public void testUnmodifiedRecordsAreCopied() throws IOException {
+        final VCFLineRetainingCodec codec = makeCodec(HEADER);
+        final Path output = write(readHeader(HEADER), codec.decode(RECORD1), codec.decode(RECORD2));
+        Assert.assertEquals(readRecords(output), Arrays.asList(RECORD1, RECORD2));
+        Assert.assertTrue(Files.exists(Paths.get(output + ".tbi")));
+    }
+
+    @Test
+    public void testModifiedRecordsAreEncoded() throws IOException {
+        final VCFLineRetainingCodec codec = makeCodec(HEADER);
+        final VariantContext modified = new VariantContextBuilder(codec.decode(RECORD1)).attribute("DP", 31).make();
+        final Path output = write(readHeader(HEADER), modified, codec.decode(RECORD2));
+        Assert.assertEquals(readRecords(output), Arrays.asList(
+                "1\t100\trs1\tA\tC\t50\tPASS\tAC=1;DP=31\tGT:DP\t0/1:15\t0/0:15",
+                RECORD2));
+    }
+
+    @Test
+    public void testRecordsWithOtherSamplesAreEncoded() throws IOException {
+        final VCFLineRetainingCodec codec = makeCodec(HEADER);
+        final VariantContext vc = codec.decode(RECORD1);
+        // the output header has the samples in another order, so the original line can't be copied
+        final Path output = write(readHeader(HEADER.replace("s1\ts2", "s2\ts1")), vc);
+        Assert.assertEquals(readRecords(output), Arrays.asList("1\t100\trs1\tA\tC\t50\tPASS\tAC=1;DP=30\tGT:DP\t0/0:15\t0/1:15"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsUncompressedOutput() {
+        new PassThroughVCFWriter(Paths.get(createTempDir("passThroughVCFWriter").getAbsolutePath(), "output.vcf"), null, false);
+    }
+}
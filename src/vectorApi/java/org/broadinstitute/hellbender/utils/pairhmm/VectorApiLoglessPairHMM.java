@@ -0,0 +1,256 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+
+import java.util.Arrays;
+
+import static org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel.*;
+
+/**
+ * Portable SIMD version of {@link LoglessPairHMM} written against the Java Vector API ({@code jdk.incubator.vector}).
+ *
+ * Like the native AVX implementation, the matrices are swept one anti-diagonal at a time (every cell of an
+ * anti-diagonal only depends on the two previous anti-diagonals, so all of them can be computed in parallel) in single
+ * precision, with one SIMD lane per read position. Only the three last anti-diagonals of each matrix are kept. If the
+ * single precision result underflows, the likelihood is computed again in double precision by {@link LoglessPairHMM}.
+ *
+ * This class lives in its own source set because javac warns about the use of incubator modules, and must be
+ * instantiated through {@link PairHMM.Implementation#VECTOR_API_LOGLESS_CACHING}. The JVM must be started with
+ * {@code --add-modules jdk.incubator.vector} for it to be available.
+ */
+public final class VectorApiLoglessPairHMM extends LoglessPairHMM {
+    private static final Logger logger = LogManager.getLogger(VectorApiLoglessPairHMM.class);
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    /**
+     * With fewer lanes than this the Vector API is either not intrinsified or slower than the scalar code
+     */
+    private static final int MIN_LANES = 4;
+
+    // same scaling and underflow threshold as the native single precision implementation
+    static final float INITIAL_CONDITION_FLOAT = 0x1p120f;
+    static final double INITIAL_CONDITION_FLOAT_LOG10 = Math.log10(INITIAL_CONDITION_FLOAT);
+    static final float MIN_ACCEPTED = 1e-28f;
+
+    private static final float N_BASE = 'N';
+
+    private final boolean useDoublePrecision;
+
+    // per read values indexed by (1-based) row; row 0 is unused
+    private float[] readBaseCodes = new float[0];
+    private float[] matchPriors = new float[0];
+    private float[] mismatchPriors = new float[0];
+    private float[] matchToMatchProbs = new float[0];
+    private float[] indelToMatchProbs = new float[0];
+    private float[] matchToInsertionProbs = new float[0];
+    private float[] insertionToInsertionProbs = new float[0];
+    private float[] matchToDeletionProbs = new float[0];
+    private float[] deletionToDeletionProbs = new float[0];
+    private double[] transitionScratch = new double[0];
+    private boolean readValuesAreCached = false;
+
+    private float[] reversedHaplotype = new float[0];
+
+    // the three last anti-diagonals of each matrix, indexed by row
+    private final float[][] matchDiagonals = new float[3][0];
+    private final float[][] insertionDiagonals = new float[3][0];
+    private final float[][] deletionDiagonals = new float[3][0];
+
+    private long singlePrecisionCount = 0;
+    private long doublePrecisionCount = 0;
+
+    /**
+     * Create a VectorApiLoglessPairHMM
+     *
+     * @param args arguments shared with the native implementations; only {@code useDoublePrecision} is honored. May be {@code null}.
+     * @throws UserException.HardwareFeatureException if the platform doesn't have wide enough SIMD registers
+     */
+    public VectorApiLoglessPairHMM(final PairHMMNativeArguments args) {
+        if ( LANES < MIN_LANES ) {
+            throw new UserException.HardwareFeatureException("The Java Vector API only provides " + LANES +
+                    " single precision lanes on this machine, at least " + MIN_LANES + " are needed for the vectorized PairHMM");
+        }
+        useDoublePrecision = args != null && args.useDoublePrecision;
+        logger.debug("Using " + SPECIES + " for the Java Vector API PairHMM");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+
+        // pad everything by a full vector so that loads never need to be masked
+        final int rowCapacity = paddedMaxReadLength + LANES;
+        if ( matchPriors.length < rowCapacity ) {
+            readBaseCodes = new float[rowCapacity];
+            matchPriors = new float[rowCapacity];
+            mismatchPriors = new float[rowCapacity];
+            matchToMatchProbs = new float[rowCapacity];
+            indelToMatchProbs = new float[rowCapacity];
+            matchToInsertionProbs = new float[rowCapacity];
+            insertionToInsertionProbs = new float[rowCapacity];
+            matchToDeletionProbs = new float[rowCapacity];
+            deletionToDeletionProbs = new float[rowCapacity];
+            transitionScratch = new double[paddedMaxReadLength * TRANS_PROB_ARRAY_LENGTH];
+            for ( int k = 0; k < 3; k++ ) {
+                matchDiagonals[k] = new float[rowCapacity];
+                insertionDiagonals[k] = new float[rowCapacity];
+                deletionDiagonals[k] = new float[rowCapacity];
+            }
+        }
+        if ( reversedHaplotype.length < haplotypeMaxLength + LANES ) {
+            reversedHaplotype = new float[haplotypeMaxLength + LANES];
+        }
+        readValuesAreCached = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double subComputeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                               final byte[] readBases,
+                                                               final byte[] readQuals,
+                                                               final byte[] insertionGOP,
+                                                               final byte[] deletionGOP,
+                                                               final byte[] overallGCP,
+                                                               final int hapStartIndex,
+                                                               final boolean recacheReadValues,
+                                                               final int nextHapStartIndex) {
+        if ( useDoublePrecision ) {
+            return super.subComputeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insertionGOP,
+                    deletionGOP, overallGCP, hapStartIndex, recacheReadValues, nextHapStartIndex);
+        }
+
+        if ( recacheReadValues || !readValuesAreCached ) {
+            cacheReadValues(readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+        }
+        final float sum = computeSinglePrecisionSum(haplotypeBases, readBases.length);
+        if ( sum >= MIN_ACCEPTED ) {
+            singlePrecisionCount++;
+            // rounding may push an (almost) certain alignment slightly above 1
+            return Math.min(0.0, Math.log10(sum) - INITIAL_CONDITION_FLOAT_LOG10);
+        }
+
+        // the double precision matrices have not been kept up to date with the previous haplotypes, so nothing can be reused
+        doublePrecisionCount++;
+        previousHaplotypeBases = null;
+        return super.subComputeReadLikelihoodGivenHaplotypeLog10(haplotypeBases, readBases, readQuals, insertionGOP,
+                deletionGOP, overallGCP, 0, true, nextHapStartIndex);
+    }
+
+    private void cacheReadValues(final byte[] readBases, final byte[] readQuals, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        PairHMMModel.qualToTransProbs(transitionScratch, insertionGOP, deletionGOP, overallGCP);
+        for ( int i = 1; i <= readBases.length; i++ ) {
+            final int t = i * TRANS_PROB_ARRAY_LENGTH;
+            matchToMatchProbs[i] = (float) transitionScratch[t + matchToMatch];
+            indelToMatchProbs[i] = (float) transitionScratch[t + indelToMatch];
+            matchToInsertionProbs[i] = (float) transitionScratch[t + matchToInsertion];
+            insertionToInsertionProbs[i] = (float) transitionScratch[t + insertionToInsertion];
+            matchToDeletionProbs[i] = (float) transitionScratch[t + matchToDeletion];
+            deletionToDeletionProbs[i] = (float) transitionScratch[t + deletionToDeletion];
+
+            final byte qual = readQuals[i - 1];
+            readBaseCodes[i] = readBases[i - 1];
+            matchPriors[i] = (float) QualityUtils.qualToProb(qual);
+            mismatchPriors[i] = (float) (QualityUtils.qualToErrorProb(qual) / (doNotUseTristateCorrection ? 1.0 : TRISTATE_CORRECTION));
+        }
+        readValuesAreCached = true;
+    }
+
+    /**
+     * Sweep the matrices one anti-diagonal at a time.
+     *
+     * Anti-diagonal {@code d} holds the cells {@code (i, d - i)}; the value of row {@code i} is stored at index
+     * {@code i} of the diagonal arrays so that the up/left/diagonal neighbours of a vector of cells are all contiguous.
+     *
+     * @return the sum of the last row of the match and insertion matrices, scaled by {@link #INITIAL_CONDITION_FLOAT}
+     */
+    private float computeSinglePrecisionSum(final byte[] haplotypeBases, final int readLength) {
+        final int hapLength = haplotypeBases.length;
+        for ( int j = 0; j < hapLength; j++ ) {
+            reversedHaplotype[hapLength - 1 - j] = haplotypeBases[j];
+        }
+
+        // row 0 is the first row of the matrices (free deletions at the beginning of the haplotype), and every other
+        // row starts out as column 0, which must be 0; rows are only overwritten once they're inside the matrices
+        final float initialDeletion = INITIAL_CONDITION_FLOAT / hapLength;
+        final int rowsToClear = readLength + LANES + 1;
+        for ( int k = 0; k < 3; k++ ) {
+            Arrays.fill(matchDiagonals[k], 0, rowsToClear, 0.0f);
+            Arrays.fill(insertionDiagonals[k], 0, rowsToClear, 0.0f);
+            Arrays.fill(deletionDiagonals[k], 0, rowsToClear, 0.0f);
+            deletionDiagonals[k][0] = initialDeletion;
+        }
+
+        float sum = 0.0f;
+        int previousPrevious = 0, previous = 1, current = 2;
+        for ( int d = 2; d <= readLength + hapLength; d++ ) {
+            final float[] matchPP = matchDiagonals[previousPrevious], insertionPP = insertionDiagonals[previousPrevious], deletionPP = deletionDiagonals[previousPrevious];
+            final float[] matchP = matchDiagonals[previous], insertionP = insertionDiagonals[previous], deletionP = deletionDiagonals[previous];
+            final float[] matchC = matchDiagonals[current], insertionC = insertionDiagonals[current], deletionC = deletionDiagonals[current];
+
+            final int firstRow = Math.max(1, d - hapLength);
+            final int rowEnd = Math.min(readLength, d - 1) + 1;
+            final int hapOffset = hapLength - d;
+            for ( int i = firstRow; i < rowEnd; i += LANES ) {
+                final FloatVector readBase = FloatVector.fromArray(SPECIES, readBaseCodes, i);
+                final FloatVector hapBase = FloatVector.fromArray(SPECIES, reversedHaplotype, hapOffset + i);
+                final VectorMask<Float> isMatch = readBase.eq(hapBase).or(readBase.eq(N_BASE)).or(hapBase.eq(N_BASE));
+                final FloatVector prior = FloatVector.fromArray(SPECIES, mismatchPriors, i)
+                        .blend(FloatVector.fromArray(SPECIES, matchPriors, i), isMatch);
+
+                final FloatVector indelToMatch = FloatVector.fromArray(SPECIES, indelToMatchProbs, i);
+                final FloatVector match = FloatVector.fromArray(SPECIES, matchPP, i - 1).mul(FloatVector.fromArray(SPECIES, matchToMatchProbs, i))
+                        .add(FloatVector.fromArray(SPECIES, insertionPP, i - 1).mul(indelToMatch))
+                        .add(FloatVector.fromArray(SPECIES, deletionPP, i - 1).mul(indelToMatch))
+                        .mul(prior);
+                final FloatVector insertion = FloatVector.fromArray(SPECIES, matchP, i - 1).mul(FloatVector.fromArray(SPECIES, matchToInsertionProbs, i))
+                        .add(FloatVector.fromArray(SPECIES, insertionP, i - 1).mul(FloatVector.fromArray(SPECIES, insertionToInsertionProbs, i)));
+                final FloatVector deletion = FloatVector.fromArray(SPECIES, matchP, i).mul(FloatVector.fromArray(SPECIES, matchToDeletionProbs, i))
+                        .add(FloatVector.fromArray(SPECIES, deletionP, i).mul(FloatVector.fromArray(SPECIES, deletionToDeletionProbs, i)));
+
+                if ( i + LANES <= rowEnd ) {
+                    match.intoArray(matchC, i);
+                    insertion.intoArray(insertionC, i);
+                    deletion.intoArray(deletionC, i);
+                } else {
+                    // rows past the end of the anti-diagonal must keep their column 0 / stale values
+                    final VectorMask<Float> inRange = SPECIES.indexInRange(i, rowEnd);
+                    match.intoArray(matchC, i, inRange);
+                    insertion.intoArray(insertionC, i, inRange);
+                    deletion.intoArray(deletionC, i, inRange);
+                }
+            }
+
+            // we ignore all paths that ended in deletions, as in LoglessPairHMM
+            if ( d > readLength ) {
+                sum += matchC[readLength] + insertionC[readLength];
+            }
+
+            final int recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return sum;
+    }
+
+    @Override
+    public void close() {
+        logger.debug(String.format("Java Vector API PairHMM: %d likelihoods computed in single precision, %d in double precision",
+                singlePrecisionCount, doublePrecisionCount));
+        super.close();
+    }
+}